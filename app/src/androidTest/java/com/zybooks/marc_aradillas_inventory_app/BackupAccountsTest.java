@@ -0,0 +1,137 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * BackupAccountsTest:
+ * - Checks a backup with accounts holds only the signed-in account, and that restoring
+ *   one updates only that account: other accounts, including ones the backup predates
+ *   or lists (older backups held every user), are never rewritten or deleted.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BackupAccountsTest {
+
+    private static final String DATABASE_NAME = "backup-accounts-test.db";
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    private DatabaseHelper helper;
+    private File backup;
+    private long aliceId;
+    private long bobId;
+
+    @Before
+    public void setUp() throws IOException {
+        context.deleteDatabase(DATABASE_NAME);
+        helper = new DatabaseHelper(context, DATABASE_NAME);
+        helper.setPasswordIterations(1); // The KDF's cost is not under test
+        Assert.assertTrue(helper.addUser("alice", "alice-pw"));
+        Assert.assertTrue(helper.addUser("bob", "bob-pw"));
+        aliceId = helper.authenticateUser("alice", "alice-pw");
+        bobId = helper.authenticateUser("bob", "bob-pw");
+        helper.setOwner(aliceId);
+        helper.addItem("bolt", 3);
+        backup = File.createTempFile("accounts", ".gz", context.getCacheDir());
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DATABASE_NAME);
+        backup.delete();
+    }
+
+    @Test
+    public void backupHoldsOnlyTheOwnersAccount() throws IOException {
+        try (FileChannel out = FileChannel.open(backup.toPath(), StandardOpenOption.WRITE)) {
+            InventoryBackup.Stats stats = helper.exportBackup(out, true);
+            Assert.assertEquals(1, stats.items);
+            Assert.assertEquals(1, stats.users);
+        }
+    }
+
+    @Test
+    public void restoreLeavesOtherAccountsAlone() throws IOException {
+        try (FileChannel out = FileChannel.open(backup.toPath(), StandardOpenOption.WRITE)) {
+            helper.exportBackup(out, true);
+        }
+        Assert.assertTrue(helper.addUser("carol", "carol-pw")); // Created after the backup
+
+        restore();
+
+        Assert.assertEquals(aliceId, helper.authenticateUser("alice", "alice-pw"));
+        Assert.assertEquals(bobId, helper.authenticateUser("bob", "bob-pw"));
+        Assert.assertNotEquals(-1, helper.authenticateUser("carol", "carol-pw"));
+        Assert.assertEquals(3, countUsers());
+    }
+
+    @Test
+    public void restoreAppliesOnlyTheOwnersRecordFromAnAllUsersBackup() throws IOException {
+        String bobHash = passwordHash(bobId);
+        try (FileChannel out = FileChannel.open(backup.toPath(), StandardOpenOption.WRITE);
+             InventoryBackup.Writer writer = new InventoryBackup.Writer(out, true)) {
+            writer.writeItem(1, "bolt", 3, null, null);
+            writer.writeUser(aliceId, "alice", bobHash); // Alice's password as of the backup
+            writer.writeUser(bobId, "bob", "stale-hash");
+            writer.writeUser(bobId + 100, "mallory", bobHash);
+            writer.finish();
+        }
+
+        restore();
+
+        Assert.assertEquals(aliceId, helper.authenticateUser("alice", "bob-pw"));
+        Assert.assertEquals(bobId, helper.authenticateUser("bob", "bob-pw"));
+        Assert.assertEquals(-1, helper.authenticateUser("mallory", "bob-pw"));
+        Assert.assertEquals(2, countUsers());
+    }
+
+    @Test
+    public void restoreSkipsAUsernameAnotherAccountHas() throws IOException {
+        try (FileChannel out = FileChannel.open(backup.toPath(), StandardOpenOption.WRITE);
+             InventoryBackup.Writer writer = new InventoryBackup.Writer(out, true)) {
+            writer.writeItem(1, "bolt", 3, null, null);
+            writer.writeUser(aliceId, "bob", passwordHash(aliceId));
+            writer.finish();
+        }
+
+        restore();
+
+        Assert.assertEquals(aliceId, helper.authenticateUser("alice", "alice-pw"));
+        Assert.assertEquals(bobId, helper.authenticateUser("bob", "bob-pw"));
+    }
+
+    private void restore() throws IOException {
+        try (FileChannel in = FileChannel.open(backup.toPath(), StandardOpenOption.READ)) {
+            helper.restoreBackup(in, true);
+        }
+    }
+
+    private int countUsers() {
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM users", null)) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+
+    private String passwordHash(long userId) {
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery(
+                "SELECT password FROM users WHERE user_id = ?", new String[]{String.valueOf(userId)})) {
+            Assert.assertTrue(cursor.moveToFirst());
+            return cursor.getString(0);
+        }
+    }
+}
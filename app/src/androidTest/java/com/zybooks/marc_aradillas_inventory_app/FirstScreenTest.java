@@ -0,0 +1,113 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FirstScreenTest:
+ * - Seeds inventories of several sizes and times the ways the dashboard can get its first
+ *   screen of rows at launch: loading every item, opening the database and querying the
+ *   first page, and mapping the first page snapshot.
+ * - Reports the timings in logcat (tag FirstScreenTest) and the instrumentation output.
+ *   The drawn frame itself is reported by MainActivity (tag MainActivity).
+ * - Checks the snapshot holds exactly the first page the database returns.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FirstScreenTest {
+
+    private static final String TAG = "FirstScreenTest";
+    private static final String DATABASE_NAME = "first-screen-test.db";
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    private final File snapshotFile = new File(context.getCacheDir(), FirstPageSnapshot.FILE_NAME);
+    private DatabaseHelper helper;
+
+    @After
+    public void tearDown() {
+        if (helper != null) {
+            helper.close();
+        }
+        context.deleteDatabase(DATABASE_NAME);
+        snapshotFile.delete();
+    }
+
+    @Test
+    public void smallInventory() throws IOException {
+        measureFirstScreen(1_000);
+    }
+
+    @Test
+    public void largeInventory() throws IOException {
+        measureFirstScreen(100_000);
+    }
+
+    @Test
+    public void veryLargeInventory() throws IOException {
+        measureFirstScreen(500_000);
+    }
+
+    private void measureFirstScreen(int rows) throws IOException {
+        seed(rows);
+
+        // A new helper each time so every path starts from a closed database
+        long start = SystemClock.elapsedRealtimeNanos();
+        helper = new DatabaseHelper(context, DATABASE_NAME);
+        List<Item> all = helper.getAllItems();
+        long fullLoadUs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000;
+        helper.close();
+        Assert.assertEquals(rows, all.size());
+        all = null;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        helper = new DatabaseHelper(context, DATABASE_NAME);
+        List<Item> firstPage = helper.getItemsAfter(0, Integer.MAX_VALUE, PagedItemList.PAGE_SIZE);
+        long pageQueryUs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        FirstPageSnapshot.write(snapshotFile, helper.getLatestChangeSeq(), firstPage);
+        long snapshotWriteUs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        FirstPageSnapshot snapshot = FirstPageSnapshot.read(snapshotFile);
+        long snapshotReadUs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000;
+
+        report(rows + " items: load all " + fullLoadUs + "us, open + first page " + pageQueryUs
+                + "us, snapshot read " + snapshotReadUs + "us (" + snapshotFile.length()
+                + " bytes, written in " + snapshotWriteUs + "us)");
+
+        Assert.assertNotNull(snapshot);
+        Assert.assertEquals(firstPage, snapshot.items);
+        Assert.assertEquals(rows, snapshot.journalSeq);
+    }
+
+    private void seed(int rows) {
+        context.deleteDatabase(DATABASE_NAME);
+        helper = new DatabaseHelper(context, DATABASE_NAME);
+        List<Item> items = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            items.add(new Item(0, "item " + i, i % 100));
+        }
+        Assert.assertEquals(rows, helper.addItems(items));
+        helper.close();
+        helper = null;
+    }
+
+    private static void report(String message) {
+        Log.i(TAG, message);
+        System.out.println(TAG + ": " + message);
+    }
+}
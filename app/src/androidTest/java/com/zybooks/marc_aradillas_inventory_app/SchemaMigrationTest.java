@@ -0,0 +1,224 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * SchemaMigrationTest:
+ * - Seeds version 1 databases (the schema the app first shipped with) of several sizes,
+ *   opens them with DatabaseHelper and checks every row survives the upgrade to the latest
+ *   version with a search index entry and a unique sync ID, owned by the oldest account,
+ *   and that the sort indexes are built by the backfill rather than the upgrade.
+ * - Reports how long the blocking upgrade and the background backfill take, in logcat
+ *   (tag SchemaMigrationTest) and the instrumentation output.
+ * - Checks a backfill stopped part way resumes where it stopped.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SchemaMigrationTest {
+
+    private static final String TAG = "SchemaMigrationTest";
+    private static final String DATABASE_NAME = "migration-test.db";
+    private static final long MANAGER_ID = 1; // The one seeded account, which inherits every item
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    private DatabaseHelper helper;
+
+    @After
+    public void tearDown() {
+        if (helper != null) {
+            helper.close();
+        }
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void migratesSmallDatabase() {
+        migrateAndVerify(1_000);
+    }
+
+    @Test
+    public void migratesMediumDatabase() {
+        migrateAndVerify(50_000);
+    }
+
+    @Test
+    public void migratesLargeDatabase() {
+        migrateAndVerify(250_000);
+    }
+
+    @Test
+    public void migratesEmptyDatabaseWithoutBackfill() {
+        seedVersion1(0);
+        helper = new DatabaseHelper(context, DATABASE_NAME);
+        Assert.assertTrue(helper.isSchemaBackfillComplete());
+        Assert.assertTrue(hasSyncIdIndex());
+        Assert.assertEquals(3, countSortIndexes());
+    }
+
+    @Test
+    public void resumesInterruptedBackfill() {
+        int rows = 20_000;
+        seedVersion1(rows);
+
+        helper = new DatabaseHelper(context, DATABASE_NAME);
+        helper.setOwner(MANAGER_ID);
+        long firstRun = helper.runSchemaBackfillChunks(2);
+        Assert.assertEquals(2L * SchemaMigrations.BACKFILL_CHUNK_SIZE, firstRun);
+        Assert.assertFalse(helper.isSchemaBackfillComplete());
+
+        // Edits to rows the backfill has not reached yet must not be lost
+        helper.updateItem(rows - 1, "zebra crossing", 7);
+        helper.deleteItem(rows);
+        helper.close();
+
+        // A new process picks up from the recorded progress
+        helper = new DatabaseHelper(context, DATABASE_NAME);
+        helper.setOwner(MANAGER_ID);
+        long secondRun = helper.finishSchemaBackfills();
+        Assert.assertTrue(helper.isSchemaBackfillComplete());
+
+        List<SchemaMigrations.Progress> progress = SchemaMigrations.getProgress(helper.getReadableDatabase());
+        for (SchemaMigrations.Progress backfill : progress) {
+            Assert.assertTrue(backfill.toString(), backfill.done);
+        }
+        // The first run covered the search index only; the sync IDs and sort indexes were still to do
+        Assert.assertEquals(3L * (rows - 1) - firstRun, secondRun);
+        Assert.assertEquals(3, countSortIndexes());
+
+        List<Item> found = helper.searchItems("zebra", 10);
+        Assert.assertEquals(1, found.size());
+        Assert.assertEquals(rows - 1, found.get(0).getId());
+        Assert.assertEquals(rows - 1, countMatches("item*"));
+        Assert.assertEquals(rows - 1, countDistinctSyncIds());
+    }
+
+    private void migrateAndVerify(int rows) {
+        seedVersion1(rows);
+
+        long start = SystemClock.elapsedRealtime();
+        helper = new DatabaseHelper(context, DATABASE_NAME);
+        helper.setOwner(MANAGER_ID);
+        helper.getWritableDatabase(); // Runs onUpgrade
+        long upgradeMs = SystemClock.elapsedRealtime() - start;
+        Assert.assertEquals(0, countSortIndexes());
+
+        start = SystemClock.elapsedRealtime();
+        long backfilled = helper.finishSchemaBackfills();
+        long backfillMs = SystemClock.elapsedRealtime() - start;
+        report(rows + " rows: upgrade " + upgradeMs + "ms, backfill " + backfilled + " rows in "
+                + backfillMs + "ms");
+
+        Assert.assertTrue(helper.isSchemaBackfillComplete());
+        Assert.assertEquals(3L * rows, backfilled); // Search index, sync IDs and the sort index walk
+        Assert.assertEquals(rows, helper.getAllItems().size());
+        Assert.assertEquals(rows, countMatches("item*"));
+        Assert.assertEquals(rows, countDistinctSyncIds());
+        Assert.assertTrue(hasSyncIdIndex());
+        Assert.assertEquals(3, countSortIndexes());
+        Assert.assertEquals(rows, queryLong("SELECT COUNT(*) FROM items WHERE owner_id = ?",
+                new String[]{String.valueOf(MANAGER_ID)}));
+        // Journal entries and sync state are kept per account as well
+        Assert.assertEquals(1, queryLong("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index'"
+                + " AND name = 'item_changes_owner'", null));
+        Assert.assertEquals(1, queryLong("SELECT COUNT(*) FROM pragma_table_info('sync_state')"
+                + " WHERE name = 'owner_id'", null));
+
+        // The summary row starts from a full count of the migrated items
+        long units = 0;
+        int out = 0;
+        int low = 0;
+        for (int i = 1; i <= rows; i++) {
+            units += i % 100;
+            out += i % 100 == 0 ? 1 : 0;
+            low += i % 100 <= InventorySql.LOW_STOCK_THRESHOLD ? 1 : 0;
+        }
+        Assert.assertEquals(new InventorySummary(rows, units, out, low), helper.getSummary());
+        Assert.assertTrue(helper.verifySummary());
+
+        // Sorted in SQLite: quantities run 0..99, so the top of a descending sort is 99
+        ItemColumns top = helper.queryItems(ItemQuery.ALL.sortedBy(ItemQuery.Field.QUANTITY, true).withLimit(10));
+        Assert.assertEquals(Math.min(rows, 10), top.size());
+        Assert.assertEquals(Math.min(rows, 99), top.getQuantity(0));
+
+        List<Item> found = helper.searchItems("item " + rows, 1);
+        Assert.assertEquals(1, found.size());
+        Assert.assertEquals(rows, found.get(0).getId());
+
+        // Users survive too, and their legacy plaintext password still works once
+        helper.setPasswordIterations(1_000);
+        Assert.assertNotEquals(-1, helper.authenticateUser("manager", "password1"));
+    }
+
+    // Writes the schema and user_version that version 1 of the app created
+    private void seedVersion1(int rows) {
+        context.deleteDatabase(DATABASE_NAME);
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(DATABASE_NAME), null);
+        try {
+            db.execSQL("CREATE TABLE items (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "name TEXT NOT NULL, quantity INTEGER NOT NULL)");
+            db.execSQL("CREATE TABLE users (user_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "username TEXT UNIQUE NOT NULL, password TEXT NOT NULL)");
+            db.execSQL("INSERT INTO users (username, password) VALUES ('manager', 'password1')");
+
+            db.beginTransaction();
+            try (SQLiteStatement insert = db.compileStatement("INSERT INTO items (name, quantity) VALUES (?, ?)")) {
+                for (int i = 1; i <= rows; i++) {
+                    insert.bindString(1, "item " + i);
+                    insert.bindLong(2, i % 100);
+                    insert.executeInsert();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.setVersion(1);
+        } finally {
+            db.close();
+        }
+    }
+
+    private long countMatches(String query) {
+        return queryLong("SELECT COUNT(*) FROM items_fts WHERE items_fts MATCH ?", new String[]{query});
+    }
+
+    private long countDistinctSyncIds() {
+        Assert.assertEquals(0, queryLong("SELECT COUNT(*) FROM items WHERE sync_id IS NULL", null));
+        return queryLong("SELECT COUNT(DISTINCT sync_id) FROM items", null);
+    }
+
+    private long countSortIndexes() {
+        return queryLong("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name IN"
+                + " ('items_owner', 'items_owner_quantity_name', 'items_owner_name_nocase')", null);
+    }
+
+    private boolean hasSyncIdIndex() {
+        return queryLong("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name = 'items_sync_id'",
+                null) == 1;
+    }
+
+    private long queryLong(String sql, String[] args) {
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery(sql, args)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+
+    private static void report(String message) {
+        Log.i(TAG, message);
+        System.out.println(TAG + ": " + message);
+    }
+}
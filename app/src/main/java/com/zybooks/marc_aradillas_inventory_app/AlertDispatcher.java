@@ -0,0 +1,250 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.StrictMode;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * AlertDispatcher:
+ * - Sends low-stock alerts without turning a burst of stock changes into a message storm.
+ * - Alerts are written to the {@link AlertOutbox} first, so none are lost if the process dies.
+ * - Alerts for one recipient are coalesced: the first opens a window of
+ *   {@link #COALESCE_WINDOW_MS}, and everything queued before it closes goes out as one
+ *   summary message.
+ * - Sends are rate limited by a {@link TokenBucket}; failed sends are retried with
+ *   exponential backoff, and the retry time is stored in the outbox so it survives restarts.
+ * - All outbox work runs on one background thread, in submission order.
+ */
+public class AlertDispatcher {
+
+    private static final String TAG = "AlertDispatcher";
+
+    static final int LOW_STOCK_THRESHOLD = InventorySql.LOW_STOCK_THRESHOLD; // Alert at or below this quantity
+    static final long COALESCE_WINDOW_MS = TimeUnit.MINUTES.toMillis(2);
+    static final int SEND_BURST = 3;                                        // Token bucket capacity
+    static final long SEND_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);      // One token per interval
+    static final long BASE_BACKOFF_MS = TimeUnit.SECONDS.toMillis(30);
+    static final long MAX_BACKOFF_MS = TimeUnit.HOURS.toMillis(1);
+    static final int MAX_ATTEMPTS = 10;                                     // Then the batch is dropped
+    static final int MAX_ITEMS_LISTED = 5;                                  // Per summary message
+
+    private static AlertDispatcher instance; // Process-wide dispatcher
+
+    private final AlertOutbox outbox;
+    private final AlertSender sender;
+    private final SharedPreferences prefs;
+    private final LongSupplier clock;
+    private final TokenBucket rateLimit;
+    private final ScheduledExecutorService executor;
+    private final Platform platform;
+
+    private ScheduledFuture<?> nextDrain; // Pending wake-up; only touched on the executor thread
+
+    /**
+     * Returns the process-wide dispatcher, creating it on first use. Creating it also
+     * resumes any alerts left in the outbox by an earlier process.
+     *
+     * @param context Any context; only its application context is retained.
+     */
+    public static synchronized AlertDispatcher getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> new Thread(() -> {
+                Platform.ANDROID.setBackgroundPriority();
+                runnable.run();
+            }, "alert-dispatch"));
+            executor.setRemoveOnCancelPolicy(true);
+            // Usually called on the main thread: opening preferences checks (and on first use
+            // creates) their directory, then loads the file on a thread of its own
+            SharedPreferences prefs;
+            StrictMode.ThreadPolicy policy = StrictMode.allowThreadDiskWrites();
+            try {
+                prefs = appContext.getSharedPreferences(AlertSettings.PREFS_NAME, Context.MODE_PRIVATE);
+            } finally {
+                StrictMode.setThreadPolicy(policy);
+            }
+            instance = new AlertDispatcher(new SqliteAlertOutbox(DatabaseHelper.getInstance(appContext)),
+                    new SmsAlertSender(appContext), prefs, System::currentTimeMillis, executor,
+                    Platform.ANDROID);
+            instance.start();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructor for AlertDispatcher. Tests pass a FakeAlertSender, a controllable clock, an
+     * executor that runs scheduled work on that clock and a ConsolePlatform.
+     *
+     * @param outbox   Durable alert queue.
+     * @param sender   Delivers the summary messages.
+     * @param prefs    Preferences holding the {@link AlertSettings}.
+     * @param clock    Wall-clock time in milliseconds; outbox times must survive restarts.
+     * @param executor Single thread that runs all outbox work, in submission order.
+     * @param platform Where failures are logged.
+     */
+    AlertDispatcher(AlertOutbox outbox, AlertSender sender, SharedPreferences prefs, LongSupplier clock,
+                    ScheduledExecutorService executor, Platform platform) {
+        this.outbox = outbox;
+        this.sender = sender;
+        this.prefs = prefs;
+        this.clock = clock;
+        this.rateLimit = new TokenBucket(SEND_BURST, SEND_INTERVAL_MS, clock.getAsLong());
+        this.executor = executor;
+        this.platform = platform;
+    }
+
+    /**
+     * Sends whatever is due in the outbox and schedules the next wake-up.
+     */
+    public void start() {
+        executor.execute(this::drain);
+    }
+
+    /**
+     * Reports a stock change. Queues an alert when the quantity falls to
+     * {@link #LOW_STOCK_THRESHOLD} or below, or runs out, and withdraws a queued one when
+     * it recovers.
+     *
+     * @param oldQuantity Quantity before the change; Integer.MAX_VALUE for a new item.
+     */
+    public void onStockChanged(int itemId, String itemName, int oldQuantity, int newQuantity) {
+        boolean wasLow = oldQuantity <= LOW_STOCK_THRESHOLD;
+        boolean isLow = newQuantity <= LOW_STOCK_THRESHOLD;
+        if (isLow && (!wasLow || (newQuantity <= 0 && oldQuantity > 0))) {
+            executor.execute(() -> {
+                AlertSettings settings = AlertSettings.load(prefs);
+                if (settings.canSend()) {
+                    outbox.enqueue(settings.phoneNumber, itemId, itemName, newQuantity, clock.getAsLong());
+                    drain();
+                }
+            });
+        } else if (wasLow && !isLow) {
+            executor.execute(() -> outbox.remove(itemId));
+        }
+    }
+
+    /**
+     * Withdraws any queued alert for an item that no longer exists.
+     */
+    public void onItemDeleted(int itemId) {
+        executor.execute(() -> outbox.remove(itemId));
+    }
+
+    /**
+     * Returns the current settings. Reads preferences, so call off the main thread.
+     */
+    public AlertSettings getSettings() {
+        return AlertSettings.load(prefs);
+    }
+
+    /**
+     * Saves new settings. Turning alerts off discards everything still queued.
+     * Writes preferences, so call off the main thread.
+     */
+    public void setSettings(AlertSettings settings) {
+        settings.save(prefs);
+        executor.execute(this::drain);
+    }
+
+    // ---- Dispatcher thread ----
+
+    private void drain() {
+        try {
+            if (!AlertSettings.load(prefs).canSend()) {
+                outbox.clear();
+                scheduleDrain(Long.MAX_VALUE);
+                return;
+            }
+
+            long now = clock.getAsLong();
+            long wakeAt = Long.MAX_VALUE;
+            List<AlertOutbox.Schedule> schedule = outbox.getSchedule(COALESCE_WINDOW_MS);
+            for (AlertOutbox.Schedule entry : schedule) {
+                if (entry.dueAtMillis > now) {
+                    wakeAt = Math.min(wakeAt, entry.dueAtMillis);
+                } else if (!rateLimit.tryAcquire(now)) {
+                    wakeAt = Math.min(wakeAt, now + rateLimit.millisUntilAvailable(now));
+                } else {
+                    Long retryAt = sendBatch(entry.recipient, now);
+                    if (retryAt != null) {
+                        wakeAt = Math.min(wakeAt, retryAt);
+                    }
+                }
+            }
+            scheduleDrain(wakeAt);
+        } catch (RuntimeException e) {
+            // Keep the dispatcher alive; the outbox still holds everything unsent
+            platform.error(TAG, "Alert dispatch failed", e);
+            scheduleDrain(clock.getAsLong() + BASE_BACKOFF_MS);
+        }
+    }
+
+    // Sends one recipient's batch; returns the retry time if it failed and will be retried
+    private Long sendBatch(String recipient, long now) {
+        AlertOutbox.Batch batch = outbox.getBatch(recipient);
+        if (batch == null) {
+            return null;
+        }
+        try {
+            sender.send(recipient, summarize(batch));
+            outbox.delete(batch);
+            return null;
+        } catch (Exception e) {
+            int attempts = batch.attempts + 1;
+            if (attempts >= MAX_ATTEMPTS) {
+                platform.warn(TAG, "Dropping alerts for " + batch.ids.length + " items after "
+                        + attempts + " failed sends", e);
+                outbox.delete(batch);
+                return null;
+            }
+            long retryAt = now + backoff(attempts);
+            platform.warn(TAG, "Alert send failed (attempt " + attempts + "), retrying in "
+                    + (retryAt - now) / 1000 + "s", e);
+            outbox.deferRecipient(recipient, attempts, retryAt);
+            return retryAt;
+        }
+    }
+
+    // Exponential backoff with up to 20% jitter, so retries from many failures spread out
+    private static long backoff(int attempts) {
+        long delay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempts - 1, 20));
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    // "Low stock: Bolts (0), Nuts (2) and 3 more items"
+    static String summarize(AlertOutbox.Batch batch) {
+        StringBuilder message = new StringBuilder("Low stock: ");
+        int listed = Math.min(batch.itemNames.size(), MAX_ITEMS_LISTED);
+        for (int i = 0; i < listed; i++) {
+            if (i > 0) {
+                message.append(", ");
+            }
+            message.append(batch.itemNames.get(i)).append(" (").append(batch.quantities[i]).append(')');
+        }
+        int remaining = batch.itemNames.size() - listed;
+        if (remaining > 0) {
+            message.append(" and ").append(remaining).append(remaining == 1 ? " more item" : " more items");
+        }
+        return message.toString();
+    }
+
+    // Replaces the pending wake-up; each drain recomputes the whole schedule
+    private void scheduleDrain(long wakeAt) {
+        if (nextDrain != null) {
+            nextDrain.cancel(false);
+            nextDrain = null;
+        }
+        if (wakeAt != Long.MAX_VALUE) {
+            long delay = Math.max(0, wakeAt - clock.getAsLong());
+            nextDrain = executor.schedule(this::drain, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.List;
+
+/**
+ * AlertOutbox:
+ * - Durable queue of pending low-stock alerts, so undelivered alerts and their retry
+ *   schedule survive restarts.
+ * - One entry per (recipient, item): a repeat alert for the same item replaces the entry,
+ *   so a coalesced message never lists an item twice.
+ * - SqliteAlertOutbox implements it over the inventory database.
+ */
+public interface AlertOutbox {
+
+    /**
+     * When a recipient's queued alerts may next be sent.
+     */
+    final class Schedule {
+        public final String recipient;
+        public final long dueAtMillis;
+
+        Schedule(String recipient, long dueAtMillis) {
+            this.recipient = recipient;
+            this.dueAtMillis = dueAtMillis;
+        }
+    }
+
+    /**
+     * All alerts queued for one recipient, to be sent as one message.
+     */
+    final class Batch {
+        public final String recipient;
+        public final long[] ids;
+        public final List<String> itemNames;
+        public final int[] quantities;
+        public final int attempts; // Highest failure count in the batch
+
+        Batch(String recipient, long[] ids, List<String> itemNames, int[] quantities, int attempts) {
+            this.recipient = recipient;
+            this.ids = ids;
+            this.itemNames = itemNames;
+            this.quantities = quantities;
+            this.attempts = attempts;
+        }
+    }
+
+    /**
+     * Queues an alert, or refreshes the name and quantity of one already queued for the
+     * same recipient and item.
+     */
+    void enqueue(String recipient, int itemId, String itemName, int quantity, long nowMillis);
+
+    /**
+     * Drops queued alerts for an item, e.g. because it was restocked or deleted.
+     */
+    void remove(int itemId);
+
+    /**
+     * Drops every queued alert.
+     */
+    void clear();
+
+    /**
+     * Returns, per recipient, the earliest time its queued alerts may be sent: once the
+     * coalescing window since its oldest alert has closed and any retry backoff has ended.
+     */
+    List<Schedule> getSchedule(long coalesceWindowMillis);
+
+    /**
+     * Returns every alert queued for a recipient, most urgent first, or null if none.
+     */
+    Batch getBatch(String recipient);
+
+    /**
+     * Removes the alerts of a batch once it has been sent (or abandoned).
+     */
+    void delete(Batch batch);
+
+    /**
+     * Records a failed send: every alert for the recipient waits until {@code nextAttemptAtMillis}.
+     */
+    void deferRecipient(String recipient, int attempts, long nextAttemptAtMillis);
+}
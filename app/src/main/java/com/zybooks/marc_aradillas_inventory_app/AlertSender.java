@@ -0,0 +1,18 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * AlertSender:
+ * - Delivers one alert message to one recipient.
+ * - SmsAlertSender sends real text messages; FakeAlertSender records them for tests.
+ */
+public interface AlertSender {
+
+    /**
+     * Sends a message, blocking until it has been handed off.
+     *
+     * @param recipient Destination, such as a phone number.
+     * @param message   Message text.
+     * @throws Exception If the message could not be sent; the dispatcher retries later.
+     */
+    void send(String recipient, String message) throws Exception;
+}
@@ -0,0 +1,47 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.content.SharedPreferences;
+
+/**
+ * AlertSettings:
+ * - The user's SMS alert preferences: whether alerts are on and where they go.
+ * - Immutable; persisted in the "alert_settings" preferences file by AlertDispatcher.
+ */
+public final class AlertSettings {
+
+    static final String PREFS_NAME = "alert_settings";
+    private static final String KEY_ENABLED = "enabled";
+    private static final String KEY_PHONE_NUMBER = "phone_number";
+
+    public final boolean enabled;
+    public final String phoneNumber;
+
+    /**
+     * Constructor for AlertSettings.
+     *
+     * @param enabled     Whether low-stock alerts are sent.
+     * @param phoneNumber Recipient of the alerts; may be empty.
+     */
+    public AlertSettings(boolean enabled, String phoneNumber) {
+        this.enabled = enabled;
+        this.phoneNumber = phoneNumber == null ? "" : phoneNumber.trim();
+    }
+
+    /**
+     * Returns true if alerts are on and have somewhere to go.
+     */
+    public boolean canSend() {
+        return enabled && !phoneNumber.isEmpty();
+    }
+
+    static AlertSettings load(SharedPreferences prefs) {
+        return new AlertSettings(prefs.getBoolean(KEY_ENABLED, false), prefs.getString(KEY_PHONE_NUMBER, ""));
+    }
+
+    void save(SharedPreferences prefs) {
+        prefs.edit()
+                .putBoolean(KEY_ENABLED, enabled)
+                .putString(KEY_PHONE_NUMBER, phoneNumber)
+                .commit();
+    }
+}
@@ -0,0 +1,103 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * ColumnarItemList:
+ * - Fully loaded list of items held in {@link ItemColumns} rather than a List of Item, for
+ *   views that need every row in memory at once (e.g. the whole inventory sorted).
+ * - Rows bind through {@link #readRow} straight from the columns, so scrolling allocates
+ *   nothing; {@link #get} builds an Item only for clicks and dialogs.
+ * - Replacing the columns notifies a plain range change rather than a diff, since diffing
+ *   a large list on the main thread would cost more than rebinding the visible rows.
+ * - All methods must be called on the main thread.
+ */
+public class ColumnarItemList implements ItemListSource {
+
+    private ItemColumns columns = new ItemColumns(0);
+    private ListUpdateCallback updateCallback;
+
+    /**
+     * Sets the receiver of insert/remove/change notifications.
+     */
+    public void setUpdateCallback(ListUpdateCallback updateCallback) {
+        this.updateCallback = updateCallback;
+    }
+
+    /**
+     * Replaces every row. The list takes ownership of {@code newColumns}.
+     */
+    public void setColumns(ItemColumns newColumns) {
+        int oldSize = columns.size();
+        int newSize = newColumns.size();
+        columns = newColumns;
+        int common = Math.min(oldSize, newSize);
+        if (common > 0) {
+            updateCallback.onChanged(0, common, null);
+        }
+        if (newSize < oldSize) {
+            updateCallback.onRemoved(newSize, oldSize - newSize);
+        } else if (newSize > oldSize) {
+            updateCallback.onInserted(oldSize, newSize - oldSize);
+        }
+    }
+
+    /**
+     * Appends an item.
+     */
+    public void add(Item item) {
+        columns.add(item.getId(), item.getName(), item.getQuantity());
+        updateCallback.onInserted(columns.size() - 1, 1);
+    }
+
+    @Override
+    public int size() {
+        return columns.size();
+    }
+
+    @Override
+    public Item get(int position) {
+        return columns.get(position);
+    }
+
+    @Override
+    public boolean readRow(int position, ItemRow row) {
+        columns.readRow(position, row);
+        return true;
+    }
+
+    @Override
+    public int idAt(int position) {
+        return columns.getId(position);
+    }
+
+    @Override
+    public int findPosition(int id) {
+        int index = columns.indexOfId(id);
+        return index < 0 ? RecyclerView.NO_POSITION : index;
+    }
+
+    @Override
+    public void set(Item item) {
+        int index = columns.indexOfId(item.getId());
+        if (index >= 0) {
+            if (columns.getName(index).equals(item.getName())) {
+                columns.setQuantity(index, item.getQuantity());
+                updateCallback.onChanged(index, 1, ItemRow.PAYLOAD_QUANTITY);
+            } else {
+                columns.set(index, item.getName(), item.getQuantity());
+                updateCallback.onChanged(index, 1, null);
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        int index = columns.indexOfId(id);
+        if (index >= 0) {
+            columns.remove(index);
+            updateCallback.onRemoved(index, 1);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.content.SharedPreferences;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CsvItemImporter:
+ * - Streams "name,quantity" rows from a CSV source into the items table.
+ * - Reads one line at a time and holds at most one chunk of rows in memory.
+ * - Each chunk is committed through {@link DatabaseHelper#addItems} in one transaction,
+ *   and the number of consumed lines is checkpointed after every commit.
+ * - If an import fails part-way, importing the same source again into the same account
+ *   resumes after the last committed chunk. A crash between a commit and its checkpoint
+ *   write can repeat that one chunk.
+ * - A quoted name may span lines, as spreadsheets export names with line breaks; the
+ *   record then ends on the line that closes the quote.
+ */
+public class CsvItemImporter {
+
+    private static final String CHECKPOINT_PREFIX = "csv_import_line:";
+
+    // Lines one quoted name may span; a stray quote otherwise buffers the rest of the file
+    static final int MAX_RECORD_LINES = 64;
+
+    /**
+     * Receives progress after each committed chunk.
+     */
+    public interface ProgressListener {
+        void onProgress(long rowsImported);
+    }
+
+    /**
+     * Outcome of a completed import.
+     */
+    public static final class Result {
+        public final long rowsImported; // Rows inserted by this run
+        public final long rowsSkipped;  // Header, blank or malformed lines
+        public final long resumedFromLine; // Lines skipped because an earlier run committed them
+
+        Result(long rowsImported, long rowsSkipped, long resumedFromLine) {
+            this.rowsImported = rowsImported;
+            this.rowsSkipped = rowsSkipped;
+            this.resumedFromLine = resumedFromLine;
+        }
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final SharedPreferences checkpoints; // Committed line counts keyed by source
+    private final long ownerId; // Account the rows are imported into
+
+    /**
+     * Constructor for CsvItemImporter.
+     *
+     * @param dbHelper    Database the rows are written to.
+     * @param checkpoints Preferences used to persist resume points between runs.
+     * @param ownerId     Account the rows are imported into, even if another signs in meanwhile.
+     */
+    public CsvItemImporter(DatabaseHelper dbHelper, SharedPreferences checkpoints, long ownerId) {
+        this.dbHelper = dbHelper;
+        this.checkpoints = checkpoints;
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Imports every row from the reader, resuming after any previously committed lines.
+     *
+     * @param sourceKey Stable identifier for the source (for example its Uri) used, with the
+     *                  account, for resume.
+     * @param reader    CSV source; closed when the import finishes or fails.
+     * @param listener  Optional progress listener; may be null.
+     * @return Counts for this run.
+     * @throws IOException If the source cannot be read. Committed chunks are kept.
+     */
+    public Result importCsv(String sourceKey, Reader reader, ProgressListener listener) throws IOException {
+        // Scoped by account: another account's partial import of the same source is not ours
+        String checkpointKey = CHECKPOINT_PREFIX + ownerId + ":" + sourceKey;
+        long resumeLine = checkpoints.getLong(checkpointKey, 0);
+        long imported = 0;
+        long skipped = 0;
+        List<Item> chunk = new ArrayList<>(InventorySql.BULK_INSERT_CHUNK_SIZE);
+
+        try (RecordReader records = new RecordReader(reader)) {
+            records.skipLines(resumeLine); // Committed by an earlier run
+            String record;
+            while ((record = records.next()) != null) {
+                Item item = parseLine(record);
+                if (item == null) {
+                    skipped++;
+                } else {
+                    chunk.add(item);
+                }
+
+                if (chunk.size() == InventorySql.BULK_INSERT_CHUNK_SIZE) {
+                    imported += commit(chunk, checkpointKey, records.lineNumber());
+                    if (listener != null) {
+                        listener.onProgress(imported);
+                    }
+                }
+            }
+            imported += commit(chunk, checkpointKey, records.lineNumber());
+            if (listener != null) {
+                listener.onProgress(imported);
+            }
+        }
+
+        // Finished cleanly; a later import of the same source starts from the top
+        checkpoints.edit().remove(checkpointKey).apply();
+        return new Result(imported, skipped, resumeLine);
+    }
+
+    // Inserts the chunk in one transaction, then records how many lines are now committed
+    private int commit(List<Item> chunk, String checkpointKey, long lineNumber) {
+        int inserted = chunk.isEmpty() ? 0 : dbHelper.addItems(chunk, ownerId);
+        chunk.clear();
+        checkpoints.edit().putLong(checkpointKey, lineNumber).commit();
+        return inserted;
+    }
+
+    /**
+     * Reads records: one line each, or several while a quoted name is open (up to
+     * {@link #MAX_RECORD_LINES}). Counts physical lines, so checkpoints always fall between
+     * records.
+     */
+    static final class RecordReader implements AutoCloseable {
+        private final BufferedReader lines;
+        private long lineNumber;
+
+        RecordReader(Reader reader) {
+            lines = new BufferedReader(reader);
+        }
+
+        /**
+         * Skips up to {@code count} lines.
+         */
+        void skipLines(long count) throws IOException {
+            while (lineNumber < count && lines.readLine() != null) {
+                lineNumber++;
+            }
+        }
+
+        /**
+         * Returns the next record, with its line breaks as "\n", or null at the end.
+         */
+        String next() throws IOException {
+            String line = lines.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            if (!line.startsWith("\"") || closingQuote(line) != -1) {
+                return line;
+            }
+            StringBuilder record = new StringBuilder(line);
+            for (int count = 1; count < MAX_RECORD_LINES; count++) {
+                line = lines.readLine();
+                if (line == null) {
+                    break; // Unterminated; parseLine skips it
+                }
+                lineNumber++;
+                record.append('\n').append(line);
+                if (line.indexOf('"') != -1 && closingQuote(record) != -1) {
+                    break;
+                }
+            }
+            return record.toString();
+        }
+
+        /**
+         * Returns the number of lines read so far.
+         */
+        long lineNumber() {
+            return lineNumber;
+        }
+
+        @Override
+        public void close() throws IOException {
+            lines.close();
+        }
+    }
+
+    /**
+     * Parses one "name,quantity" record. Names may be double-quoted to contain commas or
+     * line breaks, with "" as an escaped quote. Empty fields after the quantity, as
+     * spreadsheets write for blank columns, are ignored.
+     *
+     * @return The parsed item (ID 0), or null for blank, header or malformed records.
+     */
+    static Item parseLine(String line) {
+        int end = line.length();
+        while (end > 0 && (line.charAt(end - 1) == ',' || Character.isWhitespace(line.charAt(end - 1)))) {
+            end--; // Trailing empty fields
+        }
+        if (end == 0) {
+            return null;
+        }
+
+        String name;
+        int rest;
+        if (line.startsWith("\"")) {
+            int quote = closingQuote(line);
+            if (quote == -1 || quote >= end) {
+                return null; // Unterminated quote
+            }
+            name = line.substring(1, quote).replace("\"\"", "\"");
+            rest = line.indexOf(',', quote + 1);
+        } else {
+            rest = line.lastIndexOf(',', end - 1);
+            name = rest == -1 ? "" : line.substring(0, rest);
+        }
+
+        if (rest == -1 || rest >= end) {
+            return null;
+        }
+        name = name.trim();
+        if (name.isEmpty()) {
+            return null;
+        }
+
+        try {
+            int quantity = Integer.parseInt(line.substring(rest + 1, end).trim());
+            return new Item(0, name, quantity);
+        } catch (NumberFormatException e) {
+            return null; // Header row, a non-numeric quantity or extra non-empty fields
+        }
+    }
+
+    // Index of the quote closing a record's leading quoted field, or -1 while it is open
+    private static int closingQuote(CharSequence record) {
+        int i = 1;
+        while (i < record.length()) {
+            if (record.charAt(i) != '"') {
+                i++;
+            } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                i += 2; // Escaped quote
+            } else {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
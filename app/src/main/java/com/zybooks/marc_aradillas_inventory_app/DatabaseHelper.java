@@ -1,15 +1,37 @@
 package com.zybooks.marc_aradillas_inventory_app;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.os.Looper;
 
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-public class DatabaseHelper extends SQLiteOpenHelper {
+/**
+ * DatabaseHelper:
+ * - Process-wide owner of the inventory database connection (see {@link #getInstance}).
+ * - The connection stays open for the life of the process and runs in write-ahead logging
+ *   mode, so readers are not blocked by the writer.
+ * - Hot insert, update, delete and lookup statements are compiled once and reused.
+ * - Single-item lookups are served from a write-through {@link ItemCache}, and SKU lookups
+ *   for unknown codes are answered by a {@link BloomFilter} without a disk read.
+ * - Item operations implement {@link InventoryStore} with the SQL in {@link InventorySql},
+ *   scoped to the logged-in account's items (see {@link #setOwner}).
+ */
+public class DatabaseHelper extends SQLiteOpenHelper implements InventoryStore {
 
     // Define user table and columns
     private static final String TABLE_USERS = "users";
@@ -19,26 +41,242 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     // Database information
     private static final String DATABASE_NAME = "inventory.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 11; // Latest step in MIGRATIONS
 
-    // Table and column names
-    private static final String TABLE_ITEMS = "items";
-    private static final String COLUMN_ID = "id";
-    private static final String COLUMN_NAME = "name";
-    private static final String COLUMN_QUANTITY = "quantity";
+    // Backfills scheduled by schema steps (see SchemaMigrations)
+    static final String BACKFILL_ITEMS_FTS = "items_fts";         // Indexes rows that predate items_fts
+    static final String BACKFILL_ITEM_SYNC_IDS = "item_sync_ids"; // Gives rows that predate sync a sync ID
+    static final String BACKFILL_ITEM_INDEXES = "item_indexes";   // Builds the sort indexes after the upgrade
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // User statements, compiled once per connection and cached in statementCache; the item
+    // statements are shared with every InventoryStore through InventorySql
+    private static final String SQL_INSERT_USER = "INSERT INTO " + TABLE_USERS + " ("
+            + COLUMN_USERNAME + ", " + COLUMN_PASSWORD + ") VALUES (?, ?)";
+    // Compare-and-set so a rehash never overwrites a password changed in the meantime
+    private static final String SQL_REHASH_USER = "UPDATE " + TABLE_USERS + " SET " + COLUMN_PASSWORD
+            + " = ? WHERE " + COLUMN_USER_ID + " = ? AND " + COLUMN_PASSWORD + " = ?";
+    private static final String SQL_SELECT_CREDENTIALS = "SELECT " + COLUMN_USER_ID + ", "
+            + COLUMN_PASSWORD + " FROM " + TABLE_USERS + " WHERE " + COLUMN_USERNAME + " = ?";
+    private static final String SQL_SELECT_LEGACY_PASSWORDS = "SELECT " + COLUMN_USER_ID + ", "
+            + COLUMN_PASSWORD + " FROM " + TABLE_USERS + " WHERE " + COLUMN_PASSWORD
+            + " NOT LIKE ? ESCAPE '\\' LIMIT ?";
+
+    // Backup and restore of the owner's own account, like its items: no other account is
+    // read, written or deleted. The restore updates the row in place, and is skipped (OR
+    // IGNORE) if another account has since taken the username
+    private static final String SQL_SELECT_BACKUP_USER = "SELECT " + COLUMN_USER_ID + ", " + COLUMN_USERNAME
+            + ", " + COLUMN_PASSWORD + " FROM " + TABLE_USERS + " WHERE " + COLUMN_USER_ID + " = ?";
+    private static final String SQL_RESTORE_USER = "UPDATE OR IGNORE " + TABLE_USERS + " SET " + COLUMN_USERNAME
+            + " = ?, " + COLUMN_PASSWORD + " = ? WHERE " + COLUMN_USER_ID + " = ?";
+    // Sync: the account's key on the server, which is the same on every device
+    private static final String SQL_SELECT_USERNAME = "SELECT " + COLUMN_USERNAME + " FROM " + TABLE_USERS
+            + " WHERE " + COLUMN_USER_ID + " = ?";
+
+    // Journal cursor: a range scan of the owner's journal index from the caller's last sequence number
+    private static final String SQL_SELECT_CHANGES = "SELECT " + InventorySql.COLUMN_SEQ + ", "
+            + InventorySql.COLUMN_OP + ", " + InventorySql.COLUMN_ITEM_ID + ", " + InventorySql.COLUMN_OLD_QUANTITY
+            + ", " + InventorySql.COLUMN_NEW_QUANTITY + ", " + InventorySql.COLUMN_CHANGED_AT + " FROM "
+            + InventorySql.TABLE_ITEM_CHANGES + " WHERE " + InventorySql.COLUMN_OWNER_ID + " = ? AND "
+            + InventorySql.COLUMN_SEQ + " > ? ORDER BY " + InventorySql.COLUMN_SEQ + " ASC LIMIT ?";
+    private static final String SQL_SELECT_OLDEST_CHANGE = "SELECT MIN(" + InventorySql.COLUMN_SEQ + ") FROM "
+            + InventorySql.TABLE_ITEM_CHANGES + " WHERE " + InventorySql.COLUMN_OWNER_ID + " = ?";
+    private static final String SQL_SELECT_LATEST_CHANGE = "SELECT MAX(" + InventorySql.COLUMN_SEQ + ") FROM "
+            + InventorySql.TABLE_ITEM_CHANGES + " WHERE " + InventorySql.COLUMN_OWNER_ID + " = ?";
+
+    // Items kept in the write-through cache for lookups by ID
+    private static final int ITEM_CACHE_CAPACITY = 4096;
+
+    private static DatabaseHelper instance; // Process-wide connection owner
+
+    // Every schema version step, oldest first; existing rows are never dropped
+    private static final SchemaMigrations MIGRATIONS = new SchemaMigrations()
+            .step(2, DatabaseHelper::createSearchIndex)
+            .step(3, SqliteAlertOutbox::createTable)
+            .step(4, DatabaseHelper::createChangeJournal)
+            .step(5, DatabaseHelper::addSyncColumns)
+            .step(6, DatabaseHelper::scheduleItemIndexes)
+            .step(7, DatabaseHelper::createItemSummary)
+            .step(8, DatabaseHelper::addSkuColumn)
+            .step(9, DatabaseHelper::createStockTables)
+            .step(10, DatabaseHelper::addItemOwners)
+            .step(11, DatabaseHelper::addJournalOwners)
+            .backfill(new SchemaMigrations.Backfill(BACKFILL_ITEMS_FTS, InventorySql.TABLE_ITEMS,
+                    InventorySql.COLUMN_ID) {
+                @Override
+                protected void processRange(SQLiteDatabase db, long afterId, long upToId) {
+                    db.execSQL(InventorySql.SQL_INDEX_ITEM_RANGE, new Object[]{afterId, upToId});
+                }
+            })
+            .backfill(new SchemaMigrations.Backfill(BACKFILL_ITEM_SYNC_IDS, InventorySql.TABLE_ITEMS,
+                    InventorySql.COLUMN_ID) {
+                @Override
+                protected void processRange(SQLiteDatabase db, long afterId, long upToId) {
+                    db.execSQL(InventorySql.SQL_ASSIGN_SYNC_ID_RANGE, new Object[]{afterId, upToId});
+                }
+
+                @Override
+                protected void onComplete(SQLiteDatabase db) {
+                    db.execSQL(InventorySql.CREATE_SYNC_ID_INDEX);
+                }
+            })
+            .backfill(new SchemaMigrations.Backfill(BACKFILL_ITEM_INDEXES, InventorySql.TABLE_ITEMS,
+                    InventorySql.COLUMN_ID) {
+                @Override
+                protected void processRange(SQLiteDatabase db, long afterId, long upToId) {
+                    // Nothing per row; the chunks only move the build out of the upgrade
+                }
+
+                @Override
+                protected void onComplete(SQLiteDatabase db) {
+                    execAll(db, InventorySql.itemIndexSchema());
+                }
+            });
+
+    // Hashes and verifies user passwords; replaced by setPasswordIterations
+    private volatile PasswordHasher passwordHasher = new PasswordHasher(PasswordHasher.DEFAULT_ITERATIONS);
+    // Verified when a username does not exist, so a miss costs as much as a wrong password
+    private volatile String dummyPasswordHash;
+
+    // Cleared by InventoryRepository.setStrictMode to forbid SQLite work on the UI thread
+    private static volatile boolean mainThreadAccessAllowed = true;
+
+    // Compiled statements keyed by their SQL text; guarded by its own monitor
+    private final Map<String, SQLiteStatement> statementCache = new HashMap<>();
+
+    // Write-through cache of items by ID; addItem, updateItem and deleteItem keep it current
+    private final ItemCache itemCache = new ItemCache(ITEM_CACHE_CAPACITY);
+
+    // Account whose items every item operation reads and writes; see setOwner
+    private volatile long owner = DEFAULT_OWNER;
+
+    // Every owner's SKUs, as skuKey (and possibly some since removed), built when the database opens;
+    // null while being rebuilt, which sends every lookup to the index. Replaced, and SKUs
+    // added, only under skuFilterLock, together with the SKU write itself, so the filter
+    // never misses a committed SKU
+    private volatile BloomFilter skuFilter;
+    private final Object skuFilterLock = new Object();
+
+    // Latency, row and thread counters for every public operation, plus the slow-query log
+    private final QueryStats queryStats = new QueryStats(this::explainQueryPlan, Looper.getMainLooper().getThread());
+    private final QueryStats.Timer authenticateTimer = queryStats.timer("authenticateUser", SQL_SELECT_CREDENTIALS);
+    private final QueryStats.Timer addUserTimer = queryStats.timer("addUser", SQL_INSERT_USER);
+    private final QueryStats.Timer upgradePasswordsTimer = queryStats.timer("upgradeLegacyPasswords", SQL_REHASH_USER);
+    private final QueryStats.Timer addItemTimer = queryStats.timer("addItem", InventorySql.SQL_INSERT_ITEM);
+    private final QueryStats.Timer addItemsTimer = queryStats.timer("addItems", InventorySql.SQL_INSERT_ITEM);
+    private final QueryStats.Timer getItemTimer = queryStats.timer("getItem", InventorySql.SQL_SELECT_ITEM);
+    private final QueryStats.Timer findBySkuTimer = queryStats.timer("findBySku", InventorySql.SQL_SELECT_BY_SKU);
+    private final QueryStats.Timer skuFilteredTimer = queryStats.timer("findBySku (filtered)", InventorySql.SQL_SELECT_BY_SKU);
+    private final QueryStats.Timer assignSkuTimer = queryStats.timer("assignSku", InventorySql.SQL_ASSIGN_SKU);
+    private final QueryStats.Timer addLocationTimer = queryStats.timer("addLocation", InventorySql.SQL_INSERT_LOCATION);
+    private final QueryStats.Timer getLocationsTimer = queryStats.timer("getLocations", InventorySql.SQL_SELECT_LOCATIONS);
+    private final QueryStats.Timer setStockTimer = queryStats.timer("setStock", InventorySql.SQL_SET_STOCK);
+    private final QueryStats.Timer transferStockTimer = queryStats.timer("transferStock", InventorySql.SQL_TAKE_STOCK);
+    private final QueryStats.Timer locationStockTimer = queryStats.timer("getLocationStock",
+            InventorySql.SQL_SELECT_LOCATION_STOCK);
+    private final QueryStats.Timer itemStockTimer = queryStats.timer("getItemStock", InventorySql.SQL_SELECT_ITEM_STOCK);
+    private final QueryStats.Timer getAllItemsTimer = queryStats.timer("getAllItems", InventorySql.SQL_SELECT_ALL_ITEMS);
+    private final QueryStats.Timer getAllItemColumnsTimer = queryStats.timer("getAllItemColumns",
+            InventorySql.SQL_SELECT_ALL_ITEMS);
+    private final QueryStats.Timer getItemsAfterTimer = queryStats.timer("getItemsAfter", InventorySql.SQL_SELECT_PAGE);
+    private final QueryStats.Timer searchItemsTimer = queryStats.timer("searchItems", InventorySql.SQL_SEARCH_ITEMS);
+    private final QueryStats.Timer updateItemTimer = queryStats.timer("updateItem", InventorySql.SQL_UPDATE_ITEM);
+    private final QueryStats.Timer deleteItemTimer = queryStats.timer("deleteItem", InventorySql.SQL_DELETE_ITEM);
+    private final QueryStats.Timer adjustQuantitiesTimer = queryStats.timer("adjustQuantities", InventorySql.SQL_ADJUST_QUANTITY);
+    private final QueryStats.Timer changesSinceTimer = queryStats.timer("changesSince", SQL_SELECT_CHANGES);
+    private final QueryStats.Timer oldestChangeTimer = queryStats.timer("getOldestChangeSeq", SQL_SELECT_OLDEST_CHANGE);
+    private final QueryStats.Timer summaryTimer = queryStats.timer("getSummary", InventorySql.SQL_SELECT_SUMMARY);
+    private final QueryStats.Timer verifySummaryTimer = queryStats.timer("verifySummary", InventorySql.SQL_COMPUTE_SUMMARY);
+    private final QueryStats.Timer exportBackupTimer = queryStats.timer("exportBackup", InventorySql.SQL_SELECT_BACKUP_PAGE);
+    private final QueryStats.Timer restoreBackupTimer = queryStats.timer("restoreBackup", InventorySql.SQL_RESTORE_ITEM);
+    private final QueryStats.Timer latestChangeTimer = queryStats.timer("getLatestChangeSeq", SQL_SELECT_LATEST_CHANGE);
+
+    /**
+     * Returns the process-wide DatabaseHelper, creating it on first use.
+     *
+     * @param context Any context; only its application context is retained.
+     * @return The shared DatabaseHelper instance.
+     */
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context.getApplicationContext());
+            // Opens (and upgrades) the database off the caller's thread, then finishes any backfill
+            MIGRATIONS.startInBackground(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Allows or forbids calls from the main thread. When forbidden, every data operation
+     * throws IllegalStateException if invoked on the main thread.
+     */
+    static void setMainThreadAccessAllowed(boolean allowed) {
+        mainThreadAccessAllowed = allowed;
     }
 
+    // Enforces the StrictMode-clean contract when it is switched on
+    private static void checkThread() {
+        if (!mainThreadAccessAllowed && Looper.getMainLooper().isCurrentThread()) {
+            throw new IllegalStateException("Database access on the main thread");
+        }
+    }
+
+    /**
+     * Sets the PBKDF2 work factor for new password hashes. Existing hashes made with fewer
+     * iterations are upgraded on the user's next successful login.
+     *
+     * @param iterations PBKDF2 iteration count.
+     */
+    public void setPasswordIterations(int iterations) {
+        passwordHasher = new PasswordHasher(iterations);
+        dummyPasswordHash = null;
+    }
+
+    /**
+     * Returns the item cache, for its hit/miss/eviction counters and invalidation hooks.
+     * Call {@link ItemCache#invalidateAll()} after changing items other than through this class.
+     */
+    public ItemCache getItemCache() {
+        return itemCache;
+    }
+
+    /**
+     * Returns the latency counters and slow-query log of this helper's operations.
+     */
+    public QueryStats getQueryStats() {
+        return queryStats;
+    }
+
+    // Plan of a statement for the slow-query log; parameters are left unbound
+    private List<String> explainQueryPlan(String sql) {
+        List<String> plan = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql, null)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        }
+        return plan;
+    }
+
+    private DatabaseHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    // For tests: a helper over another database file, with no background backfill thread
+    DatabaseHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        // Let readers run concurrently with the single writer
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Creates the version 1 schema, then runs the same steps as an upgrade, so new and
+     * upgraded databases end up identical.
+     */
     @Override
     public void onCreate(SQLiteDatabase db) {
         // Create the "items" table
-        String CREATE_TABLE = "CREATE TABLE " + TABLE_ITEMS + " ("
-                + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
-                + COLUMN_NAME + " TEXT NOT NULL, "
-                + COLUMN_QUANTITY + " INTEGER NOT NULL)";
-        db.execSQL(CREATE_TABLE);
+        db.execSQL(InventorySql.CREATE_ITEMS_TABLE);
 
         // Create "users" table
         String CREATE_USERS_TABLE = "CREATE TABLE " + TABLE_USERS + " ("
@@ -46,87 +284,1329 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + COLUMN_USERNAME + " TEXT UNIQUE NOT NULL, "
                 + COLUMN_PASSWORD + " TEXT NOT NULL)";
         db.execSQL(CREATE_USERS_TABLE);
+
+        onUpgrade(db, 1, DATABASE_VERSION);
+    }
+
+    /**
+     * Runs every unfinished schema backfill to completion on the calling thread. The
+     * background thread started by {@link #getInstance} normally does this.
+     *
+     * @return The number of rows processed.
+     */
+    long finishSchemaBackfills() {
+        return MIGRATIONS.runPendingBackfills(getWritableDatabase());
     }
 
-    // Check if user exists
+    // For tests: runs only the first maxChunks chunks, as if the process died part way
+    long runSchemaBackfillChunks(int maxChunks) {
+        return MIGRATIONS.runPendingBackfills(getWritableDatabase(), maxChunks);
+    }
+
+    /**
+     * Returns true once every schema backfill has finished. Until then search may miss
+     * older items, sorted views are slower and sync cannot start.
+     */
+    public boolean isSchemaBackfillComplete() {
+        return SchemaMigrations.isComplete(getReadableDatabase());
+    }
+
+    /**
+     * Creates the FTS4 index over item names and the triggers that keep it in sync with the
+     * items table. Existing rows are indexed by the {@link #BACKFILL_ITEMS_FTS} backfill;
+     * until it reaches a row, the triggers leave that row alone and the backfill later
+     * reads its current name.
+     */
+    private static void createSearchIndex(SQLiteDatabase db) {
+        SchemaMigrations.scheduleBackfill(db, BACKFILL_ITEMS_FTS, InventorySql.TABLE_ITEMS, InventorySql.COLUMN_ID);
+        String indexed = SchemaMigrations.notAwaitingBackfill(BACKFILL_ITEMS_FTS, "old." + InventorySql.COLUMN_ID);
+        execAll(db, InventorySql.searchIndexSchema(indexed));
+    }
+
+    /**
+     * Creates the item change journal and the triggers that append to it (see
+     * {@link InventorySql#changeJournalSchema()}).
+     */
+    private static void createChangeJournal(SQLiteDatabase db) {
+        execAll(db, InventorySql.changeJournalSchema());
+    }
+
+    /**
+     * Adds the item sync ID column, the journal columns sync needs and the sync state table.
+     * Existing items get their sync IDs, and then the unique index, from the
+     * {@link #BACKFILL_ITEM_SYNC_IDS} backfill.
+     */
+    private static void addSyncColumns(SQLiteDatabase db) {
+        SqliteSyncStore.createTable(db);
+        execAll(db, InventorySql.syncSchema(InventorySql.SQL_SELECT_PUSH_SEQ));
+        SchemaMigrations.scheduleBackfill(db, BACKFILL_ITEM_SYNC_IDS, InventorySql.TABLE_ITEMS, InventorySql.COLUMN_ID);
+    }
+
+    /**
+     * Schedules the indexes that ItemQuery sorts and filters on. Each index build sorts the
+     * whole items table in one statement, so it is left to the {@link #BACKFILL_ITEM_INDEXES}
+     * backfill, which builds the latest set once every step has run; until then item reads
+     * scan the table and sort without an index.
+     */
+    private static void scheduleItemIndexes(SQLiteDatabase db) {
+        SchemaMigrations.scheduleBackfill(db, BACKFILL_ITEM_INDEXES, InventorySql.TABLE_ITEMS, InventorySql.COLUMN_ID);
+    }
+
+    /**
+     * Creates the dashboard summary row, counted once from the existing items, and the
+     * triggers that keep it current (see {@link InventorySql#summarySchema()}).
+     */
+    private static void createItemSummary(SQLiteDatabase db) {
+        execAll(db, InventorySql.summarySchema());
+    }
+
+    /**
+     * Adds the optional, unique SKU column and its index (see {@link InventorySql#skuSchema()}).
+     */
+    private static void addSkuColumn(SQLiteDatabase db) {
+        execAll(db, InventorySql.skuSchema());
+    }
+
+    /**
+     * Creates locations, per-location item stock and the triggers that roll stock changes
+     * up into item totals (see {@link InventorySql#stockSchema()}). Existing items start
+     * with no location stock, so no row is touched.
+     */
+    private static void createStockTables(SQLiteDatabase db) {
+        execAll(db, InventorySql.stockSchema());
+    }
+
+    /**
+     * Adds the item owner column and the per-owner SKU index, and splits the summary row per
+     * owner (see {@link InventorySql#ownerSchema}). Items made before accounts owned them go
+     * to the oldest account, the one that has been using the shared inventory longest; the
+     * column default says so, so no row is rewritten. The owner-prefixed sort indexes are
+     * built by the {@link #BACKFILL_ITEM_INDEXES} backfill, rescheduled here for databases
+     * that already had the ownerless ones.
+     */
+    private static void addItemOwners(SQLiteDatabase db) {
+        execAll(db, InventorySql.ownerSchema(legacyOwner(db)));
+        scheduleItemIndexes(db);
+    }
+
+    /**
+     * Records the owner of each journal entry and keys the sync state by account (see
+     * {@link InventorySql#journalOwnerSchema}), so journal readers and sync see only the
+     * logged-in account's changes. Sync state from before goes to the legacy owner, whose
+     * items it was syncing.
+     */
+    private static void addJournalOwners(SQLiteDatabase db) {
+        long legacyOwner = legacyOwner(db);
+        execAll(db, InventorySql.journalOwnerSchema(legacyOwner, InventorySql.SQL_SELECT_PUSH_SEQ));
+        SqliteSyncStore.addOwners(db, legacyOwner);
+    }
+
+    // The oldest account, owner of everything from before items had owners
+    private static long legacyOwner(SQLiteDatabase db) {
+        try (Cursor cursor = db.rawQuery("SELECT COALESCE(MIN(" + COLUMN_USER_ID + "), " + DEFAULT_OWNER
+                + ") FROM " + TABLE_USERS, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : DEFAULT_OWNER;
+        }
+    }
+
+    private static void execAll(SQLiteDatabase db, List<String> statements) {
+        for (String sql : statements) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Returns the cached compiled statement for the given SQL, compiling it on first use.
+     * Callers must hold the statement's monitor while binding and executing it.
+     */
+    private SQLiteStatement statement(String sql) {
+        synchronized (statementCache) {
+            SQLiteStatement statement = statementCache.get(sql);
+            if (statement == null) {
+                statement = getWritableDatabase().compileStatement(sql);
+                statementCache.put(sql, statement);
+            }
+            return statement;
+        }
+    }
+
+    // Check if user exists with this password
     public boolean checkUser(String username, String password) {
+        return authenticateUser(username, password) != -1;
+    }
+
+    /**
+     * A verified login: the user's ID and, when the stored password is legacy or weaker than
+     * current settings, the hash that {@link #upgradePasswordHash} replaces it with.
+     */
+    public static final class VerifiedUser {
+        public final long userId;
+        final String storedHash;
+        final String newHash; // null when the stored hash is current
+
+        VerifiedUser(long userId, String storedHash, String newHash) {
+            this.userId = userId;
+            this.storedHash = storedHash;
+            this.newHash = newHash;
+        }
+    }
+
+    /**
+     * Verifies a username and password. Runs the password KDF, so call it off the main
+     * thread. A legacy plaintext or weaker hash is replaced with a current hash on success.
+     *
+     * @return The user's ID, or -1 if the username or password is wrong.
+     */
+    public long authenticateUser(String username, String password) {
+        VerifiedUser user = verifyUser(username, password);
+        if (user == null) {
+            return -1;
+        }
+        upgradePasswordHash(user);
+        return user.userId;
+    }
+
+    /**
+     * Verifies a username and password without writing anything, so it can run on a reader
+     * thread. Runs the password KDF (twice when the stored hash needs upgrading), so call it
+     * off the main thread.
+     *
+     * @return The verified user, or null if the username or password is wrong.
+     */
+    public VerifiedUser verifyUser(String username, String password) {
+        checkThread();
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.query(TABLE_USERS, new String[]{COLUMN_USER_ID},
-                COLUMN_USERNAME + "=? AND " + COLUMN_PASSWORD + "=?",
-                new String[]{username, password}, null, null, null);
+        long userId = -1;
+        String stored = null;
+        long start = System.nanoTime(); // Times the lookup; the KDF below is slow by design
+        try (Cursor cursor = db.rawQuery(SQL_SELECT_CREDENTIALS, new String[]{username})) {
+            if (cursor.moveToFirst()) {
+                userId = cursor.getLong(0);
+                stored = cursor.getString(1);
+            }
+        }
+        authenticateTimer.record(start, stored == null ? 0 : 1);
 
-        boolean exists = cursor.getCount() > 0;
-        cursor.close();
-        db.close();
-        return exists;
+        PasswordHasher hasher = passwordHasher;
+        if (stored == null) {
+            hasher.verify(password, dummyHash(hasher)); // Same cost as a real check
+            return null;
+        }
+        if (!hasher.verify(password, stored)) {
+            return null;
+        }
+        return new VerifiedUser(userId, stored, hasher.needsRehash(stored) ? hasher.hash(password) : null);
     }
 
-    // Add a new user
-    public boolean addUser(String username, String password) {
+    /**
+     * Writes the upgraded hash {@link #verifyUser} computed, if any. Call it from the
+     * writer thread; a no-op when the stored hash was already current.
+     */
+    public void upgradePasswordHash(VerifiedUser user) {
+        checkThread();
+        if (user.newHash != null) {
+            rehashPassword(user.userId, user.storedHash, user.newHash);
+        }
+    }
+
+    /**
+     * Hashes up to {@code batchSize} legacy plaintext passwords and writes them back in one
+     * transaction. Hashing happens before the transaction opens, so the write lock is held
+     * only for the updates. Call repeatedly until it returns 0.
+     *
+     * @return The number of legacy rows found in this batch.
+     */
+    public int upgradeLegacyPasswords(int batchSize) {
+        checkThread();
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_USERNAME, username);
-        values.put(COLUMN_PASSWORD, password);
+        long[] userIds = new long[batchSize];
+        List<String> oldValues = new ArrayList<>(batchSize);
+        try (Cursor cursor = db.rawQuery(SQL_SELECT_LEGACY_PASSWORDS, new String[]{
+                PasswordHasher.hashedLikePattern(), String.valueOf(batchSize)})) {
+            while (cursor.moveToNext()) {
+                userIds[oldValues.size()] = cursor.getLong(0);
+                oldValues.add(cursor.getString(1));
+            }
+        }
+        if (oldValues.isEmpty()) {
+            return 0;
+        }
+
+        PasswordHasher hasher = passwordHasher;
+        List<String> newValues = new ArrayList<>(oldValues.size());
+        for (String plaintext : oldValues) {
+            newValues.add(hasher.hash(plaintext));
+        }
+
+        long start = System.nanoTime(); // Times the writes, not the hashing
+        db.beginTransactionNonExclusive();
+        try {
+            for (int i = 0; i < oldValues.size(); i++) {
+                rehashPassword(userIds[i], oldValues.get(i), newValues.get(i));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        upgradePasswordsTimer.record(start, oldValues.size());
+        return oldValues.size();
+    }
+
+    // Replaces a stored password only if it still holds the value that was verified
+    private void rehashPassword(long userId, String oldValue, String newValue) {
+        SQLiteStatement statement = statement(SQL_REHASH_USER);
+        synchronized (statement) {
+            statement.bindString(1, newValue);
+            statement.bindLong(2, userId);
+            statement.bindString(3, oldValue);
+            statement.executeUpdateDelete();
+            statement.clearBindings();
+        }
+    }
+
+    private String dummyHash(PasswordHasher hasher) {
+        String hash = dummyPasswordHash;
+        if (hash == null) {
+            hash = hasher.hash("");
+            dummyPasswordHash = hash;
+        }
+        return hash;
+    }
+
+    // Add a new user; the password is stored as a salted hash
+    public boolean addUser(String username, String password) {
+        checkThread();
+        String hash = passwordHasher.hash(password); // Slow; done before taking the statement lock
+        long start = System.nanoTime();
+        SQLiteStatement statement = statement(SQL_INSERT_USER);
+        boolean added;
+        synchronized (statement) {
+            statement.bindString(1, username);
+            statement.bindString(2, hash);
+            try {
+                added = statement.executeInsert() != -1; // True if the insertion was successful
+            } catch (SQLException e) {
+                added = false; // Duplicate username
+            } finally {
+                statement.clearBindings();
+            }
+        }
+        addUserTimer.record(start, added ? 1 : 0);
+        return added;
+    }
 
-        long result = db.insert(TABLE_USERS, null, values);
-        db.close();
-        return result != -1; // Returns true if the insertion was successful
+    /**
+     * Returns a user's username, or null if there is no such user.
+     */
+    public String getUsername(long userId) {
+        checkThread();
+        try (Cursor cursor = getReadableDatabase().rawQuery(SQL_SELECT_USERNAME,
+                new String[]{String.valueOf(userId)})) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Drop older table and create fresh
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ITEMS);
-        onCreate(db);
+        // Apply each version step in order; row-by-row work is left to background backfills
+        MIGRATIONS.migrate(db, oldVersion, newVersion);
+    }
+
+    /**
+     * Builds the SKU filter. Runs on the thread that first opens the database, normally the
+     * background thread started by {@link #getInstance}.
+     */
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        rebuildSkuFilter(db);
+    }
+
+    // Sizes a new filter for the SKUs present and fills it by scanning the SKU index alone
+    private void rebuildSkuFilter(SQLiteDatabase db) {
+        synchronized (skuFilterLock) {
+            skuFilter = null;
+            int count;
+            try (Cursor cursor = db.rawQuery(InventorySql.SQL_COUNT_SKUS, null)) {
+                count = cursor.moveToFirst() ? cursor.getInt(0) : 0;
+            }
+            BloomFilter filter = new BloomFilter(InventorySql.skuFilterCapacity(count),
+                    InventorySql.SKU_FILTER_FALSE_POSITIVE_RATE);
+            try (Cursor cursor = db.rawQuery(InventorySql.SQL_SELECT_SKUS, null)) {
+                while (cursor.moveToNext()) {
+                    filter.put(InventorySql.skuKey(cursor.getLong(0), cursor.getString(1)));
+                }
+            }
+            skuFilter = filter;
+        }
     }
 
-    // Add a new item to the database
-    public void addItem(String name, int quantity) {
+    /**
+     * Returns the SKU Bloom filter, for its size and capacity; null while it is being built.
+     */
+    public BloomFilter getSkuFilter() {
+        return skuFilter;
+    }
+
+    /**
+     * Switches the account whose items every later item operation sees; no I/O. Call it
+     * before the first item read after a login. Writes queued before the switch pass their
+     * account explicitly (the overloads taking an owner ID), so they still land in it.
+     */
+    @Override
+    public void setOwner(long ownerId) {
+        synchronized (itemCache) {
+            owner = ownerId;
+            itemCache.invalidateAll(); // Cached rows may belong to the previous owner
+        }
+    }
+
+    @Override
+    public long getOwner() {
+        return owner;
+    }
+
+    // Caches a row just written for an account, unless another account has signed in since
+    private void cacheWritten(Item item, long ownerId) {
+        synchronized (itemCache) {
+            if (ownerId == owner) {
+                itemCache.put(item);
+            }
+        }
+    }
+
+    // Add a new item to the database; returns the new row id, or -1 on failure
+    @Override
+    public long addItem(String name, int quantity) {
+        return addItem(name, quantity, owner);
+    }
+
+    // Add a new item to an account's inventory; returns the new row id, or -1 on failure
+    public long addItem(String name, int quantity, long ownerId) {
+        checkThread();
+        long start = System.nanoTime();
+        SQLiteStatement statement = statement(InventorySql.SQL_INSERT_ITEM);
+        long id;
+        synchronized (statement) {
+            statement.bindString(1, name);
+            statement.bindLong(2, quantity);
+            statement.bindString(3, InventorySql.newSyncId());
+            statement.bindLong(4, ownerId);
+            id = statement.executeInsert();
+            statement.clearBindings();
+            if (id != -1) {
+                cacheWritten(new Item((int) id, name, quantity), ownerId);
+            }
+        }
+        addItemTimer.record(start, id == -1 ? 0 : 1);
+        return id;
+    }
+
+    /**
+     * Inserts many items using one compiled insert statement, committing every
+     * {@link InventorySql#BULK_INSERT_CHUNK_SIZE} rows so one fsync covers a whole chunk.
+     * Item IDs are ignored; new IDs are assigned by the database.
+     *
+     * @param items Items to insert; consumed lazily, so it may be a streaming source.
+     * @return The number of rows inserted.
+     */
+    @Override
+    public int addItems(Iterable<Item> items) {
+        return addItems(items, owner);
+    }
+
+    /**
+     * Same as {@link #addItems(Iterable)}, into the given account's inventory.
+     */
+    public int addItems(Iterable<Item> items, long ownerId) {
+        checkThread();
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_NAME, name);
-        values.put(COLUMN_QUANTITY, quantity);
+        SQLiteStatement statement = statement(InventorySql.SQL_INSERT_ITEM);
+        Iterator<Item> iterator = items.iterator();
+        int inserted = 0;
+        long start = System.nanoTime();
+
+        synchronized (statement) {
+            while (iterator.hasNext()) {
+                db.beginTransactionNonExclusive();
+                try {
+                    for (int n = 0; n < InventorySql.BULK_INSERT_CHUNK_SIZE && iterator.hasNext(); n++) {
+                        Item item = iterator.next();
+                        statement.bindString(1, item.getName());
+                        statement.bindLong(2, item.getQuantity());
+                        statement.bindString(3, InventorySql.newSyncId());
+                        statement.bindLong(4, ownerId);
+                        if (statement.executeInsert() != -1) {
+                            inserted++; // -1: the row was not inserted, so it is not reported
+                        }
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                    statement.clearBindings();
+                }
+            }
+        }
+        addItemsTimer.record(start, inserted);
+        return inserted;
+    }
+
+    // Look up a single item by ID, from the cache when possible; returns null if it does not exist
+    @Override
+    public Item getItem(int id) {
+        checkThread();
+        long start = System.nanoTime();
+        Item cached = itemCache.get(id);
+        if (cached != null) {
+            getItemTimer.record(start, 1);
+            return cached;
+        }
 
-        db.insert(TABLE_ITEMS, null, values);
-        db.close();
+        long stamp = itemCache.stamp(); // A write after this point makes our read stale
+        SQLiteDatabase db = this.getReadableDatabase();
+        Item item = null;
+        try (Cursor cursor = db.rawQuery(InventorySql.SQL_SELECT_ITEM, new String[]{
+                String.valueOf(id), String.valueOf(owner)})) {
+            if (cursor.moveToFirst()) {
+                item = new Item(cursor.getInt(0), cursor.getString(1), cursor.getInt(2));
+                itemCache.putIfUnmodified(item, stamp);
+            }
+        }
+        getItemTimer.record(start, item == null ? 0 : 1);
+        return item;
+    }
+
+    /**
+     * Looks up an item by SKU. A SKU the Bloom filter has never seen returns at once; others
+     * are one probe of the unique SKU index. Rejected and probed lookups are timed separately.
+     *
+     * @return The item, or null if no item has this SKU.
+     */
+    @Override
+    public Item findBySku(String sku) {
+        checkThread();
+        long start = System.nanoTime();
+        long ownerId = owner;
+        BloomFilter filter = skuFilter;
+        if (filter != null && !filter.mightContain(InventorySql.skuKey(ownerId, sku))) {
+            skuFilteredTimer.record(start, 0);
+            return null;
+        }
+
+        long stamp = itemCache.stamp();
+        Item item = null;
+        try (Cursor cursor = getReadableDatabase().rawQuery(InventorySql.SQL_SELECT_BY_SKU, new String[]{
+                String.valueOf(ownerId), sku})) {
+            if (cursor.moveToFirst()) {
+                item = new Item(cursor.getInt(0), cursor.getString(1), cursor.getInt(2));
+                itemCache.putIfUnmodified(item, stamp);
+            }
+        }
+        findBySkuTimer.record(start, item == null ? 0 : 1);
+        return item;
+    }
+
+    /**
+     * Sets or clears an item's SKU. The SKU enters the filter before the write commits, so
+     * a lookup can never be rejected for a SKU that is in the table.
+     *
+     * @param sku The new SKU, or null to clear it.
+     * @return False if another item already has this SKU or the item does not exist.
+     */
+    @Override
+    public boolean assignSku(int id, String sku) {
+        return assignSku(id, sku, owner);
+    }
+
+    /**
+     * Same as {@link #assignSku(int, String)}, for an item of the given account.
+     */
+    public boolean assignSku(int id, String sku, long ownerId) {
+        checkThread();
+        long start = System.nanoTime();
+        SQLiteStatement statement = statement(InventorySql.SQL_ASSIGN_SKU);
+        boolean assigned;
+        synchronized (skuFilterLock) {
+            BloomFilter filter = skuFilter;
+            if (sku != null && filter != null) {
+                filter.put(InventorySql.skuKey(ownerId, sku)); // A failed write leaves a stale entry, which only costs a probe
+            }
+            synchronized (statement) {
+                if (sku == null) {
+                    statement.bindNull(1);
+                } else {
+                    statement.bindString(1, sku);
+                }
+                statement.bindLong(2, id);
+                statement.bindLong(3, ownerId);
+                try {
+                    assigned = statement.executeUpdateDelete() > 0;
+                } catch (SQLiteConstraintException e) {
+                    assigned = false; // Taken by another item
+                } finally {
+                    statement.clearBindings();
+                }
+            }
+            if (filter != null && filter.isSaturated()) {
+                rebuildSkuFilter(getWritableDatabase());
+            }
+        }
+        assignSkuTimer.record(start, assigned ? 1 : 0);
+        return assigned;
+    }
+
+    /**
+     * Adds a stock location.
+     *
+     * @return The new location ID, or -1 if the name is taken.
+     */
+    @Override
+    public long addLocation(String name) {
+        checkThread();
+        long start = System.nanoTime();
+        SQLiteStatement statement = statement(InventorySql.SQL_INSERT_LOCATION);
+        long id;
+        synchronized (statement) {
+            statement.bindString(1, name);
+            try {
+                id = statement.executeInsert();
+            } catch (SQLiteConstraintException e) {
+                id = -1;
+            } finally {
+                statement.clearBindings();
+            }
+        }
+        addLocationTimer.record(start, id == -1 ? 0 : 1);
+        return id;
+    }
+
+    /**
+     * Loads every location, in ID order.
+     */
+    @Override
+    public List<Location> getLocations() {
+        checkThread();
+        long start = System.nanoTime();
+        List<Location> locations = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery(InventorySql.SQL_SELECT_LOCATIONS, null)) {
+            while (cursor.moveToNext()) {
+                locations.add(new Location(cursor.getInt(0), cursor.getString(1)));
+            }
+        }
+        getLocationsTimer.record(start, locations.size());
+        return locations;
+    }
+
+    /**
+     * Sets an item's quantity at a location; a trigger moves the item's total by the
+     * difference, in the same statement.
+     *
+     * @return False if the item or the location does not exist.
+     */
+    @Override
+    public boolean setStock(int itemId, int locationId, int quantity) {
+        return setStock(itemId, locationId, quantity, owner);
+    }
+
+    /**
+     * Same as {@link #setStock(int, int, int)}, for an item of the given account.
+     */
+    public boolean setStock(int itemId, int locationId, int quantity, long ownerId) {
+        checkThread();
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Negative stock " + quantity);
+        }
+        long start = System.nanoTime();
+        SQLiteStatement statement = statement(InventorySql.SQL_SET_STOCK);
+        int changed;
+        synchronized (statement) {
+            statement.bindLong(1, itemId);
+            statement.bindLong(2, locationId);
+            statement.bindLong(3, quantity);
+            statement.bindLong(4, ownerId);
+            changed = statement.executeUpdateDelete();
+            statement.clearBindings();
+            itemCache.invalidate(itemId); // The total moved
+        }
+        setStockTimer.record(start, changed);
+        return changed > 0;
+    }
+
+    /**
+     * Moves units between two locations in one transaction: the source is decremented only
+     * if it holds enough, then the destination row is created or incremented. The item's
+     * total goes down and back up by the same amount, so it ends unchanged.
+     *
+     * @return False, changing nothing, if the source holds too few units or the destination
+     * does not exist.
+     */
+    @Override
+    public boolean transferStock(int itemId, int fromLocationId, int toLocationId, int quantity) {
+        return transferStock(itemId, fromLocationId, toLocationId, quantity, owner);
+    }
+
+    /**
+     * Same as {@link #transferStock(int, int, int, int)}, for an item of the given account.
+     */
+    public boolean transferStock(int itemId, int fromLocationId, int toLocationId, int quantity, long ownerId) {
+        checkThread();
+        if (quantity <= 0 || fromLocationId == toLocationId) {
+            throw new IllegalArgumentException("Transfer of " + quantity + " from " + fromLocationId
+                    + " to " + toLocationId);
+        }
+        long start = System.nanoTime();
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement take = statement(InventorySql.SQL_TAKE_STOCK);
+        SQLiteStatement put = statement(InventorySql.SQL_PUT_STOCK);
+        boolean moved = false;
+
+        synchronized (take) {
+            synchronized (put) {
+                db.beginTransactionNonExclusive();
+                try {
+                    take.bindLong(1, itemId);
+                    take.bindLong(2, fromLocationId);
+                    take.bindLong(3, quantity);
+                    take.bindLong(4, ownerId);
+                    put.bindLong(1, itemId);
+                    put.bindLong(2, toLocationId);
+                    put.bindLong(3, quantity);
+                    if (take.executeUpdateDelete() > 0 && put.executeUpdateDelete() > 0) {
+                        db.setTransactionSuccessful();
+                        moved = true;
+                    }
+                } finally {
+                    db.endTransaction();
+                    take.clearBindings();
+                    put.clearBindings();
+                }
+            }
+        }
+        transferStockTimer.record(start, moved ? 1 : 0);
+        return moved;
+    }
+
+    /**
+     * Loads one page of a location's stock, in item ID order, walking the location index.
+     */
+    @Override
+    public List<StockLevel> getLocationStock(int locationId, int afterItemId, int limit) {
+        checkThread();
+        long start = System.nanoTime();
+        List<StockLevel> levels = readStockLevels(InventorySql.SQL_SELECT_LOCATION_STOCK, new String[]{
+                String.valueOf(locationId), String.valueOf(afterItemId), String.valueOf(owner),
+                String.valueOf(limit)});
+        locationStockTimer.record(start, levels.size());
+        return levels;
+    }
+
+    /**
+     * Loads an item's stock at every location holding it, walking the primary key.
+     */
+    @Override
+    public List<StockLevel> getItemStock(int itemId) {
+        checkThread();
+        long start = System.nanoTime();
+        List<StockLevel> levels = readStockLevels(InventorySql.SQL_SELECT_ITEM_STOCK,
+                new String[]{String.valueOf(itemId), String.valueOf(owner)});
+        itemStockTimer.record(start, levels.size());
+        return levels;
+    }
+
+    private List<StockLevel> readStockLevels(String sql, String[] args) {
+        List<StockLevel> levels = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                levels.add(new StockLevel(cursor.getInt(0), cursor.getString(1), cursor.getInt(2),
+                        cursor.getString(3), cursor.getInt(4)));
+            }
+        }
+        return levels;
     }
 
     // Retrieve all items from the database
+    @Override
     public List<Item> getAllItems() {
+        checkThread();
+        long start = System.nanoTime();
         List<Item> itemList = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
 
-        Cursor cursor = db.query(TABLE_ITEMS, null, null, null, null, null, COLUMN_ID + " ASC");
+        Cursor cursor = db.rawQuery(InventorySql.SQL_SELECT_ALL_ITEMS, new String[]{String.valueOf(owner)});
 
         while (cursor.moveToNext()) {
-            int id = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ID));
-            String name = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_NAME));
-            int quantity = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_QUANTITY));
+            int id = cursor.getInt(0);
+            String name = cursor.getString(1);
+            int quantity = cursor.getInt(2);
 
             // Create new Item object and add to list
             itemList.add(new Item(id, name, quantity));
         }
         cursor.close();
+        getAllItemsTimer.record(start, itemList.size());
+        return itemList;
+    }
+
+    /**
+     * Reads every item, ordered by ID, straight into columns: no Item is created per row,
+     * so a full load of a large inventory costs a fraction of the heap of getAllItems.
+     *
+     * @return All items in ID order.
+     */
+    public ItemColumns getAllItemColumns() {
+        checkThread();
+        long start = System.nanoTime();
+        SQLiteDatabase db = this.getReadableDatabase();
+        ItemColumns columns = new ItemColumns(PagedItemList.PAGE_SIZE); // Grows; getCount() would cost a pass
+        try (Cursor cursor = db.rawQuery(InventorySql.SQL_SELECT_ALL_ITEMS, new String[]{String.valueOf(owner)})) {
+            while (cursor.moveToNext()) {
+                columns.add(cursor.getInt(0), cursor.getString(1), cursor.getInt(2));
+            }
+        }
+        columns.trimToSize();
+        getAllItemColumnsTimer.record(start, columns.size());
+        return columns;
+    }
+
+    /**
+     * Runs a sorted, filtered query; sorting, filtering and the limit all happen in SQLite,
+     * through the owner-prefixed indexes from {@link InventorySql#itemIndexSchema}.
+     *
+     * @return The matching items, in the query's order.
+     */
+    @Override
+    public ItemColumns queryItems(ItemQuery query) {
+        checkThread();
+        long start = System.nanoTime();
+        String sql = query.sql();
+        // One timer per query shape, so each has its own histogram and plan
+        QueryStats.Timer timer = queryStats.timer("queryItems " + query, sql);
+        SQLiteDatabase db = this.getReadableDatabase();
+        int capacity = query.limit == ItemQuery.NO_LIMIT ? PagedItemList.PAGE_SIZE : query.limit;
+        ItemColumns columns = new ItemColumns(capacity);
+        try (Cursor cursor = db.rawQuery(sql, query.args(owner))) {
+            while (cursor.moveToNext()) {
+                columns.add(cursor.getInt(0), cursor.getString(1), cursor.getInt(2));
+            }
+        }
+        columns.trimToSize();
+        timer.record(start, columns.size());
+        return columns;
+    }
+
+    /**
+     * Reads the owner's dashboard totals from the summary row the item triggers maintain.
+     */
+    @Override
+    public InventorySummary getSummary() {
+        checkThread();
+        long start = System.nanoTime();
+        InventorySummary summary = readSummary(getReadableDatabase(), InventorySql.SQL_SELECT_SUMMARY, owner);
+        summaryTimer.record(start, 1);
+        return summary;
+    }
+
+    /**
+     * Recounts the owner's dashboard totals with one scan of its owner index range and, if
+     * its summary row disagrees, overwrites it. Runs in one write transaction so no write lands in between.
+     *
+     * @return True if the summary row was already correct.
+     */
+    @Override
+    public boolean verifySummary() {
+        checkThread();
+        SQLiteDatabase db = this.getWritableDatabase();
+        long ownerId = owner;
+        long start = System.nanoTime();
+        db.beginTransactionNonExclusive();
+        try {
+            InventorySummary actual = readSummary(db, InventorySql.SQL_COMPUTE_SUMMARY, ownerId);
+            boolean consistent = actual.equals(readSummary(db, InventorySql.SQL_SELECT_SUMMARY, ownerId));
+            if (!consistent) {
+                db.execSQL(InventorySql.SQL_REBUILD_SUMMARY, new Object[]{ownerId});
+            }
+            db.setTransactionSuccessful();
+            verifySummaryTimer.record(start, actual.itemCount);
+            return consistent;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Reads an owner's four totals from SQL_SELECT_SUMMARY or SQL_COMPUTE_SUMMARY; a missing row reads as zeros
+    private static InventorySummary readSummary(SQLiteDatabase db, String sql, long ownerId) {
+        try (Cursor cursor = db.rawQuery(sql, new String[]{String.valueOf(ownerId)})) {
+            if (!cursor.moveToFirst()) {
+                return new InventorySummary(0, 0, 0, 0);
+            }
+            return new InventorySummary(cursor.getInt(0), cursor.getLong(1), cursor.getInt(2), cursor.getInt(3));
+        }
+    }
+
+    @Override
+    public InventoryBackup.Stats exportBackup(WritableByteChannel out) throws IOException {
+        return exportBackup(out, false);
+    }
+
+    /**
+     * Streams every one of the owner's items, in ID order, and optionally the owner's own
+     * account (with its password hash) into an {@link InventoryBackup}. Items are read in keyset pages of
+     * {@link InventorySql#BACKUP_PAGE_SIZE} rows, so no cursor window is ever refilled by
+     * re-running its query. Runs in one read transaction, so the backup is one consistent
+     * snapshot while writers carry on (WAL); run it on a reader thread. On API 34, which has
+     * no deferred transaction, it holds the write lock instead.
+     *
+     * @param out          Destination; left open.
+     * @param includeUsers Whether to back up the owner's account too.
+     * @return Counts and throughput.
+     */
+    public InventoryBackup.Stats exportBackup(WritableByteChannel out, boolean includeUsers) throws IOException {
+        return exportBackup(out, includeUsers, owner);
+    }
+
+    /**
+     * Same as {@link #exportBackup(WritableByteChannel, boolean)}, for the given account.
+     */
+    public InventoryBackup.Stats exportBackup(WritableByteChannel out, boolean includeUsers, long ownerId)
+            throws IOException {
+        checkThread();
+        SQLiteDatabase db = this.getReadableDatabase();
+        long start = System.nanoTime();
+        InventoryBackup.Stats stats;
+        try (InventoryBackup.Writer writer = new InventoryBackup.Writer(out, includeUsers)) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.VANILLA_ICE_CREAM) {
+                db.beginTransactionReadOnly(); // BEGIN DEFERRED: a snapshot, no write lock
+            } else {
+                db.beginTransactionNonExclusive();
+            }
+            try {
+                String ownerArg = String.valueOf(ownerId);
+                String pageSize = String.valueOf(InventorySql.BACKUP_PAGE_SIZE);
+                int afterId = Integer.MIN_VALUE;
+                int rows;
+                do {
+                    rows = 0;
+                    try (Cursor cursor = db.rawQuery(InventorySql.SQL_SELECT_BACKUP_PAGE,
+                            new String[]{ownerArg, String.valueOf(afterId), pageSize})) {
+                        while (cursor.moveToNext()) {
+                            afterId = cursor.getInt(0);
+                            writer.writeItem(afterId, cursor.getString(1), cursor.getInt(2),
+                                    cursor.isNull(3) ? null : cursor.getString(3),
+                                    cursor.isNull(4) ? null : cursor.getString(4));
+                            rows++;
+                        }
+                    }
+                } while (rows == InventorySql.BACKUP_PAGE_SIZE);
+                if (includeUsers) {
+                    try (Cursor cursor = db.rawQuery(SQL_SELECT_BACKUP_USER, new String[]{ownerArg})) {
+                        while (cursor.moveToNext()) {
+                            writer.writeUser(cursor.getLong(0), cursor.getString(1), cursor.getString(2));
+                        }
+                    }
+                }
+                db.setTransactionSuccessful(); // Nothing was written; this just ends it cleanly
+            } finally {
+                db.endTransaction();
+            }
+            stats = writer.finish();
+        }
+        exportBackupTimer.record(start, (int) (stats.items + stats.users));
+        return stats;
+    }
+
+    @Override
+    public InventoryBackup.Stats restoreBackup(SeekableByteChannel in) throws IOException {
+        return restoreBackup(in, false);
+    }
+
+    /**
+     * Makes the owner's items, and optionally the owner's account, match a backup. The whole
+     * file is verified first, so a damaged backup changes nothing. Rows are then merged in ID
+     * order in transactions of {@link InventorySql#BULK_INSERT_CHUNK_SIZE} records: each
+     * backed-up row is upserted under its own ID, unless another owner's item has it, and
+     * the owner's rows between two backed-up IDs are range-deleted, so unchanged rows are not rewritten and the item triggers keep the
+     * search index, journal and summary row current.
+     *
+     * @param in           Backup, read from its current position; read twice, and left open.
+     * @param includeUsers Whether to restore the owner's account too. Only the backup's record
+     *                     for the owner's user ID is applied; other accounts in it (older
+     *                     backups held every user) are skipped, and no account is deleted.
+     * @return Counts and throughput, including the verify pass.
+     * @throws IOException If the backup cannot be read or fails verification.
+     */
+    public InventoryBackup.Stats restoreBackup(SeekableByteChannel in, boolean includeUsers) throws IOException {
+        return restoreBackup(in, includeUsers, owner);
+    }
+
+    /**
+     * Same as {@link #restoreBackup(SeekableByteChannel, boolean)}, into the given account.
+     */
+    public InventoryBackup.Stats restoreBackup(SeekableByteChannel in, boolean includeUsers, long ownerId)
+            throws IOException {
+        checkThread();
+        long start = System.nanoTime();
+        long position = in.position();
+        InventoryBackup.verify(in);
+        in.position(position);
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        skuFilter = null; // Restored SKUs are not in it; lookups probe the index until the rebuild
+        InventoryBackup.Stats stats;
+        try (InventoryBackup.Reader reader = new InventoryBackup.Reader(in)) {
+            boolean withUsers = includeUsers && reader.hasUsers();
+            long lastItemId = Long.MIN_VALUE;
+            int type = reader.next();
+            do {
+                db.beginTransactionNonExclusive();
+                try {
+                    for (int n = 0; n < InventorySql.BULK_INSERT_CHUNK_SIZE && type != InventoryBackup.RECORD_END; n++) {
+                        if (type == InventoryBackup.RECORD_ITEM) {
+                            restoreItem(reader, lastItemId, ownerId);
+                            lastItemId = reader.getItemId();
+                        } else if (withUsers) {
+                            restoreUser(reader, ownerId);
+                        }
+                        type = reader.next();
+                    }
+                    if (type == InventoryBackup.RECORD_END) {
+                        deleteItemGap(lastItemId, Long.MAX_VALUE, ownerId);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            } while (type != InventoryBackup.RECORD_END);
+            stats = reader.finish().since(start);
+        } finally {
+            itemCache.invalidateAll();
+            rebuildSkuFilter(db);
+        }
+        restoreBackupTimer.record(start, (int) (stats.items + stats.users));
+        return stats;
+    }
+
+    // Deletes the owner's items between the previous backed-up item and the reader's, then writes it
+    private void restoreItem(InventoryBackup.Reader reader, long previousId, long ownerId) {
+        int id = reader.getItemId();
+        String syncId = reader.getSyncId();
+        String sku = reader.getSku();
+        if (id != previousId + 1) {
+            deleteItemGap(previousId, id, ownerId);
+        }
+        SQLiteStatement upsert = statement(InventorySql.SQL_RESTORE_ITEM);
+        synchronized (upsert) {
+            upsert.bindLong(1, id);
+            upsert.bindString(2, reader.getName());
+            upsert.bindLong(3, reader.getQuantity());
+            bindStringOrNull(upsert, 4, syncId);
+            bindStringOrNull(upsert, 5, sku);
+            upsert.bindLong(6, ownerId);
+            try {
+                upsert.executeInsert();
+            } catch (SQLiteConstraintException e) {
+                if (syncId == null && sku == null) {
+                    throw e;
+                }
+                // Another row holds the sync ID or SKU (the item moved to a new ID); a failed
+                // statement leaves the transaction open, so free them and write again
+                SQLiteStatement release = statement(InventorySql.SQL_RESTORE_RELEASE_KEYS);
+                synchronized (release) {
+                    bindStringOrNull(release, 1, syncId);
+                    bindStringOrNull(release, 2, sku);
+                    release.bindLong(3, id);
+                    release.bindLong(4, ownerId);
+                    release.executeUpdateDelete();
+                    release.clearBindings();
+                }
+                upsert.executeInsert();
+            } finally {
+                upsert.clearBindings();
+            }
+        }
+    }
+
+    // Writes the reader's user if it is the owner's account; any other account is left alone
+    private void restoreUser(InventoryBackup.Reader reader, long ownerId) {
+        if (reader.getUserId() != ownerId) {
+            return;
+        }
+        SQLiteStatement update = statement(SQL_RESTORE_USER);
+        synchronized (update) {
+            update.bindString(1, reader.getUsername());
+            update.bindString(2, reader.getPasswordHash());
+            update.bindLong(3, ownerId);
+            update.executeUpdateDelete();
+            update.clearBindings();
+        }
+    }
+
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
 
-        db.close();
+    // Deletes the owner's items strictly between two IDs
+    private void deleteItemGap(long afterId, long beforeId, long ownerId) {
+        SQLiteStatement statement = statement(InventorySql.SQL_RESTORE_DELETE_GAP);
+        synchronized (statement) {
+            statement.bindLong(1, ownerId);
+            statement.bindLong(2, afterId);
+            statement.bindLong(3, beforeId);
+            statement.executeUpdateDelete();
+            statement.clearBindings();
+        }
+    }
+
+    /**
+     * Loads up to {@code limit} items with afterId < id <= upToId, in ID order.
+     * Pass Integer.MAX_VALUE as upToId to read the next page without an upper bound.
+     */
+    @Override
+    public List<Item> getItemsAfter(int afterId, int upToId, int limit) {
+        checkThread();
+        long start = System.nanoTime();
+        List<Item> itemList = new ArrayList<>(Math.min(limit, 256));
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        try (Cursor cursor = db.rawQuery(InventorySql.SQL_SELECT_PAGE, new String[]{String.valueOf(owner),
+                String.valueOf(afterId), String.valueOf(upToId), String.valueOf(limit)})) {
+            while (cursor.moveToNext()) {
+                itemList.add(new Item(cursor.getInt(0), cursor.getString(1), cursor.getInt(2)));
+            }
+        }
+        getItemsAfterTimer.record(start, itemList.size());
         return itemList;
     }
 
+    /**
+     * Finds items whose name contains words starting with each word of the query, as the
+     * user types it. Names that start with the query rank first, then other matches; each
+     * tier is read in ID order, so no result set is sorted and LIMIT stops the scan early.
+     *
+     * @param prefix Text typed so far; punctuation is ignored.
+     * @param limit  Maximum number of results.
+     * @return Matching items, best first; empty if the query has no words.
+     */
+    @Override
+    public List<Item> searchItems(String prefix, int limit) {
+        checkThread();
+        String terms = InventorySql.toPrefixTerms(prefix);
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Keyed by ID so second-tier matches do not repeat first-tier ones
+        long start = System.nanoTime();
+        Map<Integer, Item> results = new LinkedHashMap<>();
+        String ownerId = String.valueOf(owner);
+        searchInto(results, "^" + terms, ownerId, limit); // Name starts with the query
+        if (results.size() < limit) {
+            searchInto(results, terms, ownerId, limit);     // Any word starts with each query word
+        }
+        searchItemsTimer.record(start, results.size());
+        return new ArrayList<>(results.values());
+    }
+
+    private void searchInto(Map<Integer, Item> results, String match, String ownerId, int limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        // Over-fetch by what is already collected, since those rows will match again
+        String rowLimit = String.valueOf(limit + results.size());
+        try (Cursor cursor = db.rawQuery(InventorySql.SQL_SEARCH_ITEMS, new String[]{match, ownerId, rowLimit})) {
+            while (cursor.moveToNext() && results.size() < limit) {
+                int id = cursor.getInt(0);
+                if (!results.containsKey(id)) {
+                    results.put(id, new Item(id, cursor.getString(1), cursor.getInt(2)));
+                }
+            }
+        }
+    }
+
     // Delete an item by ID
+    @Override
     public void deleteItem(int id) {
+        deleteItem(id, owner);
+    }
+
+    // Delete an item of an account by ID
+    public void deleteItem(int id, long ownerId) {
+        checkThread();
+        long start = System.nanoTime();
+        SQLiteStatement statement = statement(InventorySql.SQL_DELETE_ITEM);
+        int deleted;
+        synchronized (statement) {
+            statement.bindLong(1, id);
+            statement.bindLong(2, ownerId);
+            deleted = statement.executeUpdateDelete();
+            statement.clearBindings();
+            itemCache.invalidate(id);
+        }
+        deleteItemTimer.record(start, deleted);
+    }
+
+    /**
+     * Adds {@code delta} to an item's quantity in place (quantity = quantity + delta), so it
+     * cannot lose a concurrent adjustment the way a read-modify-write would.
+     *
+     * @return The new quantity, or {@link #NO_SUCH_ITEM} if the item does not exist.
+     */
+    @Override
+    public int adjustQuantity(int id, int delta) {
+        return adjustQuantities(new int[]{id}, new int[]{delta}, 1)[0];
+    }
+
+    /**
+     * Applies many quantity deltas in one transaction, so the whole batch costs one commit.
+     *
+     * @param ids    Item IDs.
+     * @param deltas Delta for each ID.
+     * @param count  Number of entries to apply from the arrays.
+     * @return The new quantity for each entry, or {@link #NO_SUCH_ITEM} for missing items.
+     */
+    @Override
+    public int[] adjustQuantities(int[] ids, int[] deltas, int count) {
+        return adjustQuantities(ids, deltas, count, owner);
+    }
+
+    /**
+     * Same as {@link #adjustQuantities(int[], int[], int)}, for items of the given account.
+     */
+    public int[] adjustQuantities(int[] ids, int[] deltas, int count, long ownerId) {
+        checkThread();
+        long start = System.nanoTime();
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_ITEMS, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
-        db.close();
+        SQLiteStatement update = statement(InventorySql.SQL_ADJUST_QUANTITY);
+        SQLiteStatement select = statement(InventorySql.SQL_SELECT_QUANTITY);
+        int[] quantities = new int[count];
+
+        synchronized (update) {
+            synchronized (select) {
+                db.beginTransactionNonExclusive();
+                try {
+                    for (int i = 0; i < count; i++) {
+                        update.bindLong(1, deltas[i]);
+                        update.bindLong(2, ids[i]);
+                        update.bindLong(3, ownerId);
+                        if (update.executeUpdateDelete() == 0) {
+                            quantities[i] = NO_SUCH_ITEM;
+                            continue;
+                        }
+                        select.bindLong(1, ids[i]);
+                        quantities[i] = (int) select.simpleQueryForLong();
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                    update.clearBindings();
+                    select.clearBindings();
+                }
+            }
+        }
+
+        // After the commit, so a reader that saw the old row cannot cache it again
+        for (int i = 0; i < count; i++) {
+            itemCache.invalidate(ids[i]);
+        }
+        adjustQuantitiesTimer.record(start, count);
+        return quantities;
     }
 
-    // Update an item in the database
+    // Update an item in the database; the quantity is raised to its location stock if below it
+    @Override
     public void updateItem(int id, String name, int quantity) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_NAME, name);
-        values.put(COLUMN_QUANTITY, quantity);
+        updateItem(id, name, quantity, owner);
+    }
+
+    // Update an item of an account; the quantity is raised to its location stock if below it
+    public void updateItem(int id, String name, int quantity, long ownerId) {
+        checkThread();
+        long start = System.nanoTime();
+        SQLiteStatement statement = statement(InventorySql.SQL_UPDATE_ITEM);
+        int updated;
+        synchronized (statement) {
+            statement.bindString(1, name);
+            statement.bindLong(2, quantity);
+            statement.bindLong(3, id);
+            statement.bindLong(4, ownerId);
+            updated = statement.executeUpdateDelete();
+            statement.clearBindings();
+            itemCache.invalidate(id); // The stored quantity may differ from the one written
+        }
+        updateItemTimer.record(start, updated);
+    }
+
+    /**
+     * Reads the owner's entries in the change journal after a given sequence number, oldest
+     * first. Pass the last entry's seq to the next call to continue.
+     *
+     * @param seq   Last sequence number already processed; 0 to start from the oldest entry kept.
+     * @param limit Maximum number of entries.
+     * @return Up to {@code limit} entries with a sequence number above {@code seq}.
+     */
+    public List<ItemChange> changesSince(long seq, int limit) {
+        checkThread();
+        long start = System.nanoTime();
+        List<ItemChange> changes = new ArrayList<>(Math.min(limit, 256));
+        SQLiteDatabase db = this.getReadableDatabase();
+        try (Cursor cursor = db.rawQuery(SQL_SELECT_CHANGES, new String[]{
+                String.valueOf(owner), String.valueOf(seq), String.valueOf(limit)})) {
+            while (cursor.moveToNext()) {
+                changes.add(new ItemChange(cursor.getLong(0), cursor.getInt(1), cursor.getInt(2),
+                        cursor.isNull(3) ? ItemChange.NO_QUANTITY : cursor.getInt(3),
+                        cursor.isNull(4) ? ItemChange.NO_QUANTITY : cursor.getInt(4),
+                        cursor.getLong(5)));
+            }
+        }
+        changesSinceTimer.record(start, changes.size());
+        return changes;
+    }
+
+    /**
+     * Returns the oldest sequence number of the owner's entries still in the journal, or 0 if
+     * it has none. Other accounts' entries leave gaps in the owner's seqs, so a consumer whose
+     * last processed seq is below this minus one may have missed compacted entries and
+     * should rescan the items table.
+     */
+    public long getOldestChangeSeq() {
+        checkThread();
+        SQLiteDatabase db = this.getReadableDatabase();
+        long start = System.nanoTime();
+        try (Cursor cursor = db.rawQuery(SQL_SELECT_OLDEST_CHANGE, new String[]{String.valueOf(owner)})) {
+            long seq = cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : 0;
+            oldestChangeTimer.record(start, 1);
+            return seq;
+        }
+    }
 
-        db.update(TABLE_ITEMS, values, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
-        db.close();
+    /**
+     * Returns the newest sequence number of the owner's journal entries, or 0 if it has none.
+     * Any write to the owner's items changes it, so it tells cheaply whether they changed since.
+     */
+    public long getLatestChangeSeq() {
+        checkThread();
+        SQLiteDatabase db = this.getReadableDatabase();
+        long start = System.nanoTime();
+        try (Cursor cursor = db.rawQuery(SQL_SELECT_LATEST_CHANGE, new String[]{String.valueOf(owner)})) {
+            long seq = cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : 0;
+            latestChangeTimer.record(start, 1);
+            return seq;
+        }
+    }
+
+    /**
+     * Releases the cached compiled statements before closing the connection.
+     * Only needed when the process is shutting the database down for good.
+     */
+    @Override
+    public synchronized void close() {
+        synchronized (statementCache) {
+            for (SQLiteStatement statement : statementCache.values()) {
+                statement.close();
+            }
+            statementCache.clear();
+        }
+        super.close();
     }
-}
\ No newline at end of file
+}
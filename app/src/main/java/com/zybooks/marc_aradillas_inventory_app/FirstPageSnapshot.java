@@ -0,0 +1,153 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * FirstPageSnapshot:
+ * - Compact binary copy of the first page of items, so the dashboard can draw rows at
+ *   launch before SQLite is even opened.
+ * - Layout (big-endian): magic, format version, journal seq, item count, then per item its
+ *   ID, quantity, name length and UTF-8 name bytes, then a CRC32 of everything before it.
+ * - {@link #write} writes a temp file, syncs it and renames it over the old one, so a
+ *   reader sees either the old snapshot or the new one, never a torn file.
+ * - {@link #read} memory-maps the file. A missing, truncated or corrupt file reads as null
+ *   and the caller falls back to the database.
+ */
+public final class FirstPageSnapshot {
+
+    static final String FILE_NAME = "first_page.snapshot";
+
+    private static final int MAGIC = 0x47565331; // "GVS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int ITEM_HEADER_BYTES = 4 + 4 + 4;
+    private static final int CHECKSUM_BYTES = 4;
+    private static final int MAX_FILE_BYTES = 1 << 20; // Far above a page of items; guards against junk
+
+    public final long journalSeq; // Change journal position the items reflect
+    public final List<Item> items;
+
+    private FirstPageSnapshot(long journalSeq, List<Item> items) {
+        this.journalSeq = journalSeq;
+        this.items = items;
+    }
+
+    /**
+     * Reads a snapshot through a read-only memory map.
+     *
+     * @return The snapshot, or null if the file is missing or fails validation.
+     */
+    public static FirstPageSnapshot read(File file) {
+        long length = file.length();
+        if (length < HEADER_BYTES + CHECKSUM_BYTES || length > MAX_FILE_BYTES) {
+            return null; // Also covers a missing file, whose length is 0
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return decode(buffer);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Atomically replaces the snapshot file with the given items.
+     *
+     * @param journalSeq Change journal position the items were read at.
+     * @param items      Items in ID order, usually the first page.
+     */
+    public static void write(File file, long journalSeq, List<Item> items) throws IOException {
+        ByteBuffer buffer = encode(journalSeq, items);
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp);
+             FileChannel channel = out.getChannel()) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true); // Contents on disk before the rename makes them visible
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static ByteBuffer encode(long journalSeq, List<Item> items) {
+        List<byte[]> names = new ArrayList<>(items.size());
+        int size = HEADER_BYTES + CHECKSUM_BYTES;
+        for (Item item : items) {
+            byte[] name = item.getName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += ITEM_HEADER_BYTES + name.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(journalSeq).putInt(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            byte[] name = names.get(i);
+            buffer.putInt(item.getId()).putInt(item.getQuantity()).putInt(name.length).put(name);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    static FirstPageSnapshot decode(ByteBuffer buffer) {
+        int bodyBytes = buffer.limit() - CHECKSUM_BYTES;
+        if (bodyBytes < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.limit(bodyBytes);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != buffer.getInt(bodyBytes)) {
+            return null;
+        }
+
+        buffer.position(0);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+        long journalSeq = buffer.getLong();
+        int count = buffer.getInt();
+        if (count < 0 || count > (bodyBytes - HEADER_BYTES) / ITEM_HEADER_BYTES) {
+            return null;
+        }
+
+        List<Item> items = new ArrayList<>(count);
+        byte[] name = new byte[64];
+        for (int i = 0; i < count; i++) {
+            if (bodyBytes - buffer.position() < ITEM_HEADER_BYTES) {
+                return null;
+            }
+            int id = buffer.getInt();
+            int quantity = buffer.getInt();
+            int nameLength = buffer.getInt();
+            if (nameLength < 0 || nameLength > bodyBytes - buffer.position()) {
+                return null;
+            }
+            if (nameLength > name.length) {
+                name = new byte[nameLength];
+            }
+            buffer.get(name, 0, nameLength);
+            items.add(new Item(id, new String(name, 0, nameLength, StandardCharsets.UTF_8), quantity));
+        }
+        return new FirstPageSnapshot(journalSeq, Collections.unmodifiableList(items));
+    }
+}
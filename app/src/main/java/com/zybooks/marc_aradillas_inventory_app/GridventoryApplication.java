@@ -0,0 +1,21 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+
+/**
+ * GridventoryApplication:
+ * - Turns on InventoryRepository's StrictMode-clean mode in debuggable builds, before any
+ *   Activity starts, so disk or SQLite work on the main thread fails fast in development.
+ * - Release builds keep the lax default.
+ */
+public class GridventoryApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            InventoryRepository.setStrictMode(true);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HttpSyncTransport:
+ * - SyncTransport over plain HTTP(S) using HttpURLConnection.
+ * - POST {base}/changes uploads a batch and answers with an 8-byte clientSeq ack.
+ * - GET {base}/changes?since=&limit= answers with an encoded batch.
+ * - Both name the account in the X-Account header, and the device in X-Device-Id.
+ */
+public class HttpSyncTransport implements SyncTransport {
+
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 20_000;
+    private static final int MAX_RESPONSE_BYTES = 8 * 1024 * 1024;
+    static final String HEADER_DEVICE_ID = "X-Device-Id";
+    static final String HEADER_ACCOUNT = "X-Account";
+
+    private final String baseUrl;
+
+    /**
+     * Constructor for HttpSyncTransport.
+     *
+     * @param baseUrl Server root, without a trailing slash.
+     */
+    public HttpSyncTransport(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    @Override
+    public long push(String account, String deviceId, byte[] batch) throws IOException {
+        HttpURLConnection connection = open(new URL(baseUrl + "/changes"), account, deviceId);
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(batch.length);
+            connection.setRequestProperty("Content-Type", "application/octet-stream");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(batch);
+            }
+            checkStatus(connection);
+            try (DataInputStream in = new DataInputStream(connection.getInputStream())) {
+                return in.readLong();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public byte[] pull(String account, String deviceId, long sinceServerSeq, int limit) throws IOException {
+        URL url = new URL(baseUrl + "/changes?since=" + sinceServerSeq + "&limit=" + limit
+                + "&device=" + URLEncoder.encode(deviceId, StandardCharsets.UTF_8.name()));
+        HttpURLConnection connection = open(url, account, deviceId);
+        try {
+            checkStatus(connection);
+            try (InputStream in = connection.getInputStream()) {
+                return readAll(in);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static HttpURLConnection open(URL url, String account, String deviceId) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setUseCaches(false);
+        connection.setRequestProperty(HEADER_ACCOUNT, account);
+        connection.setRequestProperty(HEADER_DEVICE_ID, deviceId);
+        return connection;
+    }
+
+    private static void checkStatus(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new IOException("Sync server returned HTTP " + status);
+        }
+    }
+
+    // Bounded so a misbehaving server cannot exhaust memory
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (out.size() + read > MAX_RESPONSE_BYTES) {
+                throw new IOException("Sync response too large");
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -21,13 +21,23 @@ import java.util.List;
  * InventoryAdapter:
  * - RecyclerView Adapter for displaying, editing, and deleting inventory items.
  * - Handles item display, deletion, and editing using a custom ViewHolder.
+ * - The -/+ buttons adjust quantities through the repository's buffered delta API and
+ *   update the row at once.
+ * - Edits from the dialog go to an OnEditListener, which shows them in every list and
+ *   writes them in the background.
+ * - Binding allocates nothing: each ViewHolder reads its row into its own ItemRow and sets
+ *   the text from char arrays, and click listeners are created once per ViewHolder and
+ *   look the item up by position when clicked.
+ * - Row IDs are the item IDs (stable IDs), and a quantity-only change (the
+ *   {@link ItemRow#PAYLOAD_QUANTITY} payload) rebinds only the quantity text.
  */
 public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.InventoryViewHolder> {
 
-    private final List<Item> inventoryList; // List of inventory items
+    private final ItemListSource inventoryList; // Paged dashboard items or search results
     private final OnDeleteClickListener deleteClickListener; // Interface for delete button clicks
+    private final OnEditListener editListener; // Applies edits from the dialog
     private final Context context; // Context for building dialogs
-    private final DatabaseHelper dbHelper; // Database helper for update operations
+    private final InventoryRepository repository; // Runs quantity adjustments off the UI thread
 
     /**
      * Interface for handling delete button clicks.
@@ -36,18 +46,38 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
         void onDeleteClick(int position);
     }
 
+    /**
+     * Interface for applying a confirmed edit.
+     */
+    public interface OnEditListener {
+        void onEdit(int id, String name, int quantity);
+    }
+
     /**
      * Constructor for InventoryAdapter.
      *
      * @param context            Application context for dialog building.
-     * @param inventoryList      List of inventory items to display.
+     * @param inventoryList      Items to display (paged dashboard list or search results).
+     * @param repository         Repository used for background quantity adjustments.
      * @param deleteClickListener Callback interface for handling delete actions.
+     * @param editListener        Callback interface for applying edits.
      */
-    public InventoryAdapter(Context context, List<Item> inventoryList, OnDeleteClickListener deleteClickListener) {
+    public InventoryAdapter(Context context, ItemListSource inventoryList, InventoryRepository repository,
+                            OnDeleteClickListener deleteClickListener, OnEditListener editListener) {
         this.context = context;
         this.inventoryList = inventoryList;
+        this.repository = repository;
         this.deleteClickListener = deleteClickListener;
-        this.dbHelper = new DatabaseHelper(context); // Initialize database helper
+        this.editListener = editListener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Returns the item ID, so rows keep their views across inserts and removals.
+     */
+    @Override
+    public long getItemId(int position) {
+        return inventoryList.idAt(position); // Known even for placeholders
     }
 
     /**
@@ -58,7 +88,24 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
     public InventoryViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.row_item, parent, false); // Inflate row layout
-        return new InventoryViewHolder(view);
+        InventoryViewHolder holder = new InventoryViewHolder(view);
+
+        // Listeners resolve the row when clicked, so binding does not create new ones
+        holder.deleteButton.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                deleteClickListener.onDeleteClick(position);
+            }
+        });
+        holder.editButton.setOnClickListener(v -> {
+            Item item = itemAt(holder);
+            if (item != null) {
+                showEditDialog(item);
+            }
+        });
+        holder.decrementButton.setOnClickListener(v -> adjustQuantity(itemAt(holder), -1));
+        holder.incrementButton.setOnClickListener(v -> adjustQuantity(itemAt(holder), 1));
+        return holder;
     }
 
     /**
@@ -66,26 +113,70 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
      */
     @Override
     public void onBindViewHolder(@NonNull InventoryViewHolder holder, int position) {
-        Item item = inventoryList.get(position);
+        ItemRow row = holder.row;
+
+        // Page not in memory yet: show a placeholder until it is reloaded
+        if (!inventoryList.readRow(position, row)) {
+            holder.itemNameTextView.setText("Loading...");
+            holder.itemQuantityTextView.setText("");
+            holder.deleteButton.setVisibility(View.INVISIBLE);
+            holder.editButton.setVisibility(View.INVISIBLE);
+            holder.decrementButton.setVisibility(View.INVISIBLE);
+            holder.incrementButton.setVisibility(View.INVISIBLE);
+            return;
+        }
+        holder.deleteButton.setVisibility(View.VISIBLE);
+        holder.editButton.setVisibility(View.VISIBLE);
+        holder.decrementButton.setVisibility(View.VISIBLE);
+        holder.incrementButton.setVisibility(View.VISIBLE);
 
         // Set item name and quantity to the TextViews
-        holder.itemNameTextView.setText(item.getName());
-        holder.itemQuantityTextView.setText(String.valueOf(item.getQuantity()));
+        holder.itemNameTextView.setText(row.getNameChars(), 0, row.getNameLength());
+        holder.itemQuantityTextView.setText(row.getQuantityChars(), row.getQuantityStart(), row.getQuantityLength());
+    }
 
-        // Set delete button click listener
-        holder.deleteButton.setOnClickListener(v -> deleteClickListener.onDeleteClick(position));
+    /**
+     * Rebinds only the quantity text when every pending change is quantity-only; anything
+     * else falls back to a full bind.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull InventoryViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !ItemRow.quantityOnly(payloads) || !inventoryList.readRow(position, holder.row)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        ItemRow row = holder.row;
+        holder.itemQuantityTextView.setText(row.getQuantityChars(), row.getQuantityStart(), row.getQuantityLength());
+    }
 
-        // Set edit button click listener to show an edit dialog
-        holder.editButton.setOnClickListener(v -> showEditDialog(item, position));
+    /**
+     * Returns the item a ViewHolder currently shows, or null if it is unbound or a placeholder.
+     */
+    private Item itemAt(InventoryViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        return position == RecyclerView.NO_POSITION ? null : inventoryList.get(position);
+    }
+
+    /**
+     * Queues a quantity adjustment and shows the new count immediately.
+     *
+     * @param item  The item as currently shown; null if the row is not bound.
+     * @param delta Amount to add; the quantity is not taken below zero.
+     */
+    private void adjustQuantity(Item item, int delta) {
+        if (item == null || item.getQuantity() + delta < 0) {
+            return;
+        }
+        repository.adjustQuantity(item.getId(), delta);
+        inventoryList.set(new Item(item.getId(), item.getName(), item.getQuantity() + delta));
     }
 
     /**
      * Displays a dialog to edit an inventory item's name and quantity.
      *
-     * @param item     The inventory item being edited.
-     * @param position The position of the item in the RecyclerView.
+     * @param item The inventory item being edited.
      */
-    private void showEditDialog(Item item, int position) {
+    private void showEditDialog(Item item) {
         // Create an AlertDialog for editing
         AlertDialog.Builder builder = new AlertDialog.Builder(context);
         builder.setTitle("Edit Item");
@@ -118,13 +209,7 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
             if (!updatedName.isEmpty() && !updatedQuantityString.isEmpty()) {
                 try {
                     int updatedQuantity = Integer.parseInt(updatedQuantityString);
-
-                    // Update the item in the database
-                    dbHelper.updateItem(item.getId(), updatedName, updatedQuantity);
-
-                    // Update the list and notify the adapter
-                    inventoryList.set(position, new Item(item.getId(), updatedName, updatedQuantity));
-                    notifyItemChanged(position);
+                    editListener.onEdit(item.getId(), updatedName, updatedQuantity);
                 } catch (NumberFormatException e) {
                     itemQuantityInput.setError("Invalid quantity");
                 }
@@ -136,6 +221,16 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
         builder.show(); // Display the dialog
     }
 
+    /**
+     * Finds the current position of an item by ID.
+     *
+     * @param id The item's unique ID.
+     * @return The item's position, or RecyclerView.NO_POSITION if it is not in the list.
+     */
+    public int findPosition(int id) {
+        return inventoryList.findPosition(id);
+    }
+
     /**
      * Returns the total number of items in the inventory list.
      */
@@ -152,6 +247,9 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
         TextView itemQuantityTextView; // Displays the item quantity
         ImageButton deleteButton;      // Button to delete the item
         Button editButton;             // Button to edit the item
+        Button decrementButton;        // Button to lower the quantity by one
+        Button incrementButton;        // Button to raise the quantity by one
+        final ItemRow row = new ItemRow(); // Reused by every bind of this holder
 
         /**
          * Constructor for initializing views in the ViewHolder.
@@ -164,6 +262,8 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
             itemQuantityTextView = itemView.findViewById(R.id.itemQuantity);
             deleteButton = itemView.findViewById(R.id.deleteButton);
             editButton = itemView.findViewById(R.id.editButton);
+            decrementButton = itemView.findViewById(R.id.decrementButton);
+            incrementButton = itemView.findViewById(R.id.incrementButton);
         }
     }
 }
\ No newline at end of file
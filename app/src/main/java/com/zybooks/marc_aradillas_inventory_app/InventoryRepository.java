@@ -0,0 +1,831 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.os.Process;
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InventoryRepository:
+ * - Runs all DatabaseHelper work off the UI thread.
+ * - Reads go to a small bounded reader pool; writes go to a single writer thread so they
+ *   apply in submission order.
+ * - Results are delivered to a {@link Callback} on the main thread.
+ * - Each Activity owns one repository and calls {@link #cancelAll()} from onDestroy so no
+ *   callback reaches a destroyed Activity.
+ * - Keeps a {@link FirstPageSnapshot} of the first page of items, one per account, rewritten
+ *   on the writer thread once a burst of writes settles, so the dashboard can draw rows at launch.
+ */
+public class InventoryRepository {
+
+    private static final String TAG = "InventoryRepository";
+
+    private static final int READER_THREADS = 2;     // WAL lets readers run alongside the writer
+    private static final int MAX_QUEUED_READS = 64;  // Bounded so a runaway caller cannot pile up work
+    private static final int MAX_QUEUED_WRITES = 256;
+
+    // Shared by every repository instance so the thread count stays fixed per process
+    private static final ExecutorService READ_EXECUTOR = newExecutor("inventory-read",
+            READER_THREADS, MAX_QUEUED_READS);
+    private static final ExecutorService WRITE_EXECUTOR = newExecutor("inventory-write",
+            1, MAX_QUEUED_WRITES);
+
+    private static final int LEGACY_PASSWORD_BATCH = 8; // Plaintext passwords hashed per writer task
+
+    private static final String IMPORT_PREFS = "csv_import"; // Resume checkpoints for CSV imports
+
+    // Quantity adjustments not yet written, for the current account; shared so every screen
+    // sees the same counts. Replaced on an account switch (see setOwner)
+    private static volatile QuantityDeltaBuffer quantityDeltas = new QuantityDeltaBuffer(InventoryStore.DEFAULT_OWNER);
+    private static final AtomicBoolean DELTA_FLUSH_SCHEDULED = new AtomicBoolean();
+
+    // Rows queryItems delivers ahead of the full result, about two screens
+    static final int QUERY_FIRST_WINDOW = 100;
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static final long SNAPSHOT_DELAY_MS = 1_000;    // Quiet time after the last write before snapshotting
+    private static final Object SNAPSHOT_TOKEN = new Object(); // Identifies the pending snapshot on MAIN_HANDLER
+    private static volatile long snapshotSeq = -1;          // Journal seq the snapshot file reflects; -1 unknown
+    private static volatile long snapshotOwner = -1;        // Account whose snapshot file that is
+
+    /**
+     * Receives the result of a repository operation on the main thread.
+     *
+     * @param <T> Result type.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+
+        /**
+         * Called on the main thread if the operation throws or is rejected.
+         * The default implementation only logs the failure.
+         */
+        default void onError(Exception e) {
+            Log.e(TAG, "Repository operation failed", e);
+        }
+    }
+
+    private final Context appContext;
+    private final DatabaseHelper dbHelper;
+    private final AlertDispatcher alerts;
+    private final Set<Future<?>> pending = ConcurrentHashMap.newKeySet(); // Outstanding tasks
+    private volatile boolean cancelled; // Set once the owner is destroyed
+
+    /**
+     * Constructor for InventoryRepository.
+     *
+     * @param context Context used to reach the shared DatabaseHelper.
+     */
+    public InventoryRepository(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.dbHelper = DatabaseHelper.getInstance(context);
+        this.alerts = AlertDispatcher.getInstance(context);
+    }
+
+    /**
+     * Turns on StrictMode-clean mode: disk access on the calling (main) thread is fatal, and
+     * any DatabaseHelper call made from the main thread throws IllegalStateException.
+     * GridventoryApplication turns it on in debuggable builds; tests may too.
+     *
+     * @param enabled true to enforce, false to restore the lax default.
+     */
+    public static void setStrictMode(boolean enabled) {
+        DatabaseHelper.setMainThreadAccessAllowed(!enabled);
+        if (enabled) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .penaltyDeath()
+                    .build());
+        } else {
+            StrictMode.setThreadPolicy(StrictMode.ThreadPolicy.LAX);
+        }
+    }
+
+    /**
+     * Scopes every later item read and write, in every repository, to one account's items.
+     * Call it before the first read after a login. Writes already queued, and adjustments
+     * still buffered, are written for the account that made them.
+     *
+     * @param ownerId The logged-in user's ID.
+     */
+    public void setOwner(long ownerId) {
+        QuantityDeltaBuffer previous = quantityDeltas;
+        if (previous.getOwnerId() != ownerId) {
+            quantityDeltas = new QuantityDeltaBuffer(ownerId);
+            if (!previous.isEmpty()) {
+                flushEarlierAccount(previous);
+            }
+        }
+        dbHelper.setOwner(ownerId);
+    }
+
+    // ---- Reads ----
+
+    /**
+     * Reads the first page snapshot on the calling thread. This is the one read meant for
+     * the main thread: it memory-maps a file of a few kilobytes and never opens SQLite, so
+     * the dashboard can draw before the first page query has run. The rows may be stale;
+     * reconcile them with the database afterwards.
+     *
+     * @return Items in ID order, or null if there is no usable snapshot.
+     */
+    public List<Item> readFirstPageSnapshot() {
+        // Writes too: on first use, getNoBackupFilesDir creates the directory
+        StrictMode.ThreadPolicy policy = StrictMode.allowThreadDiskWrites();
+        try {
+            FirstPageSnapshot snapshot = FirstPageSnapshot.read(snapshotFile(dbHelper.getOwner()));
+            return snapshot == null ? null : snapshot.items;
+        } finally {
+            StrictMode.setThreadPolicy(policy);
+        }
+    }
+
+    /**
+     * Loads every item ordered by ID.
+     */
+    public Future<?> loadItems(Callback<List<Item>> callback) {
+        return read(() -> quantityDeltas.overlayAll(dbHelper::getAllItems), callback);
+    }
+
+    /**
+     * Loads every item ordered by ID into compact columns (see ItemColumns).
+     */
+    public Future<?> loadItemColumns(Callback<ItemColumns> callback) {
+        return read(() -> quantityDeltas.overlayColumns(dbHelper::getAllItemColumns), callback);
+    }
+
+    /**
+     * Runs a sorted, filtered query in SQLite (see DatabaseHelper.queryItems). The first
+     * {@link #QUERY_FIRST_WINDOW} rows come first, from a LIMIT query that reads only the
+     * top of an index, so a re-sort shows rows within a frame however large the result;
+     * the full result follows from the same reader task. Cancel the returned Future when a
+     * newer query supersedes this one.
+     *
+     * @param firstWindow Receives the first rows; may be null to wait for the full result.
+     * @param callback    Receives every matching row.
+     */
+    public Future<?> queryItems(ItemQuery query, Callback<ItemColumns> firstWindow, Callback<ItemColumns> callback) {
+        return read(() -> {
+            if (firstWindow != null && (query.limit == ItemQuery.NO_LIMIT || query.limit > QUERY_FIRST_WINDOW)) {
+                ItemColumns window = quantityDeltas.overlayColumns(
+                        () -> dbHelper.queryItems(query.withLimit(QUERY_FIRST_WINDOW)));
+                post(() -> firstWindow.onResult(window));
+            }
+            return quantityDeltas.overlayColumns(() -> dbHelper.queryItems(query));
+        }, callback);
+    }
+
+    /**
+     * Loads one keyset page: up to {@code limit} items with afterId < id <= upToId.
+     */
+    public Future<?> loadPage(int afterId, int upToId, int limit, Callback<List<Item>> callback) {
+        return read(() -> quantityDeltas.overlayAll(() -> dbHelper.getItemsAfter(afterId, upToId, limit)), callback);
+    }
+
+    /**
+     * Re-reads one keyset page and diffs it against the rows currently shown, all on a
+     * reader thread, so the main thread only dispatches the resulting updates.
+     *
+     * @param current Snapshot of the rows currently shown for the page; not mutated.
+     */
+    public Future<?> diffPage(List<Item> current, int afterId, int upToId, int limit,
+                              Callback<ItemDiffCallback.Result> callback) {
+        return read(() -> ItemDiffCallback.calculate(current,
+                quantityDeltas.overlayAll(() -> dbHelper.getItemsAfter(afterId, upToId, limit))), callback);
+    }
+
+    /**
+     * Looks up a single item; delivers null if it does not exist.
+     */
+    public Future<?> getItem(int id, Callback<Item> callback) {
+        return read(() -> quantityDeltas.overlay(() -> dbHelper.getItem(id)), callback);
+    }
+
+    /**
+     * Looks up an item by SKU, e.g. a scanned barcode; delivers null if no item has it.
+     */
+    public Future<?> findBySku(String sku, Callback<Item> callback) {
+        return read(() -> quantityDeltas.overlay(() -> dbHelper.findBySku(sku)), callback);
+    }
+
+    /**
+     * Sets or clears an item's SKU; delivers false if another item already has it.
+     */
+    public Future<?> assignSku(int id, String sku, Callback<Boolean> callback) {
+        long ownerId = dbHelper.getOwner();
+        return write(() -> dbHelper.assignSku(id, sku, ownerId), callback);
+    }
+
+    /**
+     * Adds a stock location and delivers its ID, or -1 if the name is taken.
+     */
+    public Future<?> addLocation(String name, Callback<Long> callback) {
+        return write(() -> dbHelper.addLocation(name), callback);
+    }
+
+    /**
+     * Loads every location, in ID order.
+     */
+    public Future<?> getLocations(Callback<List<Location>> callback) {
+        return read(dbHelper::getLocations, callback);
+    }
+
+    /**
+     * Sets an item's count at a location, moving its total by the difference; delivers false
+     * if the item or location does not exist.
+     */
+    public Future<?> setStock(int itemId, int locationId, int quantity, Callback<Boolean> callback) {
+        long ownerId = dbHelper.getOwner();
+        return write(() -> dbHelper.setStock(itemId, locationId, quantity, ownerId), callback);
+    }
+
+    /**
+     * Moves units between locations atomically; delivers false, changing nothing, if the
+     * source holds too few.
+     */
+    public Future<?> transferStock(int itemId, int fromLocationId, int toLocationId, int quantity,
+                                   Callback<Boolean> callback) {
+        long ownerId = dbHelper.getOwner();
+        return write(() -> dbHelper.transferStock(itemId, fromLocationId, toLocationId, quantity, ownerId),
+                callback);
+    }
+
+    /**
+     * Loads one page of a location's stock, in item ID order; pass the last item ID for the next.
+     */
+    public Future<?> getLocationStock(int locationId, int afterItemId, int limit, Callback<List<StockLevel>> callback) {
+        return read(() -> dbHelper.getLocationStock(locationId, afterItemId, limit), callback);
+    }
+
+    /**
+     * Loads an item's stock at each location holding it.
+     */
+    public Future<?> getItemStock(int itemId, Callback<List<StockLevel>> callback) {
+        return read(() -> dbHelper.getItemStock(itemId), callback);
+    }
+
+    /**
+     * Runs a ranked prefix search over item names (see DatabaseHelper.searchItems).
+     * Cancel the returned Future when a newer query supersedes this one.
+     */
+    public Future<?> searchItems(String prefix, int limit, Callback<List<Item>> callback) {
+        return read(() -> quantityDeltas.overlayAll(() -> dbHelper.searchItems(prefix, limit)), callback);
+    }
+
+    /**
+     * Reads up to {@code limit} change journal entries after sequence number {@code seq}.
+     */
+    public Future<?> changesSince(long seq, int limit, Callback<List<ItemChange>> callback) {
+        return read(() -> dbHelper.changesSince(seq, limit), callback);
+    }
+
+    /**
+     * Verifies a username/password pair (running the KDF on a reader thread) and, on
+     * success, upgrades a stale password hash and starts a persisted session on the writer
+     * thread. Delivers null for wrong credentials.
+     */
+    public Future<?> login(String username, String password, Callback<SessionManager.Session> callback) {
+        return read(() -> dbHelper.verifyUser(username, password), new Callback<DatabaseHelper.VerifiedUser>() {
+            @Override
+            public void onResult(DatabaseHelper.VerifiedUser user) {
+                if (user == null) {
+                    callback.onResult(null);
+                    return;
+                }
+                write(() -> {
+                    dbHelper.upgradePasswordHash(user);
+                    return new SessionManager(appContext).start(user.userId, username);
+                }, callback);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Delivers the persisted session if one is still valid, otherwise null. Touches neither
+     * the KDF nor the users table.
+     */
+    public Future<?> restoreSession(Callback<SessionManager.Session> callback) {
+        // Queued behind writes so a logout that is still pending is seen
+        return write(() -> new SessionManager(appContext).current(), callback);
+    }
+
+    /**
+     * Loads the SMS low-stock alert settings.
+     */
+    public Future<?> loadAlertSettings(Callback<AlertSettings> callback) {
+        return read(alerts::getSettings, callback);
+    }
+
+    /**
+     * Delivers the dashboard totals (a one-row read). Runs on the writer thread after any
+     * buffered quantity adjustments are written, so the totals include them.
+     */
+    public Future<?> loadSummary(Callback<InventorySummary> callback) {
+        return write(() -> {
+            if (!quantityDeltas.isEmpty()) {
+                flushQuantityDeltas();
+            }
+            return dbHelper.getSummary();
+        }, callback);
+    }
+
+    /**
+     * Recounts the dashboard totals from every item and repairs the stored totals if they
+     * drifted; delivers true if they were already correct. Scans the whole items table.
+     */
+    public Future<?> verifySummary(Callback<Boolean> callback) {
+        return write(() -> {
+            if (!quantityDeltas.isEmpty()) {
+                flushQuantityDeltas();
+            }
+            boolean consistent = dbHelper.verifySummary();
+            if (!consistent) {
+                Log.w(TAG, "Inventory summary had drifted; rebuilt from the items table");
+            }
+            return consistent;
+        }, callback);
+    }
+
+    /**
+     * Delivers the data layer's latency table and slow-query log as text (see QueryStats.dump).
+     *
+     * @param reset Whether to clear the counters after taking the dump.
+     */
+    public Future<?> loadQueryStats(boolean reset, Callback<String> callback) {
+        return read(() -> {
+            QueryStats stats = dbHelper.getQueryStats();
+            String dump = stats.dump();
+            if (reset) {
+                stats.reset();
+            }
+            return dump;
+        }, callback);
+    }
+
+    // ---- Writes ----
+
+    /**
+     * Inserts an item and delivers it with its newly assigned ID.
+     */
+    public Future<?> addItem(String name, int quantity, Callback<Item> callback) {
+        long ownerId = dbHelper.getOwner();
+        return write(() -> {
+            long id = dbHelper.addItem(name, quantity, ownerId);
+            if (id == -1) {
+                throw new IllegalStateException("Insert failed for item " + name);
+            }
+            alerts.onStockChanged((int) id, name, Integer.MAX_VALUE, quantity);
+            return new Item((int) id, name, quantity);
+        }, callback);
+    }
+
+    /**
+     * Adds {@code delta} to an item's quantity. The delta is merged with others for the same
+     * item and written in one batched transaction within {@link QuantityDeltaBuffer#FLUSH_DELAY_MS},
+     * or sooner once {@link QuantityDeltaBuffer#FLUSH_THRESHOLD} items are pending. Reads
+     * through this repository include it immediately.
+     */
+    public void adjustQuantity(int id, int delta) {
+        if (quantityDeltas.add(id, delta) >= QuantityDeltaBuffer.FLUSH_THRESHOLD) {
+            flushAdjustments();
+        } else {
+            flushAdjustmentsLater();
+        }
+    }
+
+    /**
+     * Writes buffered quantity adjustments now. Runs even after {@link #cancelAll()}, so call
+     * it from onStop to persist adjustments before the process may be killed.
+     */
+    public void flushAdjustments() {
+        DELTA_FLUSH_SCHEDULED.set(false);
+        if (quantityDeltas.isEmpty()) {
+            return;
+        }
+        try {
+            WRITE_EXECUTOR.execute(this::flushQuantityDeltas);
+            scheduleSnapshot();
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Writer busy; quantity adjustments stay buffered", e); // Retried on the next adjustment
+        }
+    }
+
+    /**
+     * Rewrites the first page snapshot now (behind queued writes) if the items changed
+     * since it was last written, including changes made outside this repository such as
+     * sync. Runs even after {@link #cancelAll()}; call it from onStop.
+     */
+    public void saveFirstPageSnapshot() {
+        MAIN_HANDLER.removeCallbacksAndMessages(SNAPSHOT_TOKEN);
+        try {
+            WRITE_EXECUTOR.execute(this::writeFirstPageSnapshot);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Writer busy; first page snapshot not saved", e); // The launch reconcile covers it
+        }
+    }
+
+    /**
+     * Inserts many items in chunked transactions and delivers the number inserted.
+     */
+    public Future<?> addItems(List<Item> items, Callback<Integer> callback) {
+        long ownerId = dbHelper.getOwner();
+        return write(() -> dbHelper.addItems(items, ownerId), callback);
+    }
+
+    /**
+     * Streams a "name,quantity" CSV document into the items table. Progress (rows imported
+     * so far) is posted to the main thread after each committed chunk. A failed import of
+     * the same Uri into the same account resumes after the last committed chunk.
+     *
+     * @param uri      Document to read through the ContentResolver.
+     * @param progress Receives row counts as chunks commit; may be null.
+     * @param callback Receives the final counts, or the failure.
+     */
+    public Future<?> importCsv(Uri uri, Callback<Long> progress, Callback<CsvItemImporter.Result> callback) {
+        long ownerId = dbHelper.getOwner(); // Every chunk goes to the account that started the import
+        return write(() -> {
+            // Opening preferences reads from disk, so it happens on the writer thread too
+            CsvItemImporter importer = new CsvItemImporter(dbHelper,
+                    appContext.getSharedPreferences(IMPORT_PREFS, Context.MODE_PRIVATE), ownerId);
+            InputStream in = appContext.getContentResolver().openInputStream(uri);
+            if (in == null) {
+                throw new FileNotFoundException("Cannot open " + uri);
+            }
+            return importer.importCsv(uri.toString(), new InputStreamReader(in, StandardCharsets.UTF_8),
+                    rows -> {
+                        if (progress != null) {
+                            post(() -> progress.onResult(rows));
+                        }
+                    });
+        }, callback);
+    }
+
+    /**
+     * Writes an {@link InventoryBackup} of every item, and optionally the signed-in account, to
+     * a document and delivers its counts and throughput. Buffered quantity adjustments are
+     * written first on the writer thread, so the backup includes them; the export itself
+     * then runs on a reader, so writes carry on while it streams.
+     *
+     * @param uri          Document opened for writing through the ContentResolver; replaced.
+     * @param includeUsers Whether to back up the signed-in account (with its password hash) too.
+     */
+    public Future<?> exportBackup(Uri uri, boolean includeUsers, Callback<InventoryBackup.Stats> callback) {
+        long ownerId = dbHelper.getOwner();
+        QuantityDeltaBuffer deltas = quantityDeltas;
+        return write(() -> {
+            flushQuantityDeltas(deltas);
+            return null;
+        }, new Callback<Void>() {
+            @Override
+            public void onResult(Void result) {
+                read(() -> {
+                    try (ParcelFileDescriptor fd = openDocument(uri, "wt");
+                         FileOutputStream out = new FileOutputStream(fd.getFileDescriptor())) {
+                        InventoryBackup.Stats stats = dbHelper.exportBackup(out.getChannel(), includeUsers, ownerId);
+                        Log.i(TAG, "Backup exported: " + stats);
+                        return stats;
+                    }
+                }, callback);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Makes the inventory, and optionally the signed-in account, match a backup document and
+     * delivers its counts and throughput. A damaged backup is rejected before anything
+     * changes (see {@link DatabaseHelper#restoreBackup}).
+     *
+     * @param uri          Backup document, read through the ContentResolver.
+     * @param includeUsers Whether to restore the signed-in account too, if the backup has it;
+     *                     no other account is changed.
+     */
+    public Future<?> restoreBackup(Uri uri, boolean includeUsers, Callback<InventoryBackup.Stats> callback) {
+        long ownerId = dbHelper.getOwner();
+        QuantityDeltaBuffer deltas = quantityDeltas;
+        return write(() -> {
+            flushQuantityDeltas(deltas); // Applied now, then overwritten by the backup's quantities
+            try (ParcelFileDescriptor fd = openDocument(uri, "r");
+                 FileInputStream in = new FileInputStream(fd.getFileDescriptor())) {
+                InventoryBackup.Stats stats = dbHelper.restoreBackup(in.getChannel(), includeUsers, ownerId);
+                Log.i(TAG, "Backup restored: " + stats);
+                return stats;
+            }
+        }, callback);
+    }
+
+    // Seekable file access to a document; restore reads the file twice
+    private ParcelFileDescriptor openDocument(Uri uri, String mode) throws FileNotFoundException {
+        ParcelFileDescriptor fd = appContext.getContentResolver().openFileDescriptor(uri, mode);
+        if (fd == null) {
+            throw new FileNotFoundException("Cannot open " + uri);
+        }
+        return fd;
+    }
+
+    /**
+     * Rewrites an item's name and quantity and delivers the updated item. A quantity below
+     * the stock the item's locations hold is raised to that stock.
+     */
+    public Future<?> updateItem(int id, String name, int quantity, Callback<Item> callback) {
+        long ownerId = dbHelper.getOwner();
+        QuantityDeltaBuffer deltas = quantityDeltas;
+        return write(() -> {
+            flushQuantityDeltas(deltas); // Earlier adjustments land first, then this absolute value
+            Item before = dbHelper.getItem(id); // Usually a cache hit; null once another account signed in
+            dbHelper.updateItem(id, name, quantity, ownerId);
+            Item after = dbHelper.getItem(id);
+            if (after == null) {
+                return new Item(id, name, quantity);
+            }
+            if (before != null) {
+                alerts.onStockChanged(id, name, before.getQuantity(), after.getQuantity());
+            }
+            return after;
+        }, callback);
+    }
+
+    /**
+     * Deletes an item by ID and delivers that ID once the row is gone.
+     */
+    public Future<?> deleteItem(int id, Callback<Integer> callback) {
+        long ownerId = dbHelper.getOwner();
+        QuantityDeltaBuffer deltas = quantityDeltas;
+        return write(() -> {
+            flushQuantityDeltas(deltas);
+            dbHelper.deleteItem(id, ownerId);
+            alerts.onItemDeleted(id);
+            return id;
+        }, callback);
+    }
+
+    /**
+     * Creates a user account; delivers false if the username is taken.
+     */
+    public Future<?> addUser(String username, String password, Callback<Boolean> callback) {
+        return write(() -> dbHelper.addUser(username, password), callback);
+    }
+
+    /**
+     * Saves the SMS low-stock alert settings.
+     *
+     * @param callback Notified once saved; may be null.
+     */
+    public Future<?> saveAlertSettings(AlertSettings settings, Callback<Void> callback) {
+        return write(() -> {
+            alerts.setSettings(settings);
+            return null;
+        }, callback);
+    }
+
+    /**
+     * Ends the persisted session.
+     *
+     * @param callback Notified once the session is cleared; may be null.
+     */
+    public Future<?> endSession(Callback<Void> callback) {
+        return write(() -> {
+            new SessionManager(appContext).end();
+            return null;
+        }, callback);
+    }
+
+    /**
+     * Replaces legacy plaintext passwords with salted hashes, one small batch per writer
+     * task so other writes are not held up behind the KDF work.
+     */
+    public void upgradeLegacyPasswords() {
+        write(() -> {
+            if (dbHelper.upgradeLegacyPasswords(LEGACY_PASSWORD_BATCH) == LEGACY_PASSWORD_BATCH) {
+                upgradeLegacyPasswords(); // More rows may remain
+            }
+            return null;
+        }, null);
+    }
+
+    // Writer thread only: commits the current account's buffered deltas
+    private void flushQuantityDeltas() {
+        flushQuantityDeltas(quantityDeltas);
+    }
+
+    // Writer thread only: commits buffered deltas for their account and reports stock changes for alerts
+    private void flushQuantityDeltas(QuantityDeltaBuffer buffer) {
+        boolean committed = buffer.flush((ids, deltas, count) -> {
+            int[] quantities = dbHelper.adjustQuantities(ids, deltas, count, buffer.getOwnerId());
+            for (int i = 0; i < count; i++) {
+                if (quantities[i] == InventoryStore.NO_SUCH_ITEM) {
+                    continue;
+                }
+                int before = quantities[i] - deltas[i];
+                if (Math.min(before, quantities[i]) <= AlertDispatcher.LOW_STOCK_THRESHOLD) {
+                    Item item = dbHelper.getItem(ids[i]); // Null once another account signed in
+                    if (item != null) {
+                        alerts.onStockChanged(ids[i], item.getName(), before, quantities[i]);
+                    }
+                }
+            }
+        });
+        if (!committed) {
+            Log.e(TAG, "Quantity flush failed; adjustments stay buffered");
+            if (buffer == quantityDeltas) {
+                flushAdjustmentsLater();
+            } else {
+                MAIN_HANDLER.postDelayed(() -> flushEarlierAccount(buffer), QuantityDeltaBuffer.FLUSH_DELAY_MS);
+            }
+        }
+    }
+
+    // Writes the adjustments an earlier account left buffered, behind its queued writes
+    private void flushEarlierAccount(QuantityDeltaBuffer buffer) {
+        try {
+            WRITE_EXECUTOR.execute(() -> flushQuantityDeltas(buffer));
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Writer busy; retrying an earlier account's adjustments", e);
+            MAIN_HANDLER.postDelayed(() -> flushEarlierAccount(buffer), QuantityDeltaBuffer.FLUSH_DELAY_MS);
+        }
+    }
+
+    // Debounced: each write pushes the snapshot back, so a burst of writes produces one
+    private void scheduleSnapshot() {
+        MAIN_HANDLER.removeCallbacksAndMessages(SNAPSHOT_TOKEN);
+        MAIN_HANDLER.postAtTime(this::saveFirstPageSnapshot, SNAPSHOT_TOKEN,
+                SystemClock.uptimeMillis() + SNAPSHOT_DELAY_MS);
+    }
+
+    // Writer thread only. The seq is read before the rows, so a write landing in between
+    // leaves the file newer than its seq and is simply snapshotted again next time.
+    private void writeFirstPageSnapshot() {
+        long owner = dbHelper.getOwner();
+        long seq = dbHelper.getLatestChangeSeq();
+        if (seq == snapshotSeq && owner == snapshotOwner) {
+            return;
+        }
+        List<Item> items = dbHelper.getItemsAfter(0, Integer.MAX_VALUE, PagedItemList.PAGE_SIZE);
+        try {
+            FirstPageSnapshot.write(snapshotFile(owner), seq, items);
+            snapshotSeq = seq;
+            snapshotOwner = owner;
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write first page snapshot", e);
+        }
+    }
+
+    private File snapshotFile(long owner) {
+        // Derived data: excluded from backups and rebuilt after the first write
+        return new File(appContext.getNoBackupFilesDir(), FirstPageSnapshot.FILE_NAME + "." + owner);
+    }
+
+    private void flushAdjustmentsLater() {
+        if (DELTA_FLUSH_SCHEDULED.compareAndSet(false, true)) {
+            MAIN_HANDLER.postDelayed(this::flushAdjustments, QuantityDeltaBuffer.FLUSH_DELAY_MS);
+        }
+    }
+
+    // ---- Lifecycle ----
+
+    /**
+     * Cancels queued reads and suppresses every outstanding callback. Writes that were
+     * already accepted still run to completion so no user change is lost.
+     * Call from the owning Activity's onDestroy.
+     */
+    public void cancelAll() {
+        cancelled = true;
+        for (Future<?> future : pending) {
+            if (future instanceof CallbackTask && ((CallbackTask<?>) future).isRead) {
+                future.cancel(false);
+            }
+        }
+        pending.clear();
+    }
+
+    // ---- Internals ----
+
+    // Runs on the main thread unless this repository has been cancelled meanwhile
+    private void post(Runnable action) {
+        MAIN_HANDLER.post(() -> {
+            if (!cancelled) {
+                action.run();
+            }
+        });
+    }
+
+    <T> Future<?> read(Callable<T> work, Callback<T> callback) {
+        return submit(READ_EXECUTOR, true, work, callback);
+    }
+
+    <T> Future<?> write(Callable<T> work, Callback<T> callback) {
+        return submit(WRITE_EXECUTOR, false, work, callback);
+    }
+
+    private <T> Future<?> submit(ExecutorService executor, boolean isRead,
+                                 Callable<T> work, Callback<T> callback) {
+        CallbackTask<T> task = new CallbackTask<>(work, callback, isRead);
+        if (cancelled) {
+            task.cancel(false);
+            return task;
+        }
+        pending.add(task);
+        try {
+            executor.execute(task);
+            if (!isRead) {
+                scheduleSnapshot(); // Most writes touch items; the seq check skips the rest
+            }
+        } catch (RejectedExecutionException e) {
+            pending.remove(task);
+            task.cancel(false);
+            if (callback != null) {
+                MAIN_HANDLER.post(() -> callback.onError(e));
+            }
+        }
+        return task;
+    }
+
+    /**
+     * FutureTask that posts its outcome to the main thread unless it or its repository has
+     * been cancelled by the time the main thread runs it.
+     */
+    private final class CallbackTask<T> extends FutureTask<T> {
+        private final Callback<T> callback;
+        private final boolean isRead;
+
+        CallbackTask(Callable<T> work, Callback<T> callback, boolean isRead) {
+            super(work);
+            this.callback = callback;
+            this.isRead = isRead;
+        }
+
+        @Override
+        protected void done() {
+            pending.remove(this);
+            if (isCancelled() || callback == null) {
+                return;
+            }
+            MAIN_HANDLER.post(() -> {
+                if (cancelled || isCancelled()) {
+                    return;
+                }
+                try {
+                    callback.onResult(get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    callback.onError(cause instanceof Exception
+                            ? (Exception) cause : new RuntimeException(cause));
+                } catch (InterruptedException | CancellationException e) {
+                    // Not reachable once done() has run; nothing to deliver
+                }
+            });
+        }
+    }
+
+    private static ExecutorService newExecutor(String name, int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, name + "-" + count.incrementAndGet());
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), factory);
+    }
+}
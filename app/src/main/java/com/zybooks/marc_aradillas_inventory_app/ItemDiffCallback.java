@@ -0,0 +1,79 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.List;
+
+/**
+ * ItemDiffCallback:
+ * - DiffUtil callback comparing two item lists, keyed on {@link Item#getId()}.
+ * - Rows with the same ID are the same row; they are unchanged if name and quantity match,
+ *   and a row whose name matches gets the quantity-only payload.
+ * - Diffs are computed on a background thread with {@link #calculate}, then dispatched to
+ *   the adapter on the main thread, so only rows that really changed are rebound.
+ */
+public class ItemDiffCallback extends DiffUtil.Callback {
+
+    /**
+     * A freshly loaded list together with the diff from the list it replaces.
+     */
+    public static final class Result {
+        public final List<Item> newItems;
+        public final DiffUtil.DiffResult diff;
+
+        Result(List<Item> newItems, DiffUtil.DiffResult diff) {
+            this.newItems = newItems;
+            this.diff = diff;
+        }
+    }
+
+    private final List<Item> oldItems;
+    private final List<Item> newItems;
+
+    /**
+     * Constructor for ItemDiffCallback.
+     *
+     * @param oldItems The list currently shown.
+     * @param newItems The list that replaces it.
+     */
+    public ItemDiffCallback(List<Item> oldItems, List<Item> newItems) {
+        this.oldItems = oldItems;
+        this.newItems = newItems;
+    }
+
+    /**
+     * Computes the diff between two lists. Call off the main thread.
+     *
+     * @param oldItems The list currently shown; must not be mutated during the call.
+     * @param newItems The list that replaces it.
+     * @return The new list and its diff.
+     */
+    public static Result calculate(List<Item> oldItems, List<Item> newItems) {
+        return new Result(newItems, DiffUtil.calculateDiff(new ItemDiffCallback(oldItems, newItems)));
+    }
+
+    @Override
+    public int getOldListSize() {
+        return oldItems.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return newItems.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        return oldItems.get(oldItemPosition).getId() == newItems.get(newItemPosition).getId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        return oldItems.get(oldItemPosition).equals(newItems.get(newItemPosition));
+    }
+
+    @Override
+    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+        return ItemRow.changePayload(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+    }
+}
@@ -0,0 +1,62 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * ItemListSource:
+ * - The list of items an InventoryAdapter displays and edits.
+ * - Implemented by PagedItemList for the dashboard, SearchResultList for search results and
+ *   ColumnarItemList for fully loaded lists.
+ * - Implementations notify their own ListUpdateCallback of changes; all methods run on the
+ *   main thread. A change that only touches a row's quantity carries
+ *   {@link ItemRow#PAYLOAD_QUANTITY} (see {@link ItemRow#changePayload}).
+ */
+public interface ItemListSource {
+
+    /**
+     * Returns the number of rows in the list.
+     */
+    int size();
+
+    /**
+     * Returns the item at a position, or null if it is not loaded yet.
+     */
+    Item get(int position);
+
+    /**
+     * Fills a reusable row with the item at a position, for binding without allocating.
+     * The default copies from {@link #get}; column-backed lists decode in place.
+     *
+     * @return False if the item is not loaded yet.
+     */
+    default boolean readRow(int position, ItemRow row) {
+        Item item = get(position);
+        if (item == null) {
+            return false;
+        }
+        row.set(item);
+        return true;
+    }
+
+    /**
+     * Returns the ID of the item at a position, even while the item itself is not loaded,
+     * so a row keeps its stable ID from placeholder to loaded. Lists whose items are always
+     * loaded can rely on the default.
+     */
+    default int idAt(int position) {
+        return get(position).getId();
+    }
+
+    /**
+     * Finds the position of an item by ID, or RecyclerView.NO_POSITION if it is not shown.
+     */
+    int findPosition(int id);
+
+    /**
+     * Replaces the shown item with the same ID, if any.
+     */
+    void set(Item item);
+
+    /**
+     * Removes the shown item with the given ID, if any.
+     */
+    void remove(int id);
+}
@@ -12,13 +12,14 @@ import androidx.appcompat.app.AppCompatActivity;
  * LoginActivity:
  * - Handles user authentication and account creation.
  * - Provides input fields for username and password.
- * - Validates credentials against the database.
+ * - Validates credentials against the database off the UI thread.
+ * - Skips the login screen when a persisted session is still valid.
  * - Allows new users to create an account.
  */
 public class LoginActivity extends AppCompatActivity {
 
-    // Database helper for user authentication and account management
-    private DatabaseHelper dbHelper;
+    // Repository for user authentication and account management off the UI thread
+    private InventoryRepository repository;
 
     // UI components for user input and actions
     private EditText usernameEditText, passwordEditText;
@@ -34,8 +35,18 @@ public class LoginActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
 
-        // Initialize database helper
-        dbHelper = new DatabaseHelper(this);
+        // Initialize repository
+        repository = new InventoryRepository(this);
+
+        // Relaunch straight into the dashboard if a session is still valid
+        repository.restoreSession(session -> {
+            if (session != null) {
+                openDashboard(session);
+            }
+        });
+
+        // Hash any passwords still stored in plaintext, in the background
+        repository.upgradeLegacyPasswords();
 
         // Link UI components with layout elements
         usernameEditText = findViewById(R.id.usernameEditText);
@@ -48,18 +59,18 @@ public class LoginActivity extends AppCompatActivity {
             String username = usernameEditText.getText().toString().trim();
             String password = passwordEditText.getText().toString().trim();
 
-            // Validate credentials against the database
-            if (dbHelper.checkUser(username, password)) {
-                Toast.makeText(LoginActivity.this, "Login Successful!", Toast.LENGTH_SHORT).show();
-
-                // Navigate to the inventory dashboard (MainActivity)
-                Intent intent = new Intent(LoginActivity.this, MainActivity.class);
-                startActivity(intent);
-                finish(); // Close the login activity
-            } else {
-                // Show error message for invalid credentials
-                Toast.makeText(LoginActivity.this, "Invalid Credentials", Toast.LENGTH_SHORT).show();
-            }
+            // Validate credentials against the database in the background
+            loginButton.setEnabled(false);
+            repository.login(username, password, session -> {
+                loginButton.setEnabled(true);
+                if (session != null) {
+                    Toast.makeText(LoginActivity.this, "Login Successful!", Toast.LENGTH_SHORT).show();
+                    openDashboard(session);
+                } else {
+                    // Show error message for invalid credentials
+                    Toast.makeText(LoginActivity.this, "Invalid Credentials", Toast.LENGTH_SHORT).show();
+                }
+            });
         });
 
         // Set up create account button click listener
@@ -69,17 +80,39 @@ public class LoginActivity extends AppCompatActivity {
 
             // Validate input fields
             if (!username.isEmpty() && !password.isEmpty()) {
-                // Add the new user to the database
-                if (dbHelper.addUser(username, password)) {
-                    Toast.makeText(LoginActivity.this, "Account Created Successfully", Toast.LENGTH_SHORT).show();
-                } else {
-                    // Show error message if account creation fails (e.g., duplicate username)
-                    Toast.makeText(LoginActivity.this, "Account Creation Failed", Toast.LENGTH_SHORT).show();
-                }
+                // Add the new user to the database in the background
+                repository.addUser(username, password, created -> {
+                    if (created) {
+                        Toast.makeText(LoginActivity.this, "Account Created Successfully", Toast.LENGTH_SHORT).show();
+                    } else {
+                        // Show error message if account creation fails (e.g., duplicate username)
+                        Toast.makeText(LoginActivity.this, "Account Creation Failed", Toast.LENGTH_SHORT).show();
+                    }
+                });
             } else {
                 // Show error message for empty fields
                 Toast.makeText(LoginActivity.this, "Fields cannot be empty", Toast.LENGTH_SHORT).show();
             }
         });
     }
+
+    /**
+     * Navigates to the inventory dashboard (MainActivity) for the session's account and
+     * closes the login screen.
+     */
+    private void openDashboard(SessionManager.Session session) {
+        Intent intent = new Intent(LoginActivity.this, MainActivity.class);
+        intent.putExtra(MainActivity.EXTRA_OWNER_ID, session.userId);
+        startActivity(intent);
+        finish(); // Close the login activity
+    }
+
+    /**
+     * Drops pending repository callbacks so none reach this destroyed Activity.
+     */
+    @Override
+    protected void onDestroy() {
+        repository.cancelAll();
+        super.onDestroy();
+    }
 }
\ No newline at end of file
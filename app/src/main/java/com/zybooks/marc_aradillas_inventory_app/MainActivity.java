@@ -1,57 +1,233 @@
 package com.zybooks.marc_aradillas_inventory_app;
 
-import android.annotation.SuppressLint;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.view.OneShotPreDrawListener;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.android.material.snackbar.Snackbar;
+
+import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Future;
 
 /**
  * MainActivity:
  * - Displays the inventory dashboard.
  * - Allows users to add, view, and delete inventory items.
+ * - Searches item names by prefix as the user types.
+ * - Sorts by name or quantity and filters to low stock from the app bar menu; the sorting
+ *   and filtering run in SQLite, off the main thread.
+ * - Shows inventory totals in a header, read from the summary row the database keeps
+ *   current, and refreshed shortly after the list changes.
+ * - Starts from the on-disk snapshot of the first page so rows draw before SQLite opens,
+ *   and logs the time to the first frame with items in it.
+ * - Shows only the logged-in account's items: LoginActivity passes its user ID in
+ *   {@link #EXTRA_OWNER_ID}, and every query filters on it.
  * - Provides access to SMS settings and a logout option via the app bar menu.
  */
 public class MainActivity extends AppCompatActivity {
 
+    // Intent extra: user ID of the logged-in account, whose inventory is shown
+    static final String EXTRA_OWNER_ID = "owner_id";
+
+    private static final String TAG = "MainActivity";
+    private static final long SEARCH_DEBOUNCE_MS = 250; // Wait for typing to pause before querying
+    private static final int SEARCH_LIMIT = 50;         // Maximum search results shown
+    private static final long SUMMARY_REFRESH_DELAY_MS = 1_000; // After the last list change; lets writes settle
+    private static final int UNDO_DELETE_MS = 4_000;   // A deleted row can be brought back until its write is queued
+    private static final int NO_PENDING_DELETE = -1;
+
     private InventoryAdapter inventoryAdapter; // RecyclerView adapter for inventory list
-    private List<Item> inventoryList; // List of items displayed in RecyclerView
-    private DatabaseHelper dbHelper; // Database helper for database operations
+    private PagedItemList inventoryList; // Paged window of items displayed in RecyclerView
+    private InventoryRepository repository; // Runs database work off the UI thread
+    private RecyclerView inventoryRecyclerView; // Shows either the inventory or search results
+
+    private SearchResultList searchResults;    // Results of the current search
+    private InventoryAdapter searchAdapter;    // RecyclerView adapter for search results
+    private final Handler searchHandler = new Handler(Looper.getMainLooper()); // Debounces searches
+    private final Runnable searchRunnable = this::runSearch;
+    private Future<?> pendingSearch;           // In-flight query, cancelled when superseded
+    private EditText searchInput;              // Search box above the list
+
+    private ItemQuery.Field sortField = ItemQuery.Field.ID; // Chosen in the menu
+    private boolean lowStockOnly;                           // Chosen in the menu
+    private ItemQuery listQuery = ItemQuery.ALL;            // Built from the two above
+    private ColumnarItemList sortedList;       // Result of listQuery unless it is plain ID order
+    private InventoryAdapter sortedAdapter;    // RecyclerView adapter for the sorted list
+    private Future<?> pendingQuery;            // In-flight list query, cancelled when superseded
+    private int queryGeneration;               // Drops first windows of superseded queries
+
+    private TextView summaryText;              // Header with the inventory totals
+    private final Runnable summaryRunnable = this::refreshSummary;
+    private Future<?> pendingSummary;          // In-flight totals read, cancelled when superseded
+
+    private int pendingDeleteId = NO_PENDING_DELETE; // Deleted row whose write waits out the undo window
+    private final Runnable deleteRunnable = this::commitPendingDelete;
+    private Snackbar undoSnackbar;             // Offers undo for pendingDeleteId
 
     private EditText itemNameInput;    // Input field for item name
     private EditText itemQuantityInput; // Input field for item quantity
+    private Toolbar toolbar;            // App bar; its subtitle shows import progress
+
+    private long createdAtMs; // Uptime at onCreate, for the first-frame report
+
+    // Picks a CSV document to import; registered before the Activity is started
+    private final ActivityResultLauncher<String[]> importCsvLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), uri -> {
+                if (uri != null) {
+                    importCsv(uri);
+                }
+            });
+
+    // Picks where to write a backup, and a backup to restore
+    private final ActivityResultLauncher<String> exportBackupLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument(InventoryBackup.MIME_TYPE), uri -> {
+                if (uri != null) {
+                    exportBackup(uri);
+                }
+            });
+    private final ActivityResultLauncher<String[]> restoreBackupLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), uri -> {
+                if (uri != null) {
+                    restoreBackup(uri);
+                }
+            });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdAtMs = SystemClock.uptimeMillis();
         setContentView(R.layout.inventory_dashboard); // Set content layout
 
         // Set up the app bar Toolbar
-        Toolbar toolbar = findViewById(R.id.toolbar);
+        toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
 
-        // Initialize database helper
-        dbHelper = new DatabaseHelper(this);
+        // Initialize repository for background database access
+        repository = new InventoryRepository(this);
+
+        // Scope every item read and write to the logged-in account; without one, log in first
+        long ownerId = getIntent().getLongExtra(EXTRA_OWNER_ID, -1);
+        if (ownerId == -1) {
+            startActivity(new Intent(this, LoginActivity.class));
+            finish();
+            return;
+        }
+        repository.setOwner(ownerId);
+
+        // Share stock with other devices in the background (no-op unless a server is configured)
+        SyncEngine.startIfConfigured(this);
 
         // Set up RecyclerView for displaying inventory items
-        RecyclerView inventoryRecyclerView = findViewById(R.id.inventoryRecyclerView);
-        inventoryRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        inventoryRecyclerView = findViewById(R.id.inventoryRecyclerView);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        inventoryRecyclerView.setLayoutManager(layoutManager);
 
-        // Load all items from the database into inventoryList
-        inventoryList = dbHelper.getAllItems();
-        inventoryAdapter = new InventoryAdapter(this, inventoryList, this::deleteItem);
+        // Items are loaded a page at a time in the background as the list scrolls
+        inventoryList = new PagedItemList(repository);
+        inventoryAdapter = new InventoryAdapter(this, inventoryList, repository,
+                position -> deleteItem(inventoryList, position), this::editItem);
+        inventoryList.setUpdateCallback(new AdapterListUpdateCallback(inventoryAdapter));
         inventoryRecyclerView.setAdapter(inventoryAdapter);
+        inventoryRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Prefetch near the end and evict pages that scrolled far away
+                inventoryList.onVisibleRange(layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
+            }
+        });
+
+        // Draw the last snapshot of the first page now and reconcile it in the background;
+        // without one, wait for the first page query
+        List<Item> snapshot = repository.readFirstPageSnapshot();
+        reportFirstItemsDrawn(snapshot != null ? "snapshot" : "database");
+        if (snapshot != null) {
+            inventoryList.showSnapshot(snapshot);
+        } else {
+            inventoryList.refresh(); // Load the first page
+        }
+
+        // Search results share the RecyclerView; the adapter is swapped while a query is active
+        searchResults = new SearchResultList();
+        searchAdapter = new InventoryAdapter(this, searchResults, repository,
+                position -> deleteItem(searchResults, position), this::editItem);
+        searchResults.setUpdateCallback(new AdapterListUpdateCallback(searchAdapter));
+
+        // Sorted or filtered views are loaded whole into columns and swapped in like search results
+        sortedList = new ColumnarItemList();
+        sortedAdapter = new InventoryAdapter(this, sortedList, repository,
+                position -> deleteItem(sortedList, position), this::editItem);
+        sortedList.setUpdateCallback(new AdapterListUpdateCallback(sortedAdapter));
+
+        // Any change to a shown list may change the totals; refresh them once changes settle
+        summaryText = findViewById(R.id.summaryText);
+        RecyclerView.AdapterDataObserver summaryObserver = new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                scheduleSummaryRefresh();
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                scheduleSummaryRefresh();
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                scheduleSummaryRefresh();
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                scheduleSummaryRefresh();
+            }
+        };
+        inventoryAdapter.registerAdapterDataObserver(summaryObserver);
+        searchAdapter.registerAdapterDataObserver(summaryObserver);
+        sortedAdapter.registerAdapterDataObserver(summaryObserver);
+
+        // Query as the user types, once typing pauses
+        searchInput = findViewById(R.id.searchInput);
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchHandler.removeCallbacks(searchRunnable);
+                searchHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+            }
+        });
 
         // Initialize input fields and "Add Item" button
         itemNameInput = findViewById(R.id.itemNameInput);
@@ -62,10 +238,202 @@ public class MainActivity extends AppCompatActivity {
         addButton.setOnClickListener(v -> addItem());
     }
 
+    /**
+     * Shows current totals, which may have changed on another screen or through sync.
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refreshSummary();
+    }
+
+    /**
+     * Writes buffered quantity adjustments while the process is still sure to be alive.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        commitPendingDelete(); // Undo is gone once the user leaves
+        repository.flushAdjustments();
+        repository.saveFirstPageSnapshot(); // Also catches changes that arrived through sync
+    }
+
+    /**
+     * Releases pending repository callbacks so none reach this destroyed Activity.
+     */
+    @Override
+    protected void onDestroy() {
+        searchHandler.removeCallbacks(searchRunnable);
+        searchHandler.removeCallbacks(summaryRunnable);
+        searchHandler.removeCallbacks(deleteRunnable); // Already committed in onStop
+        repository.cancelAll();
+        super.onDestroy();
+    }
+
+    /**
+     * Logs how long after onCreate, and after process start, the first frame showing items
+     * is drawn, and reports the Activity fully drawn so the platform's startup metrics
+     * record it too.
+     *
+     * @param source Where the first rows come from, for the log line.
+     */
+    private void reportFirstItemsDrawn(String source) {
+        inventoryAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                inventoryAdapter.unregisterAdapterDataObserver(this);
+                // Runs just before the frame that lays out the new rows is drawn
+                OneShotPreDrawListener.add(inventoryRecyclerView, () -> {
+                    long now = SystemClock.uptimeMillis();
+                    Log.i(TAG, "First items drawn from " + source + ": " + (now - createdAtMs)
+                            + "ms after onCreate, " + (now - Process.getStartUptimeMillis())
+                            + "ms after process start");
+                    reportFullyDrawn();
+                });
+            }
+        });
+    }
+
+    /**
+     * Reads the totals (one row, at any inventory size) and shows them in the header.
+     */
+    private void refreshSummary() {
+        searchHandler.removeCallbacks(summaryRunnable);
+        if (pendingSummary != null) {
+            pendingSummary.cancel(false);
+        }
+        pendingSummary = repository.loadSummary(summary -> {
+            pendingSummary = null;
+            summaryText.setText(String.format(Locale.getDefault(),
+                    "%,d items \u00b7 %,d units \u00b7 %,d out of stock \u00b7 %,d low stock",
+                    summary.itemCount, summary.unitCount, summary.outOfStockCount, summary.lowStockCount));
+        });
+    }
+
+    // Coalesces bursts of list changes (paging, typing quantities) into one totals read
+    private void scheduleSummaryRefresh() {
+        searchHandler.removeCallbacks(summaryRunnable);
+        searchHandler.postDelayed(summaryRunnable, SUMMARY_REFRESH_DELAY_MS);
+    }
+
+    /**
+     * Recounts the totals from every item and reports whether the stored ones had drifted.
+     */
+    private void recountTotals() {
+        repository.verifySummary(consistent -> {
+            Toast.makeText(this, consistent ? "Totals are correct" : "Totals were out of date and have been recounted",
+                    Toast.LENGTH_SHORT).show();
+            refreshSummary();
+        });
+    }
+
+    /**
+     * Brings the shown rows up to date with the database using background diffs, so only
+     * rows that changed are rebound.
+     */
+    private void reloadItems() {
+        commitPendingDelete(); // Otherwise the diff would show the row again
+        inventoryList.reconcile();
+        if (!listQuery.isIdOrderUnfiltered()) {
+            runListQuery();
+        }
+    }
+
+    /**
+     * Returns the adapter for the list shown when no search is active.
+     */
+    private InventoryAdapter listAdapter() {
+        return listQuery.isIdOrderUnfiltered() ? inventoryAdapter : sortedAdapter;
+    }
+
+    /**
+     * Rebuilds the list query from the menu choices and shows its result.
+     */
+    private void setListQuery(ItemQuery.Field field, boolean lowStock) {
+        sortField = field;
+        lowStockOnly = lowStock;
+        ItemQuery query = ItemQuery.ALL.sortedBy(field, false);
+        if (lowStock) {
+            query = query.withQuantityBelow(AlertDispatcher.LOW_STOCK_THRESHOLD + 1);
+        }
+        listQuery = query;
+        runListQuery();
+    }
+
+    /**
+     * Runs the list query in the background, cancelling any older one still in flight. The
+     * first rows are shown as soon as they arrive and replaced by the full result. Plain ID
+     * order needs no query: the paged list shows it.
+     */
+    private void runListQuery() {
+        if (pendingQuery != null) {
+            pendingQuery.cancel(false);
+            pendingQuery = null;
+        }
+        int generation = ++queryGeneration;
+
+        if (listQuery.isIdOrderUnfiltered()) {
+            sortedList.setColumns(new ItemColumns(0)); // Let the old result be collected
+            showList(inventoryAdapter);
+            inventoryList.reconcile(); // Pick up edits made while sorted
+            return;
+        }
+
+        // A first window posted before the cancel can still arrive; the generation drops it
+        pendingQuery = repository.queryItems(listQuery, window -> {
+            if (generation == queryGeneration) {
+                sortedList.setColumns(window);
+                showList(sortedAdapter);
+            }
+        }, columns -> {
+            if (generation == queryGeneration) {
+                pendingQuery = null;
+                sortedList.setColumns(columns);
+                showList(sortedAdapter);
+            }
+        });
+    }
+
+    // Swaps the list in unless search results are showing; they stay until the search is cleared
+    private void showList(InventoryAdapter adapter) {
+        RecyclerView.Adapter<?> shown = inventoryRecyclerView.getAdapter();
+        if (shown != searchAdapter && shown != adapter) {
+            inventoryRecyclerView.setAdapter(adapter);
+        }
+    }
+
+    /**
+     * Runs the search for the current text, cancelling any older query still in flight.
+     * An empty query switches back to the full inventory list.
+     */
+    private void runSearch() {
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false); // Its result, if any, is never delivered
+            pendingSearch = null;
+        }
+
+        String query = searchInput.getText().toString().trim();
+        if (query.isEmpty()) {
+            if (inventoryRecyclerView.getAdapter() == searchAdapter) {
+                inventoryRecyclerView.setAdapter(listAdapter());
+                reloadItems(); // Pick up edits made while searching
+            }
+            return;
+        }
+
+        commitPendingDelete(); // Otherwise the results could show the row again
+        pendingSearch = repository.searchItems(query, SEARCH_LIMIT, results -> {
+            pendingSearch = null;
+            searchResults.setResults(results);
+            if (inventoryRecyclerView.getAdapter() != searchAdapter) {
+                inventoryRecyclerView.setAdapter(searchAdapter);
+            }
+        });
+    }
+
     /**
      * Adds a new item to the database and updates the RecyclerView.
      */
-    @SuppressLint("NotifyDataSetChanged")
     private void addItem() {
         String itemName = itemNameInput.getText().toString().trim(); // Get trimmed item name
         String itemQuantityString = itemQuantityInput.getText().toString().trim(); // Get trimmed quantity
@@ -84,42 +452,245 @@ public class MainActivity extends AppCompatActivity {
         try {
             int itemQuantity = Integer.parseInt(itemQuantityString); // Parse quantity to integer
 
-            // Add item to database
-            dbHelper.addItem(itemName, itemQuantity);
+            // Add item to database in the background, then refresh the RecyclerView
+            repository.addItem(itemName, itemQuantity, new InventoryRepository.Callback<Item>() {
+                @Override
+                public void onResult(Item item) {
+                    // Appears at the end of the list if the last page is loaded
+                    inventoryList.add(item);
+                    if (!listQuery.isIdOrderUnfiltered()) {
+                        runListQuery(); // Lands in its sorted place, if it passes the filter
+                    }
+                    Toast.makeText(MainActivity.this, "Item added successfully", Toast.LENGTH_SHORT).show();
+                }
 
-            // Refresh RecyclerView with updated inventory list
-            inventoryList.clear();
-            inventoryList.addAll(dbHelper.getAllItems());
-            inventoryAdapter.notifyDataSetChanged();
+                @Override
+                public void onError(Exception e) {
+                    Toast.makeText(MainActivity.this, "Failed to add item", Toast.LENGTH_SHORT).show();
+                }
+            });
 
             // Clear input fields
             itemNameInput.setText("");
             itemQuantityInput.setText("");
-
-            Toast.makeText(this, "Item added successfully", Toast.LENGTH_SHORT).show();
         } catch (NumberFormatException e) {
             itemQuantityInput.setError("Invalid quantity");
         }
     }
 
     /**
-     * Deletes an item from the database and updates RecyclerView.
+     * Streams a CSV document of "name,quantity" rows into the database, showing progress
+     * in the app bar, then reloads the list.
      *
+     * @param uri The document chosen by the user.
+     */
+    private void importCsv(Uri uri) {
+        toolbar.setSubtitle("Importing...");
+        repository.importCsv(uri,
+                rows -> toolbar.setSubtitle("Imported " + rows + " items"),
+                new InventoryRepository.Callback<CsvItemImporter.Result>() {
+                    @Override
+                    public void onResult(CsvItemImporter.Result result) {
+                        toolbar.setSubtitle(null);
+                        reloadItems();
+                        Toast.makeText(MainActivity.this, "Imported " + result.rowsImported
+                                + " items (" + result.rowsSkipped + " rows skipped)", Toast.LENGTH_LONG).show();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        toolbar.setSubtitle(null);
+                        reloadItems(); // Committed chunks are kept
+                        Toast.makeText(MainActivity.this, "Import stopped; import the file again to resume",
+                                Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    /**
+     * Writes a compressed backup of every item to the chosen document. User accounts are
+     * left out, so the file holds no password hashes.
+     *
+     * @param uri The document created by the user.
+     */
+    private void exportBackup(Uri uri) {
+        toolbar.setSubtitle("Backing up...");
+        repository.exportBackup(uri, false, new InventoryRepository.Callback<InventoryBackup.Stats>() {
+            @Override
+            public void onResult(InventoryBackup.Stats stats) {
+                toolbar.setSubtitle(null);
+                Toast.makeText(MainActivity.this, String.format(Locale.getDefault(),
+                        "Backed up %,d items (%,.0f items/s)", stats.items, stats.rowsPerSecond()),
+                        Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                toolbar.setSubtitle(null);
+                Toast.makeText(MainActivity.this, "Backup failed", Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    /**
+     * Replaces the inventory with the items in a backup document, then reloads the list.
+     * A damaged backup is rejected and changes nothing.
+     *
+     * @param uri The document chosen by the user.
+     */
+    private void restoreBackup(Uri uri) {
+        toolbar.setSubtitle("Restoring...");
+        repository.restoreBackup(uri, false, new InventoryRepository.Callback<InventoryBackup.Stats>() {
+            @Override
+            public void onResult(InventoryBackup.Stats stats) {
+                toolbar.setSubtitle(null);
+                reloadItems();
+                refreshSummary();
+                Toast.makeText(MainActivity.this, String.format(Locale.getDefault(),
+                        "Restored %,d items (%,.0f items/s)", stats.items, stats.rowsPerSecond()),
+                        Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                toolbar.setSubtitle(null);
+                reloadItems(); // A database failure can come after some chunks committed
+                Toast.makeText(MainActivity.this, e instanceof IOException
+                                ? "Not a valid backup; nothing was restored" : "Restore failed",
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    /**
+     * Shows an edit in every list at once and writes it in the background. Once written,
+     * the lists show the committed item; if the write fails they show the stored row again.
+     */
+    private void editItem(int id, String name, int quantity) {
+        showInAllLists(new Item(id, name, quantity));
+        repository.updateItem(id, name, quantity, new InventoryRepository.Callback<Item>() {
+            @Override
+            public void onResult(Item updated) {
+                showInAllLists(updated);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Update of item " + id + " failed", e);
+                showStoredItem(id);
+                Toast.makeText(MainActivity.this, "Could not save \"" + name + "\"; change undone",
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    // Replaces the item wherever it is shown
+    private void showInAllLists(Item item) {
+        inventoryList.set(item);
+        searchResults.set(item);
+        sortedList.set(item);
+    }
+
+    // Re-reads one item, so the lists show what the database holds rather than an older copy
+    private void showStoredItem(int id) {
+        repository.getItem(id, new InventoryRepository.Callback<Item>() {
+            @Override
+            public void onResult(Item stored) {
+                if (stored != null) {
+                    showInAllLists(stored);
+                } else {
+                    inventoryList.remove(id);
+                    searchResults.remove(id);
+                    sortedList.remove(id);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes an item from every list at once and offers to undo it. The delete is only
+     * queued to the writer once the undo window ends, so undo cancels it rather than
+     * inserting the row again.
+     *
+     * @param source   The list the delete was requested from.
      * @param position Position of the item to be deleted.
      */
-    private void deleteItem(int position) {
-        if (position >= 0 && position < inventoryList.size()) {
-            // Delete item from database using its ID
-            dbHelper.deleteItem(inventoryList.get(position).getId());
+    private void deleteItem(ItemListSource source, int position) {
+        if (position >= 0 && position < source.size()) {
+            Item item = source.get(position);
+            if (item == null) {
+                return; // Row is still a placeholder
+            }
+            commitPendingDelete(); // One undo at a time; an earlier delete is written now
 
-            // Remove item from list and update RecyclerView
-            inventoryList.remove(position);
-            inventoryAdapter.notifyItemRemoved(position);
+            int id = item.getId();
+            inventoryList.remove(id);
+            searchResults.remove(id);
+            sortedList.remove(id);
+            pendingDeleteId = id;
+            searchHandler.postDelayed(deleteRunnable, UNDO_DELETE_MS);
+
+            undoSnackbar = Snackbar.make(inventoryRecyclerView, "Deleted \"" + item.getName() + "\"", UNDO_DELETE_MS)
+                    .setAction("Undo", v -> undoDelete(id));
+            undoSnackbar.show();
         } else {
             Toast.makeText(this, "Error: Invalid item index", Toast.LENGTH_SHORT).show();
         }
     }
 
+    /**
+     * Brings back a deleted row whose write has not been queued yet; the database still
+     * has it, so the lists only need to catch up.
+     */
+    private void undoDelete(int id) {
+        if (pendingDeleteId != id) {
+            return; // Already committed
+        }
+        searchHandler.removeCallbacks(deleteRunnable);
+        pendingDeleteId = NO_PENDING_DELETE;
+        undoSnackbar = null;
+        showDatabaseRows();
+    }
+
+    /**
+     * Queues the pending delete, if any, to the writer. If the write fails the row is
+     * shown again with an error.
+     */
+    private void commitPendingDelete() {
+        if (pendingDeleteId == NO_PENDING_DELETE) {
+            return;
+        }
+        int id = pendingDeleteId;
+        pendingDeleteId = NO_PENDING_DELETE;
+        searchHandler.removeCallbacks(deleteRunnable);
+        if (undoSnackbar != null) {
+            undoSnackbar.dismiss(); // Its undo would do nothing now
+            undoSnackbar = null;
+        }
+        repository.deleteItem(id, new InventoryRepository.Callback<Integer>() {
+            @Override
+            public void onResult(Integer deletedId) {
+                scheduleSummaryRefresh(); // Totals read during the undo window still counted it
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Delete of item " + id + " failed", e);
+                showDatabaseRows();
+                Toast.makeText(MainActivity.this, "Could not delete the item; it has been restored",
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    // Re-reads the shown list, and the search results if they are showing
+    private void showDatabaseRows() {
+        reloadItems();
+        if (inventoryRecyclerView.getAdapter() == searchAdapter) {
+            runSearch();
+        }
+    }
+
     /**
      * Inflates the options menu into the app bar.
      *
@@ -129,11 +700,16 @@ public class MainActivity extends AppCompatActivity {
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_inventory_dashboard, menu); // Inflate menu resource
+        int sortItem = sortField == ItemQuery.Field.NAME ? R.id.menu_sort_name
+                : sortField == ItemQuery.Field.QUANTITY ? R.id.menu_sort_quantity : R.id.menu_sort_id;
+        menu.findItem(sortItem).setChecked(true);
+        menu.findItem(R.id.menu_low_stock_only).setChecked(lowStockOnly);
         return true;
     }
 
     /**
-     * Handles menu item clicks for SMS settings and logout.
+     * Handles menu item clicks for SMS settings, sorting and filtering, totals, CSV import
+     * and logout.
      *
      * @param item The selected menu item.
      * @return true if the menu item is handled successfully.
@@ -144,7 +720,46 @@ public class MainActivity extends AppCompatActivity {
             // Navigate to SMS Notifications Settings Activity
             startActivity(new Intent(this, SmsNotificationsActivity.class));
             return true;
+        } else if (item.getItemId() == R.id.menu_sort_id) {
+            item.setChecked(true);
+            setListQuery(ItemQuery.Field.ID, lowStockOnly);
+            return true;
+        } else if (item.getItemId() == R.id.menu_sort_name) {
+            item.setChecked(true);
+            setListQuery(ItemQuery.Field.NAME, lowStockOnly);
+            return true;
+        } else if (item.getItemId() == R.id.menu_sort_quantity) {
+            item.setChecked(true);
+            setListQuery(ItemQuery.Field.QUANTITY, lowStockOnly);
+            return true;
+        } else if (item.getItemId() == R.id.menu_low_stock_only) {
+            item.setChecked(!item.isChecked());
+            setListQuery(sortField, item.isChecked());
+            return true;
+        } else if (item.getItemId() == R.id.menu_recount_totals) {
+            recountTotals();
+            return true;
+        } else if (item.getItemId() == R.id.menu_import_csv) {
+            // Let the user pick a CSV document to import
+            importCsvLauncher.launch(new String[]{"text/csv", "text/comma-separated-values", "text/plain"});
+            return true;
+        } else if (item.getItemId() == R.id.menu_export_backup) {
+            exportBackupLauncher.launch(String.format(Locale.ROOT, "gridventory-%tF.gz", System.currentTimeMillis()));
+            return true;
+        } else if (item.getItemId() == R.id.menu_restore_backup) {
+            restoreBackupLauncher.launch(new String[]{InventoryBackup.MIME_TYPE, "application/octet-stream"});
+            return true;
+        } else if (item.getItemId() == R.id.menu_query_stats) {
+            // Show data layer latencies and slow queries
+            startActivity(new Intent(this, QueryStatsActivity.class));
+            return true;
         } else if (item.getItemId() == R.id.menu_logout) {
+            // Write this account's buffered adjustments before another account can log in,
+            // then end the persisted session so the next launch asks for credentials
+            commitPendingDelete();
+            repository.flushAdjustments();
+            repository.endSession(null);
+
             // Navigate back to LoginActivity and clear back stack
             Intent intent = new Intent(this, LoginActivity.class);
             intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
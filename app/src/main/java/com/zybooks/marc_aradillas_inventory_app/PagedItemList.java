@@ -0,0 +1,536 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * PagedItemList:
+ * - Windowed view of the items table for the dashboard RecyclerView.
+ * - Loads pages of {@link #PAGE_SIZE} items with keyset pagination (WHERE id > ?), so the
+ *   cost of loading a page does not depend on how far down the list it is.
+ * - Prefetches the next page as the visible range nears the end of what is loaded.
+ * - Evicts pages that have scrolled far out of view. An evicted page keeps its ID range,
+ *   row count and row IDs, so positions and stable IDs hold, and is reloaded by ID range
+ *   when it comes back.
+ * - {@link #reconcile()} re-reads loaded pages and applies DiffUtil diffs computed off the
+ *   main thread, so only rows that actually changed are rebound.
+ * - {@link #showSnapshot} starts the list from a FirstPageSnapshot instead of a query, then
+ *   reconciles it, so launch draws rows without waiting for SQLite.
+ * - All methods must be called on the main thread; page loads run through InventoryRepository.
+ */
+public class PagedItemList implements ItemListSource {
+
+    static final int PAGE_SIZE = 50;                          // Items per page
+    private static final int PREFETCH_DISTANCE = PAGE_SIZE / 2; // Load ahead when this close to the end
+    private static final int RETAINED_PAGES = 4;              // Pages kept on each side of the visible ones
+
+    /**
+     * One page of items covering the ID range (afterId, lastId].
+     */
+    private static final class Page {
+        final int afterId;   // Exclusive lower ID bound
+        int lastId;          // Inclusive upper ID bound
+        int size;            // Row count, known even while evicted
+        int[] ids;           // Row IDs, kept while evicted; the first size entries are valid
+        List<Item> items;    // Loaded rows in ID order; null while evicted
+        boolean loading;     // A reload is in flight
+        int version;         // Bumped by local edits so in-flight diffs can detect staleness
+
+        Page(int afterId) {
+            this.afterId = afterId;
+        }
+    }
+
+    private final InventoryRepository repository;
+    private final List<Page> pages = new ArrayList<>();
+    private final BitSet loadedPages = new BitSet(); // Indexes of pages whose items are in memory
+
+    private int[] pageStarts = new int[0]; // First list position of each page
+    private boolean pageStartsDirty;
+    private int totalSize;
+    private boolean endReached;   // The last page has been loaded
+    private boolean loadingNext;  // A next-page load is in flight
+    private int generation;       // Bumped by refresh() so stale loads are ignored
+
+    private ListUpdateCallback updateCallback;
+
+    /**
+     * Constructor for PagedItemList.
+     *
+     * @param repository Repository used to load pages off the main thread.
+     */
+    public PagedItemList(InventoryRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Sets the receiver of insert/remove/change notifications, usually an
+     * AdapterListUpdateCallback wrapping the RecyclerView adapter.
+     */
+    public void setUpdateCallback(ListUpdateCallback updateCallback) {
+        this.updateCallback = updateCallback;
+    }
+
+    /**
+     * Returns the number of rows known so far, including rows in evicted pages.
+     */
+    @Override
+    public int size() {
+        return totalSize;
+    }
+
+    /**
+     * Returns the item at a position, or null if its page is not in memory. A null result
+     * schedules the page to be reloaded; a change notification follows once it arrives.
+     */
+    @Override
+    public Item get(int position) {
+        int pageIndex = pageIndexOf(position);
+        Page page = pages.get(pageIndex);
+        if (page.items == null) {
+            reloadPage(pageIndex);
+            return null;
+        }
+        return page.items.get(position - pageStarts[pageIndex]);
+    }
+
+    /**
+     * Returns the ID at a position, from the IDs an evicted page keeps, without reloading it.
+     */
+    @Override
+    public int idAt(int position) {
+        int pageIndex = pageIndexOf(position);
+        return pages.get(pageIndex).ids[position - pageStarts[pageIndex]];
+    }
+
+    /**
+     * Finds the position of an item by ID among loaded pages.
+     *
+     * @return The position, or RecyclerView.NO_POSITION if unknown or not in memory.
+     */
+    @Override
+    public int findPosition(int id) {
+        int pageIndex = pageIndexOfId(id);
+        if (pageIndex < 0) {
+            return RecyclerView.NO_POSITION;
+        }
+        Page page = pages.get(pageIndex);
+        if (page.items == null) {
+            return RecyclerView.NO_POSITION;
+        }
+        int index = indexOfId(page.items, id);
+        if (index < 0) {
+            return RecyclerView.NO_POSITION;
+        }
+        ensurePageStarts();
+        return pageStarts[pageIndex] + index;
+    }
+
+    /**
+     * Drops everything and loads the first page again.
+     */
+    public void refresh() {
+        generation++;
+        int oldSize = totalSize;
+        pages.clear();
+        loadedPages.clear();
+        pageStartsDirty = true;
+        totalSize = 0;
+        endReached = false;
+        loadingNext = false;
+        if (oldSize > 0) {
+            updateCallback.onRemoved(0, oldSize);
+        }
+        loadNextPage();
+    }
+
+    /**
+     * Drops everything and shows snapshot rows as the first page right away, then reconciles
+     * that page with the database and pages in whatever follows it. Rows the snapshot has
+     * wrong are corrected by the diff like any other outside change.
+     *
+     * @param items Snapshot rows in ID order; an empty list behaves like {@link #refresh()}.
+     */
+    public void showSnapshot(List<Item> items) {
+        if (items.isEmpty()) {
+            refresh();
+            return;
+        }
+        generation++;
+        int oldSize = totalSize;
+        pages.clear();
+        loadedPages.clear();
+        pageStartsDirty = true;
+        endReached = false;
+        loadingNext = false;
+        if (oldSize > 0) {
+            totalSize = 0;
+            updateCallback.onRemoved(0, oldSize);
+        }
+
+        Page page = new Page(0);
+        setItems(page, items);
+        page.lastId = items.get(items.size() - 1).getId();
+        pages.add(page);
+        loadedPages.set(0);
+        totalSize = page.size;
+        updateCallback.onInserted(0, page.size);
+        reconcile();
+    }
+
+    /**
+     * Brings the list up to date with the database after changes made outside it, such as
+     * an import. Each loaded page is re-read and diffed against what is shown on a reader
+     * thread; the precise inserts, removals and changes are then dispatched on the main
+     * thread. Rows added past the end are paged in. Evicted pages are re-read when they
+     * come back into view anyway, so they are left alone.
+     */
+    public void reconcile() {
+        for (int i = loadedPages.nextSetBit(0); i >= 0; i = loadedPages.nextSetBit(i + 1)) {
+            reconcilePage(i);
+        }
+        endReached = false;
+        loadNextPage();
+    }
+
+    /**
+     * Tells the list which positions are on screen. Prefetches the next page near the end,
+     * reloads evicted pages in and next to the visible range, and evicts far-away pages.
+     *
+     * @param first First visible position (may be RecyclerView.NO_POSITION).
+     * @param last  Last visible position.
+     */
+    public void onVisibleRange(int first, int last) {
+        if (first == RecyclerView.NO_POSITION || totalSize == 0) {
+            loadNextPage();
+            return;
+        }
+        if (last >= totalSize - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
+
+        int firstPage = pageIndexOf(Math.min(first, totalSize - 1));
+        int lastPage = pageIndexOf(Math.min(last, totalSize - 1));
+
+        // Keep one page of slack on each side loaded so short flings do not show placeholders
+        for (int i = Math.max(0, firstPage - 1); i <= Math.min(pages.size() - 1, lastPage + 1); i++) {
+            reloadPage(i);
+        }
+
+        // Evict pages that are far out of view
+        int keepFrom = firstPage - RETAINED_PAGES;
+        int keepTo = lastPage + RETAINED_PAGES;
+        for (int i = loadedPages.nextSetBit(0); i >= 0; i = loadedPages.nextSetBit(i + 1)) {
+            if (i < keepFrom || i > keepTo) {
+                pages.get(i).items = null;
+                loadedPages.clear(i);
+            }
+        }
+    }
+
+    /**
+     * Appends a newly inserted item if the end of the table has been loaded; otherwise it
+     * will be picked up when paging reaches it.
+     */
+    public void add(Item item) {
+        if (!endReached) {
+            return;
+        }
+        Page last = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        if (last == null || last.size >= PAGE_SIZE) {
+            Page page = new Page(last == null ? 0 : last.lastId);
+            setItems(page, new ArrayList<>());
+            pages.add(page);
+            loadedPages.set(pages.size() - 1);
+            pageStartsDirty = true;
+            last = page;
+        }
+        if (last.items != null) {
+            last.items.add(item);
+        }
+        if (last.ids.length == last.size) {
+            last.ids = Arrays.copyOf(last.ids, Math.max(PAGE_SIZE, last.size + 1));
+        }
+        last.ids[last.size] = item.getId();
+        last.version++;
+        last.lastId = item.getId();
+        last.size++;
+        totalSize++;
+        updateCallback.onInserted(totalSize - 1, 1);
+    }
+
+    /**
+     * Replaces a loaded item with the same ID.
+     */
+    @Override
+    public void set(Item item) {
+        int position = findPosition(item.getId());
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        int pageIndex = pageIndexOf(position);
+        Page page = pages.get(pageIndex);
+        Item before = page.items.set(position - pageStarts[pageIndex], item);
+        page.version++;
+        updateCallback.onChanged(position, 1, ItemRow.changePayload(before, item));
+    }
+
+    /**
+     * Removes a loaded item by ID.
+     */
+    @Override
+    public void remove(int id) {
+        int position = findPosition(id);
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        int pageIndex = pageIndexOf(position);
+        Page page = pages.get(pageIndex);
+        int index = position - pageStarts[pageIndex];
+        page.items.remove(index);
+        System.arraycopy(page.ids, index + 1, page.ids, index, page.size - index - 1);
+        page.version++;
+        page.size--;
+        totalSize--;
+        pageStartsDirty = true;
+        updateCallback.onRemoved(position, 1);
+    }
+
+    // ---- Loading ----
+
+    private void loadNextPage() {
+        if (endReached || loadingNext) {
+            return;
+        }
+        loadingNext = true;
+        int afterId = pages.isEmpty() ? 0 : pages.get(pages.size() - 1).lastId;
+        int requestGeneration = generation;
+
+        repository.loadPage(afterId, Integer.MAX_VALUE, PAGE_SIZE, new InventoryRepository.Callback<List<Item>>() {
+            @Override
+            public void onResult(List<Item> items) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loadingNext = false;
+                if (items.size() < PAGE_SIZE) {
+                    endReached = true;
+                }
+                if (items.isEmpty()) {
+                    return;
+                }
+
+                Page page = new Page(afterId);
+                setItems(page, items);
+                page.lastId = items.get(items.size() - 1).getId();
+                pages.add(page);
+                loadedPages.set(pages.size() - 1);
+                pageStartsDirty = true;
+
+                int start = totalSize;
+                totalSize += page.size;
+                updateCallback.onInserted(start, page.size);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                InventoryRepository.Callback.super.onError(e);
+                if (requestGeneration == generation) {
+                    loadingNext = false;
+                }
+            }
+        });
+    }
+
+    private void reloadPage(int pageIndex) {
+        Page page = pages.get(pageIndex);
+        if (page.items != null || page.loading) {
+            return;
+        }
+        page.loading = true;
+        int requestGeneration = generation;
+
+        repository.loadPage(page.afterId, page.lastId, PAGE_SIZE, new InventoryRepository.Callback<List<Item>>() {
+            @Override
+            public void onResult(List<Item> items) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                page.loading = false;
+                loadedPages.set(pageIndex);
+
+                // Rows may have been removed from the range while the page was evicted
+                ensurePageStarts();
+                int start = pageStarts[pageIndex];
+                int oldSize = page.size;
+                setItems(page, items);
+                int newSize = page.size;
+                totalSize += newSize - oldSize;
+                pageStartsDirty = true;
+
+                updateCallback.onChanged(start, Math.min(oldSize, newSize), null);
+                if (newSize < oldSize) {
+                    updateCallback.onRemoved(start + newSize, oldSize - newSize);
+                } else if (newSize > oldSize) {
+                    updateCallback.onInserted(start + oldSize, newSize - oldSize);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                InventoryRepository.Callback.super.onError(e);
+                page.loading = false;
+            }
+        });
+    }
+
+    private void reconcilePage(int pageIndex) {
+        Page page = pages.get(pageIndex);
+        if (page.items == null || page.loading) {
+            return;
+        }
+        page.loading = true;
+        int requestGeneration = generation;
+        int requestVersion = page.version;
+        List<Item> snapshot = new ArrayList<>(page.items); // Diffed off the main thread
+
+        repository.diffPage(snapshot, page.afterId, page.lastId, PAGE_SIZE,
+                new InventoryRepository.Callback<ItemDiffCallback.Result>() {
+                    @Override
+                    public void onResult(ItemDiffCallback.Result result) {
+                        if (requestGeneration != generation) {
+                            return;
+                        }
+                        page.loading = false;
+                        if (page.items == null || page.version != requestVersion) {
+                            return; // Evicted or edited meanwhile; the diff no longer applies
+                        }
+
+                        ensurePageStarts();
+                        int start = pageStarts[pageIndex];
+                        int oldSize = page.size;
+                        setItems(page, result.newItems);
+                        totalSize += page.size - oldSize;
+                        pageStartsDirty = true;
+                        result.diff.dispatchUpdatesTo(offsetCallback(start));
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        InventoryRepository.Callback.super.onError(e);
+                        page.loading = false;
+                    }
+                });
+    }
+
+    // Forwards a page-relative diff to the list-wide update callback
+    private ListUpdateCallback offsetCallback(int start) {
+        return new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                updateCallback.onInserted(start + position, count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                updateCallback.onRemoved(start + position, count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                updateCallback.onMoved(start + fromPosition, start + toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                updateCallback.onChanged(start + position, count, payload);
+            }
+        };
+    }
+
+    // ---- Position bookkeeping ----
+
+    // Shows loaded rows in a page, with their IDs and count
+    private static void setItems(Page page, List<Item> items) {
+        page.items = new ArrayList<>(items);
+        page.size = items.size();
+        if (page.ids == null || page.ids.length < page.size) {
+            page.ids = new int[Math.max(PAGE_SIZE, page.size)];
+        }
+        for (int i = 0; i < page.size; i++) {
+            page.ids[i] = items.get(i).getId();
+        }
+    }
+
+    private void ensurePageStarts() {
+        if (!pageStartsDirty) {
+            return;
+        }
+        if (pageStarts.length < pages.size()) {
+            pageStarts = Arrays.copyOf(pageStarts, Math.max(pages.size(), pageStarts.length * 2));
+        }
+        int start = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            pageStarts[i] = start;
+            start += pages.get(i).size;
+        }
+        pageStartsDirty = false;
+    }
+
+    // Binary search for the page containing a list position
+    private int pageIndexOf(int position) {
+        ensurePageStarts();
+        int low = 0;
+        int high = pages.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (pageStarts[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low; // Empty pages share a start with the next page and are skipped here
+    }
+
+    // Binary search for the page whose ID range contains the given ID, or -1
+    private int pageIndexOfId(int id) {
+        int low = 0;
+        int high = pages.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Page page = pages.get(mid);
+            if (id <= page.afterId) {
+                high = mid - 1;
+            } else if (id > page.lastId) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // Binary search within a page's ID-ordered items
+    private static int indexOfId(List<Item> items, int id) {
+        int low = 0;
+        int high = items.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = items.get(mid).getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,128 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PasswordHasher:
+ * - Derives salted PBKDF2-HMAC-SHA256 hashes for the users table.
+ * - Hashes are stored as "pbkdf2_sha256$iterations$salt$hash" (Base64 salt and hash), so
+ *   each row records the work factor it was created with.
+ * - Rows that do not use this format are legacy plaintext passwords; they can still be
+ *   verified once so they can be upgraded.
+ * - Deriving a hash is deliberately slow; never call it on the main thread.
+ */
+public class PasswordHasher {
+
+    static final int DEFAULT_ITERATIONS = 120_000; // Work factor for new hashes
+
+    private static final String PREFIX = "pbkdf2_sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructor for PasswordHasher.
+     *
+     * @param iterations PBKDF2 iteration count used for new hashes.
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Hashes a password with a fresh random salt.
+     *
+     * @param password The plaintext password.
+     * @return The encoded hash to store.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = derive(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored value in constant time. Legacy plaintext values
+     * are compared directly.
+     *
+     * @param password The password entered by the user.
+     * @param stored   The value from the password column.
+     * @return True if the password matches.
+     */
+    public boolean verify(String password, String stored) {
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            return false; // Corrupt value (bad number or Base64)
+        }
+    }
+
+    /**
+     * Returns true if a stored value should be replaced after a successful login: it is
+     * legacy plaintext or was hashed with a lower work factor than the current one.
+     */
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Returns true if a stored value is a PBKDF2 hash rather than legacy plaintext.
+     */
+    public static boolean isHashed(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+
+    /**
+     * Returns the SQL LIKE pattern (escape character '\') matching hashed values, for
+     * finding legacy rows.
+     */
+    static String hashedLikePattern() {
+        return PREFIX.replace("_", "\\_") + "%";
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
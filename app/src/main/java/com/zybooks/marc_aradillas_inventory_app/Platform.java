@@ -0,0 +1,47 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.os.Process;
+import android.util.Log;
+
+/**
+ * Platform:
+ * - The framework calls background workers make: logging and lowering their thread's
+ *   priority.
+ * - {@link #ANDROID} forwards to android.util.Log and android.os.Process; ConsolePlatform
+ *   prints to stderr so JVM tests can run the workers without the framework.
+ */
+interface Platform {
+
+    Platform ANDROID = new Platform() {
+        @Override
+        public void info(String tag, String message) {
+            Log.i(tag, message);
+        }
+
+        @Override
+        public void warn(String tag, String message, Throwable error) {
+            Log.w(tag, message, error);
+        }
+
+        @Override
+        public void error(String tag, String message, Throwable error) {
+            Log.e(tag, message, error);
+        }
+
+        @Override
+        public void setBackgroundPriority() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        }
+    };
+
+    void info(String tag, String message);
+
+    void warn(String tag, String message, Throwable error);
+
+    void error(String tag, String message, Throwable error);
+
+    /**
+     * Lowers the calling thread to background priority, so it never competes with the UI.
+     */
+    void setBackgroundPriority();
+}
@@ -0,0 +1,233 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.util.SparseIntArray;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * QuantityDeltaBuffer:
+ * - In-memory accumulator for quantity adjustments, so a burst of scans becomes one
+ *   transaction instead of one per scan.
+ * - Deltas for the same item are merged. The map is split into lock stripes by item ID, so
+ *   adjustments to different items rarely contend.
+ * - {@link #overlay} adds not-yet-written deltas to items read from disk, so readers see
+ *   the adjusted counts immediately.
+ * - {@link #flush} moves everything pending into one transaction. A failed commit puts the
+ *   deltas back, so none are lost.
+ * - A buffer holds one account's deltas ({@link #getOwnerId}), so they are written to that
+ *   account even if another signs in before they flush.
+ */
+public class QuantityDeltaBuffer {
+
+    static final int FLUSH_THRESHOLD = 64;  // Distinct items pending before an immediate flush
+    static final long FLUSH_DELAY_MS = 500; // Otherwise, flush this long after the first delta
+
+    private static final int STRIPES = 8;   // Power of two
+
+    /**
+     * Writes one batch of merged deltas; called with the batch held in flight.
+     */
+    public interface Sink {
+        void commit(int[] ids, int[] deltas, int count) throws Exception;
+    }
+
+    private final long ownerId; // Account whose items the deltas adjust
+    private final SparseIntArray[] stripes = new SparseIntArray[STRIPES]; // Item ID -> pending delta; each is its own lock
+    private final AtomicInteger pendingItems = new AtomicInteger();
+    // Readers hold the read lock across disk read + overlay and flush holds the write lock,
+    // so a read sees each delta exactly once: either still pending or already on disk
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor for QuantityDeltaBuffer.
+     *
+     * @param ownerId Account whose items the deltas adjust.
+     */
+    public QuantityDeltaBuffer(long ownerId) {
+        this.ownerId = ownerId;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new SparseIntArray();
+        }
+    }
+
+    public long getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Adds a delta for an item, merging it with any delta already pending.
+     *
+     * @return The number of distinct items now pending.
+     */
+    public int add(int id, int delta) {
+        SparseIntArray stripe = stripeOf(id);
+        synchronized (stripe) {
+            int index = stripe.indexOfKey(id);
+            if (index >= 0) {
+                stripe.setValueAt(index, stripe.valueAt(index) + delta);
+                return pendingItems.get();
+            }
+            stripe.put(id, delta);
+        }
+        return pendingItems.incrementAndGet();
+    }
+
+    /**
+     * Returns true if no delta is pending or being committed.
+     */
+    public boolean isEmpty() {
+        return pendingItems.get() == 0;
+    }
+
+    /**
+     * Runs a disk read of one item and adds its unwritten delta.
+     *
+     * @param read Reads the item; may return null.
+     */
+    public Item overlay(Supplier<Item> read) {
+        commitLock.readLock().lock();
+        try {
+            return withDelta(read.get());
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a disk read of many items and replaces each with its adjusted copy, in place.
+     *
+     * @param read Reads the items into a mutable list.
+     */
+    public List<Item> overlayAll(Supplier<List<Item>> read) {
+        commitLock.readLock().lock();
+        try {
+            List<Item> items = read.get();
+            if (!isEmpty()) {
+                for (int i = 0; i < items.size(); i++) {
+                    items.set(i, withDelta(items.get(i)));
+                }
+            }
+            return items;
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a disk read into columns and adds each row's unwritten delta, in place.
+     *
+     * @param read Reads the items into columns.
+     */
+    public ItemColumns overlayColumns(Supplier<ItemColumns> read) {
+        commitLock.readLock().lock();
+        try {
+            ItemColumns columns = read.get();
+            if (!isEmpty()) {
+                for (int i = 0; i < columns.size(); i++) {
+                    int delta = deltaOf(columns.getId(i));
+                    if (delta != 0) {
+                        columns.setQuantity(i, columns.getQuantity(i) + delta);
+                    }
+                }
+            }
+            return columns;
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves every pending delta into one batch and commits it through {@code sink}.
+     * Readers wait while the batch is taken and committed; adders never wait.
+     *
+     * @return True if there was nothing to write or the batch committed; false if the
+     *         sink failed, in which case the deltas are pending again.
+     */
+    public boolean flush(Sink sink) {
+        commitLock.writeLock().lock();
+        try {
+            // Take the batch; deltas added from here on wait for the next flush
+            SparseIntArray inFlight = new SparseIntArray();
+            for (SparseIntArray stripe : stripes) {
+                synchronized (stripe) {
+                    for (int i = 0; i < stripe.size(); i++) {
+                        inFlight.put(stripe.keyAt(i), stripe.valueAt(i));
+                    }
+                    stripe.clear();
+                }
+            }
+            int count = inFlight.size();
+            if (count == 0) {
+                return true;
+            }
+
+            int[] ids = new int[count];
+            int[] deltas = new int[count];
+            int merged = 0;
+            for (int i = 0; i < count; i++) {
+                if (inFlight.valueAt(i) != 0) { // Adjustments that cancelled out need no write
+                    ids[merged] = inFlight.keyAt(i);
+                    deltas[merged] = inFlight.valueAt(i);
+                    merged++;
+                }
+            }
+
+            try {
+                if (merged > 0) {
+                    sink.commit(ids, deltas, merged);
+                }
+                pendingItems.addAndGet(-count);
+                return true;
+            } catch (Exception e) {
+                // Put the batch back; later deltas for the same items are merged into it
+                for (int i = 0; i < count; i++) {
+                    requeue(inFlight.keyAt(i), inFlight.valueAt(i));
+                }
+                return false;
+            }
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    // ---- Internals ----
+
+    private SparseIntArray stripeOf(int id) {
+        int h = id * 0x9E3779B9; // Spread sequential IDs across stripes
+        return stripes[(h >>> 16) & (STRIPES - 1)];
+    }
+
+    // Re-adds a delta that was already counted in pendingItems
+    private void requeue(int id, int delta) {
+        SparseIntArray stripe = stripeOf(id);
+        synchronized (stripe) {
+            int index = stripe.indexOfKey(id);
+            if (index >= 0) {
+                stripe.setValueAt(index, stripe.valueAt(index) + delta);
+                pendingItems.decrementAndGet(); // The newer entry was counted separately
+            } else {
+                stripe.put(id, delta);
+            }
+        }
+    }
+
+    // Callers hold the commit read or write lock
+    private Item withDelta(Item item) {
+        if (item == null || isEmpty()) {
+            return item;
+        }
+        int delta = deltaOf(item.getId());
+        return delta == 0 ? item : new Item(item.getId(), item.getName(), item.getQuantity() + delta);
+    }
+
+    private int deltaOf(int id) {
+        SparseIntArray stripe = stripeOf(id);
+        synchronized (stripe) {
+            return stripe.get(id, 0);
+        }
+    }
+}
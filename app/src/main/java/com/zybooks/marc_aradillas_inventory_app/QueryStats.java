@@ -0,0 +1,362 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QueryStats:
+ * - Latency instrumentation for data-layer operations. Each operation has a {@link Timer}
+ *   with a call count, rows touched, total and max time, calls made on the main thread, the
+ *   last thread it ran on, and a latency histogram.
+ * - Recording a call allocates nothing: histograms are fixed arrays of log-linear buckets
+ *   (four per power of two, so percentiles are within 25%).
+ * - Calls slower than the threshold also go into a bounded ring buffer of
+ *   {@link SlowQuery} records, with the EXPLAIN QUERY PLAN of the operation's main
+ *   statement. Plans are looked up once per statement and cached.
+ * - {@link #snapshot()} and {@link #getSlowQueries()} return immutable copies for debug
+ *   screens and tests; {@link #dump()} formats both as text.
+ * - All methods are thread-safe.
+ */
+public class QueryStats {
+
+    static final long DEFAULT_SLOW_THRESHOLD_MS = 16; // One frame at 60 Hz
+    static final int SLOW_QUERY_CAPACITY = 64;
+
+    private static final int SUB_BUCKETS = 4;                  // Buckets per power of two
+    private static final int BUCKETS = SUB_BUCKETS * 32;       // Microseconds up to about two hours
+
+    /**
+     * Looks up the query plan for a statement.
+     */
+    public interface Explainer {
+        /**
+         * @return One line per plan step, e.g. "SEARCH items USING INTEGER PRIMARY KEY (rowid=?)".
+         */
+        List<String> explain(String sql);
+    }
+
+    /**
+     * One call that took longer than the threshold.
+     */
+    public static final class SlowQuery {
+        public final String operation;
+        public final String sql;             // Main statement, or null if the operation has none
+        public final long durationNanos;
+        public final int rows;
+        public final String threadName;
+        public final long wallTimeMillis;    // When the call finished
+        public final List<String> plan;      // Empty when there is no statement or no plan
+
+        SlowQuery(String operation, String sql, long durationNanos, int rows, String threadName,
+                  long wallTimeMillis, List<String> plan) {
+            this.operation = operation;
+            this.sql = sql;
+            this.durationNanos = durationNanos;
+            this.rows = rows;
+            this.threadName = threadName;
+            this.wallTimeMillis = wallTimeMillis;
+            this.plan = plan;
+        }
+    }
+
+    /**
+     * Immutable copy of one operation's counters.
+     */
+    public static final class OperationSnapshot {
+        public final String operation;
+        public final long count;
+        public final long rows;
+        public final long totalNanos;
+        public final long maxNanos;
+        public final long mainThreadCount;
+        public final String lastThreadName;
+        public final long p50Micros;
+        public final long p95Micros;
+        public final long p99Micros;
+
+        OperationSnapshot(String operation, long count, long rows, long totalNanos, long maxNanos,
+                          long mainThreadCount, String lastThreadName, long p50Micros, long p95Micros,
+                          long p99Micros) {
+            this.operation = operation;
+            this.count = count;
+            this.rows = rows;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.mainThreadCount = mainThreadCount;
+            this.lastThreadName = lastThreadName;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.p99Micros = p99Micros;
+        }
+
+        public long meanMicros() {
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos / count);
+        }
+    }
+
+    /**
+     * Counters for one operation. Obtain with {@link #timer}, then call {@link #record}
+     * with the value of {@link System#nanoTime()} taken before the call.
+     */
+    public final class Timer {
+        private final String operation;
+        private final String sql;
+        private final long[] histogram = new long[BUCKETS];
+        private long count;
+        private long rows;
+        private long totalNanos;
+        private long maxNanos;
+        private long mainThreadCount;
+        private String lastThreadName;
+
+        Timer(String operation, String sql) {
+            this.operation = operation;
+            this.sql = sql;
+        }
+
+        /**
+         * Records one finished call.
+         *
+         * @param startNanos {@link System#nanoTime()} when the call started.
+         * @param rowCount   Rows read or written.
+         */
+        public void record(long startNanos, int rowCount) {
+            long duration = System.nanoTime() - startNanos;
+            Thread thread = Thread.currentThread();
+            synchronized (this) {
+                count++;
+                rows += rowCount;
+                totalNanos += duration;
+                maxNanos = Math.max(maxNanos, duration);
+                histogram[bucketOf(TimeUnit.NANOSECONDS.toMicros(duration))]++;
+                if (thread == mainThread) {
+                    mainThreadCount++;
+                }
+                lastThreadName = thread.getName();
+            }
+            if (duration >= slowThresholdNanos) {
+                recordSlow(this, duration, rowCount, thread.getName());
+            }
+        }
+
+        synchronized OperationSnapshot snapshot() {
+            return new OperationSnapshot(operation, count, rows, totalNanos, maxNanos, mainThreadCount,
+                    lastThreadName, percentile(histogram, count, 0.50), percentile(histogram, count, 0.95),
+                    percentile(histogram, count, 0.99));
+        }
+
+        synchronized void reset() {
+            Arrays.fill(histogram, 0);
+            count = 0;
+            rows = 0;
+            totalNanos = 0;
+            maxNanos = 0;
+            mainThreadCount = 0;
+            lastThreadName = null;
+        }
+    }
+
+    private final Explainer explainer;
+    private final Thread mainThread;
+    private final Map<String, Timer> timers = new LinkedHashMap<>(); // Guarded by itself
+    private final Map<String, List<String>> plans = new HashMap<>(); // Guarded by slowQueries
+    private final SlowQuery[] slowQueries = new SlowQuery[SLOW_QUERY_CAPACITY];
+    private long slowQueryCount; // Total recorded; the newest is at (slowQueryCount - 1) % capacity
+    private volatile long slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD_MS);
+
+    /**
+     * Constructor for QueryStats.
+     *
+     * @param explainer  Plan lookup for slow statements; may be null to skip plans.
+     * @param mainThread The UI thread, so calls made on it can be counted; may be null.
+     */
+    public QueryStats(Explainer explainer, Thread mainThread) {
+        this.explainer = explainer;
+        this.mainThread = mainThread;
+    }
+
+    /**
+     * Returns the timer for an operation, creating it on first use. Look timers up once
+     * and keep them; the lookup itself is not allocation-free.
+     *
+     * @param operation Name shown in dumps.
+     * @param sql       The operation's main statement, explained when a call is slow; may be null.
+     */
+    public Timer timer(String operation, String sql) {
+        synchronized (timers) {
+            Timer timer = timers.get(operation);
+            if (timer == null) {
+                timer = new Timer(operation, sql);
+                timers.put(operation, timer);
+            }
+            return timer;
+        }
+    }
+
+    /**
+     * Sets how long a call must take to enter the slow-query log.
+     */
+    public void setSlowThresholdMillis(long millis) {
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    public long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos);
+    }
+
+    /**
+     * Returns the counters of every operation called at least once, in registration order.
+     */
+    public List<OperationSnapshot> snapshot() {
+        List<Timer> all;
+        synchronized (timers) {
+            all = new ArrayList<>(timers.values());
+        }
+        List<OperationSnapshot> snapshots = new ArrayList<>(all.size());
+        for (Timer timer : all) {
+            OperationSnapshot snapshot = timer.snapshot();
+            if (snapshot.count > 0) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Returns the counters of one operation, or null if it has never been called.
+     */
+    public OperationSnapshot snapshot(String operation) {
+        for (OperationSnapshot snapshot : snapshot()) {
+            if (snapshot.operation.equals(operation)) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the slow-query log, oldest first. Holds at most {@link #SLOW_QUERY_CAPACITY}
+     * entries; older ones are overwritten.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            int size = (int) Math.min(slowQueryCount, SLOW_QUERY_CAPACITY);
+            List<SlowQuery> entries = new ArrayList<>(size);
+            for (long i = slowQueryCount - size; i < slowQueryCount; i++) {
+                entries.add(slowQueries[(int) (i % SLOW_QUERY_CAPACITY)]);
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Clears all counters and the slow-query log. Cached plans are kept.
+     */
+    public void reset() {
+        List<Timer> all;
+        synchronized (timers) {
+            all = new ArrayList<>(timers.values());
+        }
+        for (Timer timer : all) {
+            timer.reset();
+        }
+        synchronized (slowQueries) {
+            Arrays.fill(slowQueries, null);
+            slowQueryCount = 0;
+        }
+    }
+
+    /**
+     * Formats every counter and the slow-query log as text, newest slow query first.
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-20s %7s %8s %8s %8s %8s %8s %6s%n",
+                "operation", "count", "rows", "mean_us", "p50_us", "p99_us", "max_us", "main"));
+        for (OperationSnapshot s : snapshot()) {
+            out.append(String.format(Locale.ROOT, "%-20s %7d %8d %8d %8d %8d %8d %6d  [%s]%n",
+                    s.operation, s.count, s.rows, s.meanMicros(), s.p50Micros, s.p99Micros,
+                    TimeUnit.NANOSECONDS.toMicros(s.maxNanos), s.mainThreadCount, s.lastThreadName));
+        }
+
+        List<SlowQuery> slow = getSlowQueries();
+        out.append(String.format(Locale.ROOT, "%nSlow queries (>= %d ms): %d%n",
+                getSlowThresholdMillis(), slow.size()));
+        for (int i = slow.size() - 1; i >= 0; i--) {
+            SlowQuery q = slow.get(i);
+            out.append(String.format(Locale.ROOT, "%s %d us, %d rows, on %s%n", q.operation,
+                    TimeUnit.NANOSECONDS.toMicros(q.durationNanos), q.rows, q.threadName));
+            if (q.sql != null) {
+                out.append("  ").append(q.sql).append('\n');
+            }
+            for (String step : q.plan) {
+                out.append("    ").append(step).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    // Slow calls are rare by definition, so this path may allocate and query the plan
+    private void recordSlow(Timer timer, long duration, int rows, String threadName) {
+        synchronized (slowQueries) {
+            List<String> plan = Collections.emptyList();
+            if (timer.sql != null && explainer != null) {
+                plan = plans.get(timer.sql);
+                if (plan == null) {
+                    try {
+                        plan = Collections.unmodifiableList(new ArrayList<>(explainer.explain(timer.sql)));
+                    } catch (RuntimeException e) {
+                        plan = Collections.singletonList("EXPLAIN failed: " + e.getMessage());
+                    }
+                    plans.put(timer.sql, plan);
+                }
+            }
+            slowQueries[(int) (slowQueryCount % SLOW_QUERY_CAPACITY)] = new SlowQuery(timer.operation, timer.sql,
+                    duration, rows, threadName, System.currentTimeMillis(), plan);
+            slowQueryCount++;
+        }
+    }
+
+    // Log-linear bucket: values below SUB_BUCKETS get their own bucket, then four per octave
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);  // >= 2
+        int sub = (int) (micros >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return Math.min((exponent - 1) * SUB_BUCKETS + sub, BUCKETS - 1);
+    }
+
+    // Largest value that falls in a bucket
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int sub = bucket % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (exponent - 2);
+        return lower + (1L << (exponent - 2)) - 1;
+    }
+
+    private static long percentile(long[] histogram, long count, double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(histogram.length - 1);
+    }
+}
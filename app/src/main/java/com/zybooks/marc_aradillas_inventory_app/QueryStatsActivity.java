@@ -0,0 +1,56 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+/**
+ * QueryStatsActivity:
+ * - Debug screen showing the data layer's per-operation latency table and slow-query log
+ *   (with each slow statement's query plan), as recorded by DatabaseHelper's QueryStats.
+ * - Refresh re-reads the counters; Reset clears them after showing their final values.
+ * - Allows users to navigate back to the main inventory dashboard.
+ */
+public class QueryStatsActivity extends AppCompatActivity {
+
+    private TextView statsText; // Monospace dump of the counters
+    private InventoryRepository repository; // Reads the counters off the UI thread
+
+    /**
+     * Called when the activity is first created.
+     * Sets up the buttons and shows the current counters.
+     *
+     * @param savedInstanceState Saved instance state.
+     */
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.query_stats);
+
+        statsText = findViewById(R.id.queryStatsText);
+        repository = new InventoryRepository(this);
+
+        Button refreshButton = findViewById(R.id.refreshQueryStatsButton);
+        refreshButton.setOnClickListener(v -> showStats(false));
+
+        Button resetButton = findViewById(R.id.resetQueryStatsButton);
+        resetButton.setOnClickListener(v -> showStats(true));
+
+        Button backToDashboardButton = findViewById(R.id.backToDashboardButton);
+        backToDashboardButton.setOnClickListener(v -> finish());
+
+        showStats(false);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        repository.cancelAll();
+    }
+
+    private void showStats(boolean reset) {
+        repository.loadQueryStats(reset, statsText::setText);
+    }
+}
@@ -0,0 +1,328 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SchemaMigrations:
+ * - Ordered, versioned schema steps for DatabaseHelper. {@link #migrate} runs every step
+ *   above the old version, in order, inside SQLiteOpenHelper's upgrade transaction. Steps
+ *   only change the schema and never drop user data.
+ * - Work that touches every row (filling a new column, building an index over existing
+ *   data) is not done in a step. A step schedules a {@link Backfill} instead, and the
+ *   backfill runs afterwards on a background thread in small chunks. Opening the database
+ *   stays fast however many rows there are.
+ * - An index build is one statement and cannot be split, so it goes in a backfill's
+ *   {@link Backfill#onComplete}: off the upgrade, though writers wait for it. Steps build
+ *   an index themselves only when it must enforce a constraint before the next write and
+ *   covers few rows (a partial unique index over a new column), or when its table stays
+ *   small whatever the inventory size (the compacted change journal).
+ * - Backfill progress (last ID done, target ID, rows done) is stored in the
+ *   schema_backfills table and committed with each chunk, so a killed process resumes
+ *   where it stopped.
+ */
+public class SchemaMigrations {
+
+    private static final String TAG = "SchemaMigrations";
+
+    static final String TABLE_BACKFILLS = "schema_backfills";
+    private static final String COLUMN_NAME = "name";
+    private static final String COLUMN_LAST_ID = "last_id";     // Rows with ID <= this are done
+    private static final String COLUMN_TARGET_ID = "target_id"; // Highest ID when scheduled; newer rows need no backfill
+    private static final String COLUMN_ROWS_DONE = "rows_done";
+    private static final String COLUMN_DONE = "done";
+
+    static final int BACKFILL_CHUNK_SIZE = 2_000; // Rows per transaction; bounds how long writers wait
+
+    /**
+     * One schema version step.
+     */
+    public interface Step {
+        void apply(SQLiteDatabase db);
+    }
+
+    /**
+     * Row-by-row work over an ID-keyed table, run in ID-ordered chunks after the upgrade.
+     */
+    public abstract static class Backfill {
+        final String name;
+        final String table;
+        final String idColumn;
+
+        /**
+         * Constructor for Backfill.
+         *
+         * @param name     Unique, stable name; the key of its progress row.
+         * @param table    Table whose rows are processed.
+         * @param idColumn Integer primary key of that table.
+         */
+        protected Backfill(String name, String table, String idColumn) {
+            this.name = name;
+            this.table = table;
+            this.idColumn = idColumn;
+        }
+
+        /**
+         * Processes every row with afterId < id <= upToId. Runs in the chunk's transaction.
+         */
+        protected abstract void processRange(SQLiteDatabase db, long afterId, long upToId);
+
+        /**
+         * Runs once, in the transaction of the last chunk. Defaults to nothing.
+         */
+        protected void onComplete(SQLiteDatabase db) {
+        }
+    }
+
+    /**
+     * Progress of one backfill, for logs and debug screens.
+     */
+    public static final class Progress {
+        public final String name;
+        public final long rowsDone;
+        public final long lastId;
+        public final long targetId;
+        public final boolean done;
+
+        Progress(String name, long rowsDone, long lastId, long targetId, boolean done) {
+            this.name = name;
+            this.rowsDone = rowsDone;
+            this.lastId = lastId;
+            this.targetId = targetId;
+            this.done = done;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + (done ? "done" : "id " + lastId + "/" + targetId) + ", " + rowsDone + " rows";
+        }
+    }
+
+    private final Map<Integer, Step> steps = new LinkedHashMap<>();
+    private final Map<String, Backfill> backfills = new LinkedHashMap<>();
+    private int latestVersion = 1;
+
+    /**
+     * Adds the step that upgrades the schema to {@code version}. Versions must be added in
+     * increasing order.
+     */
+    public SchemaMigrations step(int version, Step step) {
+        if (version <= latestVersion) {
+            throw new IllegalArgumentException("Step " + version + " is out of order");
+        }
+        steps.put(version, step);
+        latestVersion = version;
+        return this;
+    }
+
+    /**
+     * Registers a backfill so it can be found by name when its progress row is resumed.
+     */
+    public SchemaMigrations backfill(Backfill backfill) {
+        backfills.put(backfill.name, backfill);
+        return this;
+    }
+
+    /**
+     * Returns the version the steps lead to.
+     */
+    public int latestVersion() {
+        return latestVersion;
+    }
+
+    /**
+     * Runs the steps for versions oldVersion+1 .. newVersion in order. Called from onUpgrade.
+     */
+    public void migrate(SQLiteDatabase db, int oldVersion, int newVersion) {
+        createProgressTable(db);
+        for (Map.Entry<Integer, Step> entry : steps.entrySet()) {
+            int version = entry.getKey();
+            if (version > oldVersion && version <= newVersion) {
+                long start = SystemClock.elapsedRealtime();
+                entry.getValue().apply(db);
+                Log.i(TAG, "Schema step " + version + " took " + (SystemClock.elapsedRealtime() - start) + "ms");
+            }
+        }
+
+        // Backfills over empty tables (e.g. a new database) finish here rather than in the background
+        for (Progress progress : getProgress(db)) {
+            Backfill backfill = backfills.get(progress.name);
+            if (!progress.done && progress.targetId == 0 && backfill != null) {
+                runChunk(db, backfill, BACKFILL_CHUNK_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Schedules a registered backfill from a step. Rows that exist now are processed later;
+     * rows added afterwards are the writer's responsibility.
+     */
+    public static void scheduleBackfill(SQLiteDatabase db, String name, String table, String idColumn) {
+        createProgressTable(db);
+        db.execSQL("INSERT OR REPLACE INTO " + TABLE_BACKFILLS + " (" + COLUMN_NAME + ", " + COLUMN_LAST_ID
+                + ", " + COLUMN_TARGET_ID + ", " + COLUMN_ROWS_DONE + ", " + COLUMN_DONE + ") SELECT ?, 0, "
+                + "COALESCE(MAX(" + idColumn + "), 0), 0, 0 FROM " + table, new Object[]{name});
+    }
+
+    /**
+     * Returns an SQL condition, for trigger WHEN clauses, that is true unless the row with ID
+     * {@code idExpression} is still waiting for the named backfill. Triggers use it to leave
+     * such rows to the backfill, which will see their latest values.
+     */
+    public static String notAwaitingBackfill(String name, String idExpression) {
+        return "NOT EXISTS (SELECT 1 FROM " + TABLE_BACKFILLS + " WHERE " + COLUMN_NAME + " = '" + name
+                + "' AND " + COLUMN_DONE + " = 0 AND " + idExpression + " > " + COLUMN_LAST_ID + " AND "
+                + idExpression + " <= " + COLUMN_TARGET_ID + ")";
+    }
+
+    /**
+     * Returns true once every scheduled backfill has finished.
+     */
+    public static boolean isComplete(SQLiteDatabase db) {
+        try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_BACKFILLS + " WHERE "
+                + COLUMN_DONE + " = 0", null)) {
+            return cursor.moveToFirst() && cursor.getLong(0) == 0;
+        }
+    }
+
+    /**
+     * Returns the progress of every backfill ever scheduled.
+     */
+    public static List<Progress> getProgress(SQLiteDatabase db) {
+        List<Progress> progress = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT " + COLUMN_NAME + ", " + COLUMN_ROWS_DONE + ", " + COLUMN_LAST_ID
+                + ", " + COLUMN_TARGET_ID + ", " + COLUMN_DONE + " FROM " + TABLE_BACKFILLS + " ORDER BY rowid", null)) {
+            while (cursor.moveToNext()) {
+                progress.add(new Progress(cursor.getString(0), cursor.getLong(1), cursor.getLong(2),
+                        cursor.getLong(3), cursor.getInt(4) != 0));
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Opens the database (running any upgrade) and finishes pending backfills on a new
+     * background thread, so neither blocks the caller.
+     */
+    public void startInBackground(SQLiteOpenHelper helper) {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            try {
+                runPendingBackfills(helper.getWritableDatabase());
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Backfill stopped; it resumes on the next launch", e);
+            }
+        }, "schema-backfill");
+        thread.start();
+    }
+
+    /**
+     * Runs every unfinished backfill to completion on the calling thread, one chunk per
+     * transaction.
+     *
+     * @return The number of rows processed.
+     */
+    public long runPendingBackfills(SQLiteDatabase db) {
+        return runPendingBackfills(db, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Runs at most {@code maxChunks} chunks of unfinished backfills on the calling thread,
+     * e.g. to stop part way in tests.
+     *
+     * @return The number of rows processed.
+     */
+    public long runPendingBackfills(SQLiteDatabase db, int maxChunks) {
+        long rows = 0;
+        int chunks = 0;
+        long start = SystemClock.elapsedRealtime();
+        for (Progress progress : getProgress(db)) {
+            if (progress.done || chunks >= maxChunks) {
+                continue;
+            }
+            Backfill backfill = backfills.get(progress.name);
+            if (backfill == null) {
+                throw new IllegalStateException("Unknown backfill " + progress.name);
+            }
+            long chunkRows;
+            while (chunks < maxChunks && (chunkRows = runChunk(db, backfill, BACKFILL_CHUNK_SIZE)) >= 0) {
+                rows += chunkRows;
+                chunks++;
+                Thread.yield(); // Let waiting writers take the lock between chunks
+            }
+        }
+        if (rows > 0) {
+            Log.i(TAG, "Backfilled " + rows + " rows in " + (SystemClock.elapsedRealtime() - start) + "ms");
+        }
+        return rows;
+    }
+
+    /**
+     * Runs one chunk of a backfill in its own transaction.
+     *
+     * @return Rows processed, or -1 if the backfill is (now) complete.
+     */
+    long runChunk(SQLiteDatabase db, Backfill backfill, int chunkSize) {
+        db.beginTransactionNonExclusive();
+        try {
+            long lastId;
+            long targetId;
+            try (Cursor cursor = db.rawQuery("SELECT " + COLUMN_LAST_ID + ", " + COLUMN_TARGET_ID + ", "
+                    + COLUMN_DONE + " FROM " + TABLE_BACKFILLS + " WHERE " + COLUMN_NAME + " = ?",
+                    new String[]{backfill.name})) {
+                if (!cursor.moveToFirst() || cursor.getInt(2) != 0) {
+                    return -1;
+                }
+                lastId = cursor.getLong(0);
+                targetId = cursor.getLong(1);
+            }
+
+            // The next chunk is the next chunkSize IDs, found through the primary key
+            long chunkEnd;
+            long count;
+            try (Cursor cursor = db.rawQuery("SELECT MAX(" + backfill.idColumn + "), COUNT(*) FROM (SELECT "
+                    + backfill.idColumn + " FROM " + backfill.table + " WHERE " + backfill.idColumn + " > ? AND "
+                    + backfill.idColumn + " <= ? ORDER BY " + backfill.idColumn + " LIMIT ?)", new String[]{
+                    String.valueOf(lastId), String.valueOf(targetId), String.valueOf(chunkSize)})) {
+                cursor.moveToFirst();
+                count = cursor.getLong(1);
+                chunkEnd = count == 0 ? targetId : cursor.getLong(0);
+            }
+
+            if (count == 0) {
+                backfill.onComplete(db);
+                db.execSQL("UPDATE " + TABLE_BACKFILLS + " SET " + COLUMN_DONE + " = 1, " + COLUMN_LAST_ID
+                        + " = " + COLUMN_TARGET_ID + " WHERE " + COLUMN_NAME + " = ?", new Object[]{backfill.name});
+                db.setTransactionSuccessful();
+                return -1;
+            }
+
+            backfill.processRange(db, lastId, chunkEnd);
+            db.execSQL("UPDATE " + TABLE_BACKFILLS + " SET " + COLUMN_LAST_ID + " = ?, " + COLUMN_ROWS_DONE + " = "
+                    + COLUMN_ROWS_DONE + " + ? WHERE " + COLUMN_NAME + " = ?",
+                    new Object[]{chunkEnd, count, backfill.name});
+            db.setTransactionSuccessful();
+            return count;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void createProgressTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_BACKFILLS + " ("
+                + COLUMN_NAME + " TEXT PRIMARY KEY, "
+                + COLUMN_LAST_ID + " INTEGER NOT NULL, "
+                + COLUMN_TARGET_ID + " INTEGER NOT NULL, "
+                + COLUMN_ROWS_DONE + " INTEGER NOT NULL, "
+                + COLUMN_DONE + " INTEGER NOT NULL)");
+    }
+}
@@ -0,0 +1,75 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SearchResultList:
+ * - Holds the ranked results of the current dashboard search.
+ * - Results are capped by the search limit, so replacing them diffs on the main thread.
+ */
+public class SearchResultList implements ItemListSource {
+
+    private List<Item> items = new ArrayList<>();
+    private ListUpdateCallback updateCallback;
+
+    /**
+     * Sets the receiver of insert/remove/change notifications.
+     */
+    public void setUpdateCallback(ListUpdateCallback updateCallback) {
+        this.updateCallback = updateCallback;
+    }
+
+    /**
+     * Replaces the results, notifying only the rows that differ.
+     *
+     * @param results New results in rank order.
+     */
+    public void setResults(List<Item> results) {
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new ItemDiffCallback(items, results));
+        items = new ArrayList<>(results);
+        diff.dispatchUpdatesTo(updateCallback);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public Item get(int position) {
+        return items.get(position);
+    }
+
+    @Override
+    public int findPosition(int id) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    @Override
+    public void set(Item item) {
+        int position = findPosition(item.getId());
+        if (position != RecyclerView.NO_POSITION) {
+            Item before = items.set(position, item);
+            updateCallback.onChanged(position, 1, ItemRow.changePayload(before, item));
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        int position = findPosition(id);
+        if (position != RecyclerView.NO_POSITION) {
+            items.remove(position);
+            updateCallback.onRemoved(position, 1);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SessionManager:
+ * - Issues and persists the session token created after a successful login.
+ * - On relaunch a valid session lets the app skip the password KDF and the users-table
+ *   query entirely; only a private preferences file is read.
+ * - Sessions expire after {@link #SESSION_LIFETIME_MS} and are cleared on logout.
+ * - Reads preferences from disk on first use, so call it off the main thread.
+ */
+public class SessionManager {
+
+    static final long SESSION_LIFETIME_MS = TimeUnit.DAYS.toMillis(14);
+
+    private static final String PREFS_NAME = "session";
+    private static final String KEY_TOKEN = "token";
+    private static final String KEY_USER_ID = "user_id";
+    private static final String KEY_USERNAME = "username";
+    private static final String KEY_EXPIRES_AT = "expires_at";
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * An authenticated session.
+     */
+    public static final class Session {
+        public final long userId;
+        public final String username;
+        public final String token;
+        public final long expiresAtMillis;
+
+        Session(long userId, String username, String token, long expiresAtMillis) {
+            this.userId = userId;
+            this.username = username;
+            this.token = token;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final SharedPreferences prefs;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructor for SessionManager.
+     *
+     * @param context Context used to open the private session preferences.
+     */
+    public SessionManager(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Creates and persists a new session for a user who has just logged in.
+     *
+     * @param userId   The user's row ID.
+     * @param username The user's name.
+     * @return The new session.
+     */
+    public Session start(long userId, String username) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        Session session = new Session(userId, username,
+                Base64.getUrlEncoder().withoutPadding().encodeToString(bytes),
+                System.currentTimeMillis() + SESSION_LIFETIME_MS);
+
+        prefs.edit()
+                .putString(KEY_TOKEN, session.token)
+                .putLong(KEY_USER_ID, session.userId)
+                .putString(KEY_USERNAME, session.username)
+                .putLong(KEY_EXPIRES_AT, session.expiresAtMillis)
+                .commit();
+        return session;
+    }
+
+    /**
+     * Returns the persisted session if there is one and it has not expired, otherwise null.
+     */
+    public Session current() {
+        String token = prefs.getString(KEY_TOKEN, null);
+        String username = prefs.getString(KEY_USERNAME, null);
+        long expiresAt = prefs.getLong(KEY_EXPIRES_AT, 0);
+        if (token == null || username == null || expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return new Session(prefs.getLong(KEY_USER_ID, -1), username, token, expiresAt);
+    }
+
+    /**
+     * Ends the current session.
+     */
+    public void end() {
+        prefs.edit().clear().commit();
+    }
+}
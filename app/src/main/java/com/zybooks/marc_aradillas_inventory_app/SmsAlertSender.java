@@ -0,0 +1,40 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.telephony.SmsManager;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+
+/**
+ * SmsAlertSender:
+ * - Sends alerts as SMS through the platform SmsManager.
+ * - Fails (so the dispatcher retries) while the SEND_SMS permission is not granted.
+ */
+public class SmsAlertSender implements AlertSender {
+
+    private final Context context;
+
+    /**
+     * Constructor for SmsAlertSender.
+     *
+     * @param context Context used to reach SmsManager and check permissions.
+     */
+    public SmsAlertSender(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void send(String recipient, String message) {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.SEND_SMS)
+                != PackageManager.PERMISSION_GRANTED) {
+            throw new SecurityException("SEND_SMS permission not granted");
+        }
+        SmsManager smsManager = context.getSystemService(SmsManager.class);
+        ArrayList<String> parts = smsManager.divideMessage(message);
+        smsManager.sendMultipartTextMessage(recipient, null, parts, null, null);
+    }
+}
@@ -5,6 +5,7 @@ import android.annotation.SuppressLint;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.Switch;
 import android.widget.Toast;
 
@@ -18,6 +19,7 @@ import androidx.core.content.ContextCompat;
  * - Manages SMS notification settings for the application.
  * - Handles SMS permission requests.
  * - Provides a toggle switch to enable/disable SMS notifications.
+ * - Stores the phone number that receives low-stock alerts (sent by AlertDispatcher).
  * - Allows users to navigate back to the main inventory dashboard.
  */
 public class SmsNotificationsActivity extends AppCompatActivity {
@@ -25,6 +27,9 @@ public class SmsNotificationsActivity extends AppCompatActivity {
     private static final int SMS_PERMISSION_REQUEST_CODE = 101; // Unique code for SMS permission
     @SuppressLint("UseSwitchCompatOrMaterialCode")
     private Switch smsToggle; // Toggle switch for enabling/disabling SMS notifications
+    private EditText phoneNumberInput; // Recipient of low-stock alerts
+    private InventoryRepository repository; // Loads and saves the alert settings off the UI thread
+    private boolean settingsLoaded; // Nothing is saved until the stored settings are shown
 
     /**
      * Called when the activity is first created.
@@ -45,32 +50,74 @@ public class SmsNotificationsActivity extends AppCompatActivity {
 
         // Initialize UI components
         smsToggle = findViewById(R.id.smsToggle);
+        phoneNumberInput = findViewById(R.id.phoneNumberInput);
         Button requestPermissionButton = findViewById(R.id.requestSmsPermissionButton);
-
-        // Check current SMS permission status and update the toggle
-        updateSmsToggleState();
+        repository = new InventoryRepository(this);
 
         // Handle request permission button click
         requestPermissionButton.setOnClickListener(v -> requestSmsPermission());
 
-        // Handle changes to the SMS toggle switch
-        smsToggle.setOnCheckedChangeListener((buttonView, isChecked) -> {
-            if (isChecked) {
-                if (hasSmsPermission()) {
-                    // If permission is already granted, enable notifications
-                    Toast.makeText(this, "SMS Notifications Enabled", Toast.LENGTH_SHORT).show();
-                } else {
-                    // If permission is not granted, request it
-                    Toast.makeText(this, "SMS Permission Required!", Toast.LENGTH_SHORT).show();
-                    smsToggle.setChecked(false); // Reset switch if permission isn't granted
-                }
-            } else {
-                // SMS notifications disabled
-                Toast.makeText(this, "SMS Notifications Disabled", Toast.LENGTH_SHORT).show();
-            }
+        // Show the stored settings, then start listening for changes
+        repository.loadAlertSettings(settings -> {
+            phoneNumberInput.setText(settings.phoneNumber);
+            smsToggle.setChecked(settings.enabled && hasSmsPermission());
+            smsToggle.setOnCheckedChangeListener((buttonView, isChecked) -> onSmsToggleChanged(isChecked));
+            settingsLoaded = true;
         });
     }
 
+    /**
+     * Handles changes to the SMS toggle switch.
+     *
+     * @param isChecked The new toggle state.
+     */
+    private void onSmsToggleChanged(boolean isChecked) {
+        if (isChecked) {
+            if (!hasSmsPermission()) {
+                // If permission is not granted, request it
+                Toast.makeText(this, "SMS Permission Required!", Toast.LENGTH_SHORT).show();
+                smsToggle.setChecked(false); // Reset switch if permission isn't granted
+                return;
+            }
+            if (phoneNumberInput.getText().toString().trim().isEmpty()) {
+                Toast.makeText(this, "Enter a phone number first", Toast.LENGTH_SHORT).show();
+                smsToggle.setChecked(false);
+                return;
+            }
+            // Permission granted and a recipient set, enable notifications
+            Toast.makeText(this, "SMS Notifications Enabled", Toast.LENGTH_SHORT).show();
+        } else {
+            // SMS notifications disabled
+            Toast.makeText(this, "SMS Notifications Disabled", Toast.LENGTH_SHORT).show();
+        }
+        saveSettings();
+    }
+
+    /**
+     * Saves the toggle state and phone number, e.g. after the number was edited.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        saveSettings();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        repository.cancelAll();
+    }
+
+    /**
+     * Persists the current alert settings on the repository's writer thread.
+     */
+    private void saveSettings() {
+        if (settingsLoaded) {
+            repository.saveAlertSettings(new AlertSettings(smsToggle.isChecked(),
+                    phoneNumberInput.getText().toString()), null);
+        }
+    }
+
     /**
      * Requests SMS permission if it has not been granted already.
      */
@@ -95,13 +142,6 @@ public class SmsNotificationsActivity extends AppCompatActivity {
                 Manifest.permission.SEND_SMS) == PackageManager.PERMISSION_GRANTED;
     }
 
-    /**
-     * Updates the toggle switch state based on current SMS permission status.
-     */
-    private void updateSmsToggleState() {
-        smsToggle.setChecked(hasSmsPermission());
-    }
-
     /**
      * Handles the result of the SMS permission request.
      *
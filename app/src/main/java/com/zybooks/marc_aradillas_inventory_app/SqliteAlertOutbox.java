@@ -0,0 +1,144 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SqliteAlertOutbox:
+ * - AlertOutbox stored in the alert_outbox table of the inventory database, so undelivered
+ *   alerts and their retry schedule survive restarts.
+ * - One row per (recipient, item), so a repeat alert for the same item updates the row.
+ * - Only used from the AlertDispatcher thread, which serializes every read and write.
+ */
+public class SqliteAlertOutbox implements AlertOutbox {
+
+    static final String TABLE_OUTBOX = "alert_outbox";
+    private static final String COLUMN_ID = "id";
+    private static final String COLUMN_RECIPIENT = "recipient";
+    private static final String COLUMN_ITEM_ID = "item_id";
+    private static final String COLUMN_ITEM_NAME = "item_name";
+    private static final String COLUMN_QUANTITY = "quantity";
+    private static final String COLUMN_CREATED_AT = "created_at";           // First queued; anchors the coalescing window
+    private static final String COLUMN_ATTEMPTS = "attempts";               // Failed sends so far
+    private static final String COLUMN_NEXT_ATTEMPT_AT = "next_attempt_at"; // Backoff: no send before this time
+
+    // Keeps the first created_at (and any backoff) of a row that is already queued
+    private static final String SQL_UPSERT = "INSERT INTO " + TABLE_OUTBOX + " (" + COLUMN_RECIPIENT
+            + ", " + COLUMN_ITEM_ID + ", " + COLUMN_ITEM_NAME + ", " + COLUMN_QUANTITY + ", "
+            + COLUMN_CREATED_AT + ", " + COLUMN_NEXT_ATTEMPT_AT + ") VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT(" + COLUMN_RECIPIENT + ", " + COLUMN_ITEM_ID + ") DO UPDATE SET "
+            + COLUMN_ITEM_NAME + " = excluded." + COLUMN_ITEM_NAME + ", "
+            + COLUMN_QUANTITY + " = excluded." + COLUMN_QUANTITY;
+
+    // One row per recipient: when its coalescing window closes and when its backoff ends
+    private static final String SQL_SELECT_SCHEDULE = "SELECT " + COLUMN_RECIPIENT + ", MIN("
+            + COLUMN_CREATED_AT + "), MAX(" + COLUMN_NEXT_ATTEMPT_AT + ") FROM " + TABLE_OUTBOX
+            + " GROUP BY " + COLUMN_RECIPIENT;
+
+    // Most urgent items first, so they survive truncation of the summary message
+    private static final String SQL_SELECT_BATCH = "SELECT " + COLUMN_ID + ", " + COLUMN_ITEM_NAME
+            + ", " + COLUMN_QUANTITY + ", " + COLUMN_ATTEMPTS + " FROM " + TABLE_OUTBOX + " WHERE "
+            + COLUMN_RECIPIENT + " = ? ORDER BY " + COLUMN_QUANTITY + " ASC, " + COLUMN_ID + " ASC";
+
+    private final DatabaseHelper dbHelper;
+
+    /**
+     * Constructor for SqliteAlertOutbox.
+     *
+     * @param dbHelper Owner of the database holding the outbox table.
+     */
+    public SqliteAlertOutbox(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /**
+     * Creates the outbox table; called by DatabaseHelper when creating or upgrading.
+     */
+    static void createTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_OUTBOX + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COLUMN_RECIPIENT + " TEXT NOT NULL, "
+                + COLUMN_ITEM_ID + " INTEGER NOT NULL, "
+                + COLUMN_ITEM_NAME + " TEXT NOT NULL, "
+                + COLUMN_QUANTITY + " INTEGER NOT NULL, "
+                + COLUMN_CREATED_AT + " INTEGER NOT NULL, "
+                + COLUMN_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_NEXT_ATTEMPT_AT + " INTEGER NOT NULL, "
+                + "UNIQUE (" + COLUMN_RECIPIENT + ", " + COLUMN_ITEM_ID + "))");
+    }
+
+    @Override
+    public void enqueue(String recipient, int itemId, String itemName, int quantity, long nowMillis) {
+        dbHelper.getWritableDatabase().execSQL(SQL_UPSERT, new Object[]{
+                recipient, itemId, itemName, quantity, nowMillis, nowMillis});
+    }
+
+    @Override
+    public void remove(int itemId) {
+        dbHelper.getWritableDatabase().delete(TABLE_OUTBOX, COLUMN_ITEM_ID + " = ?",
+                new String[]{String.valueOf(itemId)});
+    }
+
+    @Override
+    public void clear() {
+        dbHelper.getWritableDatabase().delete(TABLE_OUTBOX, null, null);
+    }
+
+    @Override
+    public List<Schedule> getSchedule(long coalesceWindowMillis) {
+        List<Schedule> schedule = new ArrayList<>();
+        try (Cursor cursor = dbHelper.getReadableDatabase().rawQuery(SQL_SELECT_SCHEDULE, null)) {
+            while (cursor.moveToNext()) {
+                long windowClosesAt = cursor.getLong(1) + coalesceWindowMillis;
+                schedule.add(new Schedule(cursor.getString(0), Math.max(windowClosesAt, cursor.getLong(2))));
+            }
+        }
+        return schedule;
+    }
+
+    @Override
+    public Batch getBatch(String recipient) {
+        try (Cursor cursor = dbHelper.getReadableDatabase().rawQuery(SQL_SELECT_BATCH,
+                new String[]{recipient})) {
+            int count = cursor.getCount();
+            if (count == 0) {
+                return null;
+            }
+            long[] ids = new long[count];
+            List<String> names = new ArrayList<>(count);
+            int[] quantities = new int[count];
+            int attempts = 0;
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getLong(0);
+                names.add(cursor.getString(1));
+                quantities[i] = cursor.getInt(2);
+                attempts = Math.max(attempts, cursor.getInt(3));
+            }
+            return new Batch(recipient, ids, names, quantities, attempts);
+        }
+    }
+
+    @Override
+    public void delete(Batch batch) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            for (long id : batch.ids) {
+                db.delete(TABLE_OUTBOX, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public void deferRecipient(String recipient, int attempts, long nextAttemptAtMillis) {
+        dbHelper.getWritableDatabase().execSQL("UPDATE " + TABLE_OUTBOX + " SET " + COLUMN_ATTEMPTS
+                + " = ?, " + COLUMN_NEXT_ATTEMPT_AT + " = ? WHERE " + COLUMN_RECIPIENT + " = ?",
+                new Object[]{attempts, nextAttemptAtMillis, recipient});
+    }
+}
@@ -0,0 +1,209 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SqliteSyncStore:
+ * - SyncStore over the inventory database. Local changes come from the item_changes
+ *   journal; checkpoints and the device ID live in sync_state, one row per account.
+ * - Works for the logged-in account (DatabaseHelper's owner) as of the last getDeviceId
+ *   call: it pushes only that account's journal entries, under its username as the
+ *   server account key, and pulled changes only ever touch that account's items.
+ * - On an account's first use it records the journal position and journals the account's
+ *   existing items as inserts, so items created before sync was set up are pushed once.
+ * - Pulled changes are applied in one transaction together with the checkpoint, and the
+ *   journal entries they produce are flagged remote so they are never pushed back.
+ * - Runs the sync statements in InventorySql, which JdbcSyncStore's tests run on the JVM.
+ * - Used only from the SyncEngine thread.
+ */
+public class SqliteSyncStore implements SyncStore {
+
+    private static final String COLUMN_STATE_ID = "id"; // Version 5 key; replaced by the owner in version 11
+
+    private final DatabaseHelper dbHelper;
+    private String deviceId;  // Loaded (or created) on first use by deviceOwner
+    private long deviceOwner; // Account deviceId belongs to
+
+    /**
+     * Constructor for SqliteSyncStore.
+     *
+     * @param dbHelper Owner of the inventory database.
+     */
+    public SqliteSyncStore(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /**
+     * Creates the version 5 sync_state table, with one row for the whole device; called by
+     * DatabaseHelper when creating or upgrading. It stays empty until sync is first used.
+     */
+    static void createTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + InventorySql.TABLE_SYNC_STATE + " ("
+                + COLUMN_STATE_ID + " INTEGER PRIMARY KEY CHECK (" + COLUMN_STATE_ID + " = 1), "
+                + InventorySql.COLUMN_DEVICE_ID + " TEXT NOT NULL, "
+                + InventorySql.COLUMN_PUSH_SEQ + " INTEGER NOT NULL, "
+                + InventorySql.COLUMN_PULL_SEQ + " INTEGER NOT NULL)");
+    }
+
+    /**
+     * Version 11: rebuilds sync_state keyed by account; the version 5 row, if sync was
+     * used, becomes {@code legacyOwnerId}'s. The key's CHECK rules out an ALTER TABLE.
+     */
+    static void addOwners(SQLiteDatabase db, long legacyOwnerId) {
+        db.execSQL("CREATE TEMP TABLE sync_state_v5 AS SELECT * FROM " + InventorySql.TABLE_SYNC_STATE);
+        db.execSQL("DROP TABLE " + InventorySql.TABLE_SYNC_STATE);
+        db.execSQL(InventorySql.CREATE_SYNC_STATE_TABLE);
+        db.execSQL("INSERT INTO " + InventorySql.TABLE_SYNC_STATE + " SELECT ?, " + InventorySql.COLUMN_DEVICE_ID + ", "
+                + InventorySql.COLUMN_PUSH_SEQ + ", " + InventorySql.COLUMN_PULL_SEQ + " FROM temp.sync_state_v5",
+                new Object[]{legacyOwnerId});
+        db.execSQL("DROP TABLE temp.sync_state_v5");
+    }
+
+    @Override
+    public String getDeviceId() {
+        long owner = dbHelper.getOwner();
+        if (deviceId == null || deviceOwner != owner) {
+            deviceId = loadOrCreateState(owner);
+            deviceOwner = owner;
+        }
+        return deviceId;
+    }
+
+    @Override
+    public String getAccountKey() {
+        pinnedDeviceId();
+        String username = dbHelper.getUsername(deviceOwner);
+        if (username == null) {
+            throw new IllegalStateException("No account " + deviceOwner + " to sync");
+        }
+        return username;
+    }
+
+    @Override
+    public List<SyncChange> getPendingChanges(int limit) {
+        String device = pinnedDeviceId();
+        List<SyncChange> changes = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        try (Cursor cursor = db.rawQuery(InventorySql.SQL_SELECT_PENDING_CHANGES, new String[]{
+                String.valueOf(deviceOwner), String.valueOf(getPushCheckpoint()), String.valueOf(limit)})) {
+            while (cursor.moveToNext()) {
+                if (cursor.isNull(2)) {
+                    continue; // Journaled before items had sync IDs
+                }
+                int op = cursor.getInt(1);
+                changes.add(new SyncChange(op, cursor.getString(2), cursor.isNull(5) ? null : cursor.getString(5),
+                        SyncChange.journalDelta(op, cursor.getInt(3), cursor.getInt(4)), device, cursor.getLong(0), 0));
+            }
+        }
+        return changes;
+    }
+
+    @Override
+    public void markPushed(long clientSeq) {
+        pinnedDeviceId();
+        dbHelper.getWritableDatabase().execSQL(InventorySql.SQL_MARK_PUSHED, new Object[]{clientSeq, deviceOwner});
+    }
+
+    @Override
+    public long getPullCheckpoint() {
+        pinnedDeviceId();
+        return queryLong(InventorySql.SQL_SELECT_PULL_CHECKPOINT, new String[]{String.valueOf(deviceOwner)});
+    }
+
+    @Override
+    public void applyRemoteChanges(List<SyncChange> changes, long lastServerSeq) {
+        String device = pinnedDeviceId();
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransactionNonExclusive(); // Takes the write lock, so no other write interleaves
+        try {
+            long journalBefore = queryLong(InventorySql.SQL_MAX_JOURNAL_SEQ, null);
+            String owner = String.valueOf(deviceOwner);
+            String pushSeq = String.valueOf(getPushCheckpoint());
+
+            for (SyncChange change : changes) {
+                boolean exists = queryLong(InventorySql.SQL_COUNT_SYNC_ITEM, new String[]{change.syncId, owner}) > 0;
+                boolean renamePending = change.name != null && queryLong(InventorySql.SQL_COUNT_PENDING_RENAMES,
+                        new String[]{owner, pushSeq, change.syncId}) > 0;
+                SyncResolver.Resolution resolution = SyncResolver.resolve(change,
+                        device.equals(change.deviceId), exists, renamePending);
+                apply(db, deviceOwner, change.syncId, resolution);
+            }
+
+            db.execSQL(InventorySql.SQL_FLAG_REMOTE_CHANGES, new Object[]{journalBefore});
+            db.execSQL(InventorySql.SQL_SET_PULL_SEQ, new Object[]{lastServerSeq, deviceOwner});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        dbHelper.getItemCache().invalidateAll(); // Rows changed behind the cache's back
+    }
+
+    // ---- Internals ----
+
+    // The account the last getDeviceId call scoped the store to; the current one on first use
+    private String pinnedDeviceId() {
+        return deviceId != null ? deviceId : getDeviceId();
+    }
+
+    // Items pulled from the server carry no owner; new ones join the syncing account's
+    // inventory, and updates and deletes never reach another account's items
+    private static void apply(SQLiteDatabase db, long ownerId, String syncId, SyncResolver.Resolution resolution) {
+        switch (resolution.action) {
+            case SyncResolver.INSERT:
+                db.execSQL(InventorySql.SQL_INSERT_ITEM,
+                        new Object[]{resolution.name, resolution.quantityDelta, syncId, ownerId});
+                break;
+            case SyncResolver.UPDATE:
+                db.execSQL(InventorySql.SQL_MERGE_SYNC_ITEM,
+                        new Object[]{resolution.quantityDelta, resolution.name, syncId, ownerId});
+                break;
+            case SyncResolver.DELETE:
+                db.execSQL(InventorySql.SQL_DELETE_SYNC_ITEM, new Object[]{syncId, ownerId});
+                break;
+            default:
+                break;
+        }
+    }
+
+    private long getPushCheckpoint() {
+        return queryLong(InventorySql.SQL_SELECT_PUSH_CHECKPOINT, new String[]{String.valueOf(deviceOwner)});
+    }
+
+    // Reads the account's device ID, creating its sync state (and initial snapshot) on first use
+    private String loadOrCreateState(long owner) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            try (Cursor cursor = db.rawQuery(InventorySql.SQL_SELECT_DEVICE_ID, new String[]{String.valueOf(owner)})) {
+                if (cursor.moveToFirst()) {
+                    String existing = cursor.getString(0);
+                    db.setTransactionSuccessful();
+                    return existing;
+                }
+            }
+
+            // The snapshot needs every item's sync ID; the engine retries after a backoff
+            if (!SchemaMigrations.isComplete(db)) {
+                throw new IllegalStateException("Schema backfill still running");
+            }
+            String newDeviceId = InventorySql.newSyncId();
+            db.execSQL(InventorySql.SQL_INSERT_SYNC_STATE,
+                    new Object[]{owner, newDeviceId, queryLong(InventorySql.SQL_MAX_JOURNAL_SEQ, null)});
+            db.execSQL(InventorySql.SQL_JOURNAL_SNAPSHOT, new Object[]{owner});
+            db.setTransactionSuccessful();
+            return newDeviceId;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private long queryLong(String sql, String[] args) {
+        try (Cursor cursor = dbHelper.getReadableDatabase().rawQuery(sql, args)) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : 0;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * SyncCodec:
+ * - Encodes batches of SyncChange records as compact binary, then gzips the batch.
+ * - Layout: magic, version, count, then per record: op, syncId, name flag + name,
+ *   quantity delta, deviceId, clientSeq, serverSeq. Repeated device IDs and names
+ *   compress well, so a batch costs a few bytes per change.
+ */
+public final class SyncCodec {
+
+    private static final int MAGIC = 0x47565359; // "GVSY"
+    private static final int VERSION = 1;
+    private static final int MAX_BATCH = 100_000; // Sanity bound when decoding
+
+    private SyncCodec() {
+    }
+
+    /**
+     * Encodes and compresses a batch.
+     */
+    public static byte[] encode(List<SyncChange> changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + changes.size() * 32);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(changes.size());
+            for (SyncChange change : changes) {
+                out.writeByte(change.op);
+                out.writeUTF(change.syncId);
+                out.writeBoolean(change.name != null);
+                if (change.name != null) {
+                    out.writeUTF(change.name);
+                }
+                out.writeInt(change.quantityDelta);
+                out.writeUTF(change.deviceId);
+                out.writeLong(change.clientSeq);
+                out.writeLong(change.serverSeq);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decompresses and decodes a batch produced by {@link #encode}.
+     *
+     * @throws IOException If the payload is truncated, corrupt or of another version.
+     */
+    public static List<SyncChange> decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(payload)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                throw new IOException("Not a sync batch");
+            }
+            int count = in.readInt();
+            if (count < 0 || count > MAX_BATCH) {
+                throw new IOException("Bad batch size " + count);
+            }
+            List<SyncChange> changes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int op = in.readUnsignedByte();
+                String syncId = in.readUTF();
+                String name = in.readBoolean() ? in.readUTF() : null;
+                changes.add(new SyncChange(op, syncId, name, in.readInt(), in.readUTF(),
+                        in.readLong(), in.readLong()));
+            }
+            return changes;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import android.content.Context;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SyncEngine:
+ * - Shares stock between devices through a sync server, in the background.
+ * - Each cycle pushes unpushed local journal entries and then pulls other devices'
+ *   changes, both in batches of {@link #BATCH_SIZE}, so the bytes moved grow with the
+ *   number of changes and not with the size of the inventory.
+ * - Both directions are checkpointed by sequence number (see SyncStore), so an
+ *   interrupted cycle resumes where it stopped and nothing is applied twice.
+ * - Failed cycles are retried with exponential backoff; successful ones repeat every
+ *   sync interval.
+ * - Sync is off unless the sync_server_url resource is set.
+ */
+public class SyncEngine {
+
+    private static final String TAG = "SyncEngine";
+
+    static final int BATCH_SIZE = 500;
+    static final long SYNC_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    static final long BASE_BACKOFF_MS = TimeUnit.SECONDS.toMillis(5);
+    static final long MAX_BACKOFF_MS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Totals for one sync cycle.
+     */
+    public static final class Result {
+        public final int pushed;
+        public final int pulled;
+        public final long bytesSent;
+        public final long bytesReceived;
+
+        Result(int pushed, int pulled, long bytesSent, long bytesReceived) {
+            this.pushed = pushed;
+            this.pulled = pulled;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+        }
+
+        @Override
+        public String toString() {
+            return "pushed=" + pushed + ", pulled=" + pulled + ", sent=" + bytesSent
+                    + "B, received=" + bytesReceived + "B";
+        }
+    }
+
+    private static SyncEngine instance; // Process-wide engine, if sync is configured
+
+    private final SyncStore store;
+    private final SyncTransport transport;
+    private final long intervalMs;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final ScheduledExecutorService executor;
+    private final Platform platform;
+
+    private ScheduledFuture<?> nextRun; // Only touched on the executor thread
+    private int consecutiveFailures;
+
+    /**
+     * Starts the process-wide engine if a sync server is configured; otherwise does nothing.
+     *
+     * @param context Any context; only its application context is retained.
+     * @return The running engine, or null if sync is not configured.
+     */
+    public static synchronized SyncEngine startIfConfigured(Context context) {
+        if (instance == null) {
+            String url = context.getString(R.string.sync_server_url);
+            if (url.isEmpty()) {
+                return null;
+            }
+            instance = new SyncEngine(new SqliteSyncStore(DatabaseHelper.getInstance(context)),
+                    new HttpSyncTransport(url), SYNC_INTERVAL_MS, BASE_BACKOFF_MS, MAX_BACKOFF_MS,
+                    Platform.ANDROID);
+            instance.start();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructor for SyncEngine. Tests pass short intervals, a stand-in transport and a
+     * ConsolePlatform.
+     */
+    SyncEngine(SyncStore store, SyncTransport transport, long intervalMs, long baseBackoffMs, long maxBackoffMs,
+               Platform platform) {
+        this.store = store;
+        this.transport = transport;
+        this.intervalMs = intervalMs;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.platform = platform;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> new Thread(() -> {
+            platform.setBackgroundPriority();
+            runnable.run();
+        }, "inventory-sync"));
+        executor.setRemoveOnCancelPolicy(true);
+        this.executor = executor;
+    }
+
+    /**
+     * Runs a cycle now and keeps syncing in the background.
+     */
+    public void start() {
+        requestSync();
+    }
+
+    /**
+     * Runs a cycle as soon as possible, e.g. after local edits.
+     */
+    public void requestSync() {
+        executor.execute(this::runScheduled);
+    }
+
+    /**
+     * Stops background syncing. A cycle in progress finishes; checkpoints keep it consistent.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs one push-then-pull cycle on the calling thread.
+     *
+     * @throws IOException If the server could not be reached; progress up to the failing
+     *                     batch is checkpointed.
+     */
+    public Result syncOnce() throws IOException {
+        String deviceId = store.getDeviceId(); // Scopes the whole cycle to the current account
+        String account = store.getAccountKey();
+        int pushed = 0;
+        int pulled = 0;
+        long sent = 0;
+        long received = 0;
+
+        // Push until nothing local is pending
+        while (true) {
+            List<SyncChange> pending = store.getPendingChanges(BATCH_SIZE);
+            if (pending.isEmpty()) {
+                break;
+            }
+            byte[] batch = SyncCodec.encode(pending);
+            sent += batch.length;
+            long acked = transport.push(account, deviceId, batch);
+            store.markPushed(acked);
+            pushed += pending.size();
+            if (acked < pending.get(pending.size() - 1).clientSeq) {
+                throw new IOException("Server acknowledged only up to " + acked);
+            }
+        }
+
+        // Pull until the server has nothing newer
+        while (true) {
+            byte[] batch = transport.pull(account, deviceId, store.getPullCheckpoint(), BATCH_SIZE);
+            received += batch.length;
+            List<SyncChange> changes = SyncCodec.decode(batch);
+            if (changes.isEmpty()) {
+                break;
+            }
+            store.applyRemoteChanges(changes, changes.get(changes.size() - 1).serverSeq);
+            pulled += changes.size();
+            if (changes.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+        return new Result(pushed, pulled, sent, received);
+    }
+
+    // ---- Executor thread ----
+
+    private void runScheduled() {
+        long delay;
+        try {
+            Result result = syncOnce();
+            consecutiveFailures = 0;
+            delay = intervalMs;
+            if (result.pushed > 0 || result.pulled > 0) {
+                platform.info(TAG, "Sync complete: " + result);
+            }
+        } catch (IOException | RuntimeException e) {
+            consecutiveFailures++;
+            delay = backoff(consecutiveFailures);
+            platform.warn(TAG, "Sync failed (" + consecutiveFailures + " in a row), retrying in " + delay + "ms", e);
+        }
+        if (nextRun != null) {
+            nextRun.cancel(false);
+        }
+        if (!executor.isShutdown()) {
+            nextRun = executor.schedule(this::runScheduled, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Exponential backoff with up to 20% jitter, so devices that failed together spread out
+    private long backoff(int failures) {
+        long delay = Math.min(maxBackoffMs, baseBackoffMs << Math.min(failures - 1, 20));
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+}
@@ -0,0 +1,30 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.io.IOException;
+
+/**
+ * SyncTransport:
+ * - Moves encoded SyncChange batches (see SyncCodec) to and from the sync server.
+ * - Every call names an account (see SyncStore#getAccountKey). The server keeps one change
+ *   stream per account, numbered from 1, and never returns another account's changes.
+ * - Any IOException is treated as transient; SyncEngine retries with backoff.
+ */
+public interface SyncTransport {
+
+    /**
+     * Uploads a batch of local changes to an account's stream. The server ignores changes
+     * it already holds (same account, device and clientSeq), so a batch whose reply was
+     * lost can be sent again.
+     *
+     * @return The highest clientSeq the server now holds for this device and account.
+     */
+    long push(String account, String deviceId, byte[] batch) throws IOException;
+
+    /**
+     * Downloads up to {@code limit} of an account's changes with a server sequence number
+     * above {@code sinceServerSeq}, in server order, including this device's own.
+     *
+     * @return An encoded batch.
+     */
+    byte[] pull(String account, String deviceId, long sinceServerSeq, int limit) throws IOException;
+}
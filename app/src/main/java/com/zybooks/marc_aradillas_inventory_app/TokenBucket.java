@@ -0,0 +1,65 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * TokenBucket:
+ * - Rate limiter allowing bursts of up to {@code capacity} actions, refilled at a steady
+ *   rate of one token every {@code refillIntervalMs}.
+ * - Time is passed in by the caller, so behaviour is deterministic under test.
+ * - All methods are thread-safe.
+ */
+public class TokenBucket {
+
+    private final int capacity;
+    private final long refillIntervalMs;
+    private double tokens;
+    private long lastRefillMs;
+
+    /**
+     * Constructor for TokenBucket. The bucket starts full.
+     *
+     * @param capacity         Maximum burst size.
+     * @param refillIntervalMs Milliseconds per token added.
+     * @param nowMs            Current time.
+     */
+    public TokenBucket(int capacity, long refillIntervalMs, long nowMs) {
+        if (capacity <= 0 || refillIntervalMs <= 0) {
+            throw new IllegalArgumentException("capacity and refill interval must be positive");
+        }
+        this.capacity = capacity;
+        this.refillIntervalMs = refillIntervalMs;
+        this.tokens = capacity;
+        this.lastRefillMs = nowMs;
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @param nowMs Current time.
+     * @return True if the action may proceed.
+     */
+    public synchronized boolean tryAcquire(long nowMs) {
+        refill(nowMs);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns how long until a token is available; 0 if one is available now.
+     *
+     * @param nowMs Current time.
+     */
+    public synchronized long millisUntilAvailable(long nowMs) {
+        refill(nowMs);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * refillIntervalMs);
+    }
+
+    private void refill(long nowMs) {
+        if (nowMs > lastRefillMs) {
+            tokens = Math.min(capacity, tokens + (double) (nowMs - lastRefillMs) / refillIntervalMs);
+            lastRefillMs = nowMs;
+        }
+    }
+}
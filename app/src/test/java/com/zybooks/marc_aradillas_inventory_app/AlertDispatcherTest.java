@@ -0,0 +1,105 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Drives AlertDispatcher on a manual clock with an in-memory outbox and FakeAlertSender.
+ */
+public class AlertDispatcherTest {
+
+    private static final String PHONE = "5550100";
+
+    private ManualScheduler scheduler;
+    private MemoryAlertOutbox outbox;
+    private FakeAlertSender sender;
+    private AlertDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler(0);
+        outbox = new MemoryAlertOutbox();
+        sender = new FakeAlertSender();
+        dispatcher = new AlertDispatcher(outbox, sender, new MemoryPreferences(), scheduler::now, scheduler,
+                ConsolePlatform.INSTANCE);
+        dispatcher.setSettings(new AlertSettings(true, PHONE));
+        dispatcher.start();
+    }
+
+    @Test
+    public void alertsWithinTheWindowAreSentAsOneMessage() {
+        dispatcher.onStockChanged(1, "Bolts", 10, 0);
+        scheduler.advanceTo(30_000);
+        dispatcher.onStockChanged(2, "Nuts", 10, 2);
+        dispatcher.onStockChanged(3, "Washers", 10, 4);
+        scheduler.advanceTo(60_000);
+        dispatcher.onStockChanged(2, "Nuts", 2, 0);   // Runs out: refreshes the queued alert
+        dispatcher.onStockChanged(3, "Washers", 4, 20); // Restocked: withdrawn
+        scheduler.advanceTo(AlertDispatcher.COALESCE_WINDOW_MS - 1);
+        assertEquals(0, sender.getSent().size());
+
+        scheduler.advanceTo(AlertDispatcher.COALESCE_WINDOW_MS);
+        List<FakeAlertSender.SentMessage> sent = sender.getSent();
+        assertEquals(1, sent.size());
+        assertEquals(PHONE, sent.get(0).recipient);
+        assertEquals("Low stock: Bolts (0), Nuts (0)", sent.get(0).message);
+        assertEquals(0, outbox.size());
+        assertEquals(Long.MAX_VALUE, scheduler.nextDueAt());
+    }
+
+    @Test
+    public void sendsAreCappedByTheTokenBucket() {
+        int recipients = AlertDispatcher.SEND_BURST + 2;
+        for (int i = 0; i < recipients; i++) {
+            dispatcher.setSettings(new AlertSettings(true, PHONE + i));
+            dispatcher.onStockChanged(i, "Item " + i, 10, 1);
+        }
+        long windowClosed = AlertDispatcher.COALESCE_WINDOW_MS;
+        scheduler.advanceTo(windowClosed);
+        assertEquals(AlertDispatcher.SEND_BURST, sender.getSent().size());
+
+        // Then one more per refill interval
+        scheduler.advanceTo(windowClosed + AlertDispatcher.SEND_INTERVAL_MS - 1);
+        assertEquals(AlertDispatcher.SEND_BURST, sender.getSent().size());
+        scheduler.advanceTo(windowClosed + AlertDispatcher.SEND_INTERVAL_MS);
+        assertEquals(AlertDispatcher.SEND_BURST + 1, sender.getSent().size());
+        scheduler.advanceTo(windowClosed + 2 * AlertDispatcher.SEND_INTERVAL_MS);
+        assertEquals(recipients, sender.getSent().size());
+        assertEquals(0, outbox.size());
+    }
+
+    @Test
+    public void failedSendsBackOffExponentially() {
+        sender.failNext(3);
+        dispatcher.onStockChanged(1, "Bolts", 10, 0);
+        scheduler.advanceTo(AlertDispatcher.COALESCE_WINDOW_MS);
+
+        long delay = AlertDispatcher.BASE_BACKOFF_MS;
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            long failedAt = scheduler.now();
+            long retryAt = scheduler.nextDueAt();
+            assertTrue("Attempt " + attempt + " retried after " + (retryAt - failedAt) + " ms",
+                    retryAt >= failedAt + delay && retryAt <= failedAt + delay + delay / 5);
+            assertEquals(0, sender.getSent().size());
+            scheduler.advanceTo(retryAt);
+            delay *= 2;
+        }
+        assertEquals(1, sender.getSent().size());
+        assertEquals(0, outbox.size());
+    }
+
+    @Test
+    public void batchIsDroppedAfterMaxAttempts() {
+        sender.failNext(AlertDispatcher.MAX_ATTEMPTS);
+        dispatcher.onStockChanged(1, "Bolts", 10, 0);
+        scheduler.advanceTo(Long.MAX_VALUE - 1);
+        assertEquals(0, sender.getSent().size());
+        assertEquals(0, outbox.size());
+        assertEquals(Long.MAX_VALUE, scheduler.nextDueAt());
+    }
+}
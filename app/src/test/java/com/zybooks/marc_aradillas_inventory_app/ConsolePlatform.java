@@ -0,0 +1,36 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * Platform for JVM tests: prints one line per message to stderr, with the error's message
+ * but not its stack trace, and leaves thread priorities alone.
+ */
+final class ConsolePlatform implements Platform {
+
+    static final ConsolePlatform INSTANCE = new ConsolePlatform();
+
+    private ConsolePlatform() {
+    }
+
+    @Override
+    public void info(String tag, String message) {
+        print("I", tag, message, null);
+    }
+
+    @Override
+    public void warn(String tag, String message, Throwable error) {
+        print("W", tag, message, error);
+    }
+
+    @Override
+    public void error(String tag, String message, Throwable error) {
+        print("E", tag, message, error);
+    }
+
+    @Override
+    public void setBackgroundPriority() {
+    }
+
+    private static void print(String level, String tag, String message, Throwable error) {
+        System.err.println(level + "/" + tag + ": " + message + (error == null ? "" : " (" + error + ")"));
+    }
+}
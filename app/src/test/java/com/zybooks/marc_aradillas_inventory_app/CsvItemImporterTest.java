@@ -0,0 +1,91 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Checks CsvItemImporter's record parsing: quoting, escaped quotes, trailing empty fields
+ * and quoted names that span lines.
+ */
+public class CsvItemImporterTest {
+
+    @Test
+    public void parsesPlainRows() {
+        assertEquals(new Item(0, "bolt", 12), CsvItemImporter.parseLine("bolt,12"));
+        assertEquals(new Item(0, "hex nut", -3), CsvItemImporter.parseLine("  hex nut , -3 "));
+        // Unquoted names keep their commas; the quantity is the last field
+        assertEquals(new Item(0, "bolt, large", 2), CsvItemImporter.parseLine("bolt, large,2"));
+    }
+
+    @Test
+    public void parsesQuotedNames() {
+        assertEquals(new Item(0, "bolt, large", 2), CsvItemImporter.parseLine("\"bolt, large\",2"));
+        assertEquals(new Item(0, "12\" ruler", 1), CsvItemImporter.parseLine("\"12\"\" ruler\",1"));
+        assertEquals(new Item(0, "\"quoted\"", 4), CsvItemImporter.parseLine("\"\"\"quoted\"\"\",4"));
+        assertEquals(new Item(0, "a,\"b\",c", 5), CsvItemImporter.parseLine("\"a,\"\"b\"\",c\" , 5"));
+    }
+
+    @Test
+    public void ignoresTrailingEmptyFields() {
+        assertEquals(new Item(0, "bolt", 12), CsvItemImporter.parseLine("bolt,12,"));
+        assertEquals(new Item(0, "bolt", 12), CsvItemImporter.parseLine("bolt,12,,, "));
+        assertEquals(new Item(0, "bolt, large", 2), CsvItemImporter.parseLine("\"bolt, large\",2,,"));
+        assertNull(CsvItemImporter.parseLine("bolt,,"));
+        assertNull(CsvItemImporter.parseLine("\"bolt\",,"));
+        assertNull(CsvItemImporter.parseLine(",,,"));
+    }
+
+    @Test
+    public void skipsHeaderBlankAndMalformedRows() {
+        assertNull(CsvItemImporter.parseLine("name,quantity"));
+        assertNull(CsvItemImporter.parseLine(""));
+        assertNull(CsvItemImporter.parseLine("   "));
+        assertNull(CsvItemImporter.parseLine("bolt"));
+        assertNull(CsvItemImporter.parseLine(",5"));
+        assertNull(CsvItemImporter.parseLine("\"\",5"));
+        assertNull(CsvItemImporter.parseLine("\"bolt,5"));
+        assertNull(CsvItemImporter.parseLine("\"bolt\",5,blue"));
+        assertNull(CsvItemImporter.parseLine("bolt,99999999999"));
+    }
+
+    @Test
+    public void quotedNamesSpanLines() throws IOException {
+        CsvItemImporter.RecordReader records = new CsvItemImporter.RecordReader(new StringReader(
+                "name,quantity\n\"two\nline\",3\n\"ends \"\"\nhere\"\"\",4\nbolt,1\n"));
+        assertEquals("name,quantity", records.next());
+        assertEquals(new Item(0, "two\nline", 3), CsvItemImporter.parseLine(records.next()));
+        assertEquals(3, records.lineNumber());
+        assertEquals(new Item(0, "ends \"\nhere\"", 4), CsvItemImporter.parseLine(records.next()));
+        assertEquals(new Item(0, "bolt", 1), CsvItemImporter.parseLine(records.next()));
+        assertEquals(6, records.lineNumber());
+        assertNull(records.next());
+    }
+
+    @Test
+    public void resumesAtRecordBoundaries() throws IOException {
+        CsvItemImporter.RecordReader records = new CsvItemImporter.RecordReader(new StringReader(
+                "a,1\n\"b\nb\",2\nc,3\n"));
+        records.skipLines(3);
+        assertEquals("c,3", records.next());
+        assertNull(records.next());
+    }
+
+    @Test
+    public void unterminatedQuoteStopsAfterMaxRecordLines() throws IOException {
+        StringBuilder csv = new StringBuilder("\"stray,1\n");
+        for (int i = 0; i < CsvItemImporter.MAX_RECORD_LINES + 1; i++) {
+            csv.append("item").append(i).append(",1\n");
+        }
+        CsvItemImporter.RecordReader records = new CsvItemImporter.RecordReader(new StringReader(csv.toString()));
+        assertNull(CsvItemImporter.parseLine(records.next()));
+        assertEquals(CsvItemImporter.MAX_RECORD_LINES, records.lineNumber());
+        // Lines after the cap are rows again
+        assertEquals(new Item(0, "item" + (CsvItemImporter.MAX_RECORD_LINES - 1), 1),
+                CsvItemImporter.parseLine(records.next()));
+    }
+}
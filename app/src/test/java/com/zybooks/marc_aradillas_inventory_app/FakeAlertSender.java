@@ -0,0 +1,51 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FakeAlertSender:
+ * - Local AlertSender for tests and debugging; records messages instead of sending them.
+ * - Can be told to fail a number of upcoming sends to exercise retry and backoff.
+ */
+public class FakeAlertSender implements AlertSender {
+
+    /**
+     * A message that was "sent".
+     */
+    public static final class SentMessage {
+        public final String recipient;
+        public final String message;
+
+        SentMessage(String recipient, String message) {
+            this.recipient = recipient;
+            this.message = message;
+        }
+    }
+
+    private final List<SentMessage> sent = new ArrayList<>();
+    private int failuresRemaining;
+
+    @Override
+    public synchronized void send(String recipient, String message) throws Exception {
+        if (failuresRemaining > 0) {
+            failuresRemaining--;
+            throw new Exception("Simulated send failure");
+        }
+        sent.add(new SentMessage(recipient, message));
+    }
+
+    /**
+     * Makes the next {@code count} sends fail.
+     */
+    public synchronized void failNext(int count) {
+        failuresRemaining = count;
+    }
+
+    /**
+     * Returns a copy of every message sent so far, oldest first.
+     */
+    public synchronized List<SentMessage> getSent() {
+        return new ArrayList<>(sent);
+    }
+}
@@ -0,0 +1,100 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes and maps FirstPageSnapshot files, including damaged ones, which must read as null.
+ */
+public class FirstPageSnapshotTest {
+
+    private File directory;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot-test").toFile();
+        file = new File(directory, FirstPageSnapshot.FILE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void roundTripsItemsAndSeq() throws IOException {
+        List<Item> items = Arrays.asList(new Item(1, "Bolts", 10), new Item(4, "\u00c9crous \u516d\u89d2", 0),
+                new Item(9, "", -3));
+        FirstPageSnapshot.write(file, 42, items);
+
+        FirstPageSnapshot snapshot = FirstPageSnapshot.read(file);
+        assertEquals(42, snapshot.journalSeq);
+        assertEquals(items, snapshot.items);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void replacesTheOldSnapshot() throws IOException {
+        FirstPageSnapshot.write(file, 1, Collections.singletonList(new Item(1, "Old", 1)));
+        List<Item> page = new ArrayList<>();
+        for (int i = 1; i <= PagedItemList.PAGE_SIZE; i++) {
+            page.add(new Item(i, "item " + i, i));
+        }
+        FirstPageSnapshot.write(file, 2, page);
+
+        FirstPageSnapshot snapshot = FirstPageSnapshot.read(file);
+        assertEquals(2, snapshot.journalSeq);
+        assertEquals(page, snapshot.items);
+    }
+
+    @Test
+    public void missingOrEmptyFileReadsAsNull() throws IOException {
+        assertNull(FirstPageSnapshot.read(file));
+        assertTrue(file.createNewFile());
+        assertNull(FirstPageSnapshot.read(file));
+    }
+
+    @Test
+    public void damagedFileReadsAsNull() throws IOException {
+        FirstPageSnapshot.write(file, 7, Arrays.asList(new Item(1, "Bolts", 10), new Item(2, "Nuts", 4)));
+        long length = file.length();
+
+        // Flip one byte of an item name
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(length - 6);
+            int b = raf.read();
+            raf.seek(length - 6);
+            raf.write(b ^ 0x20);
+        }
+        assertNull(FirstPageSnapshot.read(file));
+
+        // Cut off part way through an item
+        FirstPageSnapshot.write(file, 7, Arrays.asList(new Item(1, "Bolts", 10), new Item(2, "Nuts", 4)));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length - 7);
+        }
+        assertNull(FirstPageSnapshot.read(file));
+    }
+}
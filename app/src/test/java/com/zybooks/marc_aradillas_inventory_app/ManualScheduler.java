@@ -0,0 +1,163 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded ScheduledExecutorService on a manual clock, for JVM tests. Submitted work
+ * runs at once on the caller's thread; scheduled work runs only when {@link #advanceTo}
+ * passes its due time. {@link #now} is the clock to hand to the code under test.
+ */
+final class ManualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final class Task implements ScheduledFuture<Object> {
+        final Runnable command;
+        final long dueAt;
+        boolean cancelled;
+        boolean done;
+
+        Task(Runnable command, long dueAt) {
+            this.command = command;
+            this.dueAt = dueAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done) {
+                return false;
+            }
+            cancelled = true;
+            tasks.remove(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done || cancelled;
+        }
+
+        @Override
+        public Object get() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final List<Task> tasks = new ArrayList<>();
+    private long now;
+
+    ManualScheduler(long startMillis) {
+        now = startMillis;
+    }
+
+    long now() {
+        return now;
+    }
+
+    /**
+     * Returns the due time of the earliest scheduled task, or Long.MAX_VALUE if none.
+     */
+    long nextDueAt() {
+        return tasks.isEmpty() ? Long.MAX_VALUE : Collections.min(tasks).dueAt;
+    }
+
+    /**
+     * Moves the clock forward, running each task that falls due at its own due time.
+     */
+    void advanceTo(long timeMillis) {
+        while (!tasks.isEmpty()) {
+            Task next = Collections.min(tasks);
+            if (next.dueAt > timeMillis) {
+                break;
+            }
+            tasks.remove(next);
+            now = Math.max(now, next.dueAt);
+            next.done = true;
+            next.command.run();
+        }
+        now = Math.max(now, timeMillis);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        command.run();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        Task task = new Task(command, now + unit.toMillis(delay));
+        tasks.add(task);
+        return task;
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void shutdown() {
+        tasks.clear();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = new ArrayList<>();
+        for (Task task : tasks) {
+            pending.add(task.command);
+        }
+        tasks.clear();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory AlertOutbox with the same semantics as SqliteAlertOutbox: one entry per
+ * (recipient, item), a repeat keeps the first queue time, and a recipient is due once its
+ * coalescing window has closed and its backoff has ended.
+ */
+final class MemoryAlertOutbox implements AlertOutbox {
+
+    private static final class Entry {
+        final long id;
+        final String recipient;
+        final int itemId;
+        String itemName;
+        int quantity;
+        final long createdAt;
+        int attempts;
+        long nextAttemptAt;
+
+        Entry(long id, String recipient, int itemId, String itemName, int quantity, long createdAt) {
+            this.id = id;
+            this.recipient = recipient;
+            this.itemId = itemId;
+            this.itemName = itemName;
+            this.quantity = quantity;
+            this.createdAt = createdAt;
+            this.nextAttemptAt = createdAt;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private long nextId = 1;
+
+    @Override
+    public synchronized void enqueue(String recipient, int itemId, String itemName, int quantity, long nowMillis) {
+        for (Entry entry : entries) {
+            if (entry.recipient.equals(recipient) && entry.itemId == itemId) {
+                entry.itemName = itemName;
+                entry.quantity = quantity;
+                return;
+            }
+        }
+        entries.add(new Entry(nextId++, recipient, itemId, itemName, quantity, nowMillis));
+    }
+
+    @Override
+    public synchronized void remove(int itemId) {
+        entries.removeIf(entry -> entry.itemId == itemId);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized List<Schedule> getSchedule(long coalesceWindowMillis) {
+        Map<String, long[]> byRecipient = new LinkedHashMap<>(); // {oldest created, latest backoff}
+        for (Entry entry : entries) {
+            long[] times = byRecipient.computeIfAbsent(entry.recipient,
+                    recipient -> new long[]{Long.MAX_VALUE, Long.MIN_VALUE});
+            times[0] = Math.min(times[0], entry.createdAt);
+            times[1] = Math.max(times[1], entry.nextAttemptAt);
+        }
+        List<Schedule> schedule = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : byRecipient.entrySet()) {
+            long[] times = entry.getValue();
+            schedule.add(new Schedule(entry.getKey(), Math.max(times[0] + coalesceWindowMillis, times[1])));
+        }
+        return schedule;
+    }
+
+    @Override
+    public synchronized Batch getBatch(String recipient) {
+        List<Entry> batch = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.recipient.equals(recipient)) {
+                batch.add(entry);
+            }
+        }
+        if (batch.isEmpty()) {
+            return null;
+        }
+        batch.sort(Comparator.<Entry>comparingInt(entry -> entry.quantity).thenComparingLong(entry -> entry.id));
+        long[] ids = new long[batch.size()];
+        List<String> names = new ArrayList<>(batch.size());
+        int[] quantities = new int[batch.size()];
+        int attempts = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Entry entry = batch.get(i);
+            ids[i] = entry.id;
+            names.add(entry.itemName);
+            quantities[i] = entry.quantity;
+            attempts = Math.max(attempts, entry.attempts);
+        }
+        return new Batch(recipient, ids, names, quantities, attempts);
+    }
+
+    @Override
+    public synchronized void delete(Batch batch) {
+        for (long id : batch.ids) {
+            entries.removeIf(entry -> entry.id == id);
+        }
+    }
+
+    @Override
+    public synchronized void deferRecipient(String recipient, int attempts, long nextAttemptAtMillis) {
+        for (Entry entry : entries) {
+            if (entry.recipient.equals(recipient)) {
+                entry.attempts = attempts;
+                entry.nextAttemptAt = nextAttemptAtMillis;
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
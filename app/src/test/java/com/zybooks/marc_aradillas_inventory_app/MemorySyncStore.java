@@ -0,0 +1,172 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * In-memory SyncStore with the same journal semantics as SqliteSyncStore: every local
+ * change is journaled, pulled changes are resolved with SyncResolver and journaled as
+ * remote, and both checkpoints advance only as SyncStore specifies. Holds one account's
+ * inventory on one device.
+ */
+final class MemorySyncStore implements SyncStore {
+
+    private static final class Row {
+        String name;
+        int quantity;
+
+        Row(String name, int quantity) {
+            this.name = name;
+            this.quantity = quantity;
+        }
+    }
+
+    private static final class Entry {
+        final long seq;
+        final SyncChange change;
+        final boolean remote;
+
+        Entry(long seq, SyncChange change, boolean remote) {
+            this.seq = seq;
+            this.change = change;
+            this.remote = remote;
+        }
+    }
+
+    private final String account;
+    private final String deviceId = UUID.randomUUID().toString();
+    private final Map<String, Row> items = new TreeMap<>();
+    private final List<Entry> journal = new ArrayList<>();
+    private long pushSeq;
+    private long pullSeq;
+
+    MemorySyncStore(String account) {
+        this.account = account;
+    }
+
+    // ---- Local edits ----
+
+    synchronized String add(String name, int quantity) {
+        String syncId = UUID.randomUUID().toString();
+        items.put(syncId, new Row(name, quantity));
+        journal(ItemChange.OP_INSERT, syncId, name, quantity, false);
+        return syncId;
+    }
+
+    synchronized void adjust(String syncId, int delta) {
+        Row row = items.get(syncId);
+        if (row != null && delta != 0) {
+            row.quantity += delta;
+            journal(ItemChange.OP_UPDATE, syncId, null, delta, false);
+        }
+    }
+
+    synchronized void rename(String syncId, String name) {
+        Row row = items.get(syncId);
+        if (row != null && !row.name.equals(name)) {
+            row.name = name;
+            journal(ItemChange.OP_UPDATE, syncId, name, 0, false);
+        }
+    }
+
+    synchronized void delete(String syncId) {
+        if (items.remove(syncId) != null) {
+            journal(ItemChange.OP_DELETE, syncId, null, 0, false);
+        }
+    }
+
+    /**
+     * Returns "name=quantity" per sync ID, for comparing devices.
+     */
+    synchronized Map<String, String> snapshot() {
+        Map<String, String> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Row> entry : items.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().name + "=" + entry.getValue().quantity);
+        }
+        return snapshot;
+    }
+
+    synchronized boolean hasPendingChanges() {
+        return !getPendingChanges(1).isEmpty();
+    }
+
+    // ---- SyncStore ----
+
+    @Override
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public String getAccountKey() {
+        return account;
+    }
+
+    @Override
+    public synchronized List<SyncChange> getPendingChanges(int limit) {
+        List<SyncChange> pending = new ArrayList<>();
+        for (Entry entry : journal) {
+            if (entry.seq > pushSeq && !entry.remote && pending.size() < limit) {
+                pending.add(entry.change);
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public synchronized void markPushed(long clientSeq) {
+        pushSeq = Math.max(pushSeq, clientSeq);
+    }
+
+    @Override
+    public synchronized long getPullCheckpoint() {
+        return pullSeq;
+    }
+
+    @Override
+    public synchronized void applyRemoteChanges(List<SyncChange> changes, long lastServerSeq) {
+        for (SyncChange change : changes) {
+            SyncResolver.Resolution resolution = SyncResolver.resolve(change, deviceId.equals(change.deviceId),
+                    items.containsKey(change.syncId), renamePending(change.syncId));
+            switch (resolution.action) {
+                case SyncResolver.INSERT:
+                    items.put(change.syncId, new Row(resolution.name, resolution.quantityDelta));
+                    journal(ItemChange.OP_INSERT, change.syncId, resolution.name, resolution.quantityDelta, true);
+                    break;
+                case SyncResolver.UPDATE:
+                    Row row = items.get(change.syncId);
+                    row.quantity += resolution.quantityDelta;
+                    if (resolution.name != null) {
+                        row.name = resolution.name;
+                    }
+                    journal(ItemChange.OP_UPDATE, change.syncId, resolution.name, resolution.quantityDelta, true);
+                    break;
+                case SyncResolver.DELETE:
+                    items.remove(change.syncId);
+                    journal(ItemChange.OP_DELETE, change.syncId, null, 0, true);
+                    break;
+                default:
+                    break;
+            }
+        }
+        pullSeq = lastServerSeq;
+    }
+
+    private boolean renamePending(String syncId) {
+        for (Entry entry : journal) {
+            if (entry.seq > pushSeq && !entry.remote && entry.change.syncId.equals(syncId)
+                    && entry.change.op == ItemChange.OP_UPDATE && entry.change.name != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void journal(int op, String syncId, String name, int delta, boolean remote) {
+        long seq = journal.size() + 1;
+        journal.add(new Entry(seq, new SyncChange(op, syncId, name, delta, deviceId, seq, 0), remote));
+    }
+}
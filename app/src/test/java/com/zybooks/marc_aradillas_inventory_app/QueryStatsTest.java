@@ -0,0 +1,125 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks QueryStats counters, percentiles and the slow-query log through its dump API.
+ */
+public class QueryStatsTest {
+
+    @Test
+    public void bucketsCoverEveryValueInOrder() {
+        int previous = 0;
+        for (long micros = 0; micros < 1_000_000; micros++) {
+            int bucket = QueryStats.bucketOf(micros);
+            assertTrue(bucket == previous || bucket == previous + 1);
+            assertTrue(micros <= QueryStats.bucketUpperBound(bucket));
+            // Upper bounds are within 25% of every value in the bucket
+            assertTrue(QueryStats.bucketUpperBound(bucket) <= Math.max(micros + 1, micros * 5 / 4));
+            previous = bucket;
+        }
+    }
+
+    @Test
+    public void countsRowsAndThreads() throws Exception {
+        QueryStats stats = new QueryStats(null, Thread.currentThread());
+        QueryStats.Timer timer = stats.timer("getAllItems", "SELECT * FROM items");
+        timer.record(System.nanoTime(), 10);
+        timer.record(System.nanoTime(), 5);
+
+        Thread worker = new Thread(() -> timer.record(System.nanoTime(), 1), "db-reader");
+        worker.start();
+        worker.join();
+
+        QueryStats.OperationSnapshot snapshot = stats.snapshot("getAllItems");
+        assertEquals(3, snapshot.count);
+        assertEquals(16, snapshot.rows);
+        assertEquals(2, snapshot.mainThreadCount);
+        assertEquals("db-reader", snapshot.lastThreadName);
+        assertTrue(snapshot.maxNanos <= snapshot.totalNanos);
+        assertTrue(snapshot.p50Micros <= snapshot.p99Micros);
+
+        // Registered but never called operations are left out
+        stats.timer("deleteItem", null);
+        assertEquals(1, stats.snapshot().size());
+        assertNull(stats.snapshot("deleteItem"));
+
+        stats.reset();
+        assertTrue(stats.snapshot().isEmpty());
+    }
+
+    @Test
+    public void percentilesFollowTheHistogram() {
+        QueryStats stats = new QueryStats(null, null);
+        stats.setSlowThresholdMillis(Long.MAX_VALUE / 1_000_000);
+        QueryStats.Timer timer = stats.timer("getItem", null);
+        for (int i = 0; i < 99; i++) {
+            timer.record(System.nanoTime(), 1); // Microseconds at most
+        }
+        timer.record(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50), 1);
+
+        QueryStats.OperationSnapshot snapshot = stats.snapshot("getItem");
+        assertTrue(snapshot.p95Micros < 1_000);
+        assertTrue(snapshot.p99Micros < 1_000);
+        assertTrue(snapshot.maxNanos >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(stats.getSlowQueries().isEmpty());
+    }
+
+    @Test
+    public void slowCallsAreLoggedWithTheirPlanOnce() {
+        List<String> explained = new ArrayList<>();
+        QueryStats stats = new QueryStats(sql -> {
+            explained.add(sql);
+            return Collections.singletonList("SCAN items");
+        }, null);
+        stats.setSlowThresholdMillis(5);
+        QueryStats.Timer timer = stats.timer("searchItems", "SELECT * FROM items_fts");
+
+        timer.record(System.nanoTime(), 3); // Fast: not logged
+        long slowStart = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(20);
+        timer.record(slowStart, 7);
+        timer.record(slowStart, 8);
+
+        List<QueryStats.SlowQuery> slow = stats.getSlowQueries();
+        assertEquals(2, slow.size());
+        assertEquals(7, slow.get(0).rows);
+        assertEquals(8, slow.get(1).rows);
+        assertEquals("searchItems", slow.get(0).operation);
+        assertEquals(Collections.singletonList("SCAN items"), slow.get(0).plan);
+        assertEquals(1, explained.size());
+
+        String dump = stats.dump();
+        assertTrue(dump.contains("Slow queries (>= 5 ms): 2"));
+        assertTrue(dump.contains("SELECT * FROM items_fts"));
+        assertTrue(dump.contains("    SCAN items"));
+    }
+
+    @Test
+    public void slowLogKeepsTheNewestEntries() {
+        QueryStats stats = new QueryStats(sql -> {
+            throw new IllegalStateException("no such table");
+        }, null);
+        stats.setSlowThresholdMillis(0);
+        QueryStats.Timer timer = stats.timer("updateItem", "UPDATE items SET name = ?");
+        int calls = QueryStats.SLOW_QUERY_CAPACITY + 10;
+        for (int i = 0; i < calls; i++) {
+            timer.record(System.nanoTime(), i);
+        }
+
+        List<QueryStats.SlowQuery> slow = stats.getSlowQueries();
+        assertEquals(QueryStats.SLOW_QUERY_CAPACITY, slow.size());
+        assertEquals(10, slow.get(0).rows);
+        assertEquals(calls - 1, slow.get(slow.size() - 1).rows);
+        assertEquals("EXPLAIN failed: no such table", slow.get(0).plan.get(0));
+        assertEquals(calls, stats.snapshot("updateItem").count);
+    }
+}
@@ -0,0 +1,146 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs SyncEngine between in-memory devices and an in-process stand-in server.
+ */
+public class SyncEngineTest {
+
+    private static final long TIMEOUT_MS = 30_000;
+
+    @Test
+    public void devicesConvergeUnderLatencyAndLoss() throws Exception {
+        try (SyncStandInServer server = new SyncStandInServer(15, 0.25, 42)) {
+            MemorySyncStore a = new MemorySyncStore("alice");
+            MemorySyncStore b = new MemorySyncStore("alice");
+            SyncEngine engineA = newEngine(a, server);
+            SyncEngine engineB = newEngine(b, server);
+            try {
+                String bolts = a.add("Bolts", 10);
+                String nuts = a.add("Nuts", 4);
+                b.add("Washers", 7);
+                engineA.start();
+                engineB.start();
+                awaitConverged(a, b);
+                assertEquals(3, a.snapshot().size());
+
+                // Concurrent edits to the same items on both devices
+                a.adjust(bolts, 5);
+                b.adjust(bolts, -2);
+                a.rename(bolts, "Bolts M6");
+                b.rename(bolts, "Bolts M8");
+                a.delete(nuts);
+                b.adjust(nuts, 1);
+                engineA.requestSync();
+                engineB.requestSync();
+                awaitConverged(a, b);
+
+                Map<String, String> items = a.snapshot();
+                assertFalse("Delete wins over a concurrent update", items.containsKey(nuts));
+                String boltsRow = items.get(bolts);
+                assertTrue("Both adjustments kept: " + boltsRow, boltsRow.endsWith("=13"));
+                assertTrue(boltsRow.startsWith("Bolts M6=") || boltsRow.startsWith("Bolts M8="));
+            } finally {
+                engineA.shutdown();
+                engineB.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void bytesScaleWithChangesNotInventory() throws Exception {
+        try (SyncStandInServer server = new SyncStandInServer(0, 0, 1)) {
+            MemorySyncStore store = new MemorySyncStore("alice");
+            SyncEngine engine = newEngine(store, server);
+            try {
+                String first = null;
+                for (int i = 0; i < 5_000; i++) {
+                    String id = store.add("Item " + i, i);
+                    first = first == null ? id : first;
+                }
+                SyncEngine.Result initial = engine.syncOnce();
+                assertEquals(5_000, initial.pushed);
+
+                store.adjust(first, 3);
+                SyncEngine.Result delta = engine.syncOnce();
+                assertEquals(1, delta.pushed);
+                assertEquals(1, delta.pulled);
+                assertTrue("Sent " + delta.bytesSent, delta.bytesSent < 256);
+                assertTrue("Received " + delta.bytesReceived, delta.bytesReceived < 512);
+                assertTrue(delta.bytesSent * 100 < initial.bytesSent);
+
+                SyncEngine.Result idle = engine.syncOnce();
+                assertEquals(0, idle.pushed);
+                assertEquals(0, idle.pulled);
+            } finally {
+                engine.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void accountsNeverReceiveEachOthersChanges() throws Exception {
+        try (SyncStandInServer server = new SyncStandInServer(0, 0, 7)) {
+            MemorySyncStore alicePhone = new MemorySyncStore("alice");
+            MemorySyncStore aliceTablet = new MemorySyncStore("alice");
+            MemorySyncStore bob = new MemorySyncStore("bob");
+            SyncEngine phoneEngine = newEngine(alicePhone, server);
+            SyncEngine tabletEngine = newEngine(aliceTablet, server);
+            SyncEngine bobEngine = newEngine(bob, server);
+            try {
+                alicePhone.add("Bolts", 10);
+                alicePhone.add("Nuts", 4);
+                String washers = bob.add("Washers", 7);
+                assertEquals(2, phoneEngine.syncOnce().pushed);
+
+                // Both streams start at server seq 1; Bob pulls back only his own change
+                SyncEngine.Result bobs = bobEngine.syncOnce();
+                assertEquals(1, bobs.pushed);
+                assertEquals(1, bobs.pulled);
+                assertEquals(1, bob.snapshot().size());
+                assertTrue(bob.snapshot().containsKey(washers));
+
+                assertEquals(2, tabletEngine.syncOnce().pulled);
+                assertEquals(alicePhone.snapshot(), aliceTablet.snapshot());
+                assertEquals(0, phoneEngine.syncOnce().pulled);
+                assertFalse(alicePhone.snapshot().containsKey(washers));
+                assertEquals(2, server.logSize("alice"));
+                assertEquals(1, server.logSize("bob"));
+            } finally {
+                phoneEngine.shutdown();
+                tabletEngine.shutdown();
+                bobEngine.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void codecRoundTrips() throws Exception {
+        SyncChange change = new SyncChange(ItemChange.OP_UPDATE, "abc", null, -4, "device", 7, 9);
+        List<SyncChange> decoded = SyncCodec.decode(SyncCodec.encode(List.of(change)));
+        assertEquals(change.toString(), decoded.get(0).toString());
+    }
+
+    private static SyncEngine newEngine(MemorySyncStore store, SyncStandInServer server) {
+        return new SyncEngine(store, new HttpSyncTransport(server.url()), 20, 10, 200, ConsolePlatform.INSTANCE);
+    }
+
+    private static void awaitConverged(MemorySyncStore a, MemorySyncStore b) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!a.hasPendingChanges() && !b.hasPendingChanges() && a.snapshot().equals(b.snapshot())) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Devices did not converge:\n" + a.snapshot() + "\n" + b.snapshot());
+    }
+}
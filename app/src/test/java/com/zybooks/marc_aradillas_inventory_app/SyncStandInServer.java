@@ -0,0 +1,160 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the sync server, speaking HttpSyncTransport's protocol. Keeps one
+ * change stream per account, so a pull only ever returns the requesting account's changes.
+ * Adds random latency and drops a share of requests and responses to simulate loss; a
+ * dropped response means the change was stored but the client never heard back.
+ */
+final class SyncStandInServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long maxLatencyMs;
+    private final double lossRate;
+    private final Random random;
+
+    private final Map<String, List<SyncChange>> logs = new HashMap<>(); // By account; guarded by this
+    private final Map<String, Long> lastClientSeq = new HashMap<>();    // By account and device; guarded by this; dedups re-pushes
+    final AtomicLong bytesIn = new AtomicLong();
+    final AtomicLong bytesOut = new AtomicLong();
+
+    SyncStandInServer(long maxLatencyMs, double lossRate, long seed) throws IOException {
+        this.maxLatencyMs = maxLatencyMs;
+        this.lossRate = lossRate;
+        this.random = new Random(seed);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/changes", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    synchronized int logSize(String account) {
+        return log(account).size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            sleepLatency();
+            if (lose()) {
+                return; // Request lost: closed without a reply and without being processed
+            }
+            byte[] reply;
+            String account = exchange.getRequestHeaders().getFirst(HttpSyncTransport.HEADER_ACCOUNT);
+            if (account == null) {
+                exchange.sendResponseHeaders(400, -1); // Every request names its account
+                return;
+            }
+            if ("POST".equals(exchange.getRequestMethod())) {
+                reply = push(account, exchange.getRequestHeaders().getFirst(HttpSyncTransport.HEADER_DEVICE_ID),
+                        readAll(exchange.getRequestBody()));
+            } else {
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                reply = pull(account, Long.parseLong(query.get("since")), Integer.parseInt(query.get("limit")));
+            }
+            sleepLatency();
+            if (lose()) {
+                return; // Reply lost: the change was stored, the client never hears back
+            }
+            exchange.sendResponseHeaders(200, reply.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(reply);
+            }
+            bytesOut.addAndGet(reply.length);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized byte[] push(String account, String deviceId, byte[] body) throws IOException {
+        bytesIn.addAndGet(body.length);
+        List<SyncChange> log = log(account);
+        String key = account + "/" + deviceId;
+        long last = lastClientSeq.getOrDefault(key, 0L);
+        for (SyncChange change : SyncCodec.decode(body)) {
+            if (change.clientSeq > last) {
+                log.add(change.withServerSeq(log.size() + 1));
+                last = change.clientSeq;
+            }
+        }
+        lastClientSeq.put(key, last);
+        ByteArrayOutputStream ack = new ByteArrayOutputStream();
+        new DataOutputStream(ack).writeLong(last);
+        return ack.toByteArray();
+    }
+
+    private synchronized byte[] pull(String account, long since, int limit) throws IOException {
+        List<SyncChange> log = log(account);
+        int from = (int) Math.min(since, log.size());
+        return SyncCodec.encode(new ArrayList<>(log.subList(from, Math.min(log.size(), from + limit))));
+    }
+
+    private List<SyncChange> log(String account) {
+        return logs.computeIfAbsent(account, key -> new ArrayList<>());
+    }
+
+    private boolean lose() {
+        synchronized (random) {
+            return random.nextDouble() < lossRate;
+        }
+    }
+
+    private void sleepLatency() {
+        long latency;
+        synchronized (random) {
+            latency = maxLatencyMs == 0 ? 0 : (long) (random.nextDouble() * maxLatencyMs);
+        }
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            params.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return params;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,52 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks TokenBucket bursts and refills against caller-supplied times.
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void allowsABurstThenOnePerInterval() {
+        TokenBucket bucket = new TokenBucket(3, 1_000, 0);
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+        assertEquals(1_000, bucket.millisUntilAvailable(0));
+
+        assertEquals(250, bucket.millisUntilAvailable(750));
+        assertFalse(bucket.tryAcquire(999));
+        assertTrue(bucket.tryAcquire(1_000));
+        assertFalse(bucket.tryAcquire(1_000));
+    }
+
+    @Test
+    public void refillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 1_000, 0);
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertEquals(0, bucket.millisUntilAvailable(60_000));
+        assertTrue(bucket.tryAcquire(60_000));
+        assertTrue(bucket.tryAcquire(60_000));
+        assertFalse(bucket.tryAcquire(60_000));
+    }
+
+    @Test
+    public void timeGoingBackwardsAddsNoTokens() {
+        TokenBucket bucket = new TokenBucket(1, 1_000, 5_000);
+        assertTrue(bucket.tryAcquire(5_000));
+        assertFalse(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(6_000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyCapacity() {
+        new TokenBucket(0, 1_000, 0);
+    }
+}
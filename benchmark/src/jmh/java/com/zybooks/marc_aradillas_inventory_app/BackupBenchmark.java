@@ -0,0 +1,103 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BackupBenchmark:
+ * - Times InventoryBackup export and restore against the seeded InventoryStoreBenchmark
+ *   databases: exporting every item, restoring over the same items (every row unchanged,
+ *   so only reads and no-op upserts), and restoring into an empty database.
+ * - Items per second is rows divided by the score. With the gc profiler, gc.alloc.rate.norm
+ *   grows with rows (each row's Strings) while the heap stays flat: nothing is held past
+ *   its record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BackupBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private Path directory;
+    private Path backup;
+    private JdbcInventoryStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("backup-bench");
+        Path database = directory.resolve("inventory.db");
+        Files.copy(InventoryStoreBenchmark.seededTemplate(rows), database, StandardCopyOption.REPLACE_EXISTING);
+        store = new JdbcInventoryStore(database.toString());
+        backup = directory.resolve("inventory.gz");
+        export();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        InventoryStoreBenchmark.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public InventoryBackup.Stats export() throws IOException {
+        try (FileChannel out = FileChannel.open(backup, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return store.exportBackup(out);
+        }
+    }
+
+    @Benchmark
+    public InventoryBackup.Stats restoreUnchanged() throws IOException {
+        return restoreInto(store);
+    }
+
+    @Benchmark
+    public InventoryBackup.Stats restoreIntoEmpty(EmptyStore empty) throws IOException {
+        return restoreInto(empty.store);
+    }
+
+    private InventoryBackup.Stats restoreInto(JdbcInventoryStore target) throws IOException {
+        try (FileChannel in = FileChannel.open(backup, StandardOpenOption.READ)) {
+            return target.restoreBackup(in);
+        }
+    }
+
+    /**
+     * A new, empty database for each restore.
+     */
+    @State(Scope.Thread)
+    public static class EmptyStore {
+        private Path directory;
+        JdbcInventoryStore store;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("backup-bench-empty");
+            store = new JdbcInventoryStore(directory.resolve("inventory.db").toString());
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            store.close();
+            InventoryStoreBenchmark.deleteDirectory(directory);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * InventoryStoreBenchmark:
+ * - Times the item operations of {@link JdbcInventoryStore} (the app's schema, triggers and
+ *   SQL) against databases holding 1k, 100k and 1M items.
+ * - Each trial starts from a copy of a seeded template database, built once per size and
+ *   kept in the temp directory, so large sizes are not re-seeded for every run.
+ * - summary reads the trigger-maintained totals row; summaryRecount is the full-scan
+ *   recount it replaces on every refresh.
+ * - Lookups and updates use a fixed pseudo-random ID sequence. Small databases fit in the
+ *   item cache, so their lookups measure cache hits; large ones mostly read from SQLite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InventoryStoreBenchmark {
+
+    private static final int BULK_INSERT_BATCH = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int RANDOM_IDS = 1 << 16; // Power of two, so the index wraps with a mask
+    private static final String[] WORDS = {"red", "blue", "steel", "widget", "bolt", "gear", "cable", "panel"};
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Path directory;
+    private JdbcInventoryStore store;
+    private final int[] randomIds = new int[RANDOM_IDS];
+    private final List<Item> bulkBatch = new ArrayList<>(BULK_INSERT_BATCH);
+    private int nextRandom;
+    private int pageCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("inventory-bench");
+        Path database = directory.resolve("inventory.db");
+        Files.copy(seededTemplate(rows), database, StandardCopyOption.REPLACE_EXISTING);
+        store = new JdbcInventoryStore(database.toString());
+
+        Random random = new Random(42);
+        for (int i = 0; i < RANDOM_IDS; i++) {
+            randomIds[i] = 1 + random.nextInt(rows);
+        }
+        for (int i = 0; i < BULK_INSERT_BATCH; i++) {
+            bulkBatch.add(new Item(0, itemName(i), i % 100));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public long insert() {
+        return store.addItem("bench widget", 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_INSERT_BATCH)
+    public int bulkInsert() {
+        return store.addItems(bulkBatch);
+    }
+
+    @Benchmark
+    public List<Item> fullLoad() {
+        return store.getAllItems();
+    }
+
+    @Benchmark
+    public List<Item> pagedLoad() {
+        List<Item> page = store.getItemsAfter(pageCursor, Integer.MAX_VALUE, PAGE_SIZE);
+        // Walk forward page by page, starting over at the end
+        pageCursor = page.size() < PAGE_SIZE ? 0 : page.get(page.size() - 1).getId();
+        return page;
+    }
+
+    @Benchmark
+    public InventorySummary summary() {
+        return store.getSummary();
+    }
+
+    @Benchmark
+    public boolean summaryRecount() {
+        return store.verifySummary();
+    }
+
+    @Benchmark
+    public Item lookupById() {
+        return store.getItem(nextRandomId());
+    }
+
+    @Benchmark
+    public void update() {
+        int id = nextRandomId();
+        store.updateItem(id, itemName(id + nextRandom), nextRandom % 100);
+    }
+
+    private int nextRandomId() {
+        nextRandom++;
+        return randomIds[nextRandom & (RANDOM_IDS - 1)];
+    }
+
+    private static String itemName(int i) {
+        return WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Iterator<Path> it = files.iterator(); it.hasNext(); ) {
+                Files.delete(it.next());
+            }
+        }
+        Files.delete(directory);
+    }
+
+    // Builds the template for a size on first use; IDs run 1..rows. Shared with ItemQueryBenchmark
+    static Path seededTemplate(int rows) {
+        Path template = Paths.get(System.getProperty("java.io.tmpdir"), "inventory-bench-" + rows + ".db");
+        if (Files.exists(template)) {
+            return template;
+        }
+        Path partial = Paths.get(template + ".partial");
+        try {
+            Files.deleteIfExists(partial);
+            try (JdbcInventoryStore seed = new JdbcInventoryStore(partial.toString())) {
+                seed.addItems(() -> new Iterator<Item>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < rows;
+                    }
+
+                    @Override
+                    public Item next() {
+                        next++;
+                        return new Item(0, itemName(next), next % 100);
+                    }
+                });
+            } // Closing the last connection checkpoints the WAL into the main file
+            Files.move(partial, template, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot seed " + template, e);
+        }
+        return template;
+    }
+}
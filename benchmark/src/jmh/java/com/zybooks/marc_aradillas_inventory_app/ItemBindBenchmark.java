@@ -0,0 +1,114 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemBindBenchmark:
+ * - Times what InventoryAdapter does per bound row while a fling scrolls through every row
+ *   in order: from a List of Item (the name String plus String.valueOf of the quantity, as
+ *   binding used to), from a List of Item through a reused ItemRow (the PagedItemList and
+ *   SearchResultList path) and from ItemColumns through a reused ItemRow.
+ * - Also times the stable ID lookup done for each row, and the quantity-only rebind that
+ *   follows a -/+ tap on both paths: the list computes the change payload, and the adapter
+ *   checks it before refilling the row and setting only the quantity text.
+ * - Run with -prof gc: the gc.alloc.rate.norm column shows bytes allocated per bound row;
+ *   every ItemRow path should show zero, apart from the 24-byte Item a tap on a List row
+ *   creates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ItemBindBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    private final List<Item> items = new ArrayList<>();
+    private ItemColumns columns;
+    private final ItemRow row = new ItemRow();
+    private final List<Object> payloads = new ArrayList<>(1); // As RecyclerView hands them to the adapter
+    private int position;
+
+    @Setup
+    public void setUp() {
+        for (int i = 1; i <= rows; i++) {
+            items.add(new Item(i, "steel widget " + i, i % 100));
+        }
+        columns = ItemColumns.of(items);
+    }
+
+    @Benchmark
+    public void bindFromItems(Blackhole blackhole) {
+        Item item = items.get(nextPosition());
+        blackhole.consume(item.getName());
+        blackhole.consume(String.valueOf(item.getQuantity()));
+    }
+
+    @Benchmark
+    public void bindFromItemRow(Blackhole blackhole) {
+        row.set(items.get(nextPosition()));
+        blackhole.consume(row.getNameChars());
+        blackhole.consume(row.getQuantityChars());
+    }
+
+    @Benchmark
+    public void bindFromColumns(Blackhole blackhole) {
+        columns.readRow(nextPosition(), row);
+        blackhole.consume(row.getNameChars());
+        blackhole.consume(row.getQuantityChars());
+    }
+
+    @Benchmark
+    public int stableIdFromColumns() {
+        return columns.getId(nextPosition());
+    }
+
+    // PagedItemList.set then InventoryAdapter.onBindViewHolder with payloads; the new Item
+    // is what adjustQuantity allocates
+    @Benchmark
+    public void rebindQuantityFromItems(Blackhole blackhole) {
+        int index = nextPosition();
+        Item before = items.get(index);
+        Item after = new Item(before.getId(), before.getName(), before.getQuantity() + 1);
+        items.set(index, after);
+        payloads.clear();
+        payloads.add(ItemRow.changePayload(before, after));
+
+        row.set(items.get(index));
+        if (ItemRow.quantityOnly(payloads)) {
+            blackhole.consume(row.getQuantityChars());
+        } else {
+            blackhole.consume(row.getNameChars());
+            blackhole.consume(row.getQuantityChars());
+        }
+    }
+
+    @Benchmark
+    public void rebindQuantityFromColumns(Blackhole blackhole) {
+        int index = nextPosition();
+        columns.setQuantity(index, columns.getQuantity(index) + 1);
+        payloads.clear();
+        payloads.add(ItemRow.PAYLOAD_QUANTITY);
+        if (ItemRow.quantityOnly(payloads)) {
+            columns.readRow(index, row);
+            blackhole.consume(row.getQuantityChars());
+        }
+    }
+
+    private int nextPosition() {
+        position = position + 1 == rows ? 0 : position + 1;
+        return position;
+    }
+}
@@ -0,0 +1,90 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemQueryBenchmark:
+ * - Times ItemQuery re-sorts and filters against the seeded InventoryStoreBenchmark
+ *   databases: the first window the dashboard shows after a re-sort, and the full result
+ *   that replaces it.
+ * - The first window is what a re-sort costs before rows appear; it should stay far
+ *   below a 16 ms frame at every size because each one reads straight down an index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemQueryBenchmark {
+
+    // Same as InventoryRepository.QUERY_FIRST_WINDOW
+    private static final int FIRST_WINDOW = 100;
+    private static final int LOW_STOCK_BELOW = 6; // AlertDispatcher.LOW_STOCK_THRESHOLD + 1
+
+    private static final ItemQuery BY_NAME = ItemQuery.ALL.sortedBy(ItemQuery.Field.NAME, false);
+    private static final ItemQuery BY_QUANTITY = ItemQuery.ALL.sortedBy(ItemQuery.Field.QUANTITY, true);
+    private static final ItemQuery LOW_STOCK = BY_NAME.withQuantityBelow(LOW_STOCK_BELOW);
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private Path directory;
+    private JdbcInventoryStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("query-bench");
+        Path database = directory.resolve("inventory.db");
+        Files.copy(InventoryStoreBenchmark.seededTemplate(rows), database, StandardCopyOption.REPLACE_EXISTING);
+        store = new JdbcInventoryStore(database.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        InventoryStoreBenchmark.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public ItemColumns firstWindowByName() {
+        return store.queryItems(BY_NAME.withLimit(FIRST_WINDOW));
+    }
+
+    @Benchmark
+    public ItemColumns firstWindowByQuantity() {
+        return store.queryItems(BY_QUANTITY.withLimit(FIRST_WINDOW));
+    }
+
+    @Benchmark
+    public ItemColumns firstWindowLowStock() {
+        return store.queryItems(LOW_STOCK.withLimit(FIRST_WINDOW));
+    }
+
+    @Benchmark
+    public ItemColumns firstWindowNamePrefix() {
+        return store.queryItems(BY_NAME.withNamePrefix("steel").withLimit(FIRST_WINDOW));
+    }
+
+    @Benchmark
+    public ItemColumns fullByName() {
+        return store.queryItems(BY_NAME);
+    }
+
+    @Benchmark
+    public ItemColumns fullLowStock() {
+        return store.queryItems(LOW_STOCK);
+    }
+}
@@ -0,0 +1,155 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LocationStockBenchmark:
+ * - Times location stock reads and writes on the seeded InventoryStoreBenchmark items,
+ *   spread over {@link #LOCATIONS} locations with each item stocked at
+ *   {@link #LOCATIONS_PER_ITEM} of them: a location's first page and all of its stock, an
+ *   item's spread, counting stock into a location, and a transfer there and back.
+ * - Reads walk an index in key order, so they should not grow with the number of items or
+ *   locations, only with the rows returned. Writes include the rollup, journal and summary
+ *   triggers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocationStockBenchmark {
+
+    static final int LOCATIONS = 1_000;
+    static final int LOCATIONS_PER_ITEM = 5;
+    private static final int PAGE_SIZE = 100;
+    private static final int KEYS = 1_024; // Power of two, for the index mask
+
+    @Param({"100000"})
+    public int rows;
+
+    private Path directory;
+    private JdbcInventoryStore store;
+    private final int[] items = new int[KEYS];
+    private final int[] locations = new int[KEYS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("location-bench");
+        Path database = directory.resolve("inventory.db");
+        Files.copy(stockedTemplate(rows), database, StandardCopyOption.REPLACE_EXISTING);
+        store = new JdbcInventoryStore(database.toString());
+
+        Random random = new Random(42);
+        for (int i = 0; i < KEYS; i++) {
+            items[i] = 1 + random.nextInt(rows);
+            locations[i] = 1 + random.nextInt(LOCATIONS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        InventoryStoreBenchmark.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public List<StockLevel> locationFirstPage() {
+        return store.getLocationStock(locations[next++ & (KEYS - 1)], 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public int locationAllPages() {
+        int location = locations[next++ & (KEYS - 1)];
+        int count = 0;
+        List<StockLevel> page = store.getLocationStock(location, 0, PAGE_SIZE);
+        while (!page.isEmpty()) {
+            count += page.size();
+            page = store.getLocationStock(location, page.get(page.size() - 1).itemId, PAGE_SIZE);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<StockLevel> itemSpread() {
+        return store.getItemStock(items[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public boolean setStock() {
+        int item = items[next++ & (KEYS - 1)];
+        return store.setStock(item, firstLocation(item), 1 + next % 20);
+    }
+
+    @Benchmark
+    public boolean transferRoundTrip() {
+        int item = items[next++ & (KEYS - 1)];
+        int from = firstLocation(item);
+        int to = locations[next & (KEYS - 1)];
+        if (to == from) {
+            to = from % LOCATIONS + 1;
+        }
+        return store.transferStock(item, from, to, 1) && store.transferStock(item, to, from, 1);
+    }
+
+    // Location k of an item, as seeded; every item has at least one unit at each
+    private static int location(int item, int k) {
+        return (item * 7919 + k * 104729) % LOCATIONS + 1;
+    }
+
+    private static int firstLocation(int item) {
+        return location(item, 0);
+    }
+
+    // The seeded items plus locations and stock, built with plain SQL on first use
+    private static Path stockedTemplate(int rows) {
+        Path template = Paths.get(System.getProperty("java.io.tmpdir"), "inventory-stock-bench-" + rows + ".db");
+        if (Files.exists(template)) {
+            return template;
+        }
+        Path partial = Paths.get(template + ".partial");
+        try {
+            Files.copy(InventoryStoreBenchmark.seededTemplate(rows), partial, StandardCopyOption.REPLACE_EXISTING);
+            new JdbcInventoryStore(partial.toString()).close(); // Adds the stock tables
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + partial);
+                 Statement statement = connection.createStatement()) {
+                connection.setAutoCommit(false);
+                statement.executeUpdate("WITH RECURSIVE n(k) AS (SELECT 1 UNION ALL SELECT k + 1 FROM n WHERE k < "
+                        + LOCATIONS + ") INSERT INTO " + InventorySql.TABLE_LOCATIONS + " (" + InventorySql.COLUMN_NAME
+                        + ") SELECT printf('Site %d/Bin %03d', k / 100, k % 100) FROM n");
+                // Same formula as location(item, k)
+                statement.executeUpdate("WITH RECURSIVE n(k) AS (SELECT 0 UNION ALL SELECT k + 1 FROM n WHERE k < "
+                        + (LOCATIONS_PER_ITEM - 1) + ") INSERT INTO " + InventorySql.TABLE_ITEM_STOCK + " ("
+                        + InventorySql.COLUMN_ITEM_ID + ", " + InventorySql.COLUMN_LOCATION_ID + ", "
+                        + InventorySql.COLUMN_QUANTITY + ") SELECT i." + InventorySql.COLUMN_ID + ", (i."
+                        + InventorySql.COLUMN_ID + " * 7919 + k * 104729) % " + LOCATIONS + " + 1, (i."
+                        + InventorySql.COLUMN_ID + " + k) % 20 + 1 FROM " + InventorySql.TABLE_ITEMS + " i, n");
+                connection.commit();
+            }
+            Files.move(partial, template, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Cannot seed " + template, e);
+        }
+        return template;
+    }
+}
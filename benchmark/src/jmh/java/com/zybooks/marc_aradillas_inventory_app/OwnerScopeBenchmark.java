@@ -0,0 +1,97 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OwnerScopeBenchmark:
+ * - Times the dashboard's loads for one account on the seeded InventoryStoreBenchmark
+ *   databases, with every {@link #SMALL_OWNER_STRIDE}th item moved to a second account:
+ *   owner 1 holds 1% of the rows and owner 0 the rest.
+ * - The first page, a sorted first window, the totals and a full load all read the
+ *   owner's index range only, so owner 1's scores should track its own row count, not the
+ *   table's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OwnerScopeBenchmark {
+
+    static final int SMALL_OWNER_STRIDE = 100;
+    private static final int PAGE_SIZE = 100;
+    private static final ItemQuery LOW_STOCK = ItemQuery.ALL.sortedBy(ItemQuery.Field.NAME, false)
+            .withQuantityBelow(6).withLimit(PAGE_SIZE);
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"1", "0"})
+    public long owner;
+
+    private Path directory;
+    private JdbcInventoryStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("owner-bench");
+        Path database = directory.resolve("inventory.db");
+        Files.copy(InventoryStoreBenchmark.seededTemplate(rows), database, StandardCopyOption.REPLACE_EXISTING);
+        new JdbcInventoryStore(database.toString()).close(); // Adds owners to older templates
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE " + InventorySql.TABLE_ITEMS + " SET " + InventorySql.COLUMN_OWNER_ID
+                    + " = 1 WHERE " + InventorySql.COLUMN_ID + " % " + SMALL_OWNER_STRIDE + " = 0");
+        }
+        store = new JdbcInventoryStore(database.toString());
+        for (long account : new long[]{0, 1}) {
+            store.setOwner(account);
+            store.verifySummary(); // Moving rows bypassed the summary triggers
+        }
+        store.setOwner(owner);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        InventoryStoreBenchmark.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public List<Item> firstPage() {
+        return store.getItemsAfter(0, Integer.MAX_VALUE, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ItemColumns firstWindowLowStock() {
+        return store.queryItems(LOW_STOCK);
+    }
+
+    @Benchmark
+    public InventorySummary summary() {
+        return store.getSummary();
+    }
+
+    @Benchmark
+    public List<Item> allItems() {
+        return store.getAllItems();
+    }
+}
@@ -0,0 +1,88 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SkuLookupBenchmark:
+ * - Times findBySku against the seeded InventoryStoreBenchmark databases with a SKU on
+ *   every item: scans of SKUs that exist, and of SKUs that do not, with and without the
+ *   Bloom filter in front of the unique SKU index.
+ * - Lookups cycle through a fixed set of random keys so the score is the lookup alone.
+ *   With the filter, a miss should cost a few hash probes, far below an index probe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SkuLookupBenchmark {
+
+    private static final int KEYS = 4_096; // Power of two, for the index mask
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean skuFilter;
+
+    private Path directory;
+    private JdbcInventoryStore store;
+    private final String[] present = new String[KEYS];
+    private final String[] absent = new String[KEYS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("sku-bench");
+        Path database = directory.resolve("inventory.db");
+        Files.copy(InventoryStoreBenchmark.seededTemplate(rows), database, StandardCopyOption.REPLACE_EXISTING);
+        new JdbcInventoryStore(database.toString()).close(); // Adds the SKU column to older templates
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE " + InventorySql.TABLE_ITEMS + " SET " + InventorySql.COLUMN_SKU
+                    + " = printf('SKU%08d', " + InventorySql.COLUMN_ID + ")");
+        }
+        store = new JdbcInventoryStore(database.toString());
+        store.setSkuFilterEnabled(skuFilter);
+
+        Random random = new Random(42);
+        for (int i = 0; i < KEYS; i++) {
+            present[i] = String.format("SKU%08d", 1 + random.nextInt(rows));
+            absent[i] = String.format("SKU%08d", rows + 1 + random.nextInt(rows));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        InventoryStoreBenchmark.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public Item hit() {
+        return store.findBySku(present[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public Item miss() {
+        return store.findBySku(absent[next++ & (KEYS - 1)]);
+    }
+}
@@ -0,0 +1,786 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JdbcInventoryStore:
+ * - {@link InventoryStore} over sqlite-jdbc, so the data layer can be run and measured on
+ *   a plain JVM.
+ * - Runs the same schema (items with owners, FTS index, change journal, summary rows,
+ *   location stock and their triggers) and the same statements as DatabaseHelper, all from {@link InventorySql}, and
+ *   mirrors its connection setup: write-ahead logging, compiled statements reused, a
+ *   write-through {@link ItemCache} for lookups by ID and a SKU {@link BloomFilter} built
+ *   when the file is opened.
+ * - Has no migration history and no users table: a new file gets the latest schema
+ *   directly, rows made before owners existed belong to {@link #DEFAULT_OWNER}, and backups
+ *   hold items only. The sync_state table is there (empty unless a test syncs), so journal
+ *   compaction runs DatabaseHelper's trigger, push checkpoint included.
+ * - One connection; all methods are synchronized.
+ */
+public class JdbcInventoryStore implements InventoryStore, AutoCloseable {
+
+    // Same capacity as DatabaseHelper's cache
+    private static final int ITEM_CACHE_CAPACITY = 4096;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statementCache = new HashMap<>();
+    private final ItemCache itemCache = new ItemCache(ITEM_CACHE_CAPACITY);
+    private BloomFilter skuFilter;            // Every owner's SKUs (skuKey), and possibly stale ones
+    private boolean skuFilterEnabled = true;
+    private long owner = DEFAULT_OWNER;
+
+    /**
+     * Opens (creating if needed) the database file at {@code path}.
+     *
+     * @param path Database file path.
+     */
+    public JdbcInventoryStore(String path) {
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + path);
+            try (Statement statement = connection.createStatement()) {
+                // Android's defaults for a WAL database
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = NORMAL");
+            }
+            if (!hasItemsTable()) {
+                createSchema();
+            } else {
+                upgradeSchema(); // Files made before the latest schema steps existed
+            }
+            rebuildSkuFilter();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot open " + path, e);
+        }
+    }
+
+    /**
+     * Returns the item cache, for its hit/miss/eviction counters.
+     */
+    public ItemCache getItemCache() {
+        return itemCache;
+    }
+
+    @Override
+    public synchronized void setOwner(long ownerId) {
+        owner = ownerId;
+        itemCache.invalidateAll(); // Cached rows may belong to the previous owner
+    }
+
+    @Override
+    public synchronized long getOwner() {
+        return owner;
+    }
+
+    @Override
+    public synchronized long addItem(String name, int quantity) {
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_INSERT_ITEM);
+            statement.setString(1, name);
+            statement.setInt(2, quantity);
+            statement.setString(3, InventorySql.newSyncId());
+            statement.setLong(4, owner);
+            if (statement.executeUpdate() == 0) {
+                return -1;
+            }
+            long id = lastInsertRowId();
+            itemCache.put(new Item((int) id, name, quantity));
+            return id;
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized int addItems(Iterable<Item> items) {
+        Iterator<Item> iterator = items.iterator();
+        int inserted = 0;
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_INSERT_ITEM);
+            while (iterator.hasNext()) {
+                connection.setAutoCommit(false);
+                try {
+                    for (int n = 0; n < InventorySql.BULK_INSERT_CHUNK_SIZE && iterator.hasNext(); n++) {
+                        Item item = iterator.next();
+                        statement.setString(1, item.getName());
+                        statement.setInt(2, item.getQuantity());
+                        statement.setString(3, InventorySql.newSyncId());
+                        statement.setLong(4, owner);
+                        inserted += statement.executeUpdate(); // 0 if the row was not inserted
+                    }
+                    connection.commit();
+                } finally {
+                    rollbackUnlessCommitted();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Bulk insert failed", e);
+        }
+        return inserted;
+    }
+
+    @Override
+    public synchronized Item getItem(int id) {
+        Item cached = itemCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_SELECT_ITEM);
+            statement.setInt(1, id);
+            statement.setLong(2, owner);
+            try (ResultSet rows = statement.executeQuery()) {
+                if (!rows.next()) {
+                    return null;
+                }
+                Item item = new Item(rows.getInt(1), rows.getString(2), rows.getInt(3));
+                itemCache.put(item);
+                return item;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Lookup failed", e);
+        }
+    }
+
+    @Override
+    public synchronized Item findBySku(String sku) {
+        if (skuFilterEnabled && !skuFilter.mightContain(InventorySql.skuKey(owner, sku))) {
+            return null;
+        }
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_SELECT_BY_SKU);
+            statement.setLong(1, owner);
+            statement.setString(2, sku);
+            try (ResultSet rows = statement.executeQuery()) {
+                if (!rows.next()) {
+                    return null;
+                }
+                Item item = new Item(rows.getInt(1), rows.getString(2), rows.getInt(3));
+                itemCache.put(item);
+                return item;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("SKU lookup failed", e);
+        }
+    }
+
+    @Override
+    public synchronized boolean assignSku(int id, String sku) {
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_ASSIGN_SKU);
+            statement.setString(1, sku);
+            statement.setInt(2, id);
+            statement.setLong(3, owner);
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+        } catch (SQLException e) {
+            return false; // Taken by another item
+        }
+        if (sku != null) {
+            skuFilter.put(InventorySql.skuKey(owner, sku));
+            if (skuFilter.isSaturated()) {
+                rebuildSkuFilter();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * For benchmarks: with the filter off, every SKU lookup reads the index.
+     */
+    synchronized void setSkuFilterEnabled(boolean enabled) {
+        skuFilterEnabled = enabled;
+    }
+
+    @Override
+    public synchronized long addLocation(String name) {
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_INSERT_LOCATION);
+            statement.setString(1, name);
+            return statement.executeUpdate() == 0 ? -1 : lastInsertRowId();
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized List<Location> getLocations() {
+        List<Location> locations = new ArrayList<>();
+        try (ResultSet rows = statement(InventorySql.SQL_SELECT_LOCATIONS).executeQuery()) {
+            while (rows.next()) {
+                locations.add(new Location(rows.getInt(1), rows.getString(2)));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Location load failed", e);
+        }
+        return locations;
+    }
+
+    @Override
+    public synchronized boolean setStock(int itemId, int locationId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Negative stock " + quantity);
+        }
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_SET_STOCK);
+            statement.setInt(1, itemId);
+            statement.setInt(2, locationId);
+            statement.setInt(3, quantity);
+            statement.setLong(4, owner);
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Stock update failed", e);
+        }
+        itemCache.invalidate(itemId); // The total moved
+        return true;
+    }
+
+    @Override
+    public synchronized boolean transferStock(int itemId, int fromLocationId, int toLocationId, int quantity) {
+        if (quantity <= 0 || fromLocationId == toLocationId) {
+            throw new IllegalArgumentException("Transfer of " + quantity + " from " + fromLocationId
+                    + " to " + toLocationId);
+        }
+        try {
+            PreparedStatement take = statement(InventorySql.SQL_TAKE_STOCK);
+            PreparedStatement put = statement(InventorySql.SQL_PUT_STOCK);
+            connection.setAutoCommit(false);
+            try {
+                take.setInt(1, itemId);
+                take.setInt(2, fromLocationId);
+                take.setInt(3, quantity);
+                take.setLong(4, owner);
+                if (take.executeUpdate() == 0) {
+                    return false;
+                }
+                put.setInt(1, itemId);
+                put.setInt(2, toLocationId);
+                put.setInt(3, quantity);
+                if (put.executeUpdate() == 0) {
+                    return false;
+                }
+                connection.commit();
+                return true;
+            } finally {
+                rollbackUnlessCommitted();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Transfer failed", e);
+        }
+    }
+
+    @Override
+    public synchronized List<StockLevel> getLocationStock(int locationId, int afterItemId, int limit) {
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_SELECT_LOCATION_STOCK);
+            statement.setInt(1, locationId);
+            statement.setInt(2, afterItemId);
+            statement.setLong(3, owner);
+            statement.setInt(4, limit);
+            return readStockLevels(statement);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Location stock load failed", e);
+        }
+    }
+
+    @Override
+    public synchronized List<StockLevel> getItemStock(int itemId) {
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_SELECT_ITEM_STOCK);
+            statement.setInt(1, itemId);
+            statement.setLong(2, owner);
+            return readStockLevels(statement);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Item stock load failed", e);
+        }
+    }
+
+    @Override
+    public synchronized List<Item> getAllItems() {
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_SELECT_ALL_ITEMS);
+            statement.setLong(1, owner);
+            return readItems(statement, new ArrayList<>());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Load failed", e);
+        }
+    }
+
+    @Override
+    public synchronized List<Item> getItemsAfter(int afterId, int upToId, int limit) {
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_SELECT_PAGE);
+            statement.setLong(1, owner);
+            statement.setInt(2, afterId);
+            statement.setInt(3, upToId);
+            statement.setInt(4, limit);
+            return readItems(statement, new ArrayList<>(Math.min(limit, 256)));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Page load failed", e);
+        }
+    }
+
+    @Override
+    public synchronized ItemColumns queryItems(ItemQuery query) {
+        try {
+            PreparedStatement statement = statement(query.sql());
+            String[] args = query.args(owner);
+            for (int i = 0; i < args.length; i++) {
+                statement.setString(i + 1, args[i]);
+            }
+            ItemColumns columns = new ItemColumns(query.limit == ItemQuery.NO_LIMIT ? 256 : query.limit);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    columns.add(rows.getInt(1), rows.getString(2), rows.getInt(3));
+                }
+            }
+            columns.trimToSize();
+            return columns;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Query failed", e);
+        }
+    }
+
+    @Override
+    public synchronized List<Item> searchItems(String prefix, int limit) {
+        String terms = InventorySql.toPrefixTerms(prefix);
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Same two tiers as DatabaseHelper: names starting with the query, then any word match
+        Map<Integer, Item> results = new LinkedHashMap<>();
+        try {
+            searchInto(results, "^" + terms, limit);
+            if (results.size() < limit) {
+                searchInto(results, terms, limit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Search failed", e);
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    @Override
+    public synchronized InventorySummary getSummary() {
+        try {
+            return readSummary(ownerStatement(InventorySql.SQL_SELECT_SUMMARY));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Summary read failed", e);
+        }
+    }
+
+    @Override
+    public synchronized boolean verifySummary() {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                InventorySummary actual = readSummary(ownerStatement(InventorySql.SQL_COMPUTE_SUMMARY));
+                boolean consistent = actual.equals(readSummary(ownerStatement(InventorySql.SQL_SELECT_SUMMARY)));
+                if (!consistent) {
+                    ownerStatement(InventorySql.SQL_REBUILD_SUMMARY).executeUpdate();
+                }
+                connection.commit();
+                return consistent;
+            } finally {
+                rollbackUnlessCommitted();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Summary check failed", e);
+        }
+    }
+
+    @Override
+    public synchronized InventoryBackup.Stats exportBackup(WritableByteChannel out) throws IOException {
+        try (InventoryBackup.Writer writer = new InventoryBackup.Writer(out, false)) {
+            PreparedStatement page = statement(InventorySql.SQL_SELECT_BACKUP_PAGE);
+            connection.setAutoCommit(false); // One read transaction, so pages come from one snapshot
+            try {
+                int afterId = Integer.MIN_VALUE;
+                int rows;
+                do {
+                    page.setLong(1, owner);
+                    page.setInt(2, afterId);
+                    page.setInt(3, InventorySql.BACKUP_PAGE_SIZE);
+                    rows = 0;
+                    try (ResultSet result = page.executeQuery()) {
+                        while (result.next()) {
+                            afterId = result.getInt(1);
+                            writer.writeItem(afterId, result.getString(2), result.getInt(3), result.getString(4),
+                                    result.getString(5));
+                            rows++;
+                        }
+                    }
+                } while (rows == InventorySql.BACKUP_PAGE_SIZE);
+                connection.commit();
+            } finally {
+                rollbackUnlessCommitted();
+            }
+            return writer.finish();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Export failed", e);
+        }
+    }
+
+    @Override
+    public synchronized InventoryBackup.Stats restoreBackup(SeekableByteChannel in) throws IOException {
+        long start = System.nanoTime();
+        long position = in.position();
+        InventoryBackup.verify(in); // Nothing is written unless the whole file checks out
+        in.position(position);
+
+        try (InventoryBackup.Reader reader = new InventoryBackup.Reader(in)) {
+            long lastId = Long.MIN_VALUE;
+            int type = reader.next();
+            do {
+                connection.setAutoCommit(false);
+                try {
+                    for (int n = 0; n < InventorySql.BULK_INSERT_CHUNK_SIZE && type != InventoryBackup.RECORD_END; n++) {
+                        if (type == InventoryBackup.RECORD_ITEM) {
+                            restoreItem(reader, lastId);
+                            lastId = reader.getItemId();
+                        }
+                        type = reader.next(); // Users are skipped; there is no users table
+                    }
+                    if (type == InventoryBackup.RECORD_END) {
+                        deleteItemGap(lastId, Long.MAX_VALUE);
+                    }
+                    connection.commit();
+                } finally {
+                    rollbackUnlessCommitted();
+                }
+            } while (type != InventoryBackup.RECORD_END);
+            return reader.finish().since(start);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Restore failed", e);
+        } finally {
+            itemCache.invalidateAll();
+            rebuildSkuFilter();
+        }
+    }
+
+    @Override
+    public synchronized void updateItem(int id, String name, int quantity) {
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_UPDATE_ITEM);
+            statement.setString(1, name);
+            statement.setInt(2, quantity);
+            statement.setInt(3, id);
+            statement.setLong(4, owner);
+            statement.executeUpdate();
+            itemCache.invalidate(id); // The stored quantity may differ from the one written
+        } catch (SQLException e) {
+            throw new IllegalStateException("Update failed", e);
+        }
+    }
+
+    @Override
+    public synchronized void deleteItem(int id) {
+        try {
+            PreparedStatement statement = statement(InventorySql.SQL_DELETE_ITEM);
+            statement.setInt(1, id);
+            statement.setLong(2, owner);
+            statement.executeUpdate();
+            itemCache.invalidate(id);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Delete failed", e);
+        }
+    }
+
+    @Override
+    public int adjustQuantity(int id, int delta) {
+        return adjustQuantities(new int[]{id}, new int[]{delta}, 1)[0];
+    }
+
+    @Override
+    public synchronized int[] adjustQuantities(int[] ids, int[] deltas, int count) {
+        int[] quantities = new int[count];
+        try {
+            PreparedStatement update = statement(InventorySql.SQL_ADJUST_QUANTITY);
+            PreparedStatement select = statement(InventorySql.SQL_SELECT_QUANTITY);
+            connection.setAutoCommit(false);
+            try {
+                for (int i = 0; i < count; i++) {
+                    update.setInt(1, deltas[i]);
+                    update.setInt(2, ids[i]);
+                    update.setLong(3, owner);
+                    if (update.executeUpdate() == 0) {
+                        quantities[i] = NO_SUCH_ITEM;
+                        continue;
+                    }
+                    select.setInt(1, ids[i]);
+                    try (ResultSet rows = select.executeQuery()) {
+                        rows.next();
+                        quantities[i] = rows.getInt(1);
+                    }
+                }
+                connection.commit();
+            } finally {
+                rollbackUnlessCommitted();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Adjust failed", e);
+        }
+
+        for (int i = 0; i < count; i++) {
+            itemCache.invalidate(ids[i]);
+        }
+        return quantities;
+    }
+
+    /**
+     * Closes the cached statements and the connection.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            for (PreparedStatement statement : statementCache.values()) {
+                statement.close();
+            }
+            statementCache.clear();
+            connection.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Close failed", e);
+        }
+    }
+
+    // ---- Internals (callers hold the monitor) ----
+
+    private PreparedStatement statement(String sql) throws SQLException {
+        PreparedStatement statement = statementCache.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statementCache.put(sql, statement);
+        }
+        return statement;
+    }
+
+    // A statement whose only parameter is the owner
+    private PreparedStatement ownerStatement(String sql) throws SQLException {
+        PreparedStatement statement = statement(sql);
+        statement.setLong(1, owner);
+        return statement;
+    }
+
+    private static List<Item> readItems(PreparedStatement statement, List<Item> items) throws SQLException {
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                items.add(new Item(rows.getInt(1), rows.getString(2), rows.getInt(3)));
+            }
+        }
+        return items;
+    }
+
+    private static List<StockLevel> readStockLevels(PreparedStatement statement) throws SQLException {
+        List<StockLevel> levels = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                levels.add(new StockLevel(rows.getInt(1), rows.getString(2), rows.getInt(3), rows.getString(4),
+                        rows.getInt(5)));
+            }
+        }
+        return levels;
+    }
+
+    private static InventorySummary readSummary(PreparedStatement statement) throws SQLException {
+        try (ResultSet rows = statement.executeQuery()) {
+            if (!rows.next()) {
+                return new InventorySummary(0, 0, 0, 0);
+            }
+            return new InventorySummary(rows.getInt(1), rows.getLong(2), rows.getInt(3), rows.getInt(4));
+        }
+    }
+
+    private void searchInto(Map<Integer, Item> results, String match, int limit) throws SQLException {
+        PreparedStatement statement = statement(InventorySql.SQL_SEARCH_ITEMS);
+        statement.setString(1, match);
+        statement.setLong(2, owner);
+        // Over-fetch by what is already collected, since those rows will match again
+        statement.setInt(3, limit + results.size());
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next() && results.size() < limit) {
+                int id = rows.getInt(1);
+                if (!results.containsKey(id)) {
+                    results.put(id, new Item(id, rows.getString(2), rows.getInt(3)));
+                }
+            }
+        }
+    }
+
+    // Deletes the rows between the previous backed-up item and this one, then writes this one
+    private void restoreItem(InventoryBackup.Reader reader, long previousId) throws SQLException {
+        int id = reader.getItemId();
+        String syncId = reader.getSyncId();
+        String sku = reader.getSku();
+        if (id != previousId + 1) {
+            deleteItemGap(previousId, id);
+        }
+        PreparedStatement upsert = statement(InventorySql.SQL_RESTORE_ITEM);
+        upsert.setInt(1, id);
+        upsert.setString(2, reader.getName());
+        upsert.setInt(3, reader.getQuantity());
+        upsert.setString(4, syncId);
+        upsert.setString(5, sku);
+        upsert.setLong(6, owner);
+        try {
+            upsert.executeUpdate();
+        } catch (SQLException e) {
+            if (syncId == null && sku == null) {
+                throw e;
+            }
+            // Another row holds the sync ID or SKU (the item moved to a new ID); a failed
+            // statement leaves the transaction open, so free them and write again
+            PreparedStatement release = statement(InventorySql.SQL_RESTORE_RELEASE_KEYS);
+            release.setString(1, syncId);
+            release.setString(2, sku);
+            release.setInt(3, id);
+            release.setLong(4, owner);
+            release.executeUpdate();
+            upsert.executeUpdate();
+        }
+    }
+
+    private void deleteItemGap(long afterId, long beforeId) throws SQLException {
+        PreparedStatement delete = statement(InventorySql.SQL_RESTORE_DELETE_GAP);
+        delete.setLong(1, owner);
+        delete.setLong(2, afterId);
+        delete.setLong(3, beforeId);
+        delete.executeUpdate();
+    }
+
+    private long lastInsertRowId() throws SQLException {
+        try (ResultSet rows = statement("SELECT last_insert_rowid()").executeQuery()) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    private void rollbackUnlessCommitted() throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback(); // No-op after a commit
+            connection.setAutoCommit(true);
+        }
+    }
+
+    // Sizes a new filter for the SKUs present and fills it from the SKU index
+    private void rebuildSkuFilter() {
+        try (Statement statement = connection.createStatement()) {
+            int count;
+            try (ResultSet rows = statement.executeQuery(InventorySql.SQL_COUNT_SKUS)) {
+                rows.next();
+                count = rows.getInt(1);
+            }
+            BloomFilter filter = new BloomFilter(InventorySql.skuFilterCapacity(count),
+                    InventorySql.SKU_FILTER_FALSE_POSITIVE_RATE);
+            try (ResultSet rows = statement.executeQuery(InventorySql.SQL_SELECT_SKUS)) {
+                while (rows.next()) {
+                    filter.put(InventorySql.skuKey(rows.getLong(1), rows.getString(2)));
+                }
+            }
+            skuFilter = filter;
+        } catch (SQLException e) {
+            throw new IllegalStateException("SKU filter build failed", e);
+        }
+    }
+
+    private boolean hasItemsTable() throws SQLException {
+        return hasTable(InventorySql.TABLE_ITEMS);
+    }
+
+    private boolean hasColumn(String table, String column) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM pragma_table_info(?) WHERE name = ?")) {
+            statement.setString(1, table);
+            statement.setString(2, column);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next();
+            }
+        }
+    }
+
+    private boolean hasTable(String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            statement.setString(1, table);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next();
+            }
+        }
+    }
+
+    // Adds what later schema steps added: sync state, the summary row, SKUs, location stock,
+    // owners, journal owners and the sort indexes DatabaseHelper builds after its upgrade
+    private void upgradeSchema() throws SQLException {
+        if (!hasTable(InventorySql.TABLE_SYNC_STATE)) {
+            executeInTransaction(Collections.singletonList(InventorySql.CREATE_SYNC_STATE_TABLE));
+        }
+        if (hasColumn(InventorySql.TABLE_ITEM_CHANGES, InventorySql.COLUMN_OWNER_ID)) {
+            return; // Journal owners are the latest step
+        }
+        if (hasColumn(InventorySql.TABLE_ITEMS, InventorySql.COLUMN_OWNER_ID)) {
+            executeInTransaction(InventorySql.journalOwnerSchema(DEFAULT_OWNER, InventorySql.SQL_SELECT_PUSH_SEQ));
+            return;
+        }
+        List<String> statements = new ArrayList<>();
+        if (!hasTable(InventorySql.TABLE_ITEM_SUMMARY)) {
+            statements.addAll(InventorySql.summarySchema());
+        }
+        if (!hasColumn(InventorySql.TABLE_ITEMS, InventorySql.COLUMN_SKU)) {
+            statements.addAll(InventorySql.skuSchema());
+        }
+        if (!hasTable(InventorySql.TABLE_LOCATIONS)) {
+            statements.addAll(InventorySql.stockSchema());
+        }
+        statements.addAll(InventorySql.ownerSchema(DEFAULT_OWNER));
+        statements.addAll(InventorySql.journalOwnerSchema(DEFAULT_OWNER, InventorySql.SQL_SELECT_PUSH_SEQ));
+        statements.addAll(InventorySql.itemIndexSchema());
+        executeInTransaction(statements);
+    }
+
+    // The schema DatabaseHelper ends up with, built from the same steps in the same order
+    private void createSchema() throws SQLException {
+        List<String> statements = new ArrayList<>();
+        statements.add(InventorySql.CREATE_ITEMS_TABLE);
+        statements.add(InventorySql.CREATE_SYNC_STATE_TABLE); // Version 11's, as no version 5 row can exist
+        statements.addAll(InventorySql.searchIndexSchema(null));
+        statements.addAll(InventorySql.changeJournalSchema());
+        statements.addAll(InventorySql.syncSchema(InventorySql.SQL_SELECT_PUSH_SEQ));
+        statements.add(InventorySql.CREATE_SYNC_ID_INDEX);
+        statements.addAll(InventorySql.summarySchema());
+        statements.addAll(InventorySql.skuSchema());
+        statements.addAll(InventorySql.stockSchema());
+        statements.addAll(InventorySql.ownerSchema(DEFAULT_OWNER));
+        statements.addAll(InventorySql.journalOwnerSchema(DEFAULT_OWNER, InventorySql.SQL_SELECT_PUSH_SEQ));
+        statements.addAll(InventorySql.itemIndexSchema()); // DatabaseHelper's item_indexes backfill
+        executeInTransaction(statements);
+    }
+
+    private void executeInTransaction(List<String> statements) throws SQLException {
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+            connection.commit();
+        } finally {
+            rollbackUnlessCommitted();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ItemColumnsFootprintTest:
+ * - Measures the retained heap of 200k items held as a List of Item and as ItemColumns,
+ *   by comparing used heap after full GCs, and prints bytes per row for both.
+ * - Fails if the columns stop being at most half the size of the list.
+ */
+public class ItemColumnsFootprintTest {
+
+    private static final int ROWS = 200_000;
+    private static final String[] WORDS = {"red", "blue", "steel", "widget", "bolt", "gear", "cable", "panel"};
+
+    @Test
+    public void columnsUseLessThanHalfTheHeapOfItems() throws InterruptedException {
+        long baseline = usedHeapAfterGc();
+        List<Item> items = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            items.add(new Item(i, itemName(i), i % 100)); // A new String per row, as a cursor gives
+        }
+        long listBytes = usedHeapAfterGc() - baseline;
+
+        baseline = usedHeapAfterGc();
+        ItemColumns columns = new ItemColumns(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            columns.add(i, itemName(i), i % 100);
+        }
+        columns.trimToSize(); // As DatabaseHelper.getAllItemColumns does after a load
+        long columnBytes = usedHeapAfterGc() - baseline;
+
+        System.out.printf("%d items: List<Item> %d bytes (%d/row), ItemColumns %d bytes (%d/row, %d by its own count)%n",
+                ROWS, listBytes, listBytes / ROWS, columnBytes, columnBytes / ROWS, columns.footprintBytes());
+        Assert.assertEquals(ROWS, items.size()); // Keeps the list reachable until here
+        Assert.assertTrue("columns " + columnBytes + " vs list " + listBytes, columnBytes * 2 < listBytes);
+    }
+
+    private static String itemName(int i) {
+        return WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Repeat until the figure stops dropping, since one System.gc() may not finish the job
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
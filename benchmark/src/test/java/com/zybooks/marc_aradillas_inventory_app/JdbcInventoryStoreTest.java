@@ -0,0 +1,617 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JdbcInventoryStoreTest:
+ * - Checks the JVM store behaves like DatabaseHelper for every InventoryStore operation,
+ *   so the benchmarks measure the same work the app does.
+ * - Also checks the shared schema's triggers run: the search index and change journal
+ *   follow every write, restores included.
+ */
+public class JdbcInventoryStoreTest {
+
+    private File file;
+    private JdbcInventoryStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("inventory-store", ".db");
+        file.delete();
+        store = new JdbcInventoryStore(file.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+        file.delete();
+    }
+
+    @Test
+    public void crudRoundTrip() {
+        long id = store.addItem("red widget", 4);
+        Assert.assertEquals(new Item((int) id, "red widget", 4), store.getItem((int) id));
+
+        store.updateItem((int) id, "blue widget", 9);
+        store.getItemCache().invalidateAll();
+        Assert.assertEquals(new Item((int) id, "blue widget", 9), store.getItem((int) id));
+
+        store.deleteItem((int) id);
+        Assert.assertNull(store.getItem((int) id));
+        Assert.assertTrue(store.getAllItems().isEmpty());
+    }
+
+    @Test
+    public void bulkInsertAndPaging() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= 1_234; i++) {
+            items.add(new Item(0, "item " + i, i));
+        }
+        Assert.assertEquals(1_234, store.addItems(items));
+        Assert.assertEquals(1_234, store.getAllItems().size());
+
+        int afterId = 0;
+        int seen = 0;
+        List<Item> page;
+        while (!(page = store.getItemsAfter(afterId, Integer.MAX_VALUE, 100)).isEmpty()) {
+            Assert.assertEquals(afterId + 1, page.get(0).getId());
+            seen += page.size();
+            afterId = page.get(page.size() - 1).getId();
+        }
+        Assert.assertEquals(1_234, seen);
+    }
+
+    @Test
+    public void searchFollowsWrites() {
+        int bolt = (int) store.addItem("steel bolt", 1);
+        int gear = (int) store.addItem("gear with bolt holes", 1);
+        int cutter = (int) store.addItem("bolt cutter", 1);
+        // Names starting with the query first, then other matches in ID order
+        Assert.assertEquals(Arrays.asList(cutter, bolt, gear), ids(store.searchItems("bo", 10)));
+
+        store.updateItem(bolt, "steel nut", 1);
+        Assert.assertEquals(Arrays.asList(cutter, gear), ids(store.searchItems("bolt", 10)));
+        store.deleteItem(gear);
+        store.deleteItem(cutter);
+        Assert.assertTrue(store.searchItems("bolt", 10).isEmpty());
+        Assert.assertTrue(store.searchItems("!!", 10).isEmpty());
+    }
+
+    @Test
+    public void adjustQuantities() {
+        int id = (int) store.addItem("cable", 10);
+        Assert.assertEquals(7, store.adjustQuantity(id, -3));
+        int[] quantities = store.adjustQuantities(new int[]{id, id + 1}, new int[]{5, 5}, 2);
+        Assert.assertEquals(12, quantities[0]);
+        Assert.assertEquals(InventoryStore.NO_SUCH_ITEM, quantities[1]);
+        Assert.assertEquals(12, store.getItem(id).getQuantity());
+    }
+
+    @Test
+    public void journalRecordsEveryWrite() throws SQLException {
+        int id = (int) store.addItem("panel", 1);
+        store.updateItem(id, "panel", 2);
+        store.updateItem(id, "panel", 2); // No change, no entry
+        store.deleteItem(id);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT " + InventorySql.COLUMN_OP + ", "
+                     + InventorySql.COLUMN_SYNC_ID + " FROM " + InventorySql.TABLE_ITEM_CHANGES
+                     + " ORDER BY " + InventorySql.COLUMN_SEQ)) {
+            List<Integer> ops = new ArrayList<>();
+            while (rows.next()) {
+                ops.add(rows.getInt(1));
+                Assert.assertNotNull(rows.getString(2));
+            }
+            Assert.assertEquals(Arrays.asList(ItemChange.OP_INSERT, ItemChange.OP_UPDATE, ItemChange.OP_DELETE), ops);
+        }
+    }
+
+    @Test
+    public void querySortsAndFiltersInSqlite() {
+        int washer = (int) store.addItem("washer", 3);
+        int bolt = (int) store.addItem("Bolt", 12);
+        int bracket = (int) store.addItem("bracket", 3);
+        int boltCutter = (int) store.addItem("bolt cutter", 0);
+        int underscore = (int) store.addItem("b_x", 5); // LIKE wildcard in the name
+
+        ItemQuery byName = ItemQuery.ALL.sortedBy(ItemQuery.Field.NAME, false);
+        Assert.assertEquals(Arrays.asList(underscore, bolt, boltCutter, bracket, washer), ids(store.queryItems(byName)));
+
+        // Quantity descending, then name; ties beyond that fall back to ID
+        ItemQuery byQuantity = ItemQuery.ALL.sortedBy(ItemQuery.Field.QUANTITY, true)
+                .sortedBy(ItemQuery.Field.NAME, false);
+        Assert.assertEquals(Arrays.asList(bolt, underscore, bracket, washer, boltCutter), ids(store.queryItems(byQuantity)));
+
+        Assert.assertEquals(Arrays.asList(washer, bracket, boltCutter),
+                ids(store.queryItems(ItemQuery.ALL.withQuantityBelow(5))));
+        Assert.assertEquals(Collections.emptyList(),
+                ids(store.queryItems(ItemQuery.ALL.withQuantityBelow(Integer.MIN_VALUE))));
+        Assert.assertEquals(Arrays.asList(bolt, boltCutter),
+                ids(store.queryItems(byName.withNamePrefix("BOL"))));
+        Assert.assertEquals(Collections.singletonList(underscore), ids(store.queryItems(byName.withNamePrefix("b_"))));
+        Assert.assertEquals(Arrays.asList(underscore, bolt),
+                ids(store.queryItems(byName.withQuantityBetween(5, 12).withLimit(2))));
+        Assert.assertEquals(Arrays.asList(bracket, washer),
+                ids(store.queryItems(ItemQuery.ALL.sortedBy(ItemQuery.Field.ID, true).withQuantityBetween(3, 3))));
+    }
+
+    @Test
+    public void queriesUseTheIndexes() throws SQLException {
+        ItemQuery byName = ItemQuery.ALL.sortedBy(ItemQuery.Field.NAME, false).withLimit(100);
+        ItemQuery byQuantity = ItemQuery.ALL.sortedBy(ItemQuery.Field.QUANTITY, true).withLimit(100);
+        ItemQuery lowStock = ItemQuery.ALL.sortedBy(ItemQuery.Field.NAME, false).withQuantityBelow(5).withLimit(100);
+        ItemQuery prefix = ItemQuery.ALL.sortedBy(ItemQuery.Field.NAME, false).withNamePrefix("bo");
+
+        Assert.assertTrue(plan(byName), plan(byName).contains("USING INDEX items_owner_name_nocase"));
+        Assert.assertTrue(plan(byQuantity), plan(byQuantity).contains("USING COVERING INDEX items_owner_quantity_name"));
+        Assert.assertTrue(plan(lowStock), plan(lowStock).contains("USING COVERING INDEX items_owner_quantity_name"));
+        Assert.assertTrue(plan(prefix), plan(prefix).contains("USING INDEX items_owner_name_nocase"));
+        // Sorted straight off the index, never in a temporary B-tree
+        for (ItemQuery query : Arrays.asList(byName, byQuantity, prefix)) {
+            Assert.assertFalse(plan(query), plan(query).contains("TEMP B-TREE"));
+        }
+    }
+
+    @Test
+    public void summaryFollowsEveryWrite() {
+        Assert.assertEquals(new InventorySummary(0, 0, 0, 0), store.getSummary());
+
+        int bolts = (int) store.addItem("bolts", 40);
+        int nuts = (int) store.addItem("nuts", 3);
+        store.addItems(Arrays.asList(new Item(0, "washers", 0), new Item(0, "cable", 7)));
+        Assert.assertEquals(new InventorySummary(4, 50, 1, 2), store.getSummary());
+
+        store.updateItem(bolts, "bolts", 5);      // Now low
+        store.adjustQuantity(nuts, -3);           // Now out
+        store.updateItem(nuts, "hex nuts", 0);    // Rename only
+        Assert.assertEquals(new InventorySummary(4, 12, 2, 3), store.getSummary());
+
+        store.deleteItem(nuts);
+        Assert.assertEquals(new InventorySummary(3, 12, 1, 2), store.getSummary());
+        Assert.assertTrue(store.verifySummary());
+    }
+
+    @Test
+    public void verifySummaryRepairsDrift() throws SQLException {
+        store.addItem("bolts", 40);
+        store.addItem("nuts", 0);
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE " + InventorySql.TABLE_ITEM_SUMMARY + " SET "
+                    + InventorySql.COLUMN_UNIT_COUNT + " = 7, " + InventorySql.COLUMN_LOW_STOCK_COUNT + " = 0");
+        }
+        Assert.assertEquals(7, store.getSummary().unitCount);
+
+        Assert.assertFalse(store.verifySummary());
+        Assert.assertEquals(new InventorySummary(2, 40, 1, 1), store.getSummary());
+        Assert.assertTrue(store.verifySummary());
+    }
+
+    @Test
+    public void locationStockRollsUpIntoItemTotals() {
+        int bolts = (int) store.addItem("bolts", 5);
+        int nuts = (int) store.addItem("nuts", 0);
+        int shelf = (int) store.addLocation("Main/A-01");
+        int bin = (int) store.addLocation("Main/B-07");
+        Assert.assertEquals(-1, store.addLocation("Main/A-01"));
+        Assert.assertEquals(Arrays.asList(new Location(shelf, "Main/A-01"), new Location(bin, "Main/B-07")),
+                store.getLocations());
+
+        Assert.assertTrue(store.setStock(bolts, shelf, 10));
+        Assert.assertEquals(15, store.getItem(bolts).getQuantity());
+        Assert.assertTrue(store.setStock(bolts, shelf, 4));
+        Assert.assertTrue(store.setStock(bolts, bin, 3));
+        Assert.assertTrue(store.setStock(nuts, bin, 8));
+        Assert.assertEquals(12, store.getItem(bolts).getQuantity());
+        Assert.assertEquals(8, store.getItem(nuts).getQuantity());
+        Assert.assertFalse(store.setStock(99, shelf, 1));
+        Assert.assertFalse(store.setStock(bolts, 99, 1));
+
+        Assert.assertEquals(Arrays.asList(new StockLevel(bolts, "bolts", shelf, "Main/A-01", 4),
+                new StockLevel(bolts, "bolts", bin, "Main/B-07", 3)), store.getItemStock(bolts));
+        Assert.assertEquals(Arrays.asList(new StockLevel(bolts, "bolts", bin, "Main/B-07", 3),
+                new StockLevel(nuts, "nuts", bin, "Main/B-07", 8)), store.getLocationStock(bin, 0, 10));
+        Assert.assertEquals(Collections.singletonList(new StockLevel(nuts, "nuts", bin, "Main/B-07", 8)),
+                store.getLocationStock(bin, bolts, 10));
+        Assert.assertTrue(store.verifySummary());
+
+        store.deleteItem(bolts);
+        Assert.assertTrue(store.getItemStock(bolts).isEmpty());
+        Assert.assertEquals(1, store.getLocationStock(bin, 0, 10).size());
+        Assert.assertTrue(store.verifySummary());
+    }
+
+    @Test
+    public void transferMovesStockAtomically() {
+        int bolts = (int) store.addItem("bolts", 0);
+        int shelf = (int) store.addLocation("shelf");
+        int bin = (int) store.addLocation("bin");
+        store.setStock(bolts, shelf, 10);
+
+        Assert.assertTrue(store.transferStock(bolts, shelf, bin, 4));
+        Assert.assertTrue(store.transferStock(bolts, shelf, bin, 6));
+        Assert.assertEquals(Arrays.asList(0, 10), quantities(store.getItemStock(bolts)));
+        Assert.assertEquals(10, store.getItem(bolts).getQuantity());
+
+        // Too few at the source, or no such destination: nothing moves
+        Assert.assertFalse(store.transferStock(bolts, shelf, bin, 1));
+        Assert.assertFalse(store.transferStock(bolts, bin, 99, 5));
+        Assert.assertFalse(store.transferStock(7, bin, shelf, 1));
+        Assert.assertEquals(Arrays.asList(0, 10), quantities(store.getItemStock(bolts)));
+        Assert.assertEquals(10, store.getItem(bolts).getQuantity());
+        Assert.assertTrue(store.verifySummary());
+    }
+
+    @Test
+    public void totalsNeverFallBelowLocationStock() throws IOException {
+        int bolts = (int) store.addItem("bolts", 2);
+        int shelf = (int) store.addLocation("shelf");
+        int bin = (int) store.addLocation("bin");
+        store.setStock(bolts, shelf, 6);
+        store.setStock(bolts, bin, 4);
+        Assert.assertEquals(12, store.getItem(bolts).getQuantity()); // 2 unlocated
+
+        // An edit may drop the unlocated units, but not the located ones
+        store.updateItem(bolts, "hex bolts", 11);
+        Assert.assertEquals(new Item(bolts, "hex bolts", 11), store.getItem(bolts));
+        store.updateItem(bolts, "hex bolts", 3);
+        Assert.assertEquals(new Item(bolts, "hex bolts", 10), store.getItem(bolts));
+        Assert.assertEquals(10, store.adjustQuantity(bolts, -5));
+        Assert.assertEquals(13, store.adjustQuantity(bolts, 3));
+        Assert.assertTrue(store.verifySummary());
+
+        // Stock rows still move the total by their difference
+        store.setStock(bolts, bin, 0);
+        Assert.assertEquals(9, store.getItem(bolts).getQuantity());
+
+        // A restore of a total from before the stock was placed keeps the located units
+        File backup = File.createTempFile("inventory-backup", ".gz");
+        try {
+            store.updateItem(bolts, "hex bolts", 7);
+            try (FileChannel out = new RandomAccessFile(backup, "rw").getChannel()) {
+                store.exportBackup(out);
+            }
+            store.setStock(bolts, shelf, 8);
+            try (FileChannel in = new RandomAccessFile(backup, "r").getChannel()) {
+                store.restoreBackup(in);
+            }
+            Assert.assertEquals(8, store.getItem(bolts).getQuantity());
+            Assert.assertTrue(store.verifySummary());
+        } finally {
+            backup.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void transferRejectsNonPositiveQuantities() {
+        store.transferStock(1, 1, 2, 0);
+    }
+
+    @Test
+    public void stockListingsReadThroughIndexes() throws SQLException {
+        store.addItem("bolts", 0);
+        store.addLocation("shelf");
+        String byLocation = plan(InventorySql.SQL_SELECT_LOCATION_STOCK, "1", "0", "0", "100");
+        String byItem = plan(InventorySql.SQL_SELECT_ITEM_STOCK, "1", "0");
+
+        Assert.assertTrue(byLocation, byLocation.contains("USING COVERING INDEX item_stock_location"));
+        Assert.assertTrue(byItem, byItem.contains("USING PRIMARY KEY"));
+        Assert.assertFalse(byLocation, byLocation.contains("TEMP B-TREE"));
+        Assert.assertFalse(byItem, byItem.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void ownersSeeOnlyTheirOwnItems() throws SQLException {
+        int bolts = (int) store.addItem("bolts", 40);
+        store.assignSku(bolts, "SKU-1");
+        int shelf = (int) store.addLocation("shelf");
+        store.setStock(bolts, shelf, 2);
+
+        store.setOwner(7);
+        Assert.assertNull(store.getItem(bolts));
+        Assert.assertTrue(store.getAllItems().isEmpty());
+        Assert.assertTrue(store.getItemsAfter(0, Integer.MAX_VALUE, 10).isEmpty());
+        Assert.assertEquals(0, store.queryItems(ItemQuery.ALL).size());
+        Assert.assertTrue(store.searchItems("bolt", 10).isEmpty());
+        Assert.assertNull(store.findBySku("SKU-1"));
+        Assert.assertTrue(store.getItemStock(bolts).isEmpty());
+        Assert.assertTrue(store.getLocationStock(shelf, 0, 10).isEmpty());
+        Assert.assertEquals(new InventorySummary(0, 0, 0, 0), store.getSummary());
+
+        // Writes by ID miss the other owner's row
+        store.updateItem(bolts, "stolen", 0);
+        store.deleteItem(bolts);
+        Assert.assertEquals(InventoryStore.NO_SUCH_ITEM, store.adjustQuantity(bolts, 1));
+        Assert.assertFalse(store.assignSku(bolts, "SKU-2"));
+        Assert.assertFalse(store.setStock(bolts, shelf, 9));
+        Assert.assertFalse(store.transferStock(bolts, shelf, (int) store.addLocation("bin"), 1));
+
+        // SKUs are unique per owner
+        int nuts = (int) store.addItem("bolt nuts", 3);
+        Assert.assertTrue(store.assignSku(nuts, "SKU-1"));
+        Assert.assertEquals(Collections.singletonList(new Item(nuts, "bolt nuts", 3)), store.searchItems("bolt", 10));
+        Assert.assertEquals(new InventorySummary(1, 3, 0, 1), store.getSummary());
+        Assert.assertTrue(store.verifySummary());
+        String page = plan(InventorySql.SQL_SELECT_PAGE, "7", "0", "100", "10");
+        Assert.assertTrue(page, page.contains("USING INDEX items_owner (owner_id=? AND rowid>? AND rowid<?)"));
+        String search = plan(InventorySql.SQL_SEARCH_ITEMS, "bolt*", "7", "10");
+        Assert.assertTrue(search, search.startsWith("SCAN f VIRTUAL TABLE"));
+
+        store.setOwner(InventoryStore.DEFAULT_OWNER);
+        Assert.assertEquals(new Item(bolts, "bolts", 42), store.getItem(bolts));
+        Assert.assertEquals(bolts, store.findBySku("SKU-1").getId());
+        Assert.assertEquals(new InventorySummary(1, 42, 0, 0), store.getSummary());
+        Assert.assertTrue(store.verifySummary());
+    }
+
+    @Test
+    public void journalEntriesCarryTheirItemsOwner() throws SQLException {
+        int bolts = (int) store.addItem("bolts", 40);
+        store.setOwner(7);
+        int nuts = (int) store.addItem("nuts", 3);
+        store.deleteItem(nuts);
+        store.deleteItem(bolts); // Another owner's row: no change, no entry
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT " + InventorySql.COLUMN_ITEM_ID + ", "
+                     + InventorySql.COLUMN_OWNER_ID + " FROM " + InventorySql.TABLE_ITEM_CHANGES
+                     + " ORDER BY " + InventorySql.COLUMN_SEQ)) {
+            List<String> entries = new ArrayList<>();
+            while (rows.next()) {
+                entries.add(rows.getInt(1) + "/" + rows.getLong(2));
+            }
+            Assert.assertEquals(Arrays.asList(bolts + "/0", nuts + "/7", nuts + "/7"), entries);
+        }
+        String changes = plan("SELECT " + InventorySql.COLUMN_SEQ + " FROM " + InventorySql.TABLE_ITEM_CHANGES
+                + " WHERE " + InventorySql.COLUMN_OWNER_ID + " = ? AND " + InventorySql.COLUMN_SEQ + " > ? ORDER BY "
+                + InventorySql.COLUMN_SEQ + " LIMIT ?", "7", "0", "10");
+        Assert.assertTrue(changes, changes.contains("USING COVERING INDEX item_changes_owner (owner_id=? AND rowid>?)"));
+    }
+
+    @Test
+    public void restoreLeavesOtherOwnersItemsAlone() throws IOException {
+        int bolts = (int) store.addItem("bolts", 40);
+        store.setOwner(7);
+        int nuts = (int) store.addItem("nuts", 3);
+
+        File backup = File.createTempFile("inventory-backup", ".gz");
+        try {
+            store.setOwner(InventoryStore.DEFAULT_OWNER);
+            try (FileChannel out = new RandomAccessFile(backup, "rw").getChannel()) {
+                store.exportBackup(out);
+            }
+            // Owner 7 restores owner 0's backup: the bolts ID is taken, and nuts is not in it
+            store.setOwner(7);
+            try (FileChannel in = new RandomAccessFile(backup, "r").getChannel()) {
+                store.restoreBackup(in);
+            }
+            Assert.assertTrue(store.getAllItems().isEmpty());
+            Assert.assertNull(store.getItem(nuts));
+
+            store.setOwner(InventoryStore.DEFAULT_OWNER);
+            Assert.assertEquals(Collections.singletonList(new Item(bolts, "bolts", 40)), store.getAllItems());
+            Assert.assertTrue(store.verifySummary());
+        } finally {
+            backup.delete();
+        }
+    }
+
+    @Test
+    public void backupRestoresItemsUnderTheirIds() throws IOException {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            items.add(new Item(0, "widget " + i, i % 9));
+        }
+        store.addItems(items);
+        store.deleteItem(10);
+        store.assignSku(20, "SKU-20");
+        List<Item> backedUp = store.getAllItems();
+
+        File backup = File.createTempFile("inventory-backup", ".gz");
+        try {
+            try (FileChannel out = new RandomAccessFile(backup, "rw").getChannel()) {
+                InventoryBackup.Stats stats = store.exportBackup(out);
+                Assert.assertEquals(backedUp.size(), stats.items);
+                Assert.assertEquals(out.size(), stats.compressedBytes);
+            }
+
+            // Every kind of change the restore has to undo: edits, deletes, an insert past the end
+            store.updateItem(1, "renamed", 50);
+            store.deleteItem(500);
+            store.adjustQuantity(900, 7);
+            store.addItem("added later", 3);
+            store.assignSku(20, null);
+            store.assignSku(21, "SKU-20-MOVED");
+
+            try (FileChannel in = new RandomAccessFile(backup, "r").getChannel()) {
+                Assert.assertEquals(backedUp.size(), store.restoreBackup(in).items);
+            }
+            Assert.assertEquals(backedUp, store.getAllItems());
+            Assert.assertEquals(backedUp.get(0), store.getItem(1));
+            Assert.assertTrue(store.verifySummary());
+            Assert.assertEquals(Collections.singletonList(500), ids(store.searchItems("widget 499", 10)));
+            Assert.assertTrue(store.searchItems("added", 10).isEmpty());
+            Assert.assertEquals(20, store.findBySku("SKU-20").getId());
+            Assert.assertNull(store.findBySku("SKU-20-MOVED"));
+        } finally {
+            backup.delete();
+        }
+    }
+
+    @Test
+    public void skuLookupFindsAssignedItemsOnly() {
+        for (int i = 0; i < 2_000; i++) {
+            store.addItem("widget " + i, i);
+        }
+        for (int id = 1; id <= 2_000; id += 2) {
+            Assert.assertTrue(store.assignSku(id, String.format("SKU%05d", id)));
+        }
+        Assert.assertEquals(new Item(7, "widget 6", 6), store.findBySku("SKU00007"));
+        Assert.assertNull(store.findBySku("SKU00008"));
+        Assert.assertNull(store.findBySku(""));
+
+        // Taken by item 7; the failed assignment must not change either item
+        Assert.assertFalse(store.assignSku(9, "SKU00007"));
+        Assert.assertEquals(7, store.findBySku("SKU00007").getId());
+        Assert.assertEquals(9, store.findBySku("SKU00009").getId());
+        Assert.assertFalse(store.assignSku(5_000, "SKU-MISSING"));
+
+        // Reassigning frees the old SKU; deleting frees the new one
+        Assert.assertTrue(store.assignSku(7, "SKU-NEW"));
+        Assert.assertNull(store.findBySku("SKU00007"));
+        Assert.assertTrue(store.assignSku(9, "SKU00007"));
+        Assert.assertEquals(9, store.findBySku("SKU00007").getId());
+        store.deleteItem(7);
+        Assert.assertNull(store.findBySku("SKU-NEW"));
+        Assert.assertTrue(store.assignSku(9, null));
+        Assert.assertNull(store.findBySku("SKU00007"));
+    }
+
+    @Test
+    public void skuFilterNeverHidesAnAssignedSku() {
+        store.setSkuFilterEnabled(true);
+        for (int i = 0; i < 5_000; i++) { // Past the minimum filter capacity, so it is rebuilt
+            store.addItem("widget " + i, i);
+            Assert.assertTrue(store.assignSku(i + 1, "SKU" + i));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            Assert.assertEquals(i + 1, store.findBySku("SKU" + i).getId());
+        }
+        for (int i = 5_000; i < 6_000; i++) {
+            Assert.assertNull(store.findBySku("SKU" + i));
+        }
+    }
+
+    @Test
+    public void restoreMovesSyncIdsBetweenItems() throws IOException, SQLException {
+        store.addItem("bolts", 1);
+        store.addItem("nuts", 2);
+        store.assignSku(1, "B-1");
+        store.assignSku(2, "N-2");
+        String nutsSyncId = syncIds().get(1);
+
+        // A backup in which nuts had ID 1 and there was no ID 2
+        File backup = File.createTempFile("inventory-backup", ".gz");
+        try {
+            try (FileChannel out = new RandomAccessFile(backup, "rw").getChannel();
+                 InventoryBackup.Writer writer = new InventoryBackup.Writer(out, false)) {
+                writer.writeItem(1, "nuts", 2, nutsSyncId, "N-2");
+                writer.finish();
+            }
+            try (FileChannel in = new RandomAccessFile(backup, "r").getChannel()) {
+                store.restoreBackup(in);
+            }
+            Assert.assertEquals(Collections.singletonList(new Item(1, "nuts", 2)), store.getAllItems());
+            Assert.assertEquals(Collections.singletonList(nutsSyncId), syncIds());
+            Assert.assertEquals(new Item(1, "nuts", 2), store.findBySku("N-2"));
+            Assert.assertNull(store.findBySku("B-1"));
+            Assert.assertTrue(store.verifySummary());
+        } finally {
+            backup.delete();
+        }
+    }
+
+    @Test
+    public void damagedBackupChangesNothing() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            store.addItem("widget " + i, i);
+        }
+        File backup = File.createTempFile("inventory-backup", ".gz");
+        try {
+            try (FileChannel out = new RandomAccessFile(backup, "rw").getChannel()) {
+                store.exportBackup(out);
+                out.truncate(out.size() - 20); // Cuts into the end record
+            }
+            store.deleteItem(50);
+            List<Item> before = store.getAllItems();
+
+            try (FileChannel in = new RandomAccessFile(backup, "r").getChannel()) {
+                store.restoreBackup(in);
+                Assert.fail("Truncated backup was restored");
+            } catch (IOException expected) {
+                // Rejected by the verify pass
+            }
+            Assert.assertEquals(before, store.getAllItems());
+        } finally {
+            backup.delete();
+        }
+    }
+
+    private static List<Integer> quantities(List<StockLevel> levels) {
+        List<Integer> quantities = new ArrayList<>();
+        for (StockLevel level : levels) {
+            quantities.add(level.quantity);
+        }
+        return quantities;
+    }
+
+    private List<String> syncIds() throws SQLException {
+        List<String> syncIds = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT " + InventorySql.COLUMN_SYNC_ID + " FROM "
+                     + InventorySql.TABLE_ITEMS + " ORDER BY " + InventorySql.COLUMN_ID)) {
+            while (rows.next()) {
+                syncIds.add(rows.getString(1));
+            }
+        }
+        return syncIds;
+    }
+
+    private String plan(ItemQuery query) throws SQLException {
+        return plan(query.sql(), query.args(InventoryStore.DEFAULT_OWNER));
+    }
+
+    private String plan(String sql, String... args) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setString(i + 1, args[i]);
+            }
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    plan.append(rows.getString("detail")).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+
+    private static List<Integer> ids(ItemColumns columns) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            ids.add(columns.getId(i));
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(List<Item> items) {
+        List<Integer> ids = new ArrayList<>();
+        for (Item item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+}
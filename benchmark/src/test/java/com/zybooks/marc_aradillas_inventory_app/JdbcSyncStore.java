@@ -0,0 +1,195 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SyncStore over a JdbcInventoryStore's file, step for step as SqliteSyncStore: the same
+ * InventorySql statements in the same order and transactions, for the store's current
+ * owner as of the last getDeviceId call. Has no backfills to wait for, so the first-use
+ * snapshot is never deferred, and no users table, so the account key is the owner ID.
+ */
+final class JdbcSyncStore implements SyncStore, AutoCloseable {
+
+    private final JdbcInventoryStore store;
+    private final Connection connection;
+    private String deviceId;
+    private long deviceOwner;
+
+    JdbcSyncStore(JdbcInventoryStore store, String path) throws SQLException {
+        this.store = store;
+        this.connection = DriverManager.getConnection("jdbc:sqlite:" + path);
+    }
+
+    @Override
+    public String getDeviceId() {
+        long owner = store.getOwner();
+        if (deviceId == null || deviceOwner != owner) {
+            deviceId = loadOrCreateState(owner);
+            deviceOwner = owner;
+        }
+        return deviceId;
+    }
+
+    @Override
+    public String getAccountKey() {
+        pinnedDeviceId();
+        return String.valueOf(deviceOwner);
+    }
+
+    @Override
+    public List<SyncChange> getPendingChanges(int limit) {
+        String device = pinnedDeviceId();
+        List<SyncChange> changes = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(InventorySql.SQL_SELECT_PENDING_CHANGES)) {
+            statement.setLong(1, deviceOwner);
+            statement.setLong(2, getPushCheckpoint());
+            statement.setInt(3, limit);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    if (rows.getString(3) == null) {
+                        continue; // Journaled before items had sync IDs
+                    }
+                    int op = rows.getInt(2);
+                    changes.add(new SyncChange(op, rows.getString(3), rows.getString(6),
+                            SyncChange.journalDelta(op, rows.getInt(4), rows.getInt(5)), device, rows.getLong(1), 0));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Pending changes read failed", e);
+        }
+        return changes;
+    }
+
+    @Override
+    public void markPushed(long clientSeq) {
+        pinnedDeviceId();
+        execute(InventorySql.SQL_MARK_PUSHED, clientSeq, deviceOwner);
+    }
+
+    @Override
+    public long getPullCheckpoint() {
+        pinnedDeviceId();
+        return queryLong(InventorySql.SQL_SELECT_PULL_CHECKPOINT, deviceOwner);
+    }
+
+    @Override
+    public void applyRemoteChanges(List<SyncChange> changes, long lastServerSeq) {
+        String device = pinnedDeviceId();
+        inTransaction(() -> {
+            long journalBefore = queryLong(InventorySql.SQL_MAX_JOURNAL_SEQ);
+            long pushSeq = getPushCheckpoint();
+            for (SyncChange change : changes) {
+                boolean exists = queryLong(InventorySql.SQL_COUNT_SYNC_ITEM, change.syncId, deviceOwner) > 0;
+                boolean renamePending = change.name != null && queryLong(InventorySql.SQL_COUNT_PENDING_RENAMES,
+                        deviceOwner, pushSeq, change.syncId) > 0;
+                SyncResolver.Resolution resolution = SyncResolver.resolve(change,
+                        device.equals(change.deviceId), exists, renamePending);
+                apply(change.syncId, resolution);
+            }
+            execute(InventorySql.SQL_FLAG_REMOTE_CHANGES, journalBefore);
+            execute(InventorySql.SQL_SET_PULL_SEQ, lastServerSeq, deviceOwner);
+            return null;
+        });
+        store.getItemCache().invalidateAll(); // Rows changed behind the cache's back
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    // ---- Internals ----
+
+    private String pinnedDeviceId() {
+        return deviceId != null ? deviceId : getDeviceId();
+    }
+
+    private void apply(String syncId, SyncResolver.Resolution resolution) {
+        switch (resolution.action) {
+            case SyncResolver.INSERT:
+                execute(InventorySql.SQL_INSERT_ITEM, resolution.name, resolution.quantityDelta, syncId, deviceOwner);
+                break;
+            case SyncResolver.UPDATE:
+                execute(InventorySql.SQL_MERGE_SYNC_ITEM, resolution.quantityDelta, resolution.name, syncId, deviceOwner);
+                break;
+            case SyncResolver.DELETE:
+                execute(InventorySql.SQL_DELETE_SYNC_ITEM, syncId, deviceOwner);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private long getPushCheckpoint() {
+        return queryLong(InventorySql.SQL_SELECT_PUSH_CHECKPOINT, deviceOwner);
+    }
+
+    private String loadOrCreateState(long owner) {
+        return inTransaction(() -> {
+            try (PreparedStatement statement = connection.prepareStatement(InventorySql.SQL_SELECT_DEVICE_ID)) {
+                statement.setLong(1, owner);
+                try (ResultSet rows = statement.executeQuery()) {
+                    if (rows.next()) {
+                        return rows.getString(1);
+                    }
+                }
+            }
+            String newDeviceId = InventorySql.newSyncId();
+            execute(InventorySql.SQL_INSERT_SYNC_STATE, owner, newDeviceId, queryLong(InventorySql.SQL_MAX_JOURNAL_SEQ));
+            execute(InventorySql.SQL_JOURNAL_SNAPSHOT, owner);
+            return newDeviceId;
+        });
+    }
+
+    private interface Work<T> {
+        T run() throws SQLException;
+    }
+
+    private <T> T inTransaction(Work<T> work) {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run();
+                connection.commit();
+                return result;
+            } finally {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback(); // No-op after the commit
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Sync transaction failed", e);
+        }
+    }
+
+    private void execute(String sql, Object... args) {
+        try (PreparedStatement statement = bind(sql, args)) {
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Sync write failed", e);
+        }
+    }
+
+    private long queryLong(String sql, Object... args) {
+        try (PreparedStatement statement = bind(sql, args); ResultSet rows = statement.executeQuery()) {
+            return rows.next() ? rows.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Sync read failed", e);
+        }
+    }
+
+    private PreparedStatement bind(String sql, Object... args) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < args.length; i++) {
+            statement.setObject(i + 1, args[i]);
+        }
+        return statement;
+    }
+}
@@ -0,0 +1,217 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JdbcSyncStoreTest:
+ * - Runs SqliteSyncStore's statements (InventorySql) against a real SQLite file: pending
+ *   changes are read from the push checkpoint, changes applied from the server are
+ *   flagged remote, and each SyncResolver outcome reaches the items table.
+ */
+public class JdbcSyncStoreTest {
+
+    private static final String OTHER_DEVICE = "other-device";
+
+    private File file;
+    private JdbcInventoryStore store;
+    private JdbcSyncStore sync;
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        file = File.createTempFile("sync-store", ".db");
+        file.delete();
+        store = new JdbcInventoryStore(file.getPath());
+        sync = new JdbcSyncStore(store, file.getPath());
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        sync.close();
+        store.close();
+        file.delete();
+    }
+
+    @Test
+    public void firstUseJournalsExistingItemsAsInserts() {
+        long id = store.addItem("bolt", 7);
+
+        // Only the snapshot: the trigger's entry predates the push checkpoint
+        List<SyncChange> pending = sync.getPendingChanges(10);
+        Assert.assertEquals(1, pending.size());
+        SyncChange snapshot = pending.get(0);
+        Assert.assertEquals(ItemChange.OP_INSERT, snapshot.op);
+        Assert.assertEquals(syncIdOf(id), snapshot.syncId);
+        Assert.assertEquals("bolt", snapshot.name);
+        Assert.assertEquals(7, snapshot.quantityDelta);
+        Assert.assertEquals(sync.getDeviceId(), snapshot.deviceId);
+    }
+
+    @Test
+    public void pendingChangesResumeFromPushCheckpoint() {
+        sync.getDeviceId(); // Sync set up on an empty inventory: no snapshot
+        long id = store.addItem("bolt", 4);
+        store.updateItem((int) id, "bolt", 9);
+        store.updateItem((int) id, "hex bolt", 9);
+        store.deleteItem((int) id);
+
+        List<SyncChange> first = sync.getPendingChanges(2);
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(ItemChange.OP_INSERT, first.get(0).op);
+        Assert.assertEquals(4, first.get(0).quantityDelta);
+        Assert.assertEquals(ItemChange.OP_UPDATE, first.get(1).op);
+        Assert.assertEquals(5, first.get(1).quantityDelta);
+        Assert.assertNull(first.get(1).name);
+        Assert.assertTrue(first.get(0).clientSeq < first.get(1).clientSeq);
+
+        // Unacknowledged changes are read again
+        Assert.assertEquals(seqs(first), seqs(sync.getPendingChanges(2)));
+
+        sync.markPushed(first.get(1).clientSeq);
+        List<SyncChange> rest = sync.getPendingChanges(10);
+        Assert.assertEquals(2, rest.size());
+        Assert.assertEquals(ItemChange.OP_UPDATE, rest.get(0).op);
+        Assert.assertEquals("hex bolt", rest.get(0).name);
+        Assert.assertEquals(0, rest.get(0).quantityDelta);
+        Assert.assertEquals(ItemChange.OP_DELETE, rest.get(1).op);
+
+        // A stale ack never moves the checkpoint back
+        sync.markPushed(first.get(0).clientSeq);
+        Assert.assertEquals(seqs(rest), seqs(sync.getPendingChanges(10)));
+
+        sync.markPushed(rest.get(1).clientSeq);
+        Assert.assertTrue(sync.getPendingChanges(10).isEmpty());
+    }
+
+    @Test
+    public void appliedChangesAreFlaggedRemote() {
+        sync.getDeviceId();
+        long id = store.addItem("nut", 3);
+        List<SyncChange> local = sync.getPendingChanges(10);
+        sync.markPushed(local.get(0).clientSeq);
+
+        String remoteId = InventorySql.newSyncId();
+        sync.applyRemoteChanges(Arrays.asList(
+                change(ItemChange.OP_INSERT, remoteId, "washer", 12, OTHER_DEVICE),
+                change(ItemChange.OP_UPDATE, syncIdOf(id), null, 2, OTHER_DEVICE)), 42);
+
+        Assert.assertEquals(42, sync.getPullCheckpoint());
+        Assert.assertTrue(sync.getPendingChanges(10).isEmpty());
+        Assert.assertEquals(2, countJournal(true));
+        Assert.assertEquals(new Item((int) id, "nut", 5), store.getItem((int) id));
+
+        // Local edits after the pull are pushed as usual
+        store.updateItem((int) id, "nut", 6);
+        List<SyncChange> pending = sync.getPendingChanges(10);
+        Assert.assertEquals(1, pending.size());
+        Assert.assertEquals(1, pending.get(0).quantityDelta);
+    }
+
+    @Test
+    public void resolverOutcomesReachTheItemsTable() {
+        String device = sync.getDeviceId();
+        long kept = store.addItem("gear", 10);
+        long renamed = store.addItem("spring", 1);
+        long deleted = store.addItem("cam", 8);
+        sync.markPushed(sync.getPendingChanges(10).get(2).clientSeq);
+        store.updateItem((int) renamed, "coil spring", 1); // Not pushed yet
+
+        String newId = InventorySql.newSyncId();
+        sync.applyRemoteChanges(Arrays.asList(
+                change(ItemChange.OP_INSERT, newId, "pulley", 6, OTHER_DEVICE),
+                change(ItemChange.OP_INSERT, newId, "pulley", 6, OTHER_DEVICE), // Redelivered
+                change(ItemChange.OP_UPDATE, syncIdOf(kept), "cog", 3, OTHER_DEVICE),
+                change(ItemChange.OP_UPDATE, syncIdOf(kept), null, 100, device), // Own, already applied
+                change(ItemChange.OP_UPDATE, syncIdOf(renamed), "spiral", 4, OTHER_DEVICE),
+                change(ItemChange.OP_DELETE, syncIdOf(deleted), null, 0, OTHER_DEVICE),
+                change(ItemChange.OP_UPDATE, syncIdOf(deleted), "cam", 5, OTHER_DEVICE)), 7);
+
+        Assert.assertEquals(new Item((int) kept, "cog", 13), store.getItem((int) kept));
+        Assert.assertEquals(new Item((int) renamed, "coil spring", 5), store.getItem((int) renamed));
+        Assert.assertNull(store.getItem((int) deleted));
+        Item pulley = itemWithSyncId(newId);
+        Assert.assertEquals("pulley", pulley.getName());
+        Assert.assertEquals(6, pulley.getQuantity());
+        Assert.assertEquals(3, store.getAllItems().size());
+    }
+
+    @Test
+    public void pulledChangesNeverTouchAnotherOwnersItems() {
+        store.setOwner(2);
+        long theirs = store.addItem("drill", 1);
+        String theirSyncId = syncIdOf(theirs);
+        store.setOwner(1);
+
+        String device = sync.getDeviceId();
+        sync.applyRemoteChanges(Arrays.asList(
+                change(ItemChange.OP_UPDATE, theirSyncId, "stolen", 50, OTHER_DEVICE),
+                change(ItemChange.OP_DELETE, theirSyncId, null, 0, OTHER_DEVICE)), 3);
+        Assert.assertTrue(store.getAllItems().isEmpty());
+
+        store.setOwner(2);
+        Assert.assertEquals(new Item((int) theirs, "drill", 1), store.getItem((int) theirs));
+        // Each account has its own device ID and checkpoints
+        Assert.assertNotEquals(device, sync.getDeviceId());
+        Assert.assertEquals(0, sync.getPullCheckpoint());
+        Assert.assertEquals(Collections.singletonList(theirSyncId), syncIds(sync.getPendingChanges(10)));
+    }
+
+    // ---- Helpers ----
+
+    private static SyncChange change(int op, String syncId, String name, int delta, String deviceId) {
+        return new SyncChange(op, syncId, name, delta, deviceId, 1, 0);
+    }
+
+    private static List<Long> seqs(List<SyncChange> changes) {
+        Long[] seqs = new Long[changes.size()];
+        for (int i = 0; i < seqs.length; i++) {
+            seqs[i] = changes.get(i).clientSeq;
+        }
+        return Arrays.asList(seqs);
+    }
+
+    private static List<String> syncIds(List<SyncChange> changes) {
+        String[] ids = new String[changes.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = changes.get(i).syncId;
+        }
+        return Arrays.asList(ids);
+    }
+
+    private String syncIdOf(long id) {
+        return queryString("SELECT sync_id FROM items WHERE id = " + id);
+    }
+
+    private Item itemWithSyncId(String syncId) {
+        return store.getItem(Integer.parseInt(queryString("SELECT id FROM items WHERE sync_id = '" + syncId
+                + "' AND owner_id = " + store.getOwner())));
+    }
+
+    private int countJournal(boolean remote) {
+        return Integer.parseInt(queryString("SELECT COUNT(*) FROM item_changes WHERE remote = " + (remote ? 1 : 0)));
+    }
+
+    private String queryString(String sql) {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rows = statement.executeQuery()) {
+            Assert.assertTrue(sql, rows.next());
+            return rows.getString(1);
+        } catch (SQLException e) {
+            throw new AssertionError(sql, e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BloomFilter:
+ * - Fixed-size set of strings that can answer "definitely absent" without touching the
+ *   database: {@link #mightContain} is never false for a string that was {@link #put},
+ *   and is true for an absent string with about the false-positive rate it was sized for.
+ * - Strings cannot be removed; a stale entry only costs the lookup it fails to save.
+ *   Once more than {@link #getCapacity} strings are added the false-positive rate climbs,
+ *   so owners rebuild a larger filter when {@link #isSaturated} (see DatabaseHelper's SKU
+ *   filter).
+ * - Bits live in an AtomicLongArray: reads and puts are lock-free and a put is visible to
+ *   every later read, on any thread.
+ */
+public final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Constructor for BloomFilter.
+     *
+     * @param capacity          Strings the filter is sized for.
+     * @param falsePositiveRate Wanted false-positive rate at that many strings, e.g. 0.01.
+     */
+    public BloomFilter(int capacity, double falsePositiveRate) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("capacity " + capacity + ", rate " + falsePositiveRate);
+        }
+        this.capacity = capacity;
+        // Optimal sizing: m = -n ln p / (ln 2)^2 bits and k = (m / n) ln 2 hashes
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+        words = new AtomicLongArray((int) ((bits + 63) / 64));
+        bitCount = words.length() * 64L;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * LN2));
+    }
+
+    /**
+     * Adds a string.
+     */
+    public void put(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bitIndex(h1, h2, i);
+            long mask = 1L << bit; // Shifts use the low six bits
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+        size.incrementAndGet();
+    }
+
+    /**
+     * Returns false if the string was never added; true if it may have been.
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bitIndex(h1, h2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Strings added so far, counting repeats.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns true once more strings were added than the filter was sized for.
+     */
+    public boolean isSaturated() {
+        return size.get() > capacity;
+    }
+
+    /**
+     * Returns the bytes held by the bit array.
+     */
+    public long footprintBytes() {
+        return bitCount / 8;
+    }
+
+    // ---- Internals ----
+
+    // The i-th of k indexes from two hashes (Kirsch-Mitzenmacher), in [0, bitCount)
+    private long bitIndex(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        return (combined & 0xFFFFFFFFL) % bitCount;
+    }
+
+    // FNV-1a over the UTF-16 chars, then a 64-bit finalizer so both halves are well mixed
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
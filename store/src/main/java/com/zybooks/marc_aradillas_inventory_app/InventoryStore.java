@@ -0,0 +1,206 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * InventoryStore:
+ * - The item operations of the data layer, independent of how SQLite is reached.
+ * - DatabaseHelper implements it over Android's SQLite; JdbcInventoryStore (benchmark
+ *   module) implements it over sqlite-jdbc with the same schema and SQL from
+ *   {@link InventorySql}, so the data layer can be measured on a plain JVM.
+ * - Item operations only see the current owner's items ({@link #setOwner}); locations are
+ *   shared by every owner.
+ * - Implementations block on disk I/O; never call them on a UI thread.
+ */
+public interface InventoryStore {
+
+    // Returned by adjustQuantity for an ID with no row
+    int NO_SUCH_ITEM = Integer.MIN_VALUE;
+
+    // Owner of every item until setOwner is called
+    long DEFAULT_OWNER = 0;
+
+    /**
+     * Switches the account whose items every later call reads and writes. New items belong
+     * to it, and items of other owners behave as if they did not exist.
+     *
+     * @param ownerId The account's user ID.
+     */
+    void setOwner(long ownerId);
+
+    long getOwner();
+
+    /**
+     * Inserts one item.
+     *
+     * @return The new row ID, or -1 on failure.
+     */
+    long addItem(String name, int quantity);
+
+    /**
+     * Inserts many items in chunked transactions. Item IDs are ignored; new IDs are
+     * assigned by the database.
+     *
+     * @param items Items to insert; consumed lazily, so it may be a streaming source.
+     * @return The number of rows inserted.
+     */
+    int addItems(Iterable<Item> items);
+
+    /**
+     * Looks up one item by ID.
+     *
+     * @return The item, or null if it does not exist.
+     */
+    Item getItem(int id);
+
+    /**
+     * Looks up one item by its SKU; each owner has its own SKUs. Unknown SKUs are usually rejected by an in-memory Bloom
+     * filter without reading the database.
+     *
+     * @return The item, or null if no item has this SKU.
+     */
+    Item findBySku(String sku);
+
+    /**
+     * Sets or clears an item's SKU.
+     *
+     * @param sku The new SKU, or null to clear it.
+     * @return False if another of the owner's items already has this SKU or the item does not exist.
+     */
+    boolean assignSku(int id, String sku);
+
+    /**
+     * Adds a stock location.
+     *
+     * @return The new location ID, or -1 on failure (e.g. the name is taken).
+     */
+    long addLocation(String name);
+
+    /**
+     * Loads every location, in ID order.
+     */
+    List<Location> getLocations();
+
+    /**
+     * Sets an item's quantity at a location. The item's total quantity moves by the
+     * difference, so stock counted into a location is added to the total.
+     *
+     * @param quantity Units at the location; 0 keeps the item listed there with none.
+     * @return False if the item or the location does not exist.
+     * @throws IllegalArgumentException If the quantity is negative.
+     */
+    boolean setStock(int itemId, int locationId, int quantity);
+
+    /**
+     * Moves units of an item from one location to another in one transaction; the item's
+     * total is unchanged.
+     *
+     * @return False, changing nothing, if the source holds fewer than {@code quantity} units
+     * or the destination does not exist.
+     * @throws IllegalArgumentException If the quantity is not positive or the locations are the same.
+     */
+    boolean transferStock(int itemId, int fromLocationId, int toLocationId, int quantity);
+
+    /**
+     * Loads up to {@code limit} items stocked at a location with ID above {@code afterItemId},
+     * in item ID order; pass the last item ID to read the next page.
+     */
+    List<StockLevel> getLocationStock(int locationId, int afterItemId, int limit);
+
+    /**
+     * Loads an item's stock at every location holding it, in location ID order.
+     */
+    List<StockLevel> getItemStock(int itemId);
+
+    /**
+     * Loads every item, in ID order.
+     */
+    List<Item> getAllItems();
+
+    /**
+     * Loads up to {@code limit} items with afterId < id <= upToId, in ID order.
+     * Pass Integer.MAX_VALUE as upToId to read the next page without an upper bound.
+     */
+    List<Item> getItemsAfter(int afterId, int upToId, int limit);
+
+    /**
+     * Runs a sorted, filtered query; sorting, filtering and the limit all happen in SQLite.
+     *
+     * @return The matching items, in the query's order.
+     */
+    ItemColumns queryItems(ItemQuery query);
+
+    /**
+     * Finds items whose name has words starting with each word of the query; names that
+     * start with the query come first.
+     *
+     * @return Up to {@code limit} matching items; empty if the query has no words.
+     */
+    List<Item> searchItems(String prefix, int limit);
+
+    /**
+     * Reads the owner's dashboard totals from its summary row; one row, at any inventory size.
+     */
+    InventorySummary getSummary();
+
+    /**
+     * Recomputes the owner's dashboard totals from its items (one scan of the owner index)
+     * and repairs its summary row if it drifted.
+     *
+     * @return True if the stored totals were already correct.
+     */
+    boolean verifySummary();
+
+    /**
+     * Streams every one of the owner's items, in ID order, into an {@link InventoryBackup} as one consistent
+     * snapshot. Memory use does not depend on the number of items.
+     *
+     * @param out Destination; left open.
+     * @return Counts and throughput.
+     */
+    InventoryBackup.Stats exportBackup(WritableByteChannel out) throws IOException;
+
+    /**
+     * Makes the owner's items match a backup: backed-up items are written under their own
+     * IDs and the owner's items the backup does not have are deleted. Items whose ID now
+     * belongs to another owner are skipped. The whole file is read and its
+     * checksum verified first, so a damaged backup changes nothing; rows are then applied in
+     * chunked transactions. Location stock is not part of a backup: deleted items lose
+     * theirs, and the rest is left as it is.
+     *
+     * @param in Backup, read from its current position; read twice, and left open.
+     * @return Counts and throughput, including the verify pass.
+     * @throws IOException If the backup cannot be read or fails verification.
+     */
+    InventoryBackup.Stats restoreBackup(SeekableByteChannel in) throws IOException;
+
+    /**
+     * Replaces an item's name and quantity. Does nothing if the item does not exist.
+     */
+    void updateItem(int id, String name, int quantity);
+
+    /**
+     * Deletes an item. Does nothing if the item does not exist.
+     */
+    void deleteItem(int id);
+
+    /**
+     * Adds {@code delta} to an item's quantity in place.
+     *
+     * @return The new quantity, or {@link #NO_SUCH_ITEM} if the item does not exist.
+     */
+    int adjustQuantity(int id, int delta);
+
+    /**
+     * Applies many quantity deltas in one transaction.
+     *
+     * @param ids    Item IDs.
+     * @param deltas Delta for each ID.
+     * @param count  Number of entries to apply from the arrays.
+     * @return The new quantity for each entry, or {@link #NO_SUCH_ITEM} for missing items.
+     */
+    int[] adjustQuantities(int[] ids, int[] deltas, int count);
+}
@@ -0,0 +1,60 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * InventorySummary:
+ * - Totals for the dashboard header: items (SKUs), units in stock, items out of stock
+ *   (quantity 0 or below) and items low on stock (at or below
+ *   {@link InventorySql#LOW_STOCK_THRESHOLD}, which includes those out of stock).
+ * - Read from the one-row item_summary table that triggers keep current, so reading it
+ *   costs the same at any inventory size (see {@link InventorySql#summarySchema()}).
+ * - Immutable.
+ */
+public final class InventorySummary {
+
+    public final int itemCount;
+    public final long unitCount; // Sum of quantities; a long so large inventories cannot overflow
+    public final int outOfStockCount;
+    public final int lowStockCount;
+
+    /**
+     * Constructor for InventorySummary.
+     *
+     * @param itemCount       Number of items.
+     * @param unitCount       Sum of every item's quantity.
+     * @param outOfStockCount Items with a quantity of 0 or below.
+     * @param lowStockCount   Items at or below the low-stock threshold.
+     */
+    public InventorySummary(int itemCount, long unitCount, int outOfStockCount, int lowStockCount) {
+        this.itemCount = itemCount;
+        this.unitCount = unitCount;
+        this.outOfStockCount = outOfStockCount;
+        this.lowStockCount = lowStockCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InventorySummary)) {
+            return false;
+        }
+        InventorySummary other = (InventorySummary) o;
+        return itemCount == other.itemCount && unitCount == other.unitCount
+                && outOfStockCount == other.outOfStockCount && lowStockCount == other.lowStockCount;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = itemCount;
+        result = 31 * result + Long.hashCode(unitCount);
+        result = 31 * result + outOfStockCount;
+        return 31 * result + lowStockCount;
+    }
+
+    @Override
+    public String toString() {
+        return itemCount + " items, " + unitCount + " units, " + outOfStockCount + " out of stock, "
+                + lowStockCount + " low";
+    }
+}
@@ -56,4 +56,32 @@ public class Item {
     public int getQuantity() {
         return quantity;
     }
+
+    /**
+     * Two items are equal when their ID, name and quantity all match.
+     *
+     * @param o The object to compare with.
+     * @return True if o is an Item with the same ID, name and quantity.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Item)) {
+            return false;
+        }
+        Item other = (Item) o;
+        return id == other.id && quantity == other.quantity && name.equals(other.name);
+    }
+
+    /**
+     * Hash code consistent with {@link #equals(Object)}.
+     *
+     * @return The item's hash code.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 * id + name.hashCode()) + quantity;
+    }
 }
\ No newline at end of file
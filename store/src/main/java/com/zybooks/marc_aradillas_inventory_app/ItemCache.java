@@ -0,0 +1,248 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.Arrays;
+
+/**
+ * ItemCache:
+ * - Size-bounded LRU cache of Item records keyed by their int ID.
+ * - Stored in parallel primitive arrays (hash chains and LRU links are slot indexes), so
+ *   lookups never box the key or allocate.
+ * - Kept write-through by DatabaseHelper; {@link #invalidate} and {@link #invalidateAll}
+ *   are the hooks for changes made behind its back.
+ * - Counts hits, misses and evictions so the capacity can be sized from real use.
+ * - All methods are thread-safe.
+ */
+public class ItemCache {
+
+    private static final int NONE = -1; // Null link
+
+    private final int capacity;
+    private final int[] buckets;    // Hash bucket -> first slot in its chain
+    private final int[] keys;       // Slot -> item ID
+    private final Item[] values;    // Slot -> cached item
+    private final int[] chainNext;  // Slot -> next slot in its bucket chain (or the free list)
+    private final int[] newer;      // Slot -> more recently used slot
+    private final int[] older;      // Slot -> less recently used slot
+
+    private int mostRecent = NONE;
+    private int leastRecent = NONE;
+    private int freeHead;           // First unused slot
+    private int size;
+
+    private long writeStamp;        // Bumped by every put and invalidation
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor for ItemCache.
+     *
+     * @param capacity Maximum number of items held; least recently used ones are evicted.
+     */
+    public ItemCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        int bucketCount = Integer.highestOneBit(Math.max(1, capacity * 2 - 1)) << 1; // Power of two >= 2x
+        buckets = new int[bucketCount];
+        keys = new int[capacity];
+        values = new Item[capacity];
+        chainNext = new int[capacity];
+        newer = new int[capacity];
+        older = new int[capacity];
+        clearSlots();
+    }
+
+    /**
+     * Returns the cached item with the given ID, or null on a miss.
+     */
+    public synchronized Item get(int id) {
+        int slot = find(id);
+        if (slot == NONE) {
+            misses++;
+            return null;
+        }
+        hits++;
+        touch(slot);
+        return values[slot];
+    }
+
+    /**
+     * Returns a stamp to pass to {@link #putIfUnmodified} after reading a row from disk.
+     */
+    public synchronized long stamp() {
+        return writeStamp;
+    }
+
+    /**
+     * Caches an item read from disk unless the cache was written or invalidated since
+     * {@code stamp} was taken, in which case the read may be stale and is dropped.
+     */
+    public synchronized void putIfUnmodified(Item item, long stamp) {
+        if (stamp == writeStamp) {
+            put(item);
+        }
+    }
+
+    /**
+     * Caches an item, replacing any entry with the same ID and evicting the least recently
+     * used entry if the cache is full.
+     */
+    public synchronized void put(Item item) {
+        writeStamp++;
+        int id = item.getId();
+        int slot = find(id);
+        if (slot != NONE) {
+            values[slot] = item;
+            touch(slot);
+            return;
+        }
+
+        if (size == capacity) {
+            removeSlot(leastRecent);
+            evictions++;
+        }
+
+        slot = freeHead;
+        freeHead = chainNext[slot];
+        keys[slot] = id;
+        values[slot] = item;
+        int bucket = bucketOf(id);
+        chainNext[slot] = buckets[bucket];
+        buckets[bucket] = slot;
+        linkAsMostRecent(slot);
+        size++;
+    }
+
+    /**
+     * Drops the entry for one ID, if cached.
+     */
+    public synchronized void invalidate(int id) {
+        writeStamp++;
+        int slot = find(id);
+        if (slot != NONE) {
+            removeSlot(slot);
+        }
+    }
+
+    /**
+     * Drops every entry. Counters are kept.
+     */
+    public synchronized void invalidateAll() {
+        writeStamp++;
+        Arrays.fill(values, null);
+        clearSlots();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Returns a one-line summary of size and counters, for logs and debug screens.
+     */
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return "ItemCache{size=" + size + "/" + capacity + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", hitRate="
+                + (lookups == 0 ? 0 : (100 * hits / lookups)) + "%}";
+    }
+
+    // ---- Internals (callers hold the monitor) ----
+
+    private void clearSlots() {
+        Arrays.fill(buckets, NONE);
+        for (int i = 0; i < capacity; i++) {
+            chainNext[i] = i + 1 < capacity ? i + 1 : NONE;
+        }
+        freeHead = 0;
+        mostRecent = NONE;
+        leastRecent = NONE;
+        size = 0;
+    }
+
+    private int bucketOf(int id) {
+        int h = id * 0x9E3779B9; // Fibonacci hashing spreads sequential IDs across buckets
+        return (h ^ (h >>> 16)) & (buckets.length - 1);
+    }
+
+    private int find(int id) {
+        for (int slot = buckets[bucketOf(id)]; slot != NONE; slot = chainNext[slot]) {
+            if (keys[slot] == id) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    private void touch(int slot) {
+        if (slot != mostRecent) {
+            unlinkFromLru(slot);
+            linkAsMostRecent(slot);
+        }
+    }
+
+    private void linkAsMostRecent(int slot) {
+        newer[slot] = NONE;
+        older[slot] = mostRecent;
+        if (mostRecent != NONE) {
+            newer[mostRecent] = slot;
+        }
+        mostRecent = slot;
+        if (leastRecent == NONE) {
+            leastRecent = slot;
+        }
+    }
+
+    private void unlinkFromLru(int slot) {
+        if (newer[slot] != NONE) {
+            older[newer[slot]] = older[slot];
+        } else {
+            mostRecent = older[slot];
+        }
+        if (older[slot] != NONE) {
+            newer[older[slot]] = newer[slot];
+        } else {
+            leastRecent = newer[slot];
+        }
+    }
+
+    private void removeSlot(int slot) {
+        // Unlink from its bucket chain
+        int bucket = bucketOf(keys[slot]);
+        if (buckets[bucket] == slot) {
+            buckets[bucket] = chainNext[slot];
+        } else {
+            int previous = buckets[bucket];
+            while (chainNext[previous] != slot) {
+                previous = chainNext[previous];
+            }
+            chainNext[previous] = chainNext[slot];
+        }
+
+        unlinkFromLru(slot);
+        values[slot] = null;
+        chainNext[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+}
@@ -0,0 +1,41 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * ItemChange:
+ * - One entry of the items change journal, written by triggers on every insert, update
+ *   and delete (see DatabaseHelper.changesSince).
+ * - Sequence numbers increase monotonically, so a consumer only needs to remember the last
+ *   one it processed.
+ */
+public final class ItemChange {
+
+    // Operation codes, as stored in the journal's op column
+    public static final int OP_INSERT = 1;
+    public static final int OP_UPDATE = 2;
+    public static final int OP_DELETE = 3;
+
+    // Quantity of a row that did not exist on that side of the change
+    public static final int NO_QUANTITY = Integer.MIN_VALUE;
+
+    public final long seq;
+    public final int op;
+    public final int itemId;
+    public final int oldQuantity;       // NO_QUANTITY for inserts
+    public final int newQuantity;       // NO_QUANTITY for deletes
+    public final long changedAtMillis;
+
+    ItemChange(long seq, int op, int itemId, int oldQuantity, int newQuantity, long changedAtMillis) {
+        this.seq = seq;
+        this.op = op;
+        this.itemId = itemId;
+        this.oldQuantity = oldQuantity;
+        this.newQuantity = newQuantity;
+        this.changedAtMillis = changedAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemChange{seq=" + seq + ", op=" + op + ", itemId=" + itemId
+                + ", oldQuantity=" + oldQuantity + ", newQuantity=" + newQuantity + "}";
+    }
+}
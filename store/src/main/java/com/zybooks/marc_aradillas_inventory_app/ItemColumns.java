@@ -0,0 +1,268 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ItemColumns:
+ * - Compact list of items stored by column: IDs and quantities in int arrays, names as
+ *   UTF-8 in one shared byte arena addressed by offset and length. A row costs about
+ *   16 bytes plus its name bytes, against roughly 90 for an Item, its String and its slot
+ *   in a List (measured by ItemColumnsFootprintTest in the benchmark module).
+ * - {@link #readRow} decodes a row into a reusable {@link ItemRow} without allocating, so
+ *   list binding produces no garbage while scrolling.
+ * - Renames append the new name to the arena; the arena is compacted once more than half
+ *   of it is stale.
+ * - Rows keep the order they were added in. Not thread-safe: fill it on one thread, then
+ *   hand it over (e.g. to the main thread) and use it only there.
+ */
+public class ItemColumns {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int AVERAGE_NAME_BYTES = 16; // Initial arena sizing per row
+
+    private int[] ids;
+    private int[] quantities;
+    private int[] nameOffsets;
+    private int[] nameLengths; // In bytes
+    private byte[] arena;
+    private int arenaUsed;
+    private int staleBytes;    // Arena bytes no row points at any more
+    private int size;
+
+    /**
+     * Constructor for ItemColumns.
+     *
+     * @param capacity Rows to allocate for up front; grows as needed.
+     */
+    public ItemColumns(int capacity) {
+        int rows = Math.max(capacity, MIN_CAPACITY);
+        ids = new int[rows];
+        quantities = new int[rows];
+        nameOffsets = new int[rows];
+        nameLengths = new int[rows];
+        arena = new byte[rows * AVERAGE_NAME_BYTES];
+    }
+
+    /**
+     * Copies a list of items, keeping their order.
+     */
+    public static ItemColumns of(List<Item> items) {
+        ItemColumns columns = new ItemColumns(items.size());
+        for (Item item : items) {
+            columns.add(item.getId(), item.getName(), item.getQuantity());
+        }
+        return columns;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    public int getQuantity(int index) {
+        checkIndex(index);
+        return quantities[index];
+    }
+
+    /**
+     * Decodes a row's name into a new String. Allocates; use {@link #readRow} for binding.
+     */
+    public String getName(int index) {
+        checkIndex(index);
+        return new String(arena, nameOffsets[index], nameLengths[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a row as a new Item. Allocates; use {@link #readRow} for binding.
+     */
+    public Item get(int index) {
+        return new Item(getId(index), getName(index), quantities[index]);
+    }
+
+    /**
+     * Decodes a row into {@code row}, reusing its buffers.
+     */
+    public void readRow(int index, ItemRow row) {
+        checkIndex(index);
+        int offset = nameOffsets[index];
+        int end = offset + nameLengths[index];
+        char[] chars = row.nameBuffer(nameLengths[index]); // UTF-8 never has fewer bytes than UTF-16 chars
+        int length = 0;
+        while (offset < end) {
+            int b = arena[offset++];
+            if (b >= 0) {
+                chars[length++] = (char) b; // ASCII
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[length++] = (char) (((b & 0x1F) << 6) | (arena[offset++] & 0x3F));
+            } else if ((b & 0xF0) == 0xE0) {
+                chars[length++] = (char) (((b & 0x0F) << 12) | ((arena[offset++] & 0x3F) << 6)
+                        | (arena[offset++] & 0x3F));
+            } else {
+                int codePoint = ((b & 0x07) << 18) | ((arena[offset++] & 0x3F) << 12)
+                        | ((arena[offset++] & 0x3F) << 6) | (arena[offset++] & 0x3F);
+                chars[length++] = Character.highSurrogate(codePoint);
+                chars[length++] = Character.lowSurrogate(codePoint);
+            }
+        }
+        row.setNameLength(length);
+        row.setIdAndQuantity(ids[index], quantities[index]);
+    }
+
+    /**
+     * Appends a row.
+     */
+    public void add(int id, String name, int quantity) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+        }
+        ids[size] = id;
+        quantities[size] = quantity;
+        putName(size, name);
+        size++;
+    }
+
+    /**
+     * Replaces a row's name and quantity.
+     */
+    public void set(int index, String name, int quantity) {
+        checkIndex(index);
+        quantities[index] = quantity;
+        if (!getName(index).equals(name)) {
+            staleBytes += nameLengths[index];
+            putName(index, name);
+            if (staleBytes > arenaUsed / 2) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Replaces a row's quantity.
+     */
+    public void setQuantity(int index, int quantity) {
+        checkIndex(index);
+        quantities[index] = quantity;
+    }
+
+    /**
+     * Removes a row, shifting later rows up by one.
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        staleBytes += nameLengths[index];
+        int moved = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        System.arraycopy(quantities, index + 1, quantities, index, moved);
+        System.arraycopy(nameOffsets, index + 1, nameOffsets, index, moved);
+        System.arraycopy(nameLengths, index + 1, nameLengths, index, moved);
+        size--;
+        if (staleBytes > arenaUsed / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the index of the first row with the given ID, or -1.
+     */
+    public int indexOfId(int id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Drops spare capacity and stale name bytes; call once a bulk load is complete.
+     */
+    public void trimToSize() {
+        if (staleBytes > 0) {
+            compact();
+        }
+        int capacity = Math.max(size, MIN_CAPACITY);
+        ids = Arrays.copyOf(ids, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        arena = Arrays.copyOf(arena, arenaUsed);
+    }
+
+    /**
+     * Returns the bytes held by the column arrays and the arena, including spare capacity.
+     */
+    public long footprintBytes() {
+        return 4L * (ids.length + quantities.length + nameOffsets.length + nameLengths.length) + arena.length;
+    }
+
+    // ---- Internals ----
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+
+    // Encodes straight into the arena so adding a row allocates no temporary byte array
+    private void putName(int index, String name) {
+        int length = name.length();
+        ensureArena(length * 3); // Worst case per UTF-16 char
+        int start = arenaUsed;
+        int position = start;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c < 0x80) {
+                arena[position++] = (byte) c;
+            } else if (c < 0x800) {
+                arena[position++] = (byte) (0xC0 | (c >> 6));
+                arena[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(name.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, name.charAt(++i));
+                arena[position++] = (byte) (0xF0 | (codePoint >> 18));
+                arena[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                arena[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                arena[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                // Lone surrogates are kept as three-byte sequences so readRow restores them
+                arena[position++] = (byte) (0xE0 | (c >> 12));
+                arena[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                arena[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        nameOffsets[index] = start;
+        nameLengths[index] = position - start;
+        arenaUsed = position;
+    }
+
+    private void ensureArena(int extra) {
+        if (arenaUsed + extra > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arenaUsed + extra, arena.length + (arena.length >> 1)));
+        }
+    }
+
+    // Rewrites live names in row order into a right-sized arena
+    private void compact() {
+        int live = arenaUsed - staleBytes;
+        byte[] compacted = new byte[Math.max(live + (live >> 2), MIN_CAPACITY * AVERAGE_NAME_BYTES)];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(arena, nameOffsets[i], compacted, position, nameLengths[i]);
+            nameOffsets[i] = position;
+            position += nameLengths[i];
+        }
+        arena = compacted;
+        arenaUsed = position;
+        staleBytes = 0;
+    }
+}
@@ -0,0 +1,280 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * ItemQuery:
+ * - Immutable description of a sorted, filtered view of the items table: any number of
+ *   sort keys, an inclusive quantity range, a case-insensitive name prefix and a limit.
+ *   Each {@code with}/{@code sortedBy} call returns a new query.
+ * - Compiles to one SELECT over one owner's items that SQLite answers from its indexes:
+ *   quantity filters and sorts use items(owner_id, quantity, name), name prefixes and sorts
+ *   use items(owner_id, name COLLATE NOCASE) (see {@link InventorySql#itemIndexSchema}).
+ *   Ties fall back to name (after a quantity sort) and then ID, in the direction of the
+ *   last sort key, so results are stable.
+ * - Values are bound as parameters; the SQL text depends only on which options are set.
+ */
+public final class ItemQuery {
+
+    /**
+     * Columns a query can sort by.
+     */
+    public enum Field {
+        ID(InventorySql.COLUMN_ID),
+        NAME(InventorySql.COLUMN_NAME + " COLLATE NOCASE"), // Same collation as the name index
+        QUANTITY(InventorySql.COLUMN_QUANTITY);
+
+        final String orderTerm;
+
+        Field(String orderTerm) {
+            this.orderTerm = orderTerm;
+        }
+    }
+
+    /**
+     * One sort key.
+     */
+    public static final class Sort {
+        public final Field field;
+        public final boolean descending;
+
+        Sort(Field field, boolean descending) {
+            this.field = field;
+            this.descending = descending;
+        }
+    }
+
+    public static final int NO_LIMIT = -1;
+
+    // Every one of the owner's items in ID order, the order the dashboard pages in
+    public static final ItemQuery ALL = new ItemQuery(Collections.emptyList(), Integer.MIN_VALUE,
+            Integer.MAX_VALUE, "", NO_LIMIT);
+
+    public final List<Sort> sorts;  // Most significant first; empty means ID order
+    public final int minQuantity;   // Inclusive; Integer.MIN_VALUE for no bound
+    public final int maxQuantity;   // Inclusive; Integer.MAX_VALUE for no bound
+    public final String namePrefix; // Matched ignoring ASCII case; empty for no filter
+    public final int limit;         // NO_LIMIT for every match
+
+    private ItemQuery(List<Sort> sorts, int minQuantity, int maxQuantity, String namePrefix, int limit) {
+        this.sorts = sorts;
+        this.minQuantity = minQuantity;
+        this.maxQuantity = maxQuantity;
+        this.namePrefix = namePrefix;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns this query with one more sort key, less significant than the existing ones.
+     */
+    public ItemQuery sortedBy(Field field, boolean descending) {
+        List<Sort> more = new ArrayList<>(sorts);
+        more.add(new Sort(field, descending));
+        return new ItemQuery(Collections.unmodifiableList(more), minQuantity, maxQuantity, namePrefix, limit);
+    }
+
+    /**
+     * Returns this query keeping only quantities in [min, max].
+     */
+    public ItemQuery withQuantityBetween(int min, int max) {
+        return new ItemQuery(sorts, min, max, namePrefix, limit);
+    }
+
+    /**
+     * Returns this query keeping only quantities below {@code bound}.
+     */
+    public ItemQuery withQuantityBelow(int bound) {
+        if (bound == Integer.MIN_VALUE) {
+            // Nothing is below it, and bound - 1 would wrap to "no filter"
+            return withQuantityBetween(Integer.MAX_VALUE, Integer.MIN_VALUE);
+        }
+        return withQuantityBetween(Integer.MIN_VALUE, bound - 1);
+    }
+
+    /**
+     * Returns this query keeping only names that start with {@code prefix}, ignoring ASCII case.
+     */
+    public ItemQuery withNamePrefix(String prefix) {
+        return new ItemQuery(sorts, minQuantity, maxQuantity, prefix == null ? "" : prefix, limit);
+    }
+
+    /**
+     * Returns this query stopping after {@code limit} rows, or {@link #NO_LIMIT}.
+     */
+    public ItemQuery withLimit(int limit) {
+        return new ItemQuery(sorts, minQuantity, maxQuantity, namePrefix, limit);
+    }
+
+    /**
+     * Returns true if this query is plain ID order over every item.
+     */
+    public boolean isIdOrderUnfiltered() {
+        boolean idOrder = sorts.isEmpty() || (sorts.get(0).field == Field.ID && !sorts.get(0).descending);
+        return idOrder && !hasQuantityFilter() && namePrefix.isEmpty();
+    }
+
+    /**
+     * The SELECT for this query; bind {@link #args(long)} to it.
+     */
+    public String sql() {
+        StringBuilder sql = new StringBuilder("SELECT ").append(InventorySql.COLUMN_ID).append(", ")
+                .append(InventorySql.COLUMN_NAME).append(", ").append(InventorySql.COLUMN_QUANTITY)
+                .append(" FROM ").append(InventorySql.TABLE_ITEMS).append(" WHERE ")
+                .append(InventorySql.COLUMN_OWNER_ID).append(" = ?");
+        if (hasQuantityFilter()) {
+            sql.append(" AND ").append(InventorySql.COLUMN_QUANTITY).append(" BETWEEN ? AND ?");
+        }
+        if (!namePrefix.isEmpty()) {
+            // The range walks the name index; LIKE (ASCII case-insensitive, like NOCASE)
+            // then drops the few rows the range lets through that do not share the prefix
+            sql.append(" AND ").append(InventorySql.COLUMN_NAME).append(" >= ? COLLATE NOCASE");
+            if (prefixUpperBound() != null) {
+                sql.append(" AND ").append(InventorySql.COLUMN_NAME).append(" < ? COLLATE NOCASE");
+            }
+            sql.append(" AND ").append(InventorySql.COLUMN_NAME).append(" LIKE ? ESCAPE '\\'");
+        }
+
+        sql.append(" ORDER BY ");
+        boolean byName = false;
+        boolean byId = false;
+        for (Sort sort : sorts) {
+            sql.append(sort.field.orderTerm).append(sort.descending ? " DESC, " : " ASC, ");
+            byName |= sort.field == Field.NAME;
+            if (sort.field == Field.ID) {
+                byId = true;
+                break; // IDs are unique; later keys could never apply
+            }
+        }
+        if (byId) {
+            sql.setLength(sql.length() - 2);
+        } else {
+            // Tie-breaks follow index order in the last key's direction, so a single-key sort
+            // reads straight down its index with no sort step: the quantity index continues
+            // with name, and every index entry ends with the row ID
+            String direction = !sorts.isEmpty() && sorts.get(sorts.size() - 1).descending ? " DESC" : " ASC";
+            if (!byName && !sorts.isEmpty()) {
+                sql.append(Field.NAME.orderTerm).append(direction).append(", ");
+            }
+            sql.append(InventorySql.COLUMN_ID).append(direction);
+        }
+        if (limit != NO_LIMIT) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Parameters for {@link #sql()}, in order, as strings (SQLite converts the numeric ones
+     * for comparison with the INTEGER columns).
+     *
+     * @param ownerId Owner whose items the query reads.
+     */
+    public String[] args(long ownerId) {
+        List<String> args = new ArrayList<>(7);
+        args.add(String.valueOf(ownerId));
+        if (hasQuantityFilter()) {
+            args.add(String.valueOf(minQuantity));
+            args.add(String.valueOf(maxQuantity));
+        }
+        if (!namePrefix.isEmpty()) {
+            String lower = asciiLowerCase(namePrefix);
+            args.add(lower);
+            String upper = prefixUpperBound();
+            if (upper != null) {
+                args.add(upper);
+            }
+            args.add(escapeLike(namePrefix) + "%");
+        }
+        if (limit != NO_LIMIT) {
+            args.add(String.valueOf(limit));
+        }
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * Describes the query's shape without its values, e.g. "name,quantity desc +qty +limit";
+     * queries with the same description run the same SQL.
+     */
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder();
+        if (sorts.isEmpty()) {
+            description.append("id");
+        }
+        for (Sort sort : sorts) {
+            if (description.length() > 0) {
+                description.append(',');
+            }
+            description.append(sort.field.name().toLowerCase(Locale.ROOT));
+            if (sort.descending) {
+                description.append(" desc");
+            }
+        }
+        if (hasQuantityFilter()) {
+            description.append(" +qty");
+        }
+        if (!namePrefix.isEmpty()) {
+            description.append(" +prefix");
+        }
+        if (limit != NO_LIMIT) {
+            description.append(" +limit");
+        }
+        return description.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ItemQuery)) {
+            return false;
+        }
+        ItemQuery other = (ItemQuery) o;
+        return sql().equals(other.sql()) && Arrays.equals(args(0), other.args(0));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sql(), Arrays.hashCode(args(0)));
+    }
+
+    // ---- Internals ----
+
+    private boolean hasQuantityFilter() {
+        return minQuantity != Integer.MIN_VALUE || maxQuantity != Integer.MAX_VALUE;
+    }
+
+    // Smallest string above every name with the prefix, under NOCASE: the lower-cased
+    // prefix with its last character incremented; null if there is no such string
+    private String prefixUpperBound() {
+        char[] bound = asciiLowerCase(namePrefix).toCharArray();
+        for (int i = bound.length - 1; i >= 0; i--) {
+            if (bound[i] != Character.MAX_VALUE) {
+                bound[i]++;
+                return new String(bound, 0, i + 1);
+            }
+        }
+        return null;
+    }
+
+    // NOCASE folds ASCII letters only, so the bounds must fold exactly those
+    private static String asciiLowerCase(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] += 'a' - 'A';
+            }
+        }
+        return new String(chars);
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
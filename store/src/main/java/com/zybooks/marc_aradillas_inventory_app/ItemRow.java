@@ -0,0 +1,131 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.List;
+
+/**
+ * ItemRow:
+ * - Reusable, mutable view of one item for binding a list row. The name and the quantity
+ *   are held as characters, ready for TextView.setText(char[], int, int), so filling a
+ *   row and showing it allocates nothing once its buffer has grown to the longest name.
+ * - Filled by {@link ItemColumns#readRow} or {@link #set(Item)}; keep one per ViewHolder.
+ * - A list change that only touches a row's quantity carries {@link #PAYLOAD_QUANTITY}, so
+ *   the adapter refills the row and rebinds just the quantity text.
+ * - Not thread-safe.
+ */
+public final class ItemRow {
+
+    // Change payload for a row whose name is unchanged
+    public static final Object PAYLOAD_QUANTITY = "quantity";
+
+    private static final int MAX_INT_CHARS = 11; // "-2147483648"
+
+    private int id;
+    private int quantity;
+    private char[] name = new char[32];
+    private int nameLength;
+    private final char[] quantityChars = new char[MAX_INT_CHARS];
+    private int quantityStart;
+
+    public int getId() {
+        return id;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * The name's characters; valid up to {@link #getNameLength()}. Overwritten by the next fill.
+     */
+    public char[] getNameChars() {
+        return name;
+    }
+
+    public int getNameLength() {
+        return nameLength;
+    }
+
+    /**
+     * The quantity in decimal; valid from {@link #getQuantityStart()} to the end of the array.
+     */
+    public char[] getQuantityChars() {
+        return quantityChars;
+    }
+
+    public int getQuantityStart() {
+        return quantityStart;
+    }
+
+    public int getQuantityLength() {
+        return MAX_INT_CHARS - quantityStart;
+    }
+
+    /**
+     * Copies an item into this row.
+     */
+    public void set(Item item) {
+        String itemName = item.getName();
+        int length = itemName.length();
+        itemName.getChars(0, length, nameBuffer(length), 0);
+        nameLength = length;
+        setIdAndQuantity(item.getId(), item.getQuantity());
+    }
+
+    /**
+     * Returns a copy of this row as an Item. Allocates; for click handlers, not binding.
+     */
+    public Item toItem() {
+        return new Item(id, new String(name, 0, nameLength), quantity);
+    }
+
+    /**
+     * Returns the change payload for a row going from {@code before} to {@code after}:
+     * {@link #PAYLOAD_QUANTITY} if only the quantity can differ, else null for a full rebind.
+     */
+    public static Object changePayload(Item before, Item after) {
+        return before.getName().equals(after.getName()) ? PAYLOAD_QUANTITY : null;
+    }
+
+    /**
+     * Returns true if every pending payload of a row is {@link #PAYLOAD_QUANTITY}. Indexed,
+     * so checking does not allocate an iterator.
+     */
+    public static boolean quantityOnly(List<Object> payloads) {
+        for (int i = 0; i < payloads.size(); i++) {
+            if (payloads.get(i) != PAYLOAD_QUANTITY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---- Filled by ItemColumns ----
+
+    char[] nameBuffer(int capacity) {
+        if (name.length < capacity) {
+            name = new char[Math.max(capacity, name.length * 2)];
+        }
+        return name;
+    }
+
+    void setNameLength(int length) {
+        nameLength = length;
+    }
+
+    void setIdAndQuantity(int id, int quantity) {
+        this.id = id;
+        this.quantity = quantity;
+
+        // Digits right to left; negate through long so MIN_VALUE works
+        long value = Math.abs((long) quantity);
+        int position = MAX_INT_CHARS;
+        do {
+            quantityChars[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (quantity < 0) {
+            quantityChars[--position] = '-';
+        }
+        quantityStart = position;
+    }
+}
@@ -0,0 +1,40 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * Location:
+ * - A place stock is kept: a site, an aisle or a single bin, named however the user likes
+ *   (e.g. "Main/A-03-2"). Names are unique.
+ * - Immutable.
+ */
+public final class Location {
+
+    public final int id;
+    public final String name;
+
+    public Location(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Location)) {
+            return false;
+        }
+        Location other = (Location) o;
+        return id == other.id && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * id + name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name + " (#" + id + ")";
+    }
+}
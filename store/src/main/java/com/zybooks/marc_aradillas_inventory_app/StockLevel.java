@@ -0,0 +1,50 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * StockLevel:
+ * - One item's quantity at one location, with both names, as listed for a location
+ *   ({@link InventoryStore#getLocationStock}) or for an item ({@link InventoryStore#getItemStock}).
+ * - The item's total across locations is its {@link Item#getQuantity()}.
+ * - Immutable.
+ */
+public final class StockLevel {
+
+    public final int itemId;
+    public final String itemName;
+    public final int locationId;
+    public final String locationName;
+    public final int quantity;
+
+    public StockLevel(int itemId, String itemName, int locationId, String locationName, int quantity) {
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.locationId = locationId;
+        this.locationName = locationName;
+        this.quantity = quantity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StockLevel)) {
+            return false;
+        }
+        StockLevel other = (StockLevel) o;
+        return itemId == other.itemId && locationId == other.locationId && quantity == other.quantity
+                && itemName.equals(other.itemName) && locationName.equals(other.locationName);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = itemId;
+        result = 31 * result + locationId;
+        return 31 * result + quantity;
+    }
+
+    @Override
+    public String toString() {
+        return itemName + " @ " + locationName + ": " + quantity;
+    }
+}
@@ -0,0 +1,55 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * SyncChange:
+ * - One item change as exchanged with the sync server.
+ * - Quantities travel as deltas, so concurrent adjustments on different devices add up
+ *   instead of overwriting each other. An insert carries its starting quantity.
+ * - Items are named by their sync ID, which is the same on every device.
+ */
+public final class SyncChange {
+
+    public final int op;             // ItemChange.OP_INSERT, OP_UPDATE or OP_DELETE
+    public final String syncId;
+    public final String name;        // New name, or null if unchanged (always set on insert)
+    public final int quantityDelta;  // Starting quantity for inserts; 0 for deletes
+    public final String deviceId;    // Device that made the change
+    public final long clientSeq;     // Journal sequence number on that device
+    public final long serverSeq;     // Order assigned by the server; 0 until pushed
+
+    public SyncChange(int op, String syncId, String name, int quantityDelta,
+                      String deviceId, long clientSeq, long serverSeq) {
+        this.op = op;
+        this.syncId = syncId;
+        this.name = name;
+        this.quantityDelta = quantityDelta;
+        this.deviceId = deviceId;
+        this.clientSeq = clientSeq;
+        this.serverSeq = serverSeq;
+    }
+
+    /**
+     * Returns the quantity delta a journal entry travels as: an insert's starting quantity,
+     * an update's change, and 0 for a delete.
+     */
+    static int journalDelta(int op, int oldQuantity, int newQuantity) {
+        if (op == ItemChange.OP_INSERT) {
+            return newQuantity;
+        }
+        return op == ItemChange.OP_UPDATE ? newQuantity - oldQuantity : 0;
+    }
+
+    /**
+     * Returns a copy carrying the server's sequence number.
+     */
+    public SyncChange withServerSeq(long serverSeq) {
+        return new SyncChange(op, syncId, name, quantityDelta, deviceId, clientSeq, serverSeq);
+    }
+
+    @Override
+    public String toString() {
+        return "SyncChange{op=" + op + ", syncId=" + syncId + ", name=" + name + ", quantityDelta="
+                + quantityDelta + ", deviceId=" + deviceId + ", clientSeq=" + clientSeq
+                + ", serverSeq=" + serverSeq + "}";
+    }
+}
@@ -0,0 +1,69 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+/**
+ * SyncResolver:
+ * - Decides, per item, how a pulled change applies to local state. Every device applies
+ *   the server's log in the same order with the same rules, so all of them converge:
+ * - Quantities merge: deltas from other devices are added, so no adjustment is lost.
+ *   This device's own deltas are already applied and are skipped.
+ * - Names are last-writer-wins in server order. A local rename that has not been pushed
+ *   yet is kept, since it will reach the server later than the pulled one.
+ * - Deletes win: once an item is deleted, later updates to it are ignored everywhere.
+ */
+public final class SyncResolver {
+
+    // Resolution actions
+    public static final int SKIP = 0;
+    public static final int INSERT = 1;
+    public static final int UPDATE = 2;
+    public static final int DELETE = 3;
+
+    /**
+     * What to do with one pulled change.
+     */
+    public static final class Resolution {
+        public final int action;
+        public final String name;        // Name to set, or null to keep the local one
+        public final int quantityDelta;  // Added to the local quantity; the starting quantity for INSERT
+
+        Resolution(int action, String name, int quantityDelta) {
+            this.action = action;
+            this.name = name;
+            this.quantityDelta = quantityDelta;
+        }
+    }
+
+    private static final Resolution SKIP_CHANGE = new Resolution(SKIP, null, 0);
+
+    private SyncResolver() {
+    }
+
+    /**
+     * Resolves a pulled change against local state.
+     *
+     * @param change              The pulled change.
+     * @param ownChange           True if this device made the change.
+     * @param existsLocally       True if an item with the change's sync ID exists here.
+     * @param localRenamePending  True if this device renamed the item and has not pushed it yet.
+     */
+    public static Resolution resolve(SyncChange change, boolean ownChange, boolean existsLocally,
+                                     boolean localRenamePending) {
+        switch (change.op) {
+            case ItemChange.OP_INSERT:
+                // Our own inserts already exist (or were deleted since)
+                return ownChange || existsLocally ? SKIP_CHANGE
+                        : new Resolution(INSERT, change.name, change.quantityDelta);
+            case ItemChange.OP_UPDATE:
+                if (!existsLocally) {
+                    return SKIP_CHANGE; // Deleted here, or deleted before we ever saw it
+                }
+                String name = localRenamePending ? null : change.name;
+                int delta = ownChange ? 0 : change.quantityDelta;
+                return name == null && delta == 0 ? SKIP_CHANGE : new Resolution(UPDATE, name, delta);
+            case ItemChange.OP_DELETE:
+                return !ownChange && existsLocally ? new Resolution(DELETE, null, 0) : SKIP_CHANGE;
+            default:
+                return SKIP_CHANGE; // Unknown op from a newer client
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import java.util.List;
+
+/**
+ * SyncStore:
+ * - The local side of sync: unpushed changes out, pulled changes in, and the two
+ *   sequence-number checkpoints that make both directions resumable.
+ * - SqliteSyncStore implements it over the inventory database, with the statements in
+ *   InventorySql, so a JDBC store can run and test the same SQL on the JVM.
+ */
+public interface SyncStore {
+
+    /**
+     * Returns this device's stable sync ID for the current account, and scopes every other
+     * method to that account until the next call, so one sync cycle never mixes accounts.
+     */
+    String getDeviceId();
+
+    /**
+     * Returns the server's key for the account {@link #getDeviceId} scoped the store to. It
+     * is the same on every device the account uses, and the server keeps a separate change
+     * stream for each key.
+     */
+    String getAccountKey();
+
+    /**
+     * Returns up to {@code limit} local changes not yet acknowledged by the server, oldest
+     * first. Changes that were themselves pulled from the server are never included.
+     */
+    List<SyncChange> getPendingChanges(int limit);
+
+    /**
+     * Records that the server holds every local change up to {@code clientSeq}.
+     */
+    void markPushed(long clientSeq);
+
+    /**
+     * Returns the server sequence number of the last pulled change applied here.
+     */
+    long getPullCheckpoint();
+
+    /**
+     * Applies pulled changes (resolving conflicts with {@link SyncResolver}) and advances
+     * the pull checkpoint to {@code lastServerSeq}, atomically.
+     */
+    void applyRemoteChanges(List<SyncChange> changes, long lastServerSeq);
+}
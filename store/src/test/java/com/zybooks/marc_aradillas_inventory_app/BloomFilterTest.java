@@ -0,0 +1,62 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * BloomFilterTest:
+ * - Checks every added string is reported present and absent strings come back present
+ *   at about the rate the filter was sized for.
+ * - Checks saturation is reported once the filter holds more than its capacity.
+ */
+public class BloomFilterTest {
+
+    private static final int CAPACITY = 100_000;
+
+    @Test
+    public void neverMissesAnAddedString() {
+        BloomFilter filter = new BloomFilter(CAPACITY, 0.01);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("SKU" + i);
+        }
+        for (int i = 0; i < CAPACITY; i++) {
+            Assert.assertTrue(filter.mightContain("SKU" + i));
+        }
+        Assert.assertEquals(CAPACITY, filter.size());
+        Assert.assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    public void falsePositiveRateMatchesSizing() {
+        BloomFilter filter = new BloomFilter(CAPACITY, 0.01);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("SKU" + i);
+        }
+        int falsePositives = 0;
+        for (int i = CAPACITY; i < CAPACITY * 2; i++) {
+            if (filter.mightContain("SKU" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / CAPACITY;
+        Assert.assertTrue("rate " + rate, rate > 0.005 && rate < 0.015);
+        // About 9.6 bits per string at 1%
+        Assert.assertTrue(filter.footprintBytes() < CAPACITY * 10 / 8 + 8);
+    }
+
+    @Test
+    public void saturatesPastCapacity() {
+        BloomFilter filter = new BloomFilter(10, 0.01);
+        for (int i = 0; i < 10; i++) {
+            filter.put("SKU" + i);
+        }
+        Assert.assertFalse(filter.isSaturated());
+        filter.put("SKU10");
+        Assert.assertTrue(filter.isSaturated());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRateOfOne() {
+        new BloomFilter(CAPACITY, 1);
+    }
+}
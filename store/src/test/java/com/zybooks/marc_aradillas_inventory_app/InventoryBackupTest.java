@@ -0,0 +1,138 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * InventoryBackupTest:
+ * - Checks items and users read back from a backup match what was written, across more
+ *   records than fit in one buffer.
+ * - Checks damaged backups fail verification: a changed byte, a cut-off stream, out-of-order
+ *   IDs and data that is not a backup at all.
+ */
+public class InventoryBackupTest {
+
+    private static final int ITEMS = 20_000; // Several buffer refills
+
+    @Test
+    public void roundTripsItemsAndUsers() throws IOException {
+        byte[] backup = write(ITEMS);
+
+        try (InventoryBackup.Reader reader = new InventoryBackup.Reader(Channels.newChannel(
+                new ByteArrayInputStream(backup)))) {
+            Assert.assertTrue(reader.hasUsers());
+            for (int i = 1; i <= ITEMS; i++) {
+                Assert.assertEquals(InventoryBackup.RECORD_ITEM, reader.next());
+                Assert.assertEquals(i * 2, reader.getItemId());
+                Assert.assertEquals(name(i), reader.getName());
+                Assert.assertEquals(i - ITEMS / 2, reader.getQuantity());
+                Assert.assertEquals(i % 10 == 0 ? null : "sync" + i, reader.getSyncId());
+                Assert.assertEquals(i % 4 == 0 ? null : "SKU" + i, reader.getSku());
+            }
+            Assert.assertEquals(InventoryBackup.RECORD_USER, reader.next());
+            Assert.assertEquals(7L, reader.getUserId());
+            Assert.assertEquals("admin", reader.getUsername());
+            Assert.assertEquals("pbkdf2$hash", reader.getPasswordHash());
+            Assert.assertEquals(InventoryBackup.RECORD_END, reader.next());
+            Assert.assertEquals(InventoryBackup.RECORD_END, reader.next());
+
+            InventoryBackup.Stats stats = reader.finish();
+            Assert.assertEquals(ITEMS, stats.items);
+            Assert.assertEquals(1, stats.users);
+            Assert.assertEquals(backup.length, stats.compressedBytes);
+            Assert.assertTrue(stats.rawBytes > stats.compressedBytes);
+        }
+    }
+
+    @Test
+    public void emptyBackupVerifies() throws IOException {
+        InventoryBackup.Stats stats = InventoryBackup.verify(Channels.newChannel(new ByteArrayInputStream(write(0))));
+        Assert.assertEquals(0, stats.items);
+        Assert.assertEquals(1, stats.users);
+    }
+
+    @Test
+    public void changedByteFailsTheChecksum() throws IOException {
+        byte[] payload = gunzip(write(ITEMS));
+        int at = payload.length / 2;
+        while (payload[at] != 'w') { // A name byte, so the record still parses
+            at++;
+        }
+        payload[at] = 'W';
+        try {
+            InventoryBackup.verify(Channels.newChannel(new ByteArrayInputStream(gzip(payload))));
+            Assert.fail("Changed backup verified");
+        } catch (IOException e) {
+            Assert.assertEquals("Backup checksum mismatch", e.getMessage());
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedBackupFails() throws IOException {
+        byte[] payload = gunzip(write(ITEMS));
+        byte[] truncated = gzip(Arrays.copyOf(payload, payload.length - 10));
+        InventoryBackup.verify(Channels.newChannel(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        byte[] text = gzip("id,name,quantity\n1,bolt,4\n".getBytes("UTF-8"));
+        InventoryBackup.verify(Channels.newChannel(new ByteArrayInputStream(text)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void writerRejectsOutOfOrderIds() throws IOException {
+        try (InventoryBackup.Writer writer = new InventoryBackup.Writer(
+                Channels.newChannel(new ByteArrayOutputStream()), false)) {
+            writer.writeItem(2, "b", 1, null, null);
+            writer.writeItem(1, "a", 1, null, null);
+        }
+    }
+
+    // Items with even IDs 2..2n, then one user
+    private static byte[] write(int items) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InventoryBackup.Writer writer = new InventoryBackup.Writer(Channels.newChannel(out), true)) {
+            for (int i = 1; i <= items; i++) {
+                writer.writeItem(i * 2, name(i), i - ITEMS / 2, i % 10 == 0 ? null : "sync" + i,
+                        i % 4 == 0 ? null : "SKU" + i);
+            }
+            writer.writeUser(7, "admin", "pbkdf2$hash");
+            InventoryBackup.Stats stats = writer.finish();
+            Assert.assertEquals(items, stats.items);
+        }
+        return out.toByteArray();
+    }
+
+    private static String name(int i) {
+        return i % 3 == 0 ? "\u00e9crou \u516d\u89d2 " + i : "widget " + i;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+}
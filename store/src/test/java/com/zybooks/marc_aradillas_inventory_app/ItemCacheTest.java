@@ -0,0 +1,152 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * ItemCacheTest:
+ * - Runs random gets, puts and invalidations against ItemCache and an access-ordered
+ *   LinkedHashMap model, checking every result, the size and the counters agree.
+ * - Checks the least recently used entry is the one evicted, and that stale reads are not
+ *   cached by putIfUnmodified.
+ */
+public class ItemCacheTest {
+
+    private static final int OPERATIONS = 200_000;
+
+    // Access-ordered reference: iteration starts at the least recently used entry. Wraps
+    // the map rather than extending it, so it needs no serialVersionUID
+    private static final class Model {
+        final Map<Integer, Item> entries = new LinkedHashMap<>(16, 0.75f, true);
+        final int capacity;
+        long evictions;
+
+        Model(int capacity) {
+            this.capacity = capacity;
+        }
+
+        Item get(int id) {
+            return entries.get(id);
+        }
+
+        void put(int id, Item item) {
+            entries.put(id, item);
+            if (entries.size() > capacity) {
+                Iterator<Integer> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions++;
+            }
+        }
+
+        void remove(int id) {
+            entries.remove(id);
+        }
+
+        void clear() {
+            entries.clear();
+        }
+
+        int size() {
+            return entries.size();
+        }
+    }
+
+    @Test
+    public void matchesReferenceModel() {
+        for (int capacity : new int[]{1, 7, 64}) {
+            runRandomOps(capacity, new Random(capacity));
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ItemCache cache = new ItemCache(3);
+        cache.put(item(1));
+        cache.put(item(2));
+        cache.put(item(3));
+        Assert.assertNotNull(cache.get(1)); // 2 is now the least recently used
+        cache.put(item(4));
+        Assert.assertNull(cache.get(2));
+        Assert.assertNotNull(cache.get(1));
+        Assert.assertNotNull(cache.get(3));
+        Assert.assertNotNull(cache.get(4));
+
+        cache.put(item(3));                 // Replacing counts as a use: 1 is evicted next
+        cache.put(item(5));
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(2, cache.evictionCount());
+        Assert.assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void staleReadIsNotCached() {
+        ItemCache cache = new ItemCache(4);
+        long stamp = cache.stamp();
+        cache.invalidate(1); // A write lands between the disk read and the put
+        cache.putIfUnmodified(item(1), stamp);
+        Assert.assertNull(cache.get(1));
+
+        stamp = cache.stamp();
+        cache.putIfUnmodified(item(1), stamp);
+        Assert.assertNotNull(cache.get(1));
+    }
+
+    private static void runRandomOps(int capacity, Random random) {
+        ItemCache cache = new ItemCache(capacity);
+        Model model = new Model(capacity);
+        int keyRange = capacity * 3; // Enough misses and evictions to exercise every path
+        long hits = 0;
+        long misses = 0;
+        for (int op = 0; op < OPERATIONS; op++) {
+            // Negative and far-apart IDs share buckets with small ones
+            int id = random.nextInt(keyRange) * (random.nextBoolean() ? 1 : -1 << 20);
+            int choice = random.nextInt(100);
+            if (choice < 45) {
+                Item expected = model.get(id);
+                Assert.assertSame("get " + id + " at op " + op, expected, cache.get(id));
+                if (expected == null) {
+                    misses++;
+                } else {
+                    hits++;
+                }
+            } else if (choice < 85) {
+                Item item = new Item(id, "Item " + op, op);
+                cache.put(item);
+                model.put(id, item);
+            } else if (choice < 99) {
+                cache.invalidate(id);
+                model.remove(id);
+            } else {
+                cache.invalidateAll();
+                model.clear();
+            }
+            Assert.assertEquals("size at op " + op, model.size(), cache.size());
+        }
+        Assert.assertEquals(hits, cache.hitCount());
+        Assert.assertEquals(misses, cache.missCount());
+        Assert.assertEquals(model.evictions, cache.evictionCount());
+
+        // Fill up with new IDs, then each further put must evict the model's next eldest
+        List<Integer> lruOrder = new ArrayList<>(model.entries.keySet());
+        int filler = Integer.MAX_VALUE;
+        while (cache.size() < capacity) {
+            cache.put(new Item(filler--, "Filler", 0));
+        }
+        for (int eldest : lruOrder) {
+            cache.put(new Item(filler--, "Filler", 0));
+            Assert.assertNull("evicted " + eldest, cache.get(eldest));
+        }
+    }
+
+    private static Item item(int id) {
+        return new Item(id, "Item " + id, id);
+    }
+}
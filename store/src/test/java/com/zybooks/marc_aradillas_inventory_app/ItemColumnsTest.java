@@ -0,0 +1,90 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ItemColumnsTest:
+ * - Checks rows read back from the columns, as Items and through a reused ItemRow, match
+ *   what was stored, across edits, removals and arena compaction.
+ */
+public class ItemColumnsTest {
+
+    @Test
+    public void roundTripsNamesInAnyScript() {
+        List<Item> items = Arrays.asList(new Item(1, "bolt", 10), new Item(2, "", 0),
+                new Item(3, "\u00e9crou", -5), new Item(4, "\u516d\u89d2\u30dc\u30eb\u30c8", Integer.MIN_VALUE),
+                new Item(5, "box \ud83d\udce6", Integer.MAX_VALUE));
+        ItemColumns columns = ItemColumns.of(items);
+        Assert.assertEquals(items.size(), columns.size());
+
+        ItemRow row = new ItemRow();
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            Assert.assertEquals(item, columns.get(i));
+            columns.readRow(i, row);
+            Assert.assertEquals(item, row.toItem());
+            Assert.assertEquals(String.valueOf(item.getQuantity()), new String(row.getQuantityChars(),
+                    row.getQuantityStart(), row.getQuantityLength()));
+        }
+    }
+
+    @Test
+    public void rowBufferGrowsForLongNames() {
+        char[] longName = new char[500];
+        Arrays.fill(longName, 'x');
+        ItemColumns columns = new ItemColumns(0);
+        columns.add(1, "short", 1);
+        columns.add(2, new String(longName), 2);
+
+        ItemRow row = new ItemRow();
+        columns.readRow(1, row);
+        Assert.assertEquals(500, row.getNameLength());
+        columns.readRow(0, row);
+        Assert.assertEquals("short", new String(row.getNameChars(), 0, row.getNameLength()));
+    }
+
+    @Test
+    public void editsAndRemovalsKeepOtherRows() {
+        List<Item> expected = new ArrayList<>();
+        ItemColumns columns = new ItemColumns(0);
+        for (int i = 1; i <= 1_000; i++) {
+            columns.add(i, "item " + i, i);
+            expected.add(new Item(i, "item " + i, i));
+        }
+
+        // Enough renames and removals to compact the arena several times
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < expected.size(); i += 3) {
+                Item item = expected.get(i);
+                Item renamed = new Item(item.getId(), "renamed " + round + " " + item.getId(), round);
+                columns.set(i, renamed.getName(), renamed.getQuantity());
+                expected.set(i, renamed);
+            }
+            for (int i = expected.size() - 1; i >= 0; i -= 7) {
+                columns.remove(i);
+                expected.remove(i);
+            }
+        }
+        columns.setQuantity(0, 42);
+        expected.set(0, new Item(expected.get(0).getId(), expected.get(0).getName(), 42));
+
+        Assert.assertEquals(expected.size(), columns.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i), columns.get(i));
+        }
+        Assert.assertEquals(1, columns.indexOfId(expected.get(1).getId()));
+        Assert.assertEquals(-1, columns.indexOfId(-1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsIndexPastTheEnd() {
+        ItemColumns columns = new ItemColumns(4);
+        columns.add(1, "bolt", 1);
+        columns.get(1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.zybooks.marc_aradillas_inventory_app;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ItemQueryTest:
+ * - Checks the SQL and parameters queries compile to: the owner, only the clauses that are
+ *   set, the ID tie-break, and name prefix bounds that match NOCASE ordering.
+ */
+public class ItemQueryTest {
+
+    @Test
+    public void plainQueryIsIdOrder() {
+        Assert.assertTrue(ItemQuery.ALL.isIdOrderUnfiltered());
+        Assert.assertEquals("SELECT id, name, quantity FROM items WHERE owner_id = ? ORDER BY id ASC",
+                ItemQuery.ALL.sql());
+        Assert.assertArrayEquals(new String[]{"7"}, ItemQuery.ALL.args(7));
+        Assert.assertEquals(ItemQuery.ALL, ItemQuery.ALL.sortedBy(ItemQuery.Field.ID, false));
+    }
+
+    @Test
+    public void sortKeysThenIdTieBreak() {
+        ItemQuery query = ItemQuery.ALL.sortedBy(ItemQuery.Field.QUANTITY, false)
+                .sortedBy(ItemQuery.Field.NAME, true);
+        Assert.assertFalse(query.isIdOrderUnfiltered());
+        Assert.assertTrue(query.sql(), query.sql().endsWith(
+                " ORDER BY quantity ASC, name COLLATE NOCASE DESC, id DESC"));
+
+        // A quantity sort breaks ties by name first, the order of the quantity index
+        ItemQuery byQuantity = ItemQuery.ALL.sortedBy(ItemQuery.Field.QUANTITY, true);
+        Assert.assertTrue(byQuantity.sql(), byQuantity.sql().endsWith(
+                " ORDER BY quantity DESC, name COLLATE NOCASE DESC, id DESC"));
+
+        // Nothing after a sort on ID could ever apply
+        ItemQuery byId = ItemQuery.ALL.sortedBy(ItemQuery.Field.ID, true).sortedBy(ItemQuery.Field.NAME, false);
+        Assert.assertTrue(byId.sql(), byId.sql().endsWith(" ORDER BY id DESC"));
+    }
+
+    @Test
+    public void filtersAndLimitBindInOrder() {
+        ItemQuery query = ItemQuery.ALL.withQuantityBelow(6).withNamePrefix("Bo%").withLimit(50);
+        Assert.assertEquals("SELECT id, name, quantity FROM items WHERE owner_id = ? AND quantity BETWEEN ? AND ?"
+                + " AND name >= ? COLLATE NOCASE AND name < ? COLLATE NOCASE AND name LIKE ? ESCAPE '\\'"
+                + " ORDER BY id ASC LIMIT ?", query.sql());
+        Assert.assertArrayEquals(new String[]{"3", String.valueOf(Integer.MIN_VALUE), "5", "bo%", "bo&", "Bo\\%%", "50"},
+                query.args(3));
+        Assert.assertEquals("id +qty +prefix +limit", query.toString());
+    }
+
+    @Test
+    public void belowMinValueMatchesNothing() {
+        ItemQuery query = ItemQuery.ALL.withQuantityBelow(Integer.MIN_VALUE);
+        Assert.assertFalse(query.isIdOrderUnfiltered());
+        Assert.assertTrue(query.sql(), query.sql().contains(" AND quantity BETWEEN ? AND ?"));
+        Assert.assertArrayEquals(new String[]{"0", String.valueOf(Integer.MAX_VALUE), String.valueOf(Integer.MIN_VALUE)},
+                query.args(0));
+
+        Assert.assertArrayEquals(new String[]{"0", String.valueOf(Integer.MIN_VALUE), String.valueOf(Integer.MIN_VALUE)},
+                ItemQuery.ALL.withQuantityBelow(Integer.MIN_VALUE + 1).args(0));
+    }
+
+    @Test
+    public void prefixBoundsFoldAsciiCaseOnly() {
+        // "Z" must bound as "{" (after "z"), not "[" (before every lower-case letter)
+        Assert.assertEquals("{", ItemQuery.ALL.withNamePrefix("Z").args(0)[2]);
+        Assert.assertEquals("\u00c9", ItemQuery.ALL.withNamePrefix("\u00c9").args(0)[1]);
+
+        // No string sorts above a run of the highest character, so there is no upper bound
+        ItemQuery unbounded = ItemQuery.ALL.withNamePrefix("\uffff");
+        Assert.assertFalse(unbounded.sql(), unbounded.sql().contains("name < ?"));
+        Assert.assertEquals(3, unbounded.args(0).length);
+        Assert.assertEquals("b", ItemQuery.ALL.withNamePrefix("a\uffff").args(0)[2]);
+    }
+}